@@ -26,6 +26,7 @@ public class JIPipeCLIHelp {
         System.out.println("    --overwrite-user-directories <JSON file>                                       Read user directory overrides from a JSON file (object with key to value pairing)");
         System.out.println("    --U<User directory key> <User directory value>                                 Overrides one user directory key with the specified directory");
         System.out.println("    --output-results <all/none/only-compartment-outputs>                           Determines which standard JIPipe outputs are written (default: all)");
+        System.out.println("    --record-profile                                                               Records per-node run times and resource usage, prints a summary, and writes run-profile.json/csv and a Chrome trace into the output folder");
         System.out.println();
         System.out.println("render <options>");
         System.out.println("    Renders the pipeline and saves the output to a PNG file.");
@@ -33,6 +34,21 @@ public class JIPipeCLIHelp {
         System.out.println("    --compartment <Name/UUID>                                                      The name or UUID of the compartment");
         System.out.println("    --output <PNG file>                                                            Sets the output PNG file");
         System.out.println();
+        System.out.println("serve <options>");
+        System.out.println("    Initializes JIPipe once and executes run requests (JSON) received via a local socket or a spool directory.");
+        System.out.println("    Requests: {\"project\": <Project file>, \"output-folder\": <Output folder>, \"num-threads\": N, \"output-results\": <all/none/only-compartment-outputs>,");
+        System.out.println("               \"parameters\": {<Node ID>/<Parameter ID>: <Value>}, \"user-directories\": {<Key>: <Directory>}, \"wait\": <true/false>, \"record-profile\": <true/false>}");
+        System.out.println("    --spool-dir <Directory>                                                        Watches the directory for *.json requests (moved into processing/done/failed)");
+        System.out.println("    --port <Port>                                                                  Accepts one-line JSON requests on the local (loopback) TCP port");
+        System.out.println();
+        System.out.println("    Optional parameters:");
+        System.out.println("    --num-threads <N=1,2,...>                                                      Sets the default maximum number of threads per run");
+        System.out.println("    --max-concurrent-runs <N=1,2,...>                                              Sets the number of runs that are executed at the same time (default: 1)");
+        System.out.println("    --queue-size <N=1,2,...>                                                       Sets the maximum number of queued runs (default: 64)");
+        System.out.println("    --poll-interval <Milliseconds>                                                 Sets the interval for checking the spool directory (default: 1000)");
+        System.out.println("    --shutdown-timeout <Seconds>                                                   Sets how long cancelled runs may take to finish on shutdown (default: 30)");
+        System.out.println("    --wait-timeout <Seconds>                                                       Sets how long socket clients with \"wait\": true wait for the run (default: 3600)");
+        System.out.println();
         System.out.println("Advanced settings:");
         System.out.println("--verbose                                                                          Print all initialization logs (a lot of text)");
         System.out.println("--profile-dir                                                                      Sets the directory for the JIPipe profile (location of settings, artifacts, etc.)");
@@ -51,6 +51,15 @@ public class JIPipeCLIMain {
             // remove run
             argsList.remove(0);
             JIPipeCLIPipelineRender.doRenderPipeline(argsList);
+        } else if (argsList.contains("serve")) {
+            int serveIndex = argsList.lastIndexOf("serve");
+            while (serveIndex > 0) {
+                argsList.remove(0);
+                --serveIndex;
+            }
+            // remove serve
+            argsList.remove(0);
+            JIPipeCLIServer.doServe(argsList);
         } else {
             JIPipeCLIHelp.showHelp();
         }
@@ -43,6 +43,7 @@ public class JIPipeCLIPipelineRun {
 
         boolean verbose = false;
         boolean fastInit = false;
+        boolean recordProfile = false;
         Path overrideProfileDir = null;
 
         Map<String, String> parameterOverrides = new HashMap<>();
@@ -58,6 +59,9 @@ public class JIPipeCLIPipelineRun {
             } else if (arg.equals("--verbose")) {
                 verbose = true;
                 success = true;
+            } else if (arg.equals("--record-profile")) {
+                recordProfile = true;
+                success = true;
             }
 
             // Delete the flag
@@ -143,15 +147,7 @@ public class JIPipeCLIPipelineRun {
             JIPipe.OVERRIDE_USER_DIR_BASE = overrideProfileDir;
         }
 
-        final ImageJ ij = new ImageJ();
-        JIPipe jiPipe = JIPipe.createInstance(ij.context(), JIPipeMode.Headless);
-        JIPipeExtensionApplicationSettings extensionSettings = JIPipeExtensionApplicationSettings.getInstanceFromRaw();
-        extensionSettings.setSilent(true);
-        if (fastInit) {
-            extensionSettings.setValidateNodeTypes(false);
-        }
-        JIPipeRegistryIssues issues = new JIPipeRegistryIssues();
-        jiPipe.initialize(extensionSettings, issues, verbose);
+        initializeJIPipe(verbose, fastInit);
 
         JIPipeValidationReport projectIssues = new JIPipeValidationReport();
         JIPipeNotificationInbox notifications = new JIPipeNotificationInbox();
@@ -162,7 +158,67 @@ public class JIPipeCLIPipelineRun {
             throw new RuntimeException(e);
         }
 
-        // Overwrite parameters
+        applyParameterOverrides(project, parameterOverrides);
+        applyUserDirectoryOverrides(project, userDirectoryOverrides);
+
+        project.reportValidity(new UnspecifiedValidationReportContext(), projectIssues);
+        projectIssues.print();
+
+        if (!notifications.isEmpty()) {
+            System.err.println("The following notifications were generated:");
+            for (JIPipeNotification notification : notifications.getNotifications()) {
+                System.err.println("- " + notification.getHeading() + " [" + notification.getId() + "]");
+                System.err.println("  " + notification.getDescription());
+                if (!notification.getActions().isEmpty()) {
+                    System.err.println("  -->> GUI actions detected. Please run the JIPipe GUI to execute them");
+                }
+            }
+        }
+
+        if (outputFolder == null) {
+            System.out.println("No output folder provided.");
+            outputFolder = project.newTemporaryDirectory("output");
+            System.out.println("Output files will be written into: " + outputFolder);
+        }
+
+        JIPipeGraphRunConfiguration settings = createRunConfiguration(project, outputFolder, numThreads, saveToDisk, saveToDiskOnlyCompartments);
+        settings.setRecordProfile(recordProfile);
+
+        JIPipeGraphRun run = new JIPipeGraphRun(project, settings);
+        run.getProgressInfo().setLogToStdOut(true);
+        run.run();
+
+//        System.exit(0); // unreliable due to bug in scijava
+        Runtime.getRuntime().halt(0);
+    }
+
+    /**
+     * Creates the JIPipe instance and initializes all plugins in headless mode
+     *
+     * @param verbose  print all initialization logs
+     * @param fastInit skip the validation of node types
+     * @return the JIPipe instance
+     */
+    public static JIPipe initializeJIPipe(boolean verbose, boolean fastInit) {
+        final ImageJ ij = new ImageJ();
+        JIPipe jiPipe = JIPipe.createInstance(ij.context(), JIPipeMode.Headless);
+        JIPipeExtensionApplicationSettings extensionSettings = JIPipeExtensionApplicationSettings.getInstanceFromRaw();
+        extensionSettings.setSilent(true);
+        if (fastInit) {
+            extensionSettings.setValidateNodeTypes(false);
+        }
+        JIPipeRegistryIssues issues = new JIPipeRegistryIssues();
+        jiPipe.initialize(extensionSettings, issues, verbose);
+        return jiPipe;
+    }
+
+    /**
+     * Overrides node and global parameters of a project
+     *
+     * @param project            the project
+     * @param parameterOverrides map from [Node ID]/[Parameter ID] to the parameter value (JSON). Global parameters have an empty node ID.
+     */
+    public static void applyParameterOverrides(JIPipeProject project, Map<String, String> parameterOverrides) {
         for (Map.Entry<String, String> entry : parameterOverrides.entrySet()) {
             String[] components = entry.getKey().split("/");
             String nodeId = components[0];
@@ -202,33 +258,32 @@ public class JIPipeCLIPipelineRun {
 
             access.set(value);
         }
+    }
 
-        // Overwrite user directories
+    /**
+     * Overrides user directories of a project
+     *
+     * @param project                the project
+     * @param userDirectoryOverrides map from the user directory key to the directory
+     */
+    public static void applyUserDirectoryOverrides(JIPipeProject project, Map<String, Path> userDirectoryOverrides) {
         for (Map.Entry<String, Path> entry : userDirectoryOverrides.entrySet()) {
             System.out.println("Setting user directory " + entry.getKey() + "=" + entry.getValue());
             project.getMetadata().getDirectories().setUserDirectory(entry.getKey(), entry.getValue());
         }
+    }
 
-        project.reportValidity(new UnspecifiedValidationReportContext(), projectIssues);
-        projectIssues.print();
-
-        if (!notifications.isEmpty()) {
-            System.err.println("The following notifications were generated:");
-            for (JIPipeNotification notification : notifications.getNotifications()) {
-                System.err.println("- " + notification.getHeading() + " [" + notification.getId() + "]");
-                System.err.println("  " + notification.getDescription());
-                if (!notification.getActions().isEmpty()) {
-                    System.err.println("  -->> GUI actions detected. Please run the JIPipe GUI to execute them");
-                }
-            }
-        }
-
-        if (outputFolder == null) {
-            System.out.println("No output folder provided.");
-            outputFolder = project.newTemporaryDirectory("output");
-            System.out.println("Output files will be written into: " + outputFolder);
-        }
-
+    /**
+     * Creates the run configuration for a CLI run
+     *
+     * @param project                    the project
+     * @param outputFolder               the output folder
+     * @param numThreads                 the number of threads
+     * @param saveToDisk                 if results should be written to the disk
+     * @param saveToDiskOnlyCompartments if only compartment outputs should be written
+     * @return the run configuration
+     */
+    public static JIPipeGraphRunConfiguration createRunConfiguration(JIPipeProject project, Path outputFolder, int numThreads, boolean saveToDisk, boolean saveToDiskOnlyCompartments) {
         JIPipeGraphRunConfiguration settings = new JIPipeGraphRunConfiguration();
         settings.setNumThreads(numThreads);
         settings.setOutputPath(outputFolder);
@@ -241,12 +296,6 @@ public class JIPipeCLIPipelineRun {
                 }
             }
         }
-
-        JIPipeGraphRun run = new JIPipeGraphRun(project, settings);
-        run.getProgressInfo().setLogToStdOut(true);
-        run.run();
-
-//        System.exit(0); // unreliable due to bug in scijava
-        Runtime.getRuntime().halt(0);
+        return settings;
     }
 }
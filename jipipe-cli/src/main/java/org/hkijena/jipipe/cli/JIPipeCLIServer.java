@@ -0,0 +1,572 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import org.hkijena.jipipe.JIPipe;
+import org.hkijena.jipipe.api.project.JIPipeProject;
+import org.hkijena.jipipe.api.run.JIPipeGraphRun;
+import org.hkijena.jipipe.api.run.JIPipeGraphRunConfiguration;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReport;
+import org.hkijena.jipipe.api.validation.contexts.UnspecifiedValidationReportContext;
+import org.hkijena.jipipe.utils.PathUtils;
+import org.hkijena.jipipe.utils.StringUtils;
+import org.hkijena.jipipe.utils.json.JsonUtils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Long-running server mode of the JIPipe CLI.
+ * JIPipe is initialized only once and run requests are accepted via a local socket and/or a watched spool directory.
+ * Requests are JSON objects with following properties:
+ * <ul>
+ *     <li>project (required): path to the project file</li>
+ *     <li>output-folder: the output folder (a new temporary directory is created if not set)</li>
+ *     <li>num-threads: the number of threads for the run</li>
+ *     <li>output-results: all, none, or only-compartment-outputs</li>
+ *     <li>parameters: object of [Node ID]/[Parameter ID] to parameter value (JSON)</li>
+ *     <li>user-directories: object of user directory key to directory</li>
+ *     <li>wait: (socket only) if the connection should be kept open until the run finished (limited by the wait timeout)</li>
+ * </ul>
+ * Each run loads its own project instance, does not store into any cache, and writes its scratch data into its own output folder.
+ * On shutdown, queued runs are cancelled (spooled requests are moved back into the spool directory) and running runs are cancelled
+ * and given a limited time to finish.
+ */
+public class JIPipeCLIServer {
+
+    /**
+     * Interval for checking if a waiting socket client disconnected
+     */
+    private static final long WAIT_POLL_INTERVAL_MILLIS = 500;
+
+    private final int numThreads;
+    private final long shutdownTimeoutSeconds;
+    private final long waitTimeoutSeconds;
+    private final ThreadPoolExecutor runExecutor;
+    private final AtomicInteger runCounter = new AtomicInteger();
+    private final Set<JIPipeGraphRun> activeRuns = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Path> pendingSpoolRequests = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Creates a new server
+     *
+     * @param numThreads             default number of threads per run
+     * @param maxConcurrentRuns      number of runs that are executed at the same time
+     * @param queueSize              maximum number of runs that are waiting for execution
+     * @param shutdownTimeoutSeconds time given to cancelled runs to finish on shutdown
+     * @param waitTimeoutSeconds     maximum time a socket client waits for the run to finish
+     */
+    public JIPipeCLIServer(int numThreads, int maxConcurrentRuns, int queueSize, long shutdownTimeoutSeconds, long waitTimeoutSeconds) {
+        this.numThreads = numThreads;
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+        this.waitTimeoutSeconds = waitTimeoutSeconds;
+        this.runExecutor = new ThreadPoolExecutor(maxConcurrentRuns,
+                maxConcurrentRuns,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "jipipe-cli-server-run");
+                    thread.setDaemon(false);
+                    return thread;
+                });
+    }
+
+    public static void doServe(List<String> argsList) {
+        Path spoolDirectory = null;
+        int port = -1;
+        int numThreads = 1;
+        int maxConcurrentRuns = 1;
+        int queueSize = 64;
+        long pollInterval = 1000;
+        long shutdownTimeout = 30;
+        long waitTimeout = 3600;
+
+        boolean verbose = false;
+        boolean fastInit = false;
+        Path overrideProfileDir = null;
+
+        // Parse flags
+        for (int i = 0; i < argsList.size(); i++) {
+            String arg = argsList.get(i);
+            boolean success = false;
+            if (arg.equals("--fast-init")) {
+                fastInit = true;
+                success = true;
+            } else if (arg.equals("--verbose")) {
+                verbose = true;
+                success = true;
+            }
+
+            // Delete the flag
+            if (success) {
+                argsList.remove(i);
+                --i;
+            }
+        }
+
+        // Parse key value pairs
+        for (int i = 0; i < argsList.size(); i += 2) {
+            String arg = argsList.get(i);
+            if (i + 1 >= argsList.size()) {
+                System.err.println("Missing value for argument: " + arg);
+                JIPipeCLIHelp.showHelp();
+                return;
+            }
+            String value = argsList.get(i + 1);
+            if (arg.equals("--spool-dir")) {
+                spoolDirectory = Paths.get(value);
+            } else if (arg.equals("--port")) {
+                port = Integer.parseInt(value);
+            } else if (arg.equals("--num-threads")) {
+                numThreads = Integer.parseInt(value);
+            } else if (arg.equals("--max-concurrent-runs")) {
+                maxConcurrentRuns = Integer.parseInt(value);
+            } else if (arg.equals("--queue-size")) {
+                queueSize = Integer.parseInt(value);
+            } else if (arg.equals("--poll-interval")) {
+                pollInterval = Long.parseLong(value);
+            } else if (arg.equals("--shutdown-timeout")) {
+                shutdownTimeout = Long.parseLong(value);
+            } else if (arg.equals("--wait-timeout")) {
+                waitTimeout = Long.parseLong(value);
+            } else if (arg.equals("--profile-dir")) {
+                overrideProfileDir = Paths.get(value);
+            } else {
+                System.err.println("Unknown argument: " + arg);
+                JIPipeCLIHelp.showHelp();
+                return;
+            }
+        }
+
+        if (spoolDirectory == null && port < 0) {
+            System.err.println("Please provide a spool directory and/or a port!");
+            JIPipeCLIHelp.showHelp();
+            return;
+        }
+        if (numThreads < 1 || maxConcurrentRuns < 1 || queueSize < 1 || pollInterval < 1 || shutdownTimeout < 0 || waitTimeout < 1) {
+            System.err.println("Invalid number of threads, concurrent runs, queue size, poll interval, or timeout!");
+            JIPipeCLIHelp.showHelp();
+            return;
+        }
+        if (overrideProfileDir != null) {
+            System.out.println("Overriding base path for JIPipe profiles with " + overrideProfileDir);
+            PathUtils.createDirectories(overrideProfileDir);
+            JIPipe.OVERRIDE_USER_DIR_BASE = overrideProfileDir;
+        }
+
+        JIPipeCLIPipelineRun.initializeJIPipe(verbose, fastInit);
+
+        JIPipeCLIServer server = new JIPipeCLIServer(numThreads, maxConcurrentRuns, queueSize, shutdownTimeout, waitTimeout);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown, "jipipe-cli-server-shutdown"));
+        List<Thread> listeners = new ArrayList<>();
+        if (spoolDirectory != null) {
+            final Path finalSpoolDirectory = spoolDirectory;
+            final long finalPollInterval = pollInterval;
+            Thread thread = new Thread(() -> server.watchSpoolDirectory(finalSpoolDirectory, finalPollInterval), "jipipe-cli-server-spool");
+            thread.start();
+            listeners.add(thread);
+        }
+        if (port >= 0) {
+            final int finalPort = port;
+            Thread thread = new Thread(() -> server.listen(finalPort), "jipipe-cli-server-socket");
+            thread.start();
+            listeners.add(thread);
+        }
+
+        System.out.println("JIPipe server is ready.");
+
+        for (Thread listener : listeners) {
+            try {
+                listener.join();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        server.shutdown();
+
+//        System.exit(0); // unreliable due to bug in scijava
+        Runtime.getRuntime().halt(0);
+    }
+
+    /**
+     * Stops accepting new requests, cancels all queued and running runs, and waits for the running runs to finish (limited by the shutdown timeout).
+     * Spooled requests that were not started yet are moved back into the spool directory, so they are executed after a restart.
+     */
+    public void shutdown() {
+        if (!running && runExecutor.isShutdown()) {
+            return;
+        }
+        running = false;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            // Unblocks accept()
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (Runnable pending : runExecutor.shutdownNow()) {
+            if (pending instanceof Future) {
+                ((Future<?>) pending).cancel(false);
+            }
+        }
+        for (Map.Entry<Path, Path> entry : pendingSpoolRequests.entrySet()) {
+            try {
+                Files.move(entry.getKey(), entry.getValue(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        pendingSpoolRequests.clear();
+        for (JIPipeGraphRun run : activeRuns) {
+            run.getProgressInfo().cancel("The server is shutting down");
+        }
+        try {
+            if (!runExecutor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Runs did not finish within " + shutdownTimeoutSeconds + "s after shutdown was requested");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submits a run request into the bounded queue
+     *
+     * @param request the request
+     * @return future that contains the run status
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Future<Map<String, Object>> submit(JsonNode request) {
+        String runId = LocalDateTime.now().toString().replace(':', '-') + "-" + runCounter.incrementAndGet();
+        return runExecutor.submit(() -> executeRequest(runId, request));
+    }
+
+    /**
+     * Accepts requests from a local TCP socket (loopback only).
+     * Each connection sends exactly one JSON request as a single line and receives one JSON response line.
+     *
+     * @param port the port
+     */
+    public void listen(int port) {
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            this.serverSocket = serverSocket;
+            System.out.println("Listening for run requests on " + serverSocket.getLocalSocketAddress());
+            while (running) {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> handleConnection(socket), "jipipe-cli-server-connection");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException e) {
+            if (running) {
+                throw new RuntimeException(e);
+            }
+        } finally {
+            this.serverSocket = null;
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (Socket ignored = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            Map<String, Object> response;
+            String line = reader.readLine();
+            if (line == null) {
+                return;
+            }
+            try {
+                JsonNode request = JsonUtils.getObjectMapper().readerFor(JsonNode.class).readValue(line);
+                Future<Map<String, Object>> future = submit(request);
+                if (request.path("wait").asBoolean(false)) {
+                    response = waitForRun(socket, future);
+                    if (response == null) {
+                        // The client disconnected. The run continues.
+                        return;
+                    }
+                } else {
+                    response = new LinkedHashMap<>();
+                    response.put("status", "queued");
+                }
+            } catch (RejectedExecutionException e) {
+                response = new LinkedHashMap<>();
+                response.put("status", "rejected");
+                response.put("message", "The run queue is full");
+            } catch (Exception e) {
+                response = new LinkedHashMap<>();
+                response.put("status", "failed");
+                response.put("message", e.toString());
+            }
+            writer.write(JsonUtils.toJsonString(response));
+            writer.write("\n");
+            writer.flush();
+        } catch (IOException e) {
+            // Usually the client disconnected
+            System.err.println("Unable to answer request: " + e);
+        }
+    }
+
+    /**
+     * Waits until the run finished, the wait timeout is reached, or the client disconnected
+     *
+     * @param socket the connection
+     * @param future the run
+     * @return the response or null if the client disconnected
+     * @throws ExecutionException   thrown by the run
+     * @throws InterruptedException if interrupted
+     * @throws IOException          if checking the connection failed
+     */
+    private Map<String, Object> waitForRun(Socket socket, Future<Map<String, Object>> future) throws ExecutionException, InterruptedException, IOException {
+        long deadline = System.currentTimeMillis() + waitTimeoutSeconds * 1000;
+        InputStream inputStream = socket.getInputStream();
+        socket.setSoTimeout(1);
+        while (true) {
+            try {
+                return future.get(WAIT_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+            } catch (CancellationException e) {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status", "cancelled");
+                response.put("message", "The server is shutting down");
+                return response;
+            }
+            // A closed connection is signaled by the end of the stream
+            try {
+                if (inputStream.read() < 0) {
+                    return null;
+                }
+            } catch (SocketTimeoutException ignored) {
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status", "running");
+                response.put("message", "The run did not finish within " + waitTimeoutSeconds + "s. It continues in the background.");
+                return response;
+            }
+        }
+    }
+
+    /**
+     * Polls a spool directory for *.json run requests.
+     * Accepted requests are moved into the 'processing' sub-directory and after the run into 'done' or 'failed' together with a status file.
+     * Polling is used instead of file system events, as those are unreliable on network file systems.
+     *
+     * @param spoolDirectory the spool directory
+     * @param pollInterval   the poll interval in milliseconds
+     */
+    public void watchSpoolDirectory(Path spoolDirectory, long pollInterval) {
+        Path processingDirectory = PathUtils.resolveAndMakeSubDirectory(spoolDirectory, "processing");
+        Path doneDirectory = PathUtils.resolveAndMakeSubDirectory(spoolDirectory, "done");
+        Path failedDirectory = PathUtils.resolveAndMakeSubDirectory(spoolDirectory, "failed");
+        System.out.println("Watching spool directory " + spoolDirectory);
+
+        while (running) {
+            List<Path> requestFiles;
+            try (Stream<Path> stream = Files.list(spoolDirectory)) {
+                requestFiles = stream.filter(path -> Files.isRegularFile(path) && path.getFileName().toString().endsWith(".json"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            } catch (IOException e) {
+                e.printStackTrace();
+                requestFiles = Collections.emptyList();
+            }
+
+            for (Path requestFile : requestFiles) {
+                if (runExecutor.getQueue().remainingCapacity() == 0) {
+                    // Leave the remaining requests in the spool directory
+                    break;
+                }
+                Path processingFile = processingDirectory.resolve(requestFile.getFileName());
+                JsonNode request;
+                try {
+                    Files.move(requestFile, processingFile, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    continue;
+                }
+                try {
+                    request = JsonUtils.getObjectMapper().readerFor(JsonNode.class).readValue(processingFile.toFile());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    // Unreadable requests are moved into 'failed', so they are not stuck in 'processing'
+                    Map<String, Object> status = new LinkedHashMap<>();
+                    status.put("status", "failed");
+                    status.put("message", "Unable to parse request: " + e);
+                    try {
+                        Files.move(processingFile, failedDirectory.resolve(processingFile.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                        JsonUtils.saveToFile(status, failedDirectory.resolve(processingFile.getFileName().toString() + ".status.json"));
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                    }
+                    continue;
+                }
+                try {
+                    String runId = StringUtils.safeJsonify(requestFile.getFileName().toString()) + "-" + runCounter.incrementAndGet();
+                    pendingSpoolRequests.put(processingFile, requestFile);
+                    runExecutor.submit(() -> {
+                        if (pendingSpoolRequests.remove(processingFile) == null) {
+                            // Moved back on shutdown
+                            return null;
+                        }
+                        Map<String, Object> status = executeRequest(runId, request);
+                        Path targetDirectory = "succeeded".equals(status.get("status")) ? doneDirectory : failedDirectory;
+                        try {
+                            Files.move(processingFile, targetDirectory.resolve(processingFile.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                            JsonUtils.saveToFile(status, targetDirectory.resolve(processingFile.getFileName().toString() + ".status.json"));
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                        return status;
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Move back and retry in the next poll
+                    pendingSpoolRequests.remove(processingFile);
+                    try {
+                        Files.move(processingFile, requestFile, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                    }
+                    break;
+                }
+            }
+
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Executes a run request with the pre-initialized JIPipe instance
+     *
+     * @param runId   the run ID (only used for logging)
+     * @param request the request
+     * @return the run status
+     */
+    private Map<String, Object> executeRequest(String runId, JsonNode request) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("run-id", runId);
+        status.put("start-time", LocalDateTime.now().toString());
+        long startTime = System.currentTimeMillis();
+        JIPipeGraphRun run = null;
+        try {
+            String projectFileString = request.path("project").asText(null);
+            if (StringUtils.isNullOrEmpty(projectFileString) || !Files.isRegularFile(Paths.get(projectFileString))) {
+                throw new IllegalArgumentException("Project file does not exist: " + projectFileString);
+            }
+            Path projectFile = Paths.get(projectFileString);
+
+            Map<String, String> parameterOverrides = new HashMap<>();
+            for (Map.Entry<String, JsonNode> entry : ImmutableList.copyOf(request.path("parameters").fields())) {
+                parameterOverrides.put(entry.getKey(), JsonUtils.toJsonString(entry.getValue()));
+            }
+            Map<String, Path> userDirectoryOverrides = new HashMap<>();
+            for (Map.Entry<String, JsonNode> entry : ImmutableList.copyOf(request.path("user-directories").fields())) {
+                userDirectoryOverrides.put(entry.getKey(), Paths.get(entry.getValue().textValue()));
+            }
+
+            boolean saveToDisk = true;
+            boolean saveToDiskOnlyCompartments = false;
+            switch (request.path("output-results").asText("all")) {
+                case "all":
+                    break;
+                case "none":
+                    saveToDisk = false;
+                    break;
+                case "only-compartment-outputs":
+                    saveToDiskOnlyCompartments = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown disk saving setting: " + request.path("output-results").asText());
+            }
+
+            System.out.println("[" + runId + "] Loading project " + projectFile);
+            JIPipeValidationReport projectIssues = new JIPipeValidationReport();
+            JIPipeProject project = JIPipeProject.loadProject(projectFile, new UnspecifiedValidationReportContext(), projectIssues);
+            JIPipeCLIPipelineRun.applyParameterOverrides(project, parameterOverrides);
+            JIPipeCLIPipelineRun.applyUserDirectoryOverrides(project, userDirectoryOverrides);
+
+            // Each run gets its own output folder (which also contains the scratch directory)
+            Path outputFolder;
+            String outputFolderString = request.path("output-folder").asText(null);
+            if (StringUtils.isNullOrEmpty(outputFolderString)) {
+                outputFolder = project.newTemporaryDirectory("output");
+            } else {
+                outputFolder = Paths.get(outputFolderString);
+            }
+            PathUtils.createDirectories(outputFolder);
+            status.put("output-folder", outputFolder.toString());
+
+            JIPipeGraphRunConfiguration settings = JIPipeCLIPipelineRun.createRunConfiguration(project,
+                    outputFolder,
+                    request.path("num-threads").asInt(numThreads),
+                    saveToDisk,
+                    saveToDiskOnlyCompartments);
+            settings.setRecordProfile(request.path("record-profile").asBoolean(false));
+            run = new JIPipeGraphRun(project, settings);
+            activeRuns.add(run);
+            if (!running) {
+                throw new CancellationException("The server is shutting down");
+            }
+            System.out.println("[" + runId + "] Running project " + projectFile + " -> " + outputFolder);
+            run.run();
+            if (run.getProgressInfo().isCancelled()) {
+                throw new CancellationException("The run was cancelled");
+            }
+            status.put("status", "succeeded");
+        } catch (Throwable e) {
+            e.printStackTrace();
+            status.put("status", (run != null && run.getProgressInfo().isCancelled()) || e instanceof CancellationException ? "cancelled" : "failed");
+            status.put("message", e.toString());
+        } finally {
+            if (run != null) {
+                activeRuns.remove(run);
+            }
+            status.put("duration-ms", System.currentTimeMillis() - startTime);
+            System.out.println("[" + runId + "] Finished with status " + status.get("status"));
+            if (run != null && status.containsKey("output-folder")) {
+                try {
+                    Files.write(Paths.get(status.get("output-folder").toString()).resolve("jipipe-server-run.log"),
+                            run.getProgressInfo().getLog().toString().getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return status;
+    }
+}
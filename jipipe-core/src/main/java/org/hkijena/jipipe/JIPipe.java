@@ -729,11 +729,17 @@ public class JIPipe extends AbstractService implements JIPipeService {
         progressInfo.setProgress(2);
         JIPipeProgressInfo registerFeaturesProgress = progressInfo.resolveAndLog("Register features");
 
-        for (JIPipeJavaPlugin extension : pluginInstances) {
-            extension.register(this, getContext(), registerFeaturesProgress.resolve(extension.getDependencyId()));
-            registeredExtensions.add(extension);
-            registeredExtensionIds.add(extension.getDependencyId());
-            extensionRegisteredEventEmitter.emit(new ExtensionRegisteredEvent(this, extension));
+        nodeRegistry.beginBatchRegistration();
+        try {
+            for (JIPipeJavaPlugin extension : pluginInstances) {
+                extension.register(this, getContext(), registerFeaturesProgress.resolve(extension.getDependencyId()));
+                registeredExtensions.add(extension);
+                registeredExtensionIds.add(extension.getDependencyId());
+                extensionRegisteredEventEmitter.emit(new ExtensionRegisteredEvent(this, extension));
+            }
+        } finally {
+            registerFeaturesProgress.log("Resolving " + nodeRegistry.getScheduledRegistrationTasks().size() + " scheduled node registrations ...");
+            nodeRegistry.endBatchRegistration();
         }
 
         registerFeaturesProgress.log("Registering remaining " + nodeRegistry.getScheduledRegistrationTasks().size() + " features ...");
@@ -956,34 +962,41 @@ public class JIPipe extends AbstractService implements JIPipeService {
 
         progressInfo.setProgress(2);
         JIPipeProgressInfo registerFeaturesProgress = progressInfo.resolveAndLog("Register features");
-        for (int i = 0; i < allJavaExtensionsList.size(); i++) {
-            JIPipeJavaExtensionInitializationInfo initializationInfo = allJavaExtensionsList.get(i);
+        nodeRegistry.beginBatchRegistration();
+        try {
+            for (int i = 0; i < allJavaExtensionsList.size(); i++) {
+                JIPipeJavaExtensionInitializationInfo initializationInfo = allJavaExtensionsList.get(i);
 
-            if (!initializationInfo.isLoaded()) {
-                registerFeaturesProgress.log("Skipping (deactivated in extension manager or is refusing to activate)");
-                continue;
-            }
+                if (!initializationInfo.isLoaded()) {
+                    registerFeaturesProgress.log("Skipping (deactivated in extension manager or is refusing to activate)");
+                    continue;
+                }
 
-            PluginInfo<JIPipeJavaPlugin> info = initializationInfo.getPluginInfo();
+                PluginInfo<JIPipeJavaPlugin> info = initializationInfo.getPluginInfo();
 
-            IJ.showProgress(i + 1, allJavaExtensionsList.size());
-            registerFeaturesProgress.log("Registering plugin " + info);
-            JIPipeJavaPlugin extension = null;
-            try {
-                extension = initializationInfo.getInstance();
-                registerFeaturesProgress.log("ID=" + extension.getDependencyId());
-                extension.register(this, getContext(), progressInfo.resolve(extension.getDependencyId()));
-                registeredExtensions.add(extension);
-                registeredExtensionIds.add(extension.getDependencyId());
-                extensionRegisteredEventEmitter.emit(new ExtensionRegisteredEvent(this, extension));
-            } catch (NoClassDefFoundError | Exception e) {
-                progressInfo.log("[!] ERROR: Unable to instantiate extension " + info);
-                e.printStackTrace();
-                progressInfo.log(e.toString());
-                issues.getErroneousPlugins().add(info);
-                if (extension != null)
-                    failedExtensions.add(extension);
+                IJ.showProgress(i + 1, allJavaExtensionsList.size());
+                registerFeaturesProgress.log("Registering plugin " + info);
+                JIPipeJavaPlugin extension = null;
+                try {
+                    extension = initializationInfo.getInstance();
+                    registerFeaturesProgress.log("ID=" + extension.getDependencyId());
+                    extension.register(this, getContext(), progressInfo.resolve(extension.getDependencyId()));
+                    registeredExtensions.add(extension);
+                    registeredExtensionIds.add(extension.getDependencyId());
+                    extensionRegisteredEventEmitter.emit(new ExtensionRegisteredEvent(this, extension));
+                } catch (NoClassDefFoundError | Exception e) {
+                    progressInfo.log("[!] ERROR: Unable to instantiate extension " + info);
+                    e.printStackTrace();
+                    progressInfo.log(e.toString());
+                    issues.getErroneousPlugins().add(info);
+                    if (extension != null)
+                        failedExtensions.add(extension);
+                }
             }
+        } finally {
+            // Resolve all scheduled node registrations at once
+            registerFeaturesProgress.log("Resolving " + nodeRegistry.getScheduledRegistrationTasks().size() + " scheduled node registrations ...");
+            nodeRegistry.endBatchRegistration();
         }
 
         registerFeaturesProgress.log("Registering remaining " + nodeRegistry.getScheduledRegistrationTasks().size() + " features ...");
@@ -21,12 +21,17 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Contains a fixed thread pool. Unfortunately, the one provided by {@link org.scijava.SciJava} is cached (unbounded)
  */
 public class JIPipeFixedThreadPool implements AutoCloseable {
+    private static final ThreadLocal<JIPipeFixedThreadPool> WORKER_POOL = new ThreadLocal<>();
+    private static JIPipeFixedThreadPool SHARED_POOL;
     private final int maxThreads;
+    private final boolean shared;
+    private final AtomicLong busyNanos = new AtomicLong();
     private ExecutorService executorService;
 
     /**
@@ -36,22 +41,61 @@ public class JIPipeFixedThreadPool implements AutoCloseable {
      * @param maxThreads number of threads. must be larger or equal to 1
      */
     public JIPipeFixedThreadPool(int maxThreads) {
+        this(maxThreads, false);
+    }
+
+    private JIPipeFixedThreadPool(int maxThreads, boolean shared) {
         this.maxThreads = maxThreads;
+        this.shared = shared;
         if (maxThreads <= 0)
             throw new IllegalArgumentException("Invalid number of threads: " + maxThreads);
         if (maxThreads > 1) {
-            executorService = Executors.newFixedThreadPool(maxThreads);
+            executorService = Executors.newFixedThreadPool(maxThreads, runnable -> {
+                Thread thread = new Thread(() -> {
+                    WORKER_POOL.set(this);
+                    runnable.run();
+                });
+                // The shared pool is never shut down and should not prevent the JVM from exiting
+                thread.setDaemon(shared);
+                return thread;
+            });
         }
     }
 
     /**
-     * Schedules a runnable
+     * Returns the pool that is shared by all operations that are not part of a run (e.g., loading/saving data outside a run).
+     * The pool has one thread per available processor and cannot be shut down.
+     *
+     * @return the shared pool
+     */
+    public static synchronized JIPipeFixedThreadPool getShared() {
+        if (SHARED_POOL == null) {
+            SHARED_POOL = new JIPipeFixedThreadPool(Runtime.getRuntime().availableProcessors(), true);
+        }
+        return SHARED_POOL;
+    }
+
+    /**
+     * Returns the pool the current thread belongs to or the shared pool if the current thread is not a pool thread.
+     * Operations that are called from within a run (e.g., data that is loaded by a node) thus do not create additional threads.
+     *
+     * @return the pool of the current thread or the shared pool
+     */
+    public static JIPipeFixedThreadPool getCurrentOrShared() {
+        JIPipeFixedThreadPool pool = WORKER_POOL.get();
+        return pool != null ? pool : getShared();
+    }
+
+    /**
+     * Schedules a runnable.
+     * If called from one of the pool's own threads (e.g., a node that is run by the pool schedules its own tasks),
+     * the runnable is run immediately on the calling thread. Waiting for nested tasks would otherwise block pool threads and can deadlock the pool.
      *
      * @param runnable the function
      * @return a future returning null if successful or an exception if there was an error
      */
     public Future<Exception> schedule(Runnable runnable) {
-        if (executorService == null) {
+        if (executorService == null || isWorkerThread()) {
             try {
                 runnable.run();
                 return new InstantFuture<>(null);
@@ -60,11 +104,14 @@ public class JIPipeFixedThreadPool implements AutoCloseable {
             }
         } else {
             return executorService.submit(() -> {
+                long start = System.nanoTime();
                 try {
                     runnable.run();
                     return null;
                 } catch (Exception e) {
                     return e;
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
                 }
             });
         }
@@ -91,10 +138,29 @@ public class JIPipeFixedThreadPool implements AutoCloseable {
         return result;
     }
 
+    /**
+     * Returns true if the current thread is one of the pool's threads
+     *
+     * @return if the current thread belongs to this pool
+     */
+    public boolean isWorkerThread() {
+        return WORKER_POOL.get() == this;
+    }
+
     public int getMaxThreads() {
         return maxThreads;
     }
 
+    /**
+     * Returns the accumulated time the pool threads spent on tasks scheduled via {@link #schedule(Runnable)}.
+     * Tasks that are submitted directly to the {@link ExecutorService} are not tracked.
+     *
+     * @return the busy time in nanoseconds
+     */
+    public long getBusyNanos() {
+        return busyNanos.get();
+    }
+
     /**
      * Returns the {@link ExecutorService} or null.
      * This will return null if getMaxThreads() is less than 1
@@ -106,10 +172,11 @@ public class JIPipeFixedThreadPool implements AutoCloseable {
     }
 
     /**
-     * Forces the thread pool to shut down
+     * Forces the thread pool to shut down.
+     * Has no effect on the shared pool.
      */
     public void shutdown() {
-        if (executorService != null) {
+        if (executorService != null && !shared) {
             executorService.shutdownNow();
         }
     }
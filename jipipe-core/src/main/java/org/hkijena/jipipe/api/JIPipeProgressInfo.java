@@ -14,6 +14,7 @@
 package org.hkijena.jipipe.api;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.hkijena.jipipe.api.data.storage.JIPipeDataStorageIOStatistics;
 import org.hkijena.jipipe.api.events.AbstractJIPipeEvent;
 import org.hkijena.jipipe.api.events.JIPipeEventEmitter;
 import org.hkijena.jipipe.api.notifications.JIPipeNotificationInbox;
@@ -54,6 +55,7 @@ public class JIPipeProgressInfo implements Cancelable {
     private String cancelReason;
     private StatusUpdatedEventEmitter statusUpdatedEventEmitter;
     private JIPipeNotificationInbox notifications = new JIPipeNotificationInbox();
+    private JIPipeDataStorageIOStatistics ioStatistics;
 
     public JIPipeProgressInfo() {
         this.statusUpdatedEventEmitter = new StatusUpdatedEventEmitter();
@@ -74,6 +76,7 @@ public class JIPipeProgressInfo implements Cancelable {
         this.numLines = other.numLines;
         this.withSpinner = other.withSpinner;
         this.notifications = other.notifications;
+        this.ioStatistics = other.ioStatistics;
     }
 
     public void clearLog() {
@@ -173,6 +176,33 @@ public class JIPipeProgressInfo implements Cancelable {
         this.notifications = notifications;
     }
 
+    /**
+     * Returns the statistics that count the I/O of file system data storages created with this progress info
+     *
+     * @return the statistics or null if I/O is not counted
+     */
+    public JIPipeDataStorageIOStatistics getIOStatistics() {
+        return ioStatistics;
+    }
+
+    /**
+     * Creates a sub-progress that has the same cancellation, progress, and log, but counts the I/O of file system data storages into the provided statistics.
+     * Sub-progresses resolved from the returned progress info share the statistics.
+     *
+     * @param ioStatistics the statistics (can be null to disable counting)
+     * @return progress info with the same properties as the current one, but with the provided I/O statistics
+     */
+    public JIPipeProgressInfo withIOStatistics(JIPipeDataStorageIOStatistics ioStatistics) {
+        long stamp = stampedLock.readLock();
+        try {
+            JIPipeProgressInfo result = new JIPipeProgressInfo(this);
+            result.ioStatistics = ioStatistics;
+            return result;
+        } finally {
+            stampedLock.unlock(stamp);
+        }
+    }
+
     /**
      * Writes a message into the log
      *
@@ -0,0 +1,303 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+
+package org.hkijena.jipipe.api.annotation;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage for text annotations.
+ * Each column stores one int code per row that points into a string dictionary shared by all columns.
+ * {@link JIPipeTextAnnotation} instances are only created when they are requested.
+ * The number of cells referencing each dictionary entry is tracked. Unreferenced entries are removed
+ * once they make up more than half of the dictionary (see {@link #compact()}).
+ * NOT THREAD-SAFE
+ */
+public class JIPipeTextAnnotationColumnStore {
+    /**
+     * Compaction is only triggered if more than this number of dictionary entries are unused
+     */
+    public static final int MIN_UNUSED_ENTRIES_FOR_COMPACTION = 64;
+    private static final int NO_VALUE = -1;
+    private final List<String> dictionary = new ArrayList<>();
+    private final TIntArrayList referenceCounts = new TIntArrayList();
+    private final TObjectIntMap<String> dictionaryCodes = new TObjectIntHashMap<>(16, 0.5f, NO_VALUE);
+    private final Map<String, TIntArrayList> columns = new HashMap<>();
+    private int unusedEntries = 0;
+
+    /**
+     * Returns true if the column exists
+     *
+     * @param column the column
+     * @return if the column exists
+     */
+    public boolean hasColumn(String column) {
+        return columns.containsKey(column);
+    }
+
+    /**
+     * Creates the column if needed and ensures that it has at least the provided number of rows
+     *
+     * @param column   the column
+     * @param rowCount the number of rows
+     * @return true if the column was newly created
+     */
+    public boolean ensureColumn(String column, int rowCount) {
+        TIntArrayList codes = columns.get(column);
+        boolean created = false;
+        if (codes == null) {
+            codes = new TIntArrayList(Math.max(10, rowCount));
+            columns.put(column, codes);
+            created = true;
+        }
+        while (codes.size() < rowCount) {
+            codes.add(NO_VALUE);
+        }
+        return created;
+    }
+
+    /**
+     * Removes a column
+     *
+     * @param column the column
+     */
+    public void removeColumn(String column) {
+        TIntArrayList codes = columns.remove(column);
+        if (codes != null) {
+            for (int i = 0; i < codes.size(); i++) {
+                release(codes.getQuick(i));
+            }
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Removes all columns and clears the dictionary
+     */
+    public void clear() {
+        columns.clear();
+        dictionary.clear();
+        referenceCounts.clear();
+        dictionaryCodes.clear();
+        unusedEntries = 0;
+    }
+
+    /**
+     * Sets the value of a cell. The column must have been created via ensureColumn() before.
+     *
+     * @param column the column
+     * @param row    the row
+     * @param value  the value. If null, the annotation is removed from the cell.
+     */
+    public void setValue(String column, int row, String value) {
+        TIntArrayList codes = columns.get(column);
+        int code = encode(value);
+        int oldCode = codes.get(row);
+        if (code != oldCode) {
+            acquire(code);
+            release(oldCode);
+            codes.set(row, code);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Sets the value of all cells in a column. The column must have been created via ensureColumn() before.
+     *
+     * @param column    the column
+     * @param value     the value. If null, the annotations are removed.
+     * @param overwrite if false, existing values are not overwritten
+     */
+    public void fillValue(String column, String value, boolean overwrite) {
+        TIntArrayList codes = columns.get(column);
+        int code = encode(value);
+        for (int i = 0; i < codes.size(); i++) {
+            int oldCode = codes.getQuick(i);
+            if (oldCode != code && (overwrite || oldCode == NO_VALUE)) {
+                acquire(code);
+                release(oldCode);
+                codes.setQuick(i, code);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Returns true if the cell contains a value
+     *
+     * @param column the column
+     * @param row    the row
+     * @return if the cell has a value
+     */
+    public boolean hasValue(String column, int row) {
+        TIntArrayList codes = columns.get(column);
+        return codes != null && row < codes.size() && codes.getQuick(row) != NO_VALUE;
+    }
+
+    /**
+     * Returns the value of a cell
+     *
+     * @param column the column
+     * @param row    the row
+     * @return the value or null if the cell has no value
+     */
+    public String getValue(String column, int row) {
+        TIntArrayList codes = columns.get(column);
+        if (codes == null || row >= codes.size()) {
+            return null;
+        }
+        int code = codes.getQuick(row);
+        return code == NO_VALUE ? null : dictionary.get(code);
+    }
+
+    /**
+     * Creates an annotation instance for the cell.
+     * Changes to the returned annotation are not reflected in the store.
+     *
+     * @param column the column
+     * @param row    the row
+     * @return the annotation or null if the cell has no value
+     */
+    public JIPipeTextAnnotation get(String column, int row) {
+        String value = getValue(column, row);
+        return value != null ? new JIPipeTextAnnotation(column, value) : null;
+    }
+
+    /**
+     * Creates annotation instances for all cells of a row that have a value.
+     * The annotations are ordered by the provided columns. Columns that do not exist are skipped.
+     * Changes to the returned list or annotations are not reflected in the store.
+     *
+     * @param columns the columns
+     * @param row     the row
+     * @return the annotations
+     */
+    public List<JIPipeTextAnnotation> getTextAnnotations(Collection<String> columns, int row) {
+        List<JIPipeTextAnnotation> result = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            JIPipeTextAnnotation annotation = get(column, row);
+            if (annotation != null) {
+                result.add(annotation);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The number of unique values in the dictionary (including entries that are not referenced anymore)
+     *
+     * @return the dictionary size
+     */
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * The number of dictionary entries that are not referenced by any cell
+     *
+     * @return the number of unused entries
+     */
+    public int getUnusedDictionarySize() {
+        return unusedEntries;
+    }
+
+    /**
+     * Removes all dictionary entries that are not referenced by any cell and re-assigns the codes of the remaining entries
+     */
+    public void compact() {
+        if (unusedEntries == 0) {
+            return;
+        }
+        int[] newCodes = new int[dictionary.size()];
+        List<String> newDictionary = new ArrayList<>(dictionary.size() - unusedEntries);
+        TIntArrayList newReferenceCounts = new TIntArrayList(dictionary.size() - unusedEntries);
+        dictionaryCodes.clear();
+        for (int code = 0; code < dictionary.size(); code++) {
+            int referenceCount = referenceCounts.getQuick(code);
+            if (referenceCount > 0) {
+                String value = dictionary.get(code);
+                newCodes[code] = newDictionary.size();
+                dictionaryCodes.put(value, newDictionary.size());
+                newDictionary.add(value);
+                newReferenceCounts.add(referenceCount);
+            } else {
+                newCodes[code] = NO_VALUE;
+            }
+        }
+        for (TIntArrayList codes : columns.values()) {
+            for (int i = 0; i < codes.size(); i++) {
+                int code = codes.getQuick(i);
+                if (code != NO_VALUE) {
+                    codes.setQuick(i, newCodes[code]);
+                }
+            }
+        }
+        dictionary.clear();
+        dictionary.addAll(newDictionary);
+        referenceCounts.clear();
+        referenceCounts.addAll(newReferenceCounts);
+        unusedEntries = 0;
+    }
+
+    private void compactIfNeeded() {
+        if (unusedEntries > MIN_UNUSED_ENTRIES_FOR_COMPACTION && unusedEntries * 2 > dictionary.size()) {
+            compact();
+        }
+    }
+
+    private void acquire(int code) {
+        if (code == NO_VALUE) {
+            return;
+        }
+        int referenceCount = referenceCounts.getQuick(code);
+        if (referenceCount == 0) {
+            --unusedEntries;
+        }
+        referenceCounts.setQuick(code, referenceCount + 1);
+    }
+
+    private void release(int code) {
+        if (code == NO_VALUE) {
+            return;
+        }
+        int referenceCount = referenceCounts.getQuick(code) - 1;
+        referenceCounts.setQuick(code, referenceCount);
+        if (referenceCount == 0) {
+            ++unusedEntries;
+        }
+    }
+
+    private int encode(String value) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+        int code = dictionaryCodes.get(value);
+        if (code == NO_VALUE) {
+            code = dictionary.size();
+            dictionary.add(value);
+            referenceCounts.add(0);
+            dictionaryCodes.put(value, code);
+            ++unusedEntries;
+        }
+        return code;
+    }
+}
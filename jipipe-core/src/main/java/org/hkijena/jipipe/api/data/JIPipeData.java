@@ -249,6 +249,17 @@ public interface JIPipeData extends Closeable, AutoCloseable {
         return toString();
     }
 
+    /**
+     * Estimates the number of bytes this data occupies in memory.
+     * Used for reporting purposes (e.g., run profiles) only.
+     * Defaults to -1 (unknown)
+     *
+     * @return the estimated size in bytes or a negative value if unknown
+     */
+    default long estimateMemorySize() {
+        return -1;
+    }
+
     @Override
     default void close() {
 
@@ -21,6 +21,7 @@ import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.annotation.JIPipeDataAnnotation;
 import org.hkijena.jipipe.api.annotation.JIPipeDataAnnotationMergeMode;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotation;
+import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotationColumnStore;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotationMergeMode;
 import org.hkijena.jipipe.api.data.context.JIPipeDataContext;
 import org.hkijena.jipipe.api.data.context.JIPipeMutableDataContext;
@@ -62,7 +63,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
     private final ArrayList<JIPipeDataItemStore> dataArray = new ArrayList<>();
     private final ArrayList<JIPipeDataContext> dataContextsArray = new ArrayList<>();
     private final List<String> textAnnotationColumnNames = new ArrayList<>();
-    private final Map<String, ArrayList<JIPipeTextAnnotation>> textAnnotationArrays = new HashMap<>();
+    private final JIPipeTextAnnotationColumnStore textAnnotationStore = new JIPipeTextAnnotationColumnStore();
     private final List<String> dataAnnotationColumnNames = new ArrayList<>();
     private final Map<String, ArrayList<JIPipeDataItemStore>> dataAnnotationsArrays = new HashMap<>();
     private Class<? extends JIPipeData> acceptedDataType;
@@ -339,7 +340,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
             dataArray.clear();
             dataContextsArray.clear();
             textAnnotationColumnNames.clear();
-            textAnnotationArrays.clear();
+            textAnnotationStore.clear();
             dataAnnotationsArrays.clear();
             dataAnnotationColumnNames.clear();
         } finally {
@@ -745,8 +746,8 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
     public void setTextAnnotation(int row, String column, String value) {
         long stamp = stampedLock.writeLock();
         try {
-            List<JIPipeTextAnnotation> columnData = getOrCreateTextAnnotationColumnArray_(column);
-            columnData.set(row, new JIPipeTextAnnotation(column, value));
+            ensureTextAnnotationColumn_(column);
+            textAnnotationStore.setValue(column, row, value);
         } finally {
             stampedLock.unlock(stamp);
         }
@@ -761,8 +762,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
     public void setTextAnnotation(int row, JIPipeTextAnnotation annotation) {
         long stamp = stampedLock.writeLock();
         try {
-            List<JIPipeTextAnnotation> columnData = getOrCreateTextAnnotationColumnArray_(annotation.getName());
-            columnData.set(row, annotation);
+            setTextAnnotation_(row, annotation);
         } finally {
             stampedLock.unlock(stamp);
         }
@@ -928,18 +928,9 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
      * @return Annotations at row
      */
     public List<JIPipeTextAnnotation> getTextAnnotations(int row) {
-        List<JIPipeTextAnnotation> result = new ArrayList<>();
         long stamp = stampedLock.readLock();
         try {
-            for (String info : textAnnotationColumnNames) {
-                List<JIPipeTextAnnotation> columnData = getTextAnnotationColumnArray_(info);
-                if (columnData != null && row < columnData.size()) {
-                    JIPipeTextAnnotation annotation = columnData.get(row);
-                    if (annotation != null)
-                        result.add(annotation);
-                }
-            }
-            return result;
+            return textAnnotationStore.getTextAnnotations(textAnnotationColumnNames, row);
         } finally {
             stampedLock.unlock(stamp);
         }
@@ -956,12 +947,9 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
         try {
             for (int row = 0; row < getRowCount_(); row++) {
                 for (String info : textAnnotationColumnNames) {
-                    List<JIPipeTextAnnotation> columnData = getTextAnnotationColumnArray_(info);
-                    if (columnData != null && row < columnData.size()) {
-                        JIPipeTextAnnotation annotation = columnData.get(row);
-                        if (annotation != null)
-                            result.add(annotation);
-                    }
+                    JIPipeTextAnnotation annotation = textAnnotationStore.get(info, row);
+                    if (annotation != null)
+                        result.add(annotation);
                 }
             }
         } finally {
@@ -981,13 +969,10 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
         long stamp = stampedLock.readLock();
         try {
             for (String info : textAnnotationColumnNames) {
-                List<JIPipeTextAnnotation> columnData = getTextAnnotationColumnArray_(info);
                 for (int row : rows) {
-                    if (columnData != null && row < columnData.size()) {
-                        JIPipeTextAnnotation annotation = columnData.get(row);
-                        if (annotation != null)
-                            result.add(annotation);
-                    }
+                    JIPipeTextAnnotation annotation = textAnnotationStore.get(info, row);
+                    if (annotation != null)
+                        result.add(annotation);
                 }
             }
         } finally {
@@ -1005,31 +990,54 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
      * @return annotation of type 'type' or 'orElse'
      */
     public JIPipeTextAnnotation getTextAnnotationOr(int row, String name, JIPipeTextAnnotation orElse) {
-        return getTextAnnotations(row).stream().filter(a -> a != null && Objects.equals(a.getName(), name)).findFirst().orElse(orElse);
+        long stamp = stampedLock.readLock();
+        try {
+            JIPipeTextAnnotation annotation = textAnnotationStore.get(name, row);
+            return annotation != null ? annotation : orElse;
+        } finally {
+            stampedLock.unlock(stamp);
+        }
     }
 
     /**
-     * Gets the annotation column or creates it
-     * Ensures that the output size is equal to getRowCount()
+     * Returns the value of a text annotation without creating a {@link JIPipeTextAnnotation} instance
+     *
+     * @param row    data row
+     * @param column annotation name
+     * @return the value or null if the row has no such annotation
+     */
+    public String getTextAnnotationValue(int row, String column) {
+        long stamp = stampedLock.readLock();
+        try {
+            return textAnnotationStore.getValue(column, row);
+        } finally {
+            stampedLock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Creates the annotation column if needed
+     * Ensures that the column size is equal to getRowCount()
      * NOT THREAD-SAFE, REQUIRES A WRITE LOCK!
      *
      * @param columnName Annotation type
-     * @return All annotation instances of the provided type. Size is getRowCount()
      */
-    protected List<JIPipeTextAnnotation> getOrCreateTextAnnotationColumnArray_(String columnName) {
-        ArrayList<JIPipeTextAnnotation> arrayList = textAnnotationArrays.getOrDefault(columnName, null);
-        int rowCount = getRowCount_();
-        if (arrayList == null || arrayList.size() < rowCount) {
-            if (arrayList == null) {
-                textAnnotationColumnNames.add(columnName);
-                arrayList = new ArrayList<>();
-                textAnnotationArrays.put(columnName, arrayList);
-            }
-            while (arrayList.size() < rowCount) {
-                arrayList.add(null);
-            }
+    protected void ensureTextAnnotationColumn_(String columnName) {
+        if (textAnnotationStore.ensureColumn(columnName, getRowCount_())) {
+            textAnnotationColumnNames.add(columnName);
         }
-        return arrayList;
+    }
+
+    /**
+     * Sets a text annotation
+     * NOT THREAD-SAFE, REQUIRES A WRITE LOCK!
+     *
+     * @param row        the row
+     * @param annotation the annotation
+     */
+    protected void setTextAnnotation_(int row, JIPipeTextAnnotation annotation) {
+        ensureTextAnnotationColumn_(annotation.getName());
+        textAnnotationStore.setValue(annotation.getName(), row, annotation.getValue());
     }
 
     /**
@@ -1056,18 +1064,6 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
         return arrayList;
     }
 
-    /**
-     * Gets the annotation column or creates it
-     * DOES NOT ENSURE that the output size is equal to getRowCount()
-     * NOT THREAD-SAFE, REQUIRES A WRITE LOCK!
-     *
-     * @param columnName Annotation type
-     * @return All annotation instances of the provided type or null
-     */
-    protected List<JIPipeTextAnnotation> getTextAnnotationColumnArray_(String columnName) {
-        return textAnnotationArrays.getOrDefault(columnName, null);
-    }
-
     /**
      * Gets the annotation data column
      * DOES NOT ENSURE that the output size is equal to getRowCount()
@@ -1105,8 +1101,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
             dataArray.add(virtualData);
             dataContextsArray.add(context != null ? context : new JIPipeMutableDataContext());
             for (JIPipeTextAnnotation annotation : annotations) {
-                List<JIPipeTextAnnotation> annotationArray = getOrCreateTextAnnotationColumnArray_(annotation.getName());
-                annotationArray.set(getRowCount_() - 1, annotation);
+                setTextAnnotation_(getRowCount_() - 1, annotation);
             }
             fireChangedEvent(new TableModelEvent(this));
         } finally {
@@ -1136,13 +1131,8 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
     public void addTextAnnotationToAllData(JIPipeTextAnnotation annotation, boolean overwrite) {
         long stamp = stampedLock.writeLock();
         try {
-            List<JIPipeTextAnnotation> annotationArray = getOrCreateTextAnnotationColumnArray_(annotation.getName());
-            int rowCount = getRowCount_();
-            for (int i = 0; i < rowCount; ++i) {
-                if (!overwrite && annotationArray.get(i) != null)
-                    continue;
-                annotationArray.set(i, annotation);
-            }
+            ensureTextAnnotationColumn_(annotation.getName());
+            textAnnotationStore.fillValue(annotation.getName(), annotation.getValue(), overwrite);
             fireChangedEvent(new TableModelEvent(this));
         } finally {
             stampedLock.unlock(stamp);
@@ -1172,7 +1162,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
             int columnIndex = textAnnotationColumnNames.indexOf(column);
             if (columnIndex != -1) {
                 textAnnotationColumnNames.remove(columnIndex);
-                textAnnotationArrays.remove(column);
+                textAnnotationStore.removeColumn(column);
             }
         } finally {
             stampedLock.unlock(stamp);
@@ -1407,8 +1397,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
             dataArray.add(virtualData);
             dataContextsArray.add(context != null ? context : new JIPipeMutableDataContext());
             for (JIPipeTextAnnotation annotation : annotations) {
-                List<JIPipeTextAnnotation> annotationArray = getOrCreateTextAnnotationColumnArray_(annotation.getName());
-                annotationArray.set(getRowCount_() - 1, annotation);
+                setTextAnnotation_(getRowCount_() - 1, annotation);
             }
         } finally {
             stampedLock.unlock(stamp);
@@ -1440,7 +1429,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
         long stamp = stampedLock.readLock();
         try {
             String annotation = textAnnotationColumnNames.get(column);
-            return textAnnotationArrays.get(annotation).get(row);
+            return textAnnotationStore.get(annotation, row);
         } finally {
             stampedLock.unlock(stamp);
         }
@@ -1456,7 +1445,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
     public JIPipeTextAnnotation getTextAnnotation(int row, String column) {
         long stamp = stampedLock.readLock();
         try {
-            return textAnnotationArrays.get(column).get(row);
+            return textAnnotationStore.get(column, row);
         } finally {
             stampedLock.unlock(stamp);
         }
@@ -1622,8 +1611,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
             }
             dataContextsArray.add(context != null ? context : new JIPipeMutableDataContext());
             for (JIPipeTextAnnotation annotation : annotations) {
-                List<JIPipeTextAnnotation> annotationArray = getOrCreateTextAnnotationColumnArray_(annotation.getName());
-                annotationArray.set(getRowCount_() - 1, annotation);
+                setTextAnnotation_(getRowCount_() - 1, annotation);
             }
             for (JIPipeDataAnnotation annotation : dataAnnotationMergeStrategy.merge(dataAnnotations)) {
                 setDataAnnotationItemStore_(getRowCount_() - 1, annotation.getName(), annotation.getDataItemStore());
@@ -1672,8 +1660,7 @@ public class JIPipeDataTable implements JIPipeData, TableModel {
             this.dataContextsArray.add(context != null ? context : new JIPipeMutableDataContext());
             virtualData.addUser(this);
             for (JIPipeTextAnnotation annotation : annotations) {
-                List<JIPipeTextAnnotation> annotationArray = getOrCreateTextAnnotationColumnArray_(annotation.getName());
-                annotationArray.set(getRowCount_() - 1, annotation);
+                setTextAnnotation_(getRowCount_() - 1, annotation);
             }
             for (JIPipeDataAnnotation annotation : dataAnnotationMergeStrategy.merge(dataAnnotations)) {
                 setDataAnnotationItemStore_(getRowCount_() - 1, annotation.getName(), annotation.getDataItemStore());
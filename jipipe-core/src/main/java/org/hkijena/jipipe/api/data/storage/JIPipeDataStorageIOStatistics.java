@@ -0,0 +1,52 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.api.data.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes that are read and written via {@link JIPipeFileSystemReadDataStorage} and {@link JIPipeFileSystemWriteDataStorage} streams.
+ * Attached to a {@link org.hkijena.jipipe.api.JIPipeProgressInfo} via {@link org.hkijena.jipipe.api.JIPipeProgressInfo#withIOStatistics(JIPipeDataStorageIOStatistics)},
+ * so only storages that were created with this progress info (or one resolved from it) count into the statistics.
+ */
+public class JIPipeDataStorageIOStatistics {
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    /**
+     * The counter of the read bytes
+     *
+     * @return the counter
+     */
+    public AtomicLong getBytesReadCounter() {
+        return bytesRead;
+    }
+
+    /**
+     * The counter of the written bytes
+     *
+     * @return the counter
+     */
+    public AtomicLong getBytesWrittenCounter() {
+        return bytesWritten;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+}
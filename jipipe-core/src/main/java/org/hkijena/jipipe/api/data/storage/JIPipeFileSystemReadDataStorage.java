@@ -14,6 +14,7 @@
 package org.hkijena.jipipe.api.data.storage;
 
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.utils.ByteCountingInputStream;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -26,7 +27,8 @@ import java.util.Collection;
 import java.util.stream.Collectors;
 
 /**
- * Storage on a file system
+ * Storage on a file system.
+ * Read bytes are counted into the {@link JIPipeProgressInfo#getIOStatistics()} of the progress info, if available.
  */
 public class JIPipeFileSystemReadDataStorage implements JIPipeReadDataStorage {
     private final JIPipeProgressInfo progressInfo;
@@ -98,7 +100,12 @@ public class JIPipeFileSystemReadDataStorage implements JIPipeReadDataStorage {
     @Override
     public InputStream open(Path path) {
         try {
-            return new FileInputStream(getFileSystemPath().resolve(path).toFile());
+            FileInputStream stream = new FileInputStream(getFileSystemPath().resolve(path).toFile());
+            JIPipeDataStorageIOStatistics ioStatistics = progressInfo.getIOStatistics();
+            if (ioStatistics != null) {
+                return new ByteCountingInputStream(stream, ioStatistics.getBytesReadCounter());
+            }
+            return stream;
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         }
@@ -15,32 +15,71 @@ package org.hkijena.jipipe.api.data.storage;
 
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.validation.JIPipeValidationRuntimeException;
+import org.hkijena.jipipe.utils.ByteCountingOutputStream;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Storage on a file system. This is the simplest {@link JIPipeWriteDataStorage}.
+ * A storage and all storages resolved from it share their statistics about the written data (see {@link #getBytesWritten()}).
+ * Written bytes are also counted into the {@link JIPipeProgressInfo#getIOStatistics()} of the progress info, if available.
  */
 public class JIPipeFileSystemWriteDataStorage implements JIPipeWriteDataStorage {
     private final JIPipeProgressInfo progressInfo;
     private final Path fileSystemPath;
     private final Path internalPath;
+    private final WriteStatistics statistics;
 
     public JIPipeFileSystemWriteDataStorage(JIPipeProgressInfo progressInfo, Path fileSystemPath) {
-        this.progressInfo = progressInfo;
-        this.fileSystemPath = fileSystemPath;
-        this.internalPath = Paths.get("");
+        this(progressInfo, fileSystemPath, Paths.get(""));
     }
 
     public JIPipeFileSystemWriteDataStorage(JIPipeProgressInfo progressInfo, Path fileSystemPath, Path internalPath) {
+        this(progressInfo, fileSystemPath, internalPath, new WriteStatistics());
+    }
+
+    private JIPipeFileSystemWriteDataStorage(JIPipeProgressInfo progressInfo, Path fileSystemPath, Path internalPath, WriteStatistics statistics) {
         this.progressInfo = progressInfo;
         this.fileSystemPath = fileSystemPath;
         this.internalPath = internalPath;
+        this.statistics = statistics;
+        statistics.directories.add(fileSystemPath);
+    }
+
+    /**
+     * Returns the number of bytes written into this storage and the storages resolved from it.
+     * Bytes written via {@link #write(Path)} are counted while they are written.
+     * Files that were written directly into {@link #getFileSystemPath()} (e.g., by ImageJ) are counted by their size.
+     * Only the directories of this storage are listed for this, not the whole directory tree.
+     *
+     * @return the number of written bytes
+     */
+    public long getBytesWritten() {
+        long result = statistics.streamBytes.get();
+        for (Path directory : statistics.directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path file : stream) {
+                    if (!statistics.streamFiles.contains(file) && Files.isRegularFile(file)) {
+                        result += Files.size(file);
+                    }
+                }
+            } catch (IOException e) {
+                progressInfo.log("Unable to determine the size of the files in " + directory + ": " + e.getMessage());
+            }
+        }
+        return result;
     }
 
     @Override
@@ -73,7 +112,7 @@ public class JIPipeFileSystemWriteDataStorage implements JIPipeWriteDataStorage
                     "The path might be invalid, or you might not have the permissions to write in a parent folder.",
                     "Check if the path is valid, and you have write-access.");
         }
-        return new JIPipeFileSystemWriteDataStorage(progressInfo, newPath, getInternalPath().resolve(path));
+        return new JIPipeFileSystemWriteDataStorage(progressInfo, newPath, getInternalPath().resolve(path), statistics);
     }
 
     @Override
@@ -83,7 +122,13 @@ public class JIPipeFileSystemWriteDataStorage implements JIPipeWriteDataStorage
             if (outputPath.getParent() != null) {
                 Files.createDirectories(outputPath.getParent());
             }
-            return new FileOutputStream(outputPath.toFile(), false);
+            statistics.streamFiles.add(outputPath);
+            JIPipeDataStorageIOStatistics ioStatistics = progressInfo.getIOStatistics();
+            if (ioStatistics != null) {
+                return new ByteCountingOutputStream(new FileOutputStream(outputPath.toFile(), false), statistics.streamBytes, ioStatistics.getBytesWrittenCounter());
+            } else {
+                return new ByteCountingOutputStream(new FileOutputStream(outputPath.toFile(), false), statistics.streamBytes);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -98,4 +143,13 @@ public class JIPipeFileSystemWriteDataStorage implements JIPipeWriteDataStorage
     public void close() throws IOException {
         // Nothing to do
     }
+
+    /**
+     * Statistics shared between a storage and all storages resolved from it
+     */
+    private static class WriteStatistics {
+        private final AtomicLong streamBytes = new AtomicLong();
+        private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+        private final Set<Path> streamFiles = ConcurrentHashMap.newKeySet();
+    }
 }
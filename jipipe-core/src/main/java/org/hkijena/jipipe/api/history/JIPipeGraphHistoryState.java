@@ -0,0 +1,195 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+
+package org.hkijena.jipipe.api.history;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import org.hkijena.jipipe.api.nodes.JIPipeGraph;
+import org.hkijena.jipipe.api.notifications.JIPipeNotificationInbox;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReport;
+import org.hkijena.jipipe.api.validation.contexts.UnspecifiedValidationReportContext;
+import org.hkijena.jipipe.utils.json.JsonUtils;
+
+import java.util.*;
+
+/**
+ * Compact, immutable representation of the nodes, edges, and additional metadata of a {@link JIPipeGraph} for the history journal.
+ * Each node and edge is stored as its serialized JSON string, which allows to compute the differences between two states
+ * ({@link Delta}) and to rebuild a graph without keeping node instances in memory.
+ */
+public class JIPipeGraphHistoryState {
+    private final Map<String, String> nodes;
+    private final Set<String> edges;
+    private final String additionalMetadata;
+
+    private JIPipeGraphHistoryState(Map<String, String> nodes, Set<String> edges, String additionalMetadata) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.additionalMetadata = additionalMetadata;
+    }
+
+    /**
+     * Captures the current state of a graph
+     *
+     * @param graph the graph
+     * @return the state
+     */
+    public static JIPipeGraphHistoryState capture(JIPipeGraph graph) {
+        ObjectMapper objectMapper = JsonUtils.getObjectMapper();
+        JsonNode graphJson = objectMapper.valueToTree(graph);
+        Map<String, String> nodes = new HashMap<>();
+        Set<String> edges = new LinkedHashSet<>();
+        String additionalMetadata = null;
+        try {
+            for (Map.Entry<String, JsonNode> entry : ImmutableList.copyOf(graphJson.path("nodes").fields())) {
+                nodes.put(entry.getKey(), objectMapper.writeValueAsString(entry.getValue()));
+            }
+            for (JsonNode edge : ImmutableList.copyOf(graphJson.path("edges").elements())) {
+                edges.add(objectMapper.writeValueAsString(edge));
+            }
+            if (graphJson.has("additional-metadata")) {
+                additionalMetadata = objectMapper.writeValueAsString(graphJson.get("additional-metadata"));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+        return new JIPipeGraphHistoryState(nodes, edges, additionalMetadata);
+    }
+
+    /**
+     * Applies a delta to this state
+     *
+     * @param delta the delta
+     * @return the new state. This state is not modified.
+     */
+    public JIPipeGraphHistoryState apply(Delta delta) {
+        Map<String, String> newNodes = new HashMap<>(nodes);
+        for (String uuid : delta.removedNodes) {
+            newNodes.remove(uuid);
+        }
+        newNodes.putAll(delta.changedNodes);
+        Set<String> newEdges = new LinkedHashSet<>(edges);
+        newEdges.removeAll(delta.removedEdges);
+        newEdges.addAll(delta.addedEdges);
+        return new JIPipeGraphHistoryState(newNodes, newEdges, delta.additionalMetadataChanged ? delta.additionalMetadata : additionalMetadata);
+    }
+
+    /**
+     * Creates a new graph from this state.
+     * Issues are printed to the standard error and notifications are sent to the global inbox.
+     *
+     * @return the graph
+     */
+    public JIPipeGraph toGraph() {
+        JIPipeValidationReport report = new JIPipeValidationReport();
+        JIPipeGraph graph = toGraph(report, JIPipeNotificationInbox.getInstance());
+        report.print();
+        return graph;
+    }
+
+    /**
+     * Creates a new graph from this state
+     *
+     * @param report        issues reported during deserializing
+     * @param notifications notifications for the user
+     * @return the graph
+     */
+    public JIPipeGraph toGraph(JIPipeValidationReport report, JIPipeNotificationInbox notifications) {
+        ObjectMapper objectMapper = JsonUtils.getObjectMapper();
+        ObjectNode graphJson = objectMapper.createObjectNode();
+        ObjectNode nodesJson = graphJson.putObject("nodes");
+        ArrayNode edgesJson = graphJson.putArray("edges");
+        try {
+            for (Map.Entry<String, String> entry : nodes.entrySet()) {
+                nodesJson.set(entry.getKey(), objectMapper.readTree(entry.getValue()));
+            }
+            for (String edge : edges) {
+                edgesJson.add(objectMapper.readTree(edge));
+            }
+            if (additionalMetadata != null) {
+                graphJson.set("additional-metadata", objectMapper.readTree(additionalMetadata));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+        JIPipeGraph graph = new JIPipeGraph();
+        graph.fromJson(graphJson, new UnspecifiedValidationReportContext(), report, notifications);
+        return graph;
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * The differences between two graph states: added/removed nodes, nodes with changed parameters, added/removed edges, and changed additional metadata
+     */
+    public static class Delta {
+        private final Map<String, String> changedNodes = new HashMap<>();
+        private final Set<String> removedNodes = new HashSet<>();
+        private final Set<String> addedEdges = new LinkedHashSet<>();
+        private final Set<String> removedEdges = new HashSet<>();
+        private boolean additionalMetadataChanged;
+        private String additionalMetadata;
+
+        /**
+         * Computes the delta that transforms one state into another
+         *
+         * @param from the original state
+         * @param to   the target state
+         * @return the delta
+         */
+        public static Delta between(JIPipeGraphHistoryState from, JIPipeGraphHistoryState to) {
+            Delta delta = new Delta();
+            for (Map.Entry<String, String> entry : to.nodes.entrySet()) {
+                if (!entry.getValue().equals(from.nodes.get(entry.getKey()))) {
+                    delta.changedNodes.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (String uuid : from.nodes.keySet()) {
+                if (!to.nodes.containsKey(uuid)) {
+                    delta.removedNodes.add(uuid);
+                }
+            }
+            for (String edge : to.edges) {
+                if (!from.edges.contains(edge)) {
+                    delta.addedEdges.add(edge);
+                }
+            }
+            for (String edge : from.edges) {
+                if (!to.edges.contains(edge)) {
+                    delta.removedEdges.add(edge);
+                }
+            }
+            if (!Objects.equals(from.additionalMetadata, to.additionalMetadata)) {
+                delta.additionalMetadataChanged = true;
+                delta.additionalMetadata = to.additionalMetadata;
+            }
+            return delta;
+        }
+
+        public boolean isEmpty() {
+            return changedNodes.isEmpty() && removedNodes.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty() && !additionalMetadataChanged;
+        }
+
+        public int getChangedNodeCount() {
+            return changedNodes.size();
+        }
+    }
+}
@@ -11,12 +11,15 @@
  * See the LICENSE file provided with the code for the full license.
  */
 
+
 package org.hkijena.jipipe.api.history;
 
 import org.hkijena.jipipe.api.AbstractJIPipeRunnable;
 import org.hkijena.jipipe.api.nodes.JIPipeGraph;
+import org.hkijena.jipipe.api.notifications.JIPipeNotificationInbox;
 import org.hkijena.jipipe.api.project.JIPipeProject;
 import org.hkijena.jipipe.api.run.JIPipeRunnableQueue;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReport;
 import org.hkijena.jipipe.plugins.settings.JIPipeHistoryJournalApplicationSettings;
 import org.hkijena.jipipe.utils.UIUtils;
 
@@ -26,6 +29,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * History journal for a whole project.
+ * Snapshots do not store copies of the graphs. Instead, every few snapshots a compact checkpoint ({@link JIPipeGraphHistoryState}) is stored,
+ * while all other snapshots only store the differences to their chronological predecessor. Restoring a snapshot replays the deltas
+ * starting from the nearest checkpoint.
+ */
 public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
     private final HistoryChangedEventEmitter historyChangedEventEmitter = new HistoryChangedEventEmitter();
     private final JIPipeProject project;
@@ -34,6 +43,9 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
     private final List<Snapshot> undoStack = new ArrayList<>();
     private final List<Snapshot> redoStack = new ArrayList<>();
     private Snapshot currentSnapshot;
+    private Snapshot cachedStateSnapshot;
+    private ProjectState cachedState;
+    private JIPipeValidationReport lastRestoreReport = new JIPipeValidationReport();
 
     public JIPipeProjectHistoryJournal(JIPipeProject project, JIPipeRunnableQueue snapshotQueue) {
         this.project = project;
@@ -45,6 +57,15 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
         return project;
     }
 
+    /**
+     * The issues that were reported while restoring the last snapshot (undo/redo)
+     *
+     * @return the report. Empty if no issues were found.
+     */
+    public JIPipeValidationReport getLastRestoreReport() {
+        return lastRestoreReport;
+    }
+
     @Override
     public void snapshot(String name, String description, UUID compartment, Icon icon) {
         if (settings.getMaxEntries() == 0) {
@@ -58,18 +79,20 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
                 icon,
                 project.getGraph(),
                 project.getCompartmentGraph()));
-//        addSnapshot(new Snapshot(this,
-//                LocalDateTime.now(),
-//                name,
-//                description,
-//                icon,
-//                new JIPipeGraph(project.getGraph()),
-//                new JIPipeGraph(project.getCompartmentGraph())));
     }
 
     @Override
     public List<JIPipeHistoryJournalSnapshot> getSnapshots() {
-        List<JIPipeHistoryJournalSnapshot> snapshots = new ArrayList<>(undoStack);
+        return new ArrayList<>(getTimeline());
+    }
+
+    /**
+     * The snapshots in chronological order
+     *
+     * @return the snapshots
+     */
+    private List<Snapshot> getTimeline() {
+        List<Snapshot> snapshots = new ArrayList<>(undoStack);
         for (int i = redoStack.size() - 1; i >= 0; i--) {
             Snapshot snapshot = redoStack.get(i);
             snapshots.add(snapshot);
@@ -82,6 +105,8 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
         undoStack.clear();
         redoStack.clear();
         currentSnapshot = null;
+        cachedStateSnapshot = null;
+        cachedState = null;
         historyChangedEventEmitter.emit(new HistoryChangedEvent(this));
     }
 
@@ -92,15 +117,12 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
 
             // If the redo stack was empty at the beginning, create a new snapshot
             if (createSnapshot) {
-                JIPipeGraph copy = new JIPipeGraph(getProject().getGraph());
-                JIPipeGraph compartmentGraph = new JIPipeGraph(project.getCompartmentGraph());
-                redoStack.add(new Snapshot(this,
+                redoStack.add(createSnapshot(undoStack.get(undoStack.size() - 1),
                         LocalDateTime.now(),
                         "Before undo",
                         "A snapshot of the current version",
                         UIUtils.getIconFromResources("actions/edit-undo.png"),
-                        copy,
-                        compartmentGraph));
+                        ProjectState.capture(project.getGraph(), project.getCompartmentGraph())));
             }
 
             // Shift other undo operations into the redo stack
@@ -168,29 +190,112 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
     /**
      * Adds a snapshot
      *
-     * @param snapshot the snapshot
+     * @param creationTime the creation time
+     * @param name         the name
+     * @param description  the description
+     * @param icon         the icon
+     * @param state        the captured state
      */
-    private void addSnapshot(Snapshot snapshot) {
+    private void addSnapshot(LocalDateTime creationTime, String name, String description, Icon icon, ProjectState state) {
         redoStack.clear();
+        if (cachedStateSnapshot != null && !undoStack.contains(cachedStateSnapshot)) {
+            cachedStateSnapshot = null;
+            cachedState = null;
+        }
         if (settings.getMaxEntries() > 0) {
             while (undoStack.size() > settings.getMaxEntries()) {
-                Snapshot removed = undoStack.remove(0);
+                Snapshot removed = removeOldestSnapshot();
                 if (currentSnapshot == removed) {
                     currentSnapshot = null;
                 }
             }
         }
-        undoStack.add(snapshot);
+        Snapshot predecessor = undoStack.isEmpty() ? null : undoStack.get(undoStack.size() - 1);
+        undoStack.add(createSnapshot(predecessor, creationTime, name, description, icon, state));
         historyChangedEventEmitter.emit(new HistoryChangedEvent(this));
     }
 
+    /**
+     * Removes the oldest snapshot. The following snapshot becomes a checkpoint if needed.
+     *
+     * @return the removed snapshot
+     */
+    private Snapshot removeOldestSnapshot() {
+        List<Snapshot> timeline = getTimeline();
+        if (timeline.size() > 1 && !timeline.get(1).isCheckpoint()) {
+            Snapshot next = timeline.get(1);
+            next.makeCheckpoint(reconstruct(next));
+        }
+        Snapshot removed = undoStack.remove(0);
+        if (cachedStateSnapshot == removed) {
+            cachedStateSnapshot = null;
+            cachedState = null;
+        }
+        return removed;
+    }
+
+    /**
+     * Creates a new snapshot that follows the predecessor in the timeline
+     *
+     * @param predecessor  the chronological predecessor (can be null)
+     * @param creationTime the creation time
+     * @param name         the name
+     * @param description  the description
+     * @param icon         the icon
+     * @param state        the captured state
+     * @return the snapshot
+     */
+    private Snapshot createSnapshot(Snapshot predecessor, LocalDateTime creationTime, String name, String description, Icon icon, ProjectState state) {
+        Snapshot snapshot;
+        if (predecessor == null || predecessor.getDeltaChainLength() + 1 >= Math.max(1, settings.getCheckpointInterval())) {
+            snapshot = new Snapshot(this, creationTime, name, description, icon, state, null, 0);
+        } else {
+            ProjectState predecessorState = reconstruct(predecessor);
+            snapshot = new Snapshot(this, creationTime, name, description, icon, null,
+                    ProjectDelta.between(predecessorState, state),
+                    predecessor.getDeltaChainLength() + 1);
+        }
+        cachedStateSnapshot = snapshot;
+        cachedState = state;
+        return snapshot;
+    }
+
+    /**
+     * Reconstructs the full state of a snapshot by replaying the deltas from the nearest checkpoint
+     *
+     * @param snapshot the snapshot
+     * @return the state
+     */
+    private ProjectState reconstruct(Snapshot snapshot) {
+        if (snapshot == cachedStateSnapshot && cachedState != null) {
+            return cachedState;
+        }
+        List<Snapshot> timeline = getTimeline();
+        int index = timeline.indexOf(snapshot);
+        if (index < 0) {
+            throw new IllegalArgumentException("Snapshot is not part of the journal!");
+        }
+        int checkpointIndex = index;
+        while (!timeline.get(checkpointIndex).isCheckpoint()) {
+            --checkpointIndex;
+        }
+        ProjectState state = timeline.get(checkpointIndex).checkpoint;
+        for (int i = checkpointIndex + 1; i <= index; i++) {
+            state = state.apply(timeline.get(i).delta);
+        }
+        cachedStateSnapshot = snapshot;
+        cachedState = state;
+        return state;
+    }
+
     @Override
     public HistoryChangedEventEmitter getHistoryChangedEventEmitter() {
         return historyChangedEventEmitter;
     }
 
     /**
-     * Stores all information about the state of a
+     * Stores all information about the state of a project.
+     * Either contains a full checkpoint or the delta to the chronologically previous snapshot.
      */
     public static class Snapshot implements JIPipeHistoryJournalSnapshot {
         private final JIPipeProjectHistoryJournal historyJournal;
@@ -198,17 +303,19 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
         private final String name;
         private final String description;
         private final Icon icon;
-        private final JIPipeGraph graph;
-        private final JIPipeGraph compartmentGraph;
+        private ProjectState checkpoint;
+        private ProjectDelta delta;
+        private int deltaChainLength;
 
-        public Snapshot(JIPipeProjectHistoryJournal historyJournal, LocalDateTime creationTime, String name, String description, Icon icon, JIPipeGraph graph, JIPipeGraph compartmentGraph) {
+        private Snapshot(JIPipeProjectHistoryJournal historyJournal, LocalDateTime creationTime, String name, String description, Icon icon, ProjectState checkpoint, ProjectDelta delta, int deltaChainLength) {
             this.historyJournal = historyJournal;
             this.creationTime = creationTime;
             this.name = name;
             this.description = description;
             this.icon = icon;
-            this.graph = graph;
-            this.compartmentGraph = compartmentGraph;
+            this.checkpoint = checkpoint;
+            this.delta = delta;
+            this.deltaChainLength = deltaChainLength;
         }
 
         @Override
@@ -228,28 +335,108 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
 
         @Override
         public boolean restore() {
-            historyJournal.getProject().getGraph().replaceWith(new JIPipeGraph(graph));
-            historyJournal.getProject().getCompartmentGraph().replaceWith(new JIPipeGraph(compartmentGraph));
+            ProjectState state = historyJournal.reconstruct(this);
+            JIPipeValidationReport report = new JIPipeValidationReport();
+            JIPipeNotificationInbox notifications = JIPipeNotificationInbox.getInstance();
+            historyJournal.getProject().getGraph().replaceWith(state.graph.toGraph(report, notifications));
+            historyJournal.getProject().getCompartmentGraph().replaceWith(state.compartmentGraph.toGraph(report, notifications));
             historyJournal.getProject().rebuildCompartmentsFromGraph();
+            historyJournal.lastRestoreReport = report;
+            if (!report.isEmpty()) {
+                report.print();
+            }
             return true;
         }
 
+        /**
+         * Creates a new graph from the stored state
+         *
+         * @return the project graph at the time of the snapshot
+         */
         public JIPipeGraph getGraph() {
-            return graph;
+            return historyJournal.reconstruct(this).graph.toGraph();
         }
 
         public JIPipeProjectHistoryJournal getHistoryJournal() {
             return historyJournal;
         }
 
+        /**
+         * Creates a new graph from the stored state
+         *
+         * @return the compartment graph at the time of the snapshot
+         */
         public JIPipeGraph getCompartmentGraph() {
-            return compartmentGraph;
+            return historyJournal.reconstruct(this).compartmentGraph.toGraph();
         }
 
         @Override
         public LocalDateTime getCreationTime() {
             return creationTime;
         }
+
+        /**
+         * Returns true if the snapshot stores the full state
+         *
+         * @return if the snapshot is a checkpoint
+         */
+        public boolean isCheckpoint() {
+            return checkpoint != null;
+        }
+
+        /**
+         * The number of deltas since the last checkpoint
+         *
+         * @return the number of deltas (zero for checkpoints)
+         */
+        public int getDeltaChainLength() {
+            return deltaChainLength;
+        }
+
+        private void makeCheckpoint(ProjectState state) {
+            this.checkpoint = state;
+            this.delta = null;
+            this.deltaChainLength = 0;
+        }
+    }
+
+    /**
+     * The full state of the project and compartment graph
+     */
+    private static class ProjectState {
+        private final JIPipeGraphHistoryState graph;
+        private final JIPipeGraphHistoryState compartmentGraph;
+
+        private ProjectState(JIPipeGraphHistoryState graph, JIPipeGraphHistoryState compartmentGraph) {
+            this.graph = graph;
+            this.compartmentGraph = compartmentGraph;
+        }
+
+        public static ProjectState capture(JIPipeGraph graph, JIPipeGraph compartmentGraph) {
+            return new ProjectState(JIPipeGraphHistoryState.capture(graph), JIPipeGraphHistoryState.capture(compartmentGraph));
+        }
+
+        public ProjectState apply(ProjectDelta delta) {
+            return new ProjectState(graph.apply(delta.graph), compartmentGraph.apply(delta.compartmentGraph));
+        }
+    }
+
+    /**
+     * The differences between two {@link ProjectState}
+     */
+    private static class ProjectDelta {
+        private final JIPipeGraphHistoryState.Delta graph;
+        private final JIPipeGraphHistoryState.Delta compartmentGraph;
+
+        private ProjectDelta(JIPipeGraphHistoryState.Delta graph, JIPipeGraphHistoryState.Delta compartmentGraph) {
+            this.graph = graph;
+            this.compartmentGraph = compartmentGraph;
+        }
+
+        public static ProjectDelta between(ProjectState from, ProjectState to) {
+            return new ProjectDelta(JIPipeGraphHistoryState.Delta.between(from.graph, to.graph),
+                    JIPipeGraphHistoryState.Delta.between(from.compartmentGraph, to.compartmentGraph));
+        }
     }
 
     private static class CreateSnapshotRun extends AbstractJIPipeRunnable {
@@ -281,11 +468,11 @@ public class JIPipeProjectHistoryJournal implements JIPipeHistoryJournal {
             // We try up to 5 times
             for (int i = 0; i < 5; i++) {
                 try {
-                    JIPipeGraph graphCopy = new JIPipeGraph(graph);
-                    JIPipeGraph compartmentGraphCopy = new JIPipeGraph(compartmentGraph);
+                    ProjectState state = ProjectState.capture(graph, compartmentGraph);
 
+                    // The delta is computed on the EDT, as it depends on the current order of snapshots
                     SwingUtilities.invokeLater(() -> {
-                        historyJournal.addSnapshot(new Snapshot(historyJournal, dateTime, name, description, icon, graphCopy, compartmentGraphCopy));
+                        historyJournal.addSnapshot(dateTime, name, description, icon, state);
                     });
 
                     break;
@@ -2094,11 +2094,25 @@ public class JIPipeGraph implements JIPipeValidatable, JIPipeFunctionallyCompara
     public static class Serializer extends JsonSerializer<JIPipeGraph> {
         @Override
         public void serialize(JIPipeGraph algorithmGraph, JsonGenerator generator, SerializerProvider serializerProvider) throws IOException, JsonProcessingException {
+            serialize(algorithmGraph, generator, true);
+        }
+
+        /**
+         * Serializes the graph
+         *
+         * @param algorithmGraph the graph
+         * @param generator      the generator
+         * @param withNodes      if false, the "nodes" object is written empty. Used if the nodes are stored separately.
+         * @throws IOException thrown by the generator
+         */
+        public static void serialize(JIPipeGraph algorithmGraph, JsonGenerator generator, boolean withNodes) throws IOException {
             generator.writeStartObject();
 
             generator.writeFieldName("nodes");
             generator.writeStartObject();
-            serializeNodes(algorithmGraph, generator);
+            if (withNodes) {
+                serializeNodes(algorithmGraph, generator);
+            }
             generator.writeEndObject();
 
             generator.writeFieldName("edges");
@@ -2135,13 +2149,13 @@ public class JIPipeGraph implements JIPipeValidatable, JIPipeFunctionallyCompara
             generator.writeEndObject();
         }
 
-        private void serializeNodes(JIPipeGraph algorithmGraph, JsonGenerator jsonGenerator) throws IOException {
+        private static void serializeNodes(JIPipeGraph algorithmGraph, JsonGenerator jsonGenerator) throws IOException {
             for (Map.Entry<UUID, JIPipeGraphNode> kv : algorithmGraph.nodeUUIDs.entrySet()) {
                 jsonGenerator.writeObjectField(kv.getKey().toString(), kv.getValue());
             }
         }
 
-        private void serializeEdges(JIPipeGraph graph, JsonGenerator jsonGenerator) throws IOException {
+        private static void serializeEdges(JIPipeGraph graph, JsonGenerator jsonGenerator) throws IOException {
             for (Map.Entry<JIPipeDataSlot, JIPipeDataSlot> edge : graph.getSlotEdges()) {
                 jsonGenerator.writeStartObject();
                 jsonGenerator.writeStringField("source-node", graph.getUUIDOf(edge.getKey().getNode()).toString());
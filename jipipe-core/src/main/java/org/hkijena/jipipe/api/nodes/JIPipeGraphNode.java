@@ -963,6 +963,22 @@ public abstract class JIPipeGraphNode extends AbstractJIPipeParameterCollection
         return PathUtils.createTempSubDirectory(getScratchBaseDirectory(), getParentGraph() != null ? getAliasIdInParentGraph() : "scratch");
     }
 
+    /**
+     * Returns a new scratch directory that is intended for exchanging data with external processes.
+     * If enabled and available, the directory is located in shared memory (see {@link JIPipeRuntimeApplicationSettings#getSharedMemoryExchangeDirectory(String)}).
+     * Otherwise, the behavior is the same as {@link #getNewScratch()}.
+     * Callers should delete the directory after use.
+     *
+     * @return the scratch directory
+     */
+    public Path getNewExchangeScratch() {
+        Path directory = JIPipeRuntimeApplicationSettings.getSharedMemoryExchangeDirectory(getParentGraph() != null ? getAliasIdInParentGraph() : "scratch");
+        if (directory != null) {
+            return directory;
+        }
+        return getNewScratch();
+    }
+
     /**
      * Triggers an event that indicates that the slots have changed
      */
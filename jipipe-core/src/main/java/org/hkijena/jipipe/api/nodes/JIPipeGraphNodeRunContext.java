@@ -55,4 +55,17 @@ public class JIPipeGraphNodeRunContext {
     public void setGraphRun(JIPipeGraphRun graphRun) {
         this.graphRun = graphRun;
     }
+
+    /**
+     * Reports the number of iteration steps that a node is about to execute.
+     * The information is passed to the run profiler if profiling is enabled.
+     *
+     * @param node              the node
+     * @param numIterationSteps the number of iteration steps
+     */
+    public void reportIterationSteps(JIPipeGraphNode node, int numIterationSteps) {
+        if (graphRun != null && graphRun.getProfiler() != null) {
+            graphRun.getProfiler().addIterationSteps(node, numIterationSteps);
+        }
+    }
 }
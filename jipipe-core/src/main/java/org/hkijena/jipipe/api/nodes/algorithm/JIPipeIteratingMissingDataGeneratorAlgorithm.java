@@ -173,6 +173,7 @@ public abstract class JIPipeIteratingMissingDataGeneratorAlgorithm extends JIPip
         }
 
         final int numIterationSteps = iterationSteps.size();
+        runContext.reportIterationSteps(this, numIterationSteps);
         JIPipeRuntimePartition partition = runContext.getGraphRun().getRuntimePartition(getRuntimePartition());
 
         if (!supportsParallelization() || !partition.isEnableParallelization() || runContext.getThreadPool() == null || runContext.getThreadPool().getMaxThreads() <= 1) {
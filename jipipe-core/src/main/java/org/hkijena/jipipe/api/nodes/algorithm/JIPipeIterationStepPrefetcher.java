@@ -0,0 +1,167 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+
+package org.hkijena.jipipe.api.nodes.algorithm;
+
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the data of upcoming iteration steps on dedicated I/O threads while the current one is processed.
+ * At most depth steps are loaded in advance. Additionally, the estimated size of all loaded, but not yet
+ * processed steps is kept below the memory budget (at least one step is always loaded in advance).
+ * Steps must be requested in ascending order via {@link #take(int)}. Not thread-safe.
+ */
+public class JIPipeIterationStepPrefetcher implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final List<JIPipeSingleIterationStep> iterationSteps;
+    private final Loader loader;
+    private final SizeEstimator sizeEstimator;
+    private final int depth;
+    private final long memoryBudget;
+    private final JIPipeProgressInfo progressInfo;
+    private final ExecutorService executorService;
+    private final Map<Integer, Future<Object>> pending = new HashMap<>();
+    private final Map<Integer, Long> pendingSizes = new HashMap<>();
+    private int nextToSchedule = 0;
+    private long scheduledBytes = 0;
+
+    /**
+     * Creates a new prefetcher
+     *
+     * @param iterationSteps the iteration steps
+     * @param loader         function that loads the data of one step
+     * @param sizeEstimator  function that estimates the size of the loaded data in bytes
+     * @param depth          how many steps are loaded in advance
+     * @param numThreads     number of I/O threads
+     * @param memoryBudget   memory budget in bytes
+     * @param progressInfo   the progress info
+     */
+    public JIPipeIterationStepPrefetcher(List<JIPipeSingleIterationStep> iterationSteps, Loader loader, SizeEstimator sizeEstimator, int depth, int numThreads, long memoryBudget, JIPipeProgressInfo progressInfo) {
+        this.iterationSteps = iterationSteps;
+        this.loader = loader;
+        this.sizeEstimator = sizeEstimator;
+        this.depth = Math.max(1, depth);
+        this.memoryBudget = memoryBudget;
+        this.progressInfo = progressInfo;
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, numThreads), runnable -> {
+            Thread thread = new Thread(runnable, "jipipe-prefetch-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Estimates the memory occupied by the data loaded from a file via its file size
+     *
+     * @param path the file
+     * @return the file size or zero if it could not be determined
+     */
+    public static long estimateFileSize(Path path) {
+        try {
+            return path != null && Files.isRegularFile(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the loaded data of the iteration step. Waits until the data is loaded.
+     * Schedules the loading of the following steps.
+     *
+     * @param index the index of the step
+     * @return the loaded data
+     */
+    public Object take(int index) {
+        fill(index);
+        Future<Object> future = pending.remove(index);
+        Long size = pendingSizes.remove(index);
+        if (size != null) {
+            scheduledBytes -= size;
+        }
+        // Keep the I/O threads busy while the step is processed
+        fill(index + 1);
+        if (future == null) {
+            return loader.load(iterationSteps.get(index), progressInfo.resolve("Data row", index, iterationSteps.size()));
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void fill(int current) {
+        nextToSchedule = Math.max(nextToSchedule, current);
+        while (nextToSchedule < iterationSteps.size() && nextToSchedule <= current + depth - 1 && !progressInfo.isCancelled()) {
+            int index = nextToSchedule;
+            JIPipeSingleIterationStep iterationStep = iterationSteps.get(index);
+            long size = Math.max(0, sizeEstimator.estimate(iterationStep));
+            if (!pending.isEmpty() && scheduledBytes + size > memoryBudget) {
+                break;
+            }
+            JIPipeProgressInfo stepProgress = progressInfo.resolve("Data row", index, iterationSteps.size());
+            pending.put(index, executorService.submit(() -> loader.load(iterationStep, stepProgress)));
+            pendingSizes.put(index, size);
+            scheduledBytes += size;
+            ++nextToSchedule;
+        }
+    }
+
+    /**
+     * Cancels all pending loads and stops the I/O threads
+     */
+    @Override
+    public void close() {
+        for (Future<Object> future : pending.values()) {
+            future.cancel(true);
+        }
+        pending.clear();
+        pendingSizes.clear();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Loads the data of an iteration step
+     */
+    public interface Loader {
+        Object load(JIPipeSingleIterationStep iterationStep, JIPipeProgressInfo progressInfo);
+    }
+
+    /**
+     * Estimates the memory that is occupied by the loaded data of an iteration step
+     */
+    public interface SizeEstimator {
+        long estimate(JIPipeSingleIterationStep iterationStep);
+    }
+}
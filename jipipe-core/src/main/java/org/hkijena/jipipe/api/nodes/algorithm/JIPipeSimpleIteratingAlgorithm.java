@@ -16,6 +16,7 @@ package org.hkijena.jipipe.api.nodes.algorithm;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
+import org.hkijena.jipipe.JIPipe;
 import org.hkijena.jipipe.api.JIPipeDataBatchGenerationResult;
 import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
@@ -37,6 +38,7 @@ import org.hkijena.jipipe.plugins.expressions.JIPipeExpressionVariablesMap;
 import org.hkijena.jipipe.plugins.parameters.library.pairs.StringQueryExpressionAndStringPairParameter;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.ranges.IntegerRange;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
 import org.hkijena.jipipe.utils.ParameterUtils;
 import org.hkijena.jipipe.utils.ResourceUtils;
 import org.hkijena.jipipe.utils.StringUtils;
@@ -119,6 +121,15 @@ public abstract class JIPipeSimpleIteratingAlgorithm extends JIPipeParameterSlot
         return false;
     }
 
+    /**
+     * Returns true if the node runs an iteration step even if its input is empty (see {@link #isAllowEmptyIterationStep()})
+     *
+     * @return whether empty iteration steps are allowed
+     */
+    public final boolean allowsEmptyIterationSteps() {
+        return isAllowEmptyIterationStep();
+    }
+
     @Override
     public void runParameterSet(JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo, List<JIPipeTextAnnotation> parameterAnnotations) {
         if (getDataInputSlotCount() > 1)
@@ -207,21 +218,36 @@ public abstract class JIPipeSimpleIteratingAlgorithm extends JIPipeParameterSlot
         // Execute the workload
         boolean hasAdaptiveParameters = getAdaptiveParameterSettings().isEnabled() && !getAdaptiveParameterSettings().getOverriddenParameters().isEmpty();
         final int numIterationSteps = iterationSteps.size();
+        runContext.reportIterationSteps(this, numIterationSteps);
         JIPipeRuntimePartition partition = runContext.getGraphRun().getRuntimePartition(getRuntimePartition());
 
         // Determine if we should enable parallelization
         boolean doParallelization = shouldDoParallelization(runContext, progressInfo, iterationSteps, hasAdaptiveParameters, partition);
 
         if (!doParallelization) {
-            for (int i = 0; i < iterationSteps.size(); i++) {
-                if (progressInfo.isCancelled())
-                    return;
-                JIPipeProgressInfo slotProgress = progressInfo.resolveAndLog("Data row", i, iterationSteps.size());
-                uploadAdaptiveParameters(iterationSteps.get(i), tree, parameterBackups, progressInfo);
-                if (isPassThrough()) {
-                    runPassThrough(slotProgress, iterationSteps.get(i));
-                } else {
-                    runIteration(iterationSteps.get(i), new JIPipeMutableIterationContext(i, numIterationSteps), runContext, slotProgress);
+            JIPipeIterationStepPrefetcher prefetcher = null;
+            if (iterationSteps.size() > 1 && supportsPrefetching() && !hasAdaptiveParameters && !isPassThrough()) {
+                prefetcher = createPrefetcher(iterationSteps, runContext, progressInfo);
+            }
+            try {
+                for (int i = 0; i < iterationSteps.size(); i++) {
+                    if (progressInfo.isCancelled())
+                        return;
+                    JIPipeProgressInfo slotProgress = progressInfo.resolveAndLog("Data row", i, iterationSteps.size());
+                    uploadAdaptiveParameters(iterationSteps.get(i), tree, parameterBackups, progressInfo);
+                    if (isPassThrough()) {
+                        runPassThrough(slotProgress, iterationSteps.get(i));
+                    } else {
+                        if (prefetcher != null) {
+                            iterationSteps.get(i).setPrefetchedData(prefetcher.take(i));
+                        }
+                        runIteration(iterationSteps.get(i), new JIPipeMutableIterationContext(i, numIterationSteps), runContext, slotProgress);
+                        iterationSteps.get(i).setPrefetchedData(null);
+                    }
+                }
+            } finally {
+                if (prefetcher != null) {
+                    prefetcher.close();
                 }
             }
         } else {
@@ -276,6 +302,27 @@ public abstract class JIPipeSimpleIteratingAlgorithm extends JIPipeParameterSlot
 
     }
 
+    private JIPipeIterationStepPrefetcher createPrefetcher(List<JIPipeSingleIterationStep> iterationSteps, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        if (JIPipe.getInstance() == null || !JIPipe.getInstance().getApplicationSettingsRegistry().getRegisteredSheets().containsKey(JIPipeRuntimeApplicationSettings.ID)) {
+            return null;
+        }
+        JIPipeRuntimeApplicationSettings settings = JIPipeRuntimeApplicationSettings.getInstance();
+        if (settings.getPrefetchDepth() <= 0) {
+            return null;
+        }
+        progressInfo.log("[INFO] Loading up to " + settings.getPrefetchDepth() + " inputs in advance");
+        // The loaders already run in parallel to the processing, so they must not schedule work on the run's thread pool
+        JIPipeGraphNodeRunContext prefetchRunContext = new JIPipeGraphNodeRunContext();
+        prefetchRunContext.setGraphRun(runContext.getGraphRun());
+        return new JIPipeIterationStepPrefetcher(iterationSteps,
+                (iterationStep, stepProgress) -> prefetchIterationStep(iterationStep, prefetchRunContext, stepProgress),
+                this::estimatePrefetchSize,
+                settings.getPrefetchDepth(),
+                settings.getPrefetchThreads(),
+                settings.getPrefetchMemoryBudget() * 1024L * 1024L,
+                progressInfo);
+    }
+
     private boolean shouldDoParallelization(JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo, List<JIPipeSingleIterationStep> iterationSteps, boolean hasAdaptiveParameters, JIPipeRuntimePartition partition) {
         boolean doParallelization = iterationSteps.size() > 1 && supportsParallelization();
         if(doParallelization && hasAdaptiveParameters) {
@@ -405,6 +452,40 @@ public abstract class JIPipeSimpleIteratingAlgorithm extends JIPipeParameterSlot
         return false;
     }
 
+    /**
+     * Returns true if the node can load the data of iteration steps in advance via {@link #prefetchIterationStep(JIPipeSingleIterationStep, JIPipeGraphNodeRunContext, JIPipeProgressInfo)}.
+     * Only applied if the iteration steps are processed sequentially.
+     * The loaded data is available via {@link JIPipeSingleIterationStep#getPrefetchedData()} within {@link #runIteration(JIPipeSingleIterationStep, JIPipeIterationContext, JIPipeGraphNodeRunContext, JIPipeProgressInfo)}.
+     *
+     * @return if prefetching is supported
+     */
+    public boolean supportsPrefetching() {
+        return false;
+    }
+
+    /**
+     * Loads the data of an iteration step in advance. Called from a separate thread.
+     *
+     * @param iterationStep the iteration step
+     * @param runContext    the run context. Has no thread pool if called from a prefetching thread.
+     * @param progressInfo  the progress info
+     * @return the loaded data
+     */
+    protected Object prefetchIterationStep(JIPipeSingleIterationStep iterationStep, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        return null;
+    }
+
+    /**
+     * Estimates the memory occupied by the data returned by {@link #prefetchIterationStep(JIPipeSingleIterationStep, JIPipeGraphNodeRunContext, JIPipeProgressInfo)}.
+     * Should estimate the size of the data in memory (e.g., from the image dimensions) and not the size of the (compressed) file.
+     *
+     * @param iterationStep the iteration step
+     * @return the estimated size in bytes
+     */
+    protected long estimatePrefetchSize(JIPipeSingleIterationStep iterationStep) {
+        return 0;
+    }
+
     @Override
     public int getParallelizationBatchSize() {
         return 1;
@@ -192,6 +192,15 @@ public abstract class JIPipeSingleIterationAlgorithm extends JIPipeParameterSlot
             iterationStep.addMergedTextAnnotations(parameterAnnotations, iterationStepGenerationSettings.getAnnotationMergeStrategy());
         }
 
+        runContext.reportIterationSteps(this, iterationSteps.size());
+
+        if (!isPassThrough() && !getAdaptiveParameterSettings().isEnabled() && isProcessingIterationStepsTogether()) {
+            if (progressInfo.isCancelled())
+                return;
+            runIterations(iterationSteps, runContext, progressInfo);
+            return;
+        }
+
         // There should be only one batch, but we iterate anyway
         for (int i = 0; i < iterationSteps.size(); i++) {
             if (progressInfo.isCancelled())
@@ -261,6 +270,33 @@ public abstract class JIPipeSingleIterationAlgorithm extends JIPipeParameterSlot
         iterationStep.addMergedTextAnnotation(new JIPipeTextAnnotation(name, value), JIPipeTextAnnotationMergeMode.Merge);
     }
 
+    /**
+     * Returns true if all iteration steps of a parameter set should be passed to {@link #runIterations(List, JIPipeGraphNodeRunContext, JIPipeProgressInfo)} at once.
+     * Not applied if the node is in pass-through mode or adaptive parameters are enabled.
+     *
+     * @return if the iteration steps are processed together
+     */
+    protected boolean isProcessingIterationStepsTogether() {
+        return false;
+    }
+
+    /**
+     * Runs code on all iteration steps of a parameter set at once.
+     * Only called if {@link #isProcessingIterationStepsTogether()} returns true.
+     *
+     * @param iterationSteps the iteration steps
+     * @param runContext     the run context
+     * @param progressInfo   the progress from the run
+     */
+    protected void runIterations(List<JIPipeMultiIterationStep> iterationSteps, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        for (int i = 0; i < iterationSteps.size(); i++) {
+            if (progressInfo.isCancelled())
+                return;
+            JIPipeProgressInfo slotProgress = progressInfo.resolveAndLog("Data row", i, iterationSteps.size());
+            runIteration(iterationSteps.get(i), new JIPipeMutableIterationContext(i, iterationSteps.size()), runContext, slotProgress);
+        }
+    }
+
     /**
      * Runs code on one data row
      *
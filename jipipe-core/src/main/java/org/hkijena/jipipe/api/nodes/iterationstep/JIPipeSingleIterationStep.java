@@ -35,6 +35,7 @@ public class JIPipeSingleIterationStep implements JIPipeIterationStep, Comparabl
     private final Map<JIPipeDataSlot, Integer> inputSlotRows;
     private Map<String, JIPipeTextAnnotation> mergedAnnotations = new HashMap<>();
     private Map<String, JIPipeDataAnnotation> mergedDataAnnotations = new HashMap<>();
+    private Object prefetchedData;
 
     /**
      * Creates a new interface
@@ -191,6 +192,19 @@ public class JIPipeSingleIterationStep implements JIPipeIterationStep, Comparabl
         this.mergedAnnotations = annotations;
     }
 
+    /**
+     * Data that was loaded in advance by the node (see {@link org.hkijena.jipipe.api.nodes.algorithm.JIPipeIterationStepPrefetcher})
+     *
+     * @return the prefetched data or null if nothing was loaded in advance
+     */
+    public Object getPrefetchedData() {
+        return prefetchedData;
+    }
+
+    public void setPrefetchedData(Object prefetchedData) {
+        this.prefetchedData = prefetchedData;
+    }
+
     /**
      * Gets the list of annotations.
      * The map is mutable.
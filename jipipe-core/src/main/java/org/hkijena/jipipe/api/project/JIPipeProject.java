@@ -96,6 +96,7 @@ public class JIPipeProject implements JIPipeValidatable {
     private Path temporaryBaseDirectory;
     private boolean isCleaningUp;
     private boolean isLoading;
+    private JIPipeProjectDirectoryStorage directoryStorage;
 
     /**
      * A JIPipe project
@@ -190,9 +191,12 @@ public class JIPipeProject implements JIPipeValidatable {
      * @throws IOException Triggered by {@link ObjectMapper}
      */
     public static JIPipeProject loadProject(Path fileName, JIPipeValidationReportContext context, JIPipeValidationReport report, JIPipeNotificationInbox notifications) throws IOException {
+        if (Files.isDirectory(fileName)) {
+            fileName = fileName.resolve(JIPipeProjectDirectoryStorage.PROJECT_FILE_NAME);
+        }
         JsonNode jsonData = JsonUtils.getObjectMapper().readValue(fileName.toFile(), JsonNode.class);
         JIPipeProject project = new JIPipeProject();
-        project.fromJson(jsonData, context, report, notifications);
+        project.fromJson(jsonData, fileName, context, report, notifications);
         project.setWorkDirectory(fileName.getParent());
         project.validateUserDirectories(notifications);
         return project;
@@ -362,6 +366,39 @@ public class JIPipeProject implements JIPipeValidatable {
         mapper.writerWithDefaultPrettyPrinter().writeValue(fileName.toFile(), this);
     }
 
+    /**
+     * Saves the project into a directory, where each node is stored in a separate file (see {@link JIPipeProjectDirectoryStorage}).
+     * If the project was previously saved into or loaded from the same directory, only changed nodes are written.
+     *
+     * @param directory the directory
+     * @throws IOException thrown by the file operations
+     */
+    public void saveProjectToDirectory(Path directory) throws IOException {
+
+        // Add authors from global list
+        if (metadata.isAutoAddAuthors()) {
+            addAuthorsFromGlobalList();
+        }
+
+        if (directoryStorage == null || !directoryStorage.getDirectory().equals(directory.toAbsolutePath().normalize())) {
+            if (directoryStorage != null) {
+                directoryStorage.detach();
+            }
+            directoryStorage = new JIPipeProjectDirectoryStorage(this, directory);
+            directoryStorage.attach();
+        }
+        directoryStorage.save();
+    }
+
+    /**
+     * The directory storage if the project was loaded from or saved into a directory
+     *
+     * @return the directory storage or null
+     */
+    public JIPipeProjectDirectoryStorage getDirectoryStorage() {
+        return directoryStorage;
+    }
+
     private void addAuthorsFromGlobalList() {
         JIPipeProjectAuthorsApplicationSettings settings = JIPipeProjectAuthorsApplicationSettings.getInstance();
         if (settings.isAutomaticallyAddToProjects()) {
@@ -795,11 +832,25 @@ public class JIPipeProject implements JIPipeValidatable {
      * @throws IOException thrown by {@link JsonGenerator}
      */
     public void toJson(JsonGenerator generator) throws IOException {
+        toJson(generator, null);
+    }
+
+    /**
+     * Writes the project to JSON
+     *
+     * @param generator        the JSON generator
+     * @param directoryStorage if not null, the nodes of the project graph are not written and instead indexed to the files of the directory storage
+     * @throws IOException thrown by {@link JsonGenerator}
+     */
+    void toJson(JsonGenerator generator, JIPipeProjectDirectoryStorage directoryStorage) throws IOException {
 
         generator.writeStartObject();
         // Write standard metadata
         generator.writeStringField("jipipe:project-type", "project");
         generator.writeNumberField("jipipe:project-format-version", CURRENT_PROJECT_FORMAT_VERSION);
+        if (directoryStorage != null) {
+            directoryStorage.writeIndex(generator);
+        }
         generator.writeObjectField("metadata", metadata);
         generator.writeObjectField("dependencies", getSimplifiedMinimalDependencies());
         generator.writeObjectField("runtime-partitions", runtimePartitions);
@@ -857,7 +908,12 @@ public class JIPipeProject implements JIPipeValidatable {
         }
 
         // Write graph and compartments
-        generator.writeObjectField("graph", graph);
+        if (directoryStorage != null) {
+            generator.writeFieldName("graph");
+            JIPipeGraph.Serializer.serialize(graph, generator, false);
+        } else {
+            generator.writeObjectField("graph", graph);
+        }
         generator.writeFieldName("compartments");
         generator.writeStartObject();
         generator.writeObjectField("compartment-graph", compartmentGraph);
@@ -1025,6 +1081,30 @@ public class JIPipeProject implements JIPipeValidatable {
         }
     }
 
+    /**
+     * Loads the project from JSON that was read from a file.
+     * If the project is stored as directory (see {@link JIPipeProjectDirectoryStorage}), the node files are loaded from the directory
+     * and future saves into the directory are incremental.
+     *
+     * @param jsonNode      the node
+     * @param fileName      the file the JSON was read from
+     * @param context       the context
+     * @param report        the report
+     * @param notifications notifications for the user
+     * @throws IOException thrown by the file operations
+     */
+    public void fromJson(JsonNode jsonNode, Path fileName, JIPipeValidationReportContext context, JIPipeValidationReport report, JIPipeNotificationInbox notifications) throws IOException {
+        if (JIPipeProjectDirectoryStorage.isDirectoryStorage(jsonNode)) {
+            JIPipeProjectDirectoryStorage storage = new JIPipeProjectDirectoryStorage(this, fileName.toAbsolutePath().getParent());
+            jsonNode = storage.readNodes(jsonNode, report);
+            fromJson(jsonNode, context, report, notifications);
+            storage.attach();
+            directoryStorage = storage;
+        } else {
+            fromJson(jsonNode, context, report, notifications);
+        }
+    }
+
     /**
      * Rebuilds the compartment list from the current state of the compartment graph
      */
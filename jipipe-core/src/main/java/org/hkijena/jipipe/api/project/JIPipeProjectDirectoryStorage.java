@@ -0,0 +1,431 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+
+package org.hkijena.jipipe.api.project;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
+import org.hkijena.jipipe.api.nodes.JIPipeGraph;
+import org.hkijena.jipipe.api.nodes.JIPipeGraphNode;
+import org.hkijena.jipipe.api.parameters.JIPipeParameterCollection;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReport;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReportEntry;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReportEntryLevel;
+import org.hkijena.jipipe.api.validation.contexts.UnspecifiedValidationReportContext;
+import org.hkijena.jipipe.utils.StringUtils;
+import org.hkijena.jipipe.utils.json.JsonUtils;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Stores a project as directory instead of a single file.
+ * The directory contains a project.jip file with all project-wide information, the edges, and an index of all nodes.
+ * The parameters of each node are stored in a separate file (nodes/[compartment UUID]/[node UUID].json).
+ * Node locations, compartments, and alias IDs are stored in the index, so moving nodes does not require rewriting their files.
+ * The storage tracks parameter and slot changes of all nodes, so saving only rewrites the files of changed nodes.
+ * Nodes that enter the graph without a node added event (e.g., if the graph contents are replaced by undo/redo) are detected on the next graph change.
+ */
+public class JIPipeProjectDirectoryStorage implements JIPipeGraph.NodeAddedEventListener, JIPipeGraph.NodeRemovedEventListener, JIPipeGraph.GraphChangedEventListener {
+
+    /**
+     * The name of the file that contains the project-wide information
+     */
+    public static final String PROJECT_FILE_NAME = "project.jip";
+
+    /**
+     * The name of the directory that contains the node files
+     */
+    public static final String NODES_DIRECTORY_NAME = "nodes";
+
+    private static final String STORAGE_FIELD = "jipipe:project-storage";
+    private static final String STORAGE_TYPE = "directory";
+
+    private final JIPipeProject project;
+    private final Path directory;
+    private final Set<UUID> dirtyNodes = new HashSet<>();
+    private final Map<JIPipeGraphNode, NodeChangeListener> nodeListeners = new IdentityHashMap<>();
+    private Map<UUID, String> writtenNodeFiles = new HashMap<>();
+    private boolean fullWriteRequired = true;
+    private boolean attached;
+
+    /**
+     * Creates a new storage. Call attach() to start tracking changes.
+     *
+     * @param project   the project
+     * @param directory the directory
+     */
+    public JIPipeProjectDirectoryStorage(JIPipeProject project, Path directory) {
+        this.project = project;
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Returns true if the project JSON was written by a {@link JIPipeProjectDirectoryStorage}
+     *
+     * @param projectJson the project JSON
+     * @return if the nodes are stored in separate files
+     */
+    public static boolean isDirectoryStorage(JsonNode projectJson) {
+        return STORAGE_TYPE.equals(projectJson.path(STORAGE_FIELD).path("type").asText());
+    }
+
+    public JIPipeProject getProject() {
+        return project;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * The file that contains the project-wide information
+     *
+     * @return the project file
+     */
+    public Path getProjectFile() {
+        return directory.resolve(PROJECT_FILE_NAME);
+    }
+
+    /**
+     * Starts tracking the changes of the project graph
+     */
+    public synchronized void attach() {
+        if (attached) {
+            return;
+        }
+        JIPipeGraph graph = project.getGraph();
+        graph.getNodeAddedEventEmitter().subscribe(this);
+        graph.getNodeRemovedEventEmitter().subscribe(this);
+        graph.getGraphChangedEventEmitter().subscribe(this);
+        for (JIPipeGraphNode node : graph.getGraphNodes()) {
+            subscribeNode(node);
+        }
+        attached = true;
+    }
+
+    /**
+     * Stops tracking the changes of the project graph
+     */
+    public synchronized void detach() {
+        if (!attached) {
+            return;
+        }
+        JIPipeGraph graph = project.getGraph();
+        graph.getNodeAddedEventEmitter().unsubscribe(this);
+        graph.getNodeRemovedEventEmitter().unsubscribe(this);
+        graph.getGraphChangedEventEmitter().unsubscribe(this);
+        for (JIPipeGraphNode node : ImmutableList.copyOf(nodeListeners.keySet())) {
+            unsubscribeNode(node);
+        }
+        attached = false;
+    }
+
+    /**
+     * Returns the UUIDs of the nodes that changed since the last save
+     *
+     * @return the UUIDs of the changed nodes
+     */
+    public synchronized Set<UUID> getDirtyNodes() {
+        return new HashSet<>(dirtyNodes);
+    }
+
+    /**
+     * Marks a node as changed
+     *
+     * @param node the node
+     */
+    public synchronized void markDirty(JIPipeGraphNode node) {
+        UUID uuid = node.getUUIDInParentGraph();
+        if (uuid != null) {
+            dirtyNodes.add(uuid);
+        }
+    }
+
+    /**
+     * Saves the project into the directory.
+     * Only the files of nodes that were changed since the last save are rewritten.
+     *
+     * @throws IOException thrown by the file operations
+     */
+    public synchronized void save() throws IOException {
+        JIPipeGraph graph = project.getGraph();
+        Files.createDirectories(directory);
+
+        // Write changed nodes
+        Map<UUID, String> newNodeFiles = new HashMap<>();
+        for (JIPipeGraphNode node : graph.getGraphNodes()) {
+            UUID uuid = node.getUUIDInParentGraph();
+            String fileName = getNodeFileName(node);
+            newNodeFiles.put(uuid, fileName);
+            Path file = directory.resolve(fileName);
+            if (fullWriteRequired || dirtyNodes.contains(uuid) || !fileName.equals(writtenNodeFiles.get(uuid)) || !Files.isRegularFile(file)) {
+                Files.createDirectories(file.getParent());
+                writeAtomically(file, stream -> JsonUtils.getObjectMapper().writerWithDefaultPrettyPrinter().writeValue(stream, node));
+            }
+        }
+
+        // Write the project file
+        writeAtomically(getProjectFile(), stream -> {
+            try (JsonGenerator generator = JsonUtils.getObjectMapper().getFactory().createGenerator(stream)) {
+                generator.useDefaultPrettyPrinter();
+                project.toJson(generator, this);
+            }
+        });
+
+        // Remove the files of deleted or moved nodes
+        for (Map.Entry<UUID, String> entry : writtenNodeFiles.entrySet()) {
+            if (!entry.getValue().equals(newNodeFiles.get(entry.getKey()))) {
+                Files.deleteIfExists(directory.resolve(entry.getValue()));
+            }
+        }
+
+        writtenNodeFiles = newNodeFiles;
+        dirtyNodes.clear();
+        fullWriteRequired = false;
+    }
+
+    /**
+     * Reads the node files referenced by the project JSON and puts them into the graph JSON, so the project can be loaded via
+     * {@link JIPipeProject#fromJson(JsonNode, org.hkijena.jipipe.api.validation.JIPipeValidationReportContext, JIPipeValidationReport, org.hkijena.jipipe.api.notifications.JIPipeNotificationInbox)}.
+     * The files of each compartment are read in parallel using the shared thread pool.
+     *
+     * @param projectJson the project JSON. will be modified.
+     * @param report      the report
+     * @return the project JSON
+     * @throws IOException thrown by the file operations
+     */
+    public synchronized JsonNode readNodes(JsonNode projectJson, JIPipeValidationReport report) throws IOException {
+        JsonNode indexNode = projectJson.path(STORAGE_FIELD).path("nodes");
+
+        // Group by compartment
+        Map<String, List<Map.Entry<String, JsonNode>>> entriesByCompartment = new LinkedHashMap<>();
+        List<String> nodeOrder = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : ImmutableList.copyOf(indexNode.fields())) {
+            String compartment = entry.getValue().path("jipipe:graph-compartment").asText();
+            entriesByCompartment.computeIfAbsent(compartment, key -> new ArrayList<>()).add(entry);
+            nodeOrder.add(entry.getKey());
+        }
+
+        Map<String, JsonNode> loadedNodes = new ConcurrentHashMap<>();
+        Map<String, String> loadedNodeFiles = new ConcurrentHashMap<>();
+        List<String> missingFiles = Collections.synchronizedList(new ArrayList<>());
+        JIPipeFixedThreadPool threadPool = JIPipeFixedThreadPool.getCurrentOrShared();
+        List<Future<Exception>> futures = new ArrayList<>();
+        try {
+            for (List<Map.Entry<String, JsonNode>> entries : entriesByCompartment.values()) {
+                futures.add(threadPool.schedule(() -> {
+                    for (Map.Entry<String, JsonNode> entry : entries) {
+                        String fileName = entry.getValue().path("file").asText();
+                        Path file = directory.resolve(fileName);
+                        if (!Files.isRegularFile(file)) {
+                            missingFiles.add(fileName);
+                            continue;
+                        }
+                        try {
+                            ObjectNode nodeJson = (ObjectNode) JsonUtils.getObjectMapper().readTree(file.toFile());
+                            nodeJson.set("jipipe:graph-compartment", entry.getValue().path("jipipe:graph-compartment"));
+                            nodeJson.set("jipipe:alias-id", entry.getValue().path("jipipe:alias-id"));
+                            if (entry.getValue().has("jipipe:ui-grid-location")) {
+                                nodeJson.set("jipipe:ui-grid-location", entry.getValue().get("jipipe:ui-grid-location"));
+                            }
+                            loadedNodes.put(entry.getKey(), nodeJson);
+                            loadedNodeFiles.put(entry.getKey(), fileName);
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }));
+            }
+            for (Future<Exception> future : futures) {
+                Exception exception = future.get();
+                if (exception != null) {
+                    throw new IOException(exception);
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException(e);
+        } finally {
+            for (Future<Exception> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        for (String missingFile : missingFiles) {
+            report.add(new JIPipeValidationReportEntry(JIPipeValidationReportEntryLevel.Error,
+                    new UnspecifiedValidationReportContext(),
+                    "Missing node file!",
+                    "The project references the node file '" + missingFile + "', but it does not exist in " + directory + ".",
+                    "Restore the file from a backup. The node was not loaded."));
+        }
+
+        // Put the nodes into the graph in the original order
+        ObjectNode nodesNode = ((ObjectNode) projectJson.get("graph")).putObject("nodes");
+        for (String uuid : nodeOrder) {
+            JsonNode nodeJson = loadedNodes.get(uuid);
+            if (nodeJson != null) {
+                nodesNode.set(uuid, nodeJson);
+            }
+        }
+
+        // Remember the state of the files
+        writtenNodeFiles = new HashMap<>();
+        for (Map.Entry<String, String> entry : loadedNodeFiles.entrySet()) {
+            try {
+                writtenNodeFiles.put(UUID.fromString(entry.getKey()), entry.getValue());
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        dirtyNodes.clear();
+        fullWriteRequired = false;
+
+        return projectJson;
+    }
+
+    /**
+     * Writes the storage information and the node index into the project JSON
+     *
+     * @param generator the generator
+     * @throws IOException thrown by the generator
+     */
+    void writeIndex(JsonGenerator generator) throws IOException {
+        generator.writeObjectFieldStart(STORAGE_FIELD);
+        generator.writeStringField("type", STORAGE_TYPE);
+        generator.writeObjectFieldStart("nodes");
+        for (JIPipeGraphNode node : project.getGraph().getGraphNodes()) {
+            generator.writeObjectFieldStart(node.getUUIDInParentGraph().toString());
+            generator.writeStringField("file", getNodeFileName(node));
+            generator.writeStringField("jipipe:graph-compartment", StringUtils.nullToEmpty(node.getCompartmentUUIDInParentGraph()));
+            generator.writeStringField("jipipe:alias-id", StringUtils.nullToEmpty(node.getAliasIdInParentGraph()));
+            generator.writeObjectFieldStart("jipipe:ui-grid-location");
+            for (Map.Entry<String, Map<String, Point>> visualModeEntry : node.getNodeUILocationPerViewModePerCompartment().entrySet()) {
+                if (visualModeEntry.getKey() == null)
+                    continue;
+                generator.writeObjectFieldStart(visualModeEntry.getKey());
+                for (Map.Entry<String, Point> entry : visualModeEntry.getValue().entrySet()) {
+                    if (entry.getKey() == null)
+                        continue;
+                    generator.writeObjectFieldStart(entry.getKey());
+                    generator.writeNumberField("x", entry.getValue().x);
+                    generator.writeNumberField("y", entry.getValue().y);
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private String getNodeFileName(JIPipeGraphNode node) {
+        UUID compartment = node.getCompartmentUUIDInParentGraph();
+        return NODES_DIRECTORY_NAME + "/" + (compartment != null ? compartment.toString() : "unassigned") + "/" + node.getUUIDInParentGraph() + ".json";
+    }
+
+    private void writeAtomically(Path file, StreamWriter writer) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".part");
+        try (OutputStream stream = Files.newOutputStream(tempFile)) {
+            writer.write(stream);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void subscribeNode(JIPipeGraphNode node) {
+        if (nodeListeners.containsKey(node)) {
+            return;
+        }
+        NodeChangeListener listener = new NodeChangeListener(this, node);
+        node.getParameterChangedEventEmitter().subscribe(listener);
+        node.getNodeSlotsChangedEventEmitter().subscribe(listener);
+        nodeListeners.put(node, listener);
+    }
+
+    private void unsubscribeNode(JIPipeGraphNode node) {
+        NodeChangeListener listener = nodeListeners.remove(node);
+        if (listener != null) {
+            node.getParameterChangedEventEmitter().unsubscribe(listener);
+            node.getNodeSlotsChangedEventEmitter().unsubscribe(listener);
+        }
+    }
+
+    @Override
+    public synchronized void onNodeAdded(JIPipeGraph.NodeAddedEvent event) {
+        subscribeNode(event.getNode());
+        markDirty(event.getNode());
+    }
+
+    @Override
+    public synchronized void onNodeRemoved(JIPipeGraph.NodeRemovedEvent event) {
+        unsubscribeNode(event.getNode());
+    }
+
+    @Override
+    public synchronized void onGraphChanged(JIPipeGraph.GraphChangedEvent event) {
+        // Replacing the graph contents does not trigger node added/removed events
+        Set<JIPipeGraphNode> graphNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        graphNodes.addAll(project.getGraph().getGraphNodes());
+        for (JIPipeGraphNode node : ImmutableList.copyOf(nodeListeners.keySet())) {
+            if (!graphNodes.contains(node)) {
+                unsubscribeNode(node);
+            }
+        }
+        for (JIPipeGraphNode node : graphNodes) {
+            if (!nodeListeners.containsKey(node)) {
+                subscribeNode(node);
+                markDirty(node);
+            }
+        }
+    }
+
+    private interface StreamWriter {
+        void write(OutputStream stream) throws IOException;
+    }
+
+    /**
+     * Marks a node as dirty if its parameters or slots change
+     */
+    private static class NodeChangeListener implements JIPipeParameterCollection.ParameterChangedEventListener, JIPipeGraphNode.NodeSlotsChangedEventListener {
+        private final JIPipeProjectDirectoryStorage storage;
+        private final JIPipeGraphNode node;
+
+        private NodeChangeListener(JIPipeProjectDirectoryStorage storage, JIPipeGraphNode node) {
+            this.storage = storage;
+            this.node = node;
+        }
+
+        @Override
+        public void onParameterChanged(JIPipeParameterCollection.ParameterChangedEvent event) {
+            storage.markDirty(node);
+        }
+
+        @Override
+        public void onNodeSlotsChanged(JIPipeGraphNode.NodeSlotsChangedEvent event) {
+            storage.markDirty(node);
+        }
+    }
+}
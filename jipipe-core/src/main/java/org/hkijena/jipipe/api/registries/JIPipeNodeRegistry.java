@@ -41,7 +41,7 @@ public class JIPipeNodeRegistry implements JIPipeValidatable, JIPipeService.Data
     private final Map<String, JIPipeNodeInfo> registeredNodeInfos = new HashMap<>();
     private final Multimap<Class<? extends JIPipeGraphNode>, JIPipeNodeInfo> registeredNodeClasses = HashMultimap.create();
     private final Multimap<String, JIPipeNodeExample> registeredExamples = HashMultimap.create();
-    private final Set<JIPipeNodeRegistrationTask> registrationTasks = new HashSet<>();
+    private final Set<JIPipeNodeRegistrationTask> registrationTasks = new LinkedHashSet<>();
     private final Map<String, JIPipeDependency> registeredNodeInfoSources = new HashMap<>();
     private final BiMap<String, JIPipeNodeTypeCategory> registeredCategories = HashBiMap.create();
     private final Map<JIPipeNodeInfo, URL> iconURLs = new HashMap<>();
@@ -52,6 +52,7 @@ public class JIPipeNodeRegistry implements JIPipeValidatable, JIPipeService.Data
     private final JIPipe jiPipe;
     private boolean stateChanged;
     private boolean isRunning;
+    private int batchRegistrationDepth;
 
     /**
      * Creates a new registry
@@ -80,9 +81,41 @@ public class JIPipeNodeRegistry implements JIPipeValidatable, JIPipeService.Data
         if (registrationTasks.isEmpty())
             return;
         stateChanged = true;
+        if (batchRegistrationDepth > 0)
+            return;
         run();
     }
 
+    /**
+     * Starts a batch registration.
+     * While a batch is active, scheduled tasks are only collected and the dependency resolution is deferred until
+     * the outermost {@link #endBatchRegistration()} is called.
+     * This avoids re-scanning the whole set of pending tasks after every single registration.
+     */
+    public void beginBatchRegistration() {
+        ++batchRegistrationDepth;
+    }
+
+    /**
+     * Ends a batch registration started by {@link #beginBatchRegistration()}.
+     * If this was the outermost batch, all pending registration tasks are resolved in one pass.
+     */
+    public void endBatchRegistration() {
+        if (batchRegistrationDepth <= 0)
+            return;
+        --batchRegistrationDepth;
+        if (batchRegistrationDepth == 0 && stateChanged) {
+            run();
+        }
+    }
+
+    /**
+     * @return if a batch registration is currently active
+     */
+    public boolean isBatchRegistration() {
+        return batchRegistrationDepth > 0;
+    }
+
     private void run() {
         if (isRunning)
             return;
@@ -286,7 +319,7 @@ public class JIPipeNodeRegistry implements JIPipeValidatable, JIPipeService.Data
             return;
         }
         iconURLs.put(info, resourcePath);
-        iconInstances.put(info, new ImageIcon(resourcePath));
+        iconInstances.remove(info);
     }
 
     /**
@@ -336,6 +369,11 @@ public class JIPipeNodeRegistry implements JIPipeValidatable, JIPipeService.Data
      */
     public ImageIcon getIconFor(JIPipeNodeInfo info) {
         ImageIcon icon = iconInstances.getOrDefault(info, null);
+        if (icon == null && iconURLs.containsKey(info)) {
+            // Icons are loaded on first access to keep the registration fast
+            icon = new ImageIcon(iconURLs.get(info));
+            iconInstances.put(info, icon);
+        }
         if (icon == null) {
             ImageIcon defaultIcon;
             if (info.getCategory() instanceof DataSourceNodeTypeCategory) {
@@ -382,6 +420,7 @@ public class JIPipeNodeRegistry implements JIPipeValidatable, JIPipeService.Data
         registeredNodeClasses.remove(info.getInstanceClass(), info);
         registeredNodeInfoSources.remove(id);
         iconURLs.remove(info);
+        iconInstances.remove(info);
     }
 
     public JIPipe getJIPipe() {
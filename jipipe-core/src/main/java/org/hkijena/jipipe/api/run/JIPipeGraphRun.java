@@ -23,6 +23,7 @@ import org.hkijena.jipipe.JIPipe;
 import org.hkijena.jipipe.api.AbstractJIPipeRunnable;
 import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.api.annotation.JIPipeDataAnnotationMergeMode;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotation;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotationMergeMode;
 import org.hkijena.jipipe.api.artifacts.JIPipeArtifact;
@@ -38,6 +39,7 @@ import org.hkijena.jipipe.api.environments.JIPipeEnvironment;
 import org.hkijena.jipipe.api.grouping.JIPipeGraphWrapperAlgorithm;
 import org.hkijena.jipipe.api.nodes.*;
 import org.hkijena.jipipe.api.nodes.algorithm.JIPipeMergingAlgorithmIterationStepGenerationSettings;
+import org.hkijena.jipipe.api.nodes.algorithm.JIPipeSimpleIteratingAlgorithm;
 import org.hkijena.jipipe.api.nodes.infos.JIPipeEmptyNodeInfo;
 import org.hkijena.jipipe.api.notifications.JIPipeNotification;
 import org.hkijena.jipipe.api.notifications.JIPipeNotificationAction;
@@ -48,6 +50,7 @@ import org.hkijena.jipipe.api.validation.JIPipeValidationRuntimeException;
 import org.hkijena.jipipe.api.validation.contexts.GraphNodeValidationReportContext;
 import org.hkijena.jipipe.api.validation.contexts.UnspecifiedValidationReportContext;
 import org.hkijena.jipipe.plugins.artifacts.JIPipeArtifactApplicationSettings;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
 import org.hkijena.jipipe.utils.*;
 import org.hkijena.jipipe.utils.json.JsonUtils;
 import org.jgrapht.graph.DefaultEdge;
@@ -72,6 +75,7 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
     private final JIPipeGraphRunConfiguration configuration;
     private final List<JIPipeRuntimePartition> runtimePartitions;
     private JIPipeGraphNodeRunContext runContext;
+    private JIPipeGraphRunProfiler profiler;
 
     public JIPipeGraphRun(JIPipeGraphRun parent, JIPipeGraph graph, JIPipeGraphRunConfiguration configuration) {
         this.parent = parent;
@@ -130,6 +134,20 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
         return parent;
     }
 
+    /**
+     * Returns the profiler that records the resource usage of the nodes.
+     * Nested runs share the profiler of the base run.
+     *
+     * @return the profiler or null if profiling is disabled
+     */
+    public JIPipeGraphRunProfiler getProfiler() {
+        if (parent == null) {
+            return profiler;
+        } else {
+            return parent.getProfiler();
+        }
+    }
+
     public JIPipeGraphRun getBaseRun() {
         if (parent == null) {
             return this;
@@ -184,6 +202,10 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
         long startTime = System.currentTimeMillis();
         if (parent == null) {
             progressInfo.log("JIPipe run starting at " + StringUtils.formatDateTime(LocalDateTime.now()));
+            if (configuration.isRecordProfile()) {
+                progressInfo.log("Recording run profile");
+                profiler = new JIPipeGraphRunProfiler();
+            }
         }
 
         progressInfo.log("Preparing ...");
@@ -377,6 +399,22 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
                 progressInfo.log("Run ending at " + StringUtils.formatDateTime(LocalDateTime.now()));
                 progressInfo.log("\n--> Required " + StringUtils.formatDuration(System.currentTimeMillis() - startTime) + " to execute.\n");
 
+                if (profiler != null) {
+                    profiler.finish();
+                    progressInfo.log(profiler.getSummary(20));
+                    if (configuration.getOutputPath() != null) {
+                        try {
+                            profiler.exportReport(configuration.getOutputPath());
+                            progressInfo.log("Run profile written to " + configuration.getOutputPath().resolve(JIPipeGraphRunProfiler.REPORT_JSON_FILE_NAME));
+                        } catch (IOException e) {
+                            throw new JIPipeValidationRuntimeException(e,
+                                    "Could not write run profile into '" + configuration.getOutputPath() + "'!",
+                                    "Either the path is invalid, or you have no permission to write to the disk, or the disk space is full",
+                                    "Check if you can write to the output directory.");
+                        }
+                    }
+                }
+
                 try {
                     if (configuration.getOutputPath() != null) {
                         Files.write(configuration.getOutputPath().resolve("log.txt"), progressInfo.getLog().toString().getBytes(Charsets.UTF_8));
@@ -584,12 +622,19 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
             passThroughMode = true;
         }
 
-        if (passThroughMode) {
-            // Non-iterating mode
-            JIPipeProgressInfo partitionProgress = progressInfo.resolve("Partition " + partitionId);
-            runPassThroughPartitionNodeSet(graph, partitionNodeSet, gcGraph, runtimePartition, partitionProgress);
-        } else {
-            runIteratingPartitionNodeSet(graph, partitionNodeSet, gcGraph, runtimePartition, progressInfo.resolve("Looped partition " + partitionId));
+        long partitionStartNanos = System.nanoTime();
+        try {
+            if (passThroughMode) {
+                // Non-iterating mode
+                JIPipeProgressInfo partitionProgress = progressInfo.resolve("Partition " + partitionId);
+                runPassThroughPartitionNodeSet(graph, partitionNodeSet, gcGraph, runtimePartition, partitionProgress);
+            } else {
+                runIteratingPartitionNodeSet(graph, partitionNodeSet, gcGraph, runtimePartition, progressInfo.resolve("Looped partition " + partitionId));
+            }
+        } finally {
+            if (getProfiler() != null) {
+                getProfiler().recordPartition("Partition " + partitionId + " (" + runtimePartition.getName() + ")", partitionStartNanos, System.nanoTime());
+            }
         }
     }
 
@@ -928,6 +973,15 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
         // Save for error state
         Map<UUID, Map<String, JIPipeDataTable>> continueOnErrorBackup = new HashMap<>();
 
+        // Chains of simple iterating nodes that are streamed row by row
+        Map<JIPipeGraphNode, JIPipeGraphRunFusedChain> fusedChains = new HashMap<>();
+        if (runtimePartition.isStreamIteratingChains() && !isContinueOnFailure(runtimePartition) && !configuration.isLoadFromCache()) {
+            for (JIPipeGraphRunFusedChain chain : JIPipeGraphRunFusedChain.findChains(graph, nodeFilter, configuration)) {
+                progressInfo.log("Streaming chain " + chain);
+                fusedChains.put(chain.getFirstNode(), chain);
+            }
+        }
+
         try {
             while (!dataFlowGraph.vertexSet().isEmpty()) {
 
@@ -983,7 +1037,14 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
                 }
 
                 // Execute operation & cleanup
-                runFlowGraphNode(nextVertex, dataFlowGraph, gcGraph, false, runtimePartition, progressInfo);
+                JIPipeGraphRunFusedChain fusedChain = fusedChains.get(nextVertex);
+                if (fusedChain != null) {
+                    int numVertices = dataFlowGraph.vertexSet().size();
+                    runFusedChain(fusedChain, dataFlowGraph, gcGraph, runtimePartition, progressInfo);
+                    progress += numVertices - dataFlowGraph.vertexSet().size() - 1;
+                } else {
+                    runFlowGraphNode(nextVertex, dataFlowGraph, gcGraph, false, runtimePartition, progressInfo);
+                }
             }
         } catch (Throwable e) {
             if (progressInfo.isCancelled()) {
@@ -1034,6 +1095,105 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
 
     }
 
+    /**
+     * Runs a chain of simple iterating nodes by streaming windows of rows through all nodes.
+     * The window size is the number of threads (at least the prefetch depth + 1, so nodes can still load inputs in advance),
+     * so only the intermediate results of the current window are held in memory.
+     * The output of the last node is collected and processed like any other output slot.
+     */
+    private void runFusedChain(JIPipeGraphRunFusedChain chain, JIPipeGraphRunDataFlowGraph dataFlowGraph, JIPipeGraphRunGCGraph gcGraph, JIPipeRuntimePartition runtimePartition, JIPipeProgressInfo progressInfo) {
+        List<JIPipeSimpleIteratingAlgorithm> nodes = chain.getNodes();
+        JIPipeProgressInfo chainProgress = progressInfo.resolve(chain.getFirstNode().getDisplayName());
+        progressInfo.log("+C " + chain);
+
+        int windowSize = 1;
+        if (runtimePartition.isEnableParallelization() && runContext.getThreadPool() != null) {
+            windowSize = Math.max(1, runContext.getThreadPool().getMaxThreads());
+        }
+        if (JIPipe.getInstance() != null && JIPipe.getInstance().getApplicationSettingsRegistry().getRegisteredSheets().containsKey(JIPipeRuntimeApplicationSettings.ID)) {
+            windowSize = Math.max(windowSize, JIPipeRuntimeApplicationSettings.getInstance().getPrefetchDepth() + 1);
+        }
+
+        // Take the rows out of the first input, so we can feed them in windows
+        JIPipeInputDataSlot firstInput = chain.getFirstNode().getFirstInputSlot();
+        JIPipeDataTable rows = new JIPipeDataTable(firstInput, true, chainProgress);
+        firstInput.clearData(false, chainProgress);
+        int numRows = rows.getRowCount();
+        chainProgress.log("Streaming " + numRows + " rows through " + nodes.size() + " nodes (window size " + windowSize + ")");
+
+        try {
+            // Always run once, so nodes can handle empty inputs as usual
+            int start = 0;
+            do {
+                if (progressInfo.isCancelled()) {
+                    throw new JIPipeValidationRuntimeException(new InterruptedException(),
+                            "Execution was cancelled",
+                            "You cancelled the execution of the pipeline.",
+                            null);
+                }
+                int end = Math.min(numRows, start + windowSize);
+                JIPipeProgressInfo windowProgress = chainProgress.resolveAndLog("Rows", start, numRows);
+                for (int row = start; row < end; row++) {
+                    firstInput.addData(rows.getDataItemStore(row),
+                            rows.getTextAnnotations(row),
+                            JIPipeTextAnnotationMergeMode.OverwriteExisting,
+                            rows.getDataAnnotations(row),
+                            JIPipeDataAnnotationMergeMode.OverwriteExisting,
+                            rows.getDataContext(row),
+                            windowProgress);
+                }
+                for (int i = 0; i < nodes.size(); i++) {
+                    JIPipeSimpleIteratingAlgorithm algorithm = nodes.get(i);
+                    JIPipeProgressInfo algorithmProgress = windowProgress.resolve(algorithm.getDisplayName());
+                    JIPipeGraphRunProfiler.Sample profilerSample = getProfiler() != null ? getProfiler().startNode(algorithm, runContext.getThreadPool()) : null;
+                    try {
+                        algorithm.run(runContext, profilerSample != null ? profilerSample.attachTo(algorithmProgress) : algorithmProgress);
+                    } catch (Exception e) {
+                        throw new JIPipeValidationRuntimeException(
+                                new GraphNodeValidationReportContext(algorithm),
+                                e,
+                                "An error occurred during processing",
+                                "On running the algorithm '" + algorithm.getDisplayName(),
+                                "Please follow the instructions for the other error messages.");
+                    } finally {
+                        if (profilerSample != null) {
+                            getProfiler().endNode(profilerSample);
+                        }
+                    }
+                    algorithm.getFirstInputSlot().clearData(false, algorithmProgress);
+                    if (i < nodes.size() - 1) {
+                        // Pass the intermediate results to the next node
+                        JIPipeOutputDataSlot outputSlot = algorithm.getFirstOutputSlot();
+                        nodes.get(i + 1).getFirstInputSlot().addDataFromTable(outputSlot, algorithmProgress);
+                        outputSlot.clearData(false, algorithmProgress);
+                    }
+                }
+                start = end;
+            } while (start < numRows);
+        } finally {
+            rows.clearData(false, chainProgress);
+        }
+
+        // Update the GC and data flow graphs as if the nodes were executed one after another
+        for (int i = 0; i < nodes.size(); i++) {
+            JIPipeSimpleIteratingAlgorithm algorithm = nodes.get(i);
+            if (gcGraph != null) {
+                gcGraph.removeInputToNodeEdge(algorithm, progressInfo.resolve("GC"));
+            }
+            dataFlowGraph.removeVertex(algorithm);
+            if (i < nodes.size() - 1) {
+                JIPipeOutputDataSlot outputSlot = algorithm.getFirstOutputSlot();
+                JIPipeInputDataSlot inputSlot = nodes.get(i + 1).getFirstInputSlot();
+                if (gcGraph != null) {
+                    gcGraph.removeNodeToOutputEdge(outputSlot, progressInfo.resolve("GC"));
+                    gcGraph.removeOutputToInputEdge(outputSlot, inputSlot, progressInfo.resolve("GC"));
+                }
+                dataFlowGraph.removeVertex(outputSlot);
+                dataFlowGraph.removeVertex(inputSlot);
+            }
+        }
+    }
+
     private boolean isContinueOnFailure(JIPipeRuntimePartition runtimePartition) {
         switch (configuration.getContinueOnFailure()) {
             case Enable:
@@ -1081,9 +1241,10 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
 
         if (!skipWorkload) {
             if (!tryLoadFromCache(algorithm, algorithmProgress)) {
+                JIPipeGraphRunProfiler.Sample profilerSample = getProfiler() != null ? getProfiler().startNode(algorithm, runContext.getThreadPool()) : null;
                 try {
                     if (!algorithm.isSkipped() && algorithm.isEnabled() && algorithm.getInfo().isRunnable()) {
-                        algorithm.run(runContext, algorithmProgress);
+                        algorithm.run(runContext, profilerSample != null ? profilerSample.attachTo(algorithmProgress) : algorithmProgress);
                     } else {
                         algorithmProgress.log("Not runnable (skipped/disabled/node info not marked as runnable). Workload will not be executed!");
                     }
@@ -1094,6 +1255,10 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
                             "An error occurred during processing",
                             "On running the algorithm '" + algorithm.getDisplayName(),
                             "Please follow the instructions for the other error messages.");
+                } finally {
+                    if (profilerSample != null) {
+                        getProfiler().endNode(profilerSample);
+                    }
                 }
             }
         }
@@ -1113,6 +1278,10 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
 
         JIPipeOutputDataSlot outputDataSlot = (JIPipeOutputDataSlot) flowGraphNode;
 
+        if (getProfiler() != null) {
+            getProfiler().recordOutput(outputDataSlot.getNode(), outputDataSlot);
+        }
+
         if (gcGraph != null) {
             gcGraph.removeNodeToOutputEdge(outputDataSlot, progressInfo.resolve("GC"));
         }
@@ -1252,12 +1421,17 @@ public class JIPipeGraphRun extends AbstractJIPipeRunnable implements JIPipeGrap
             JIPipeProgressInfo saveProgress = storageProgress.resolveAndLog(String.format("Saving data in slot '%s' (data type %s)", outputDataSlot.getDisplayName(), JIPipeDataInfo.getInstance(outputDataSlot.getAcceptedDataType()).getName()));
             storageProgress.log("Storing " + outputDataSlot.getDisplayName() + " to hard drive");
 
+            long exportStartNanos = System.nanoTime();
+            JIPipeFileSystemWriteDataStorage storage = new JIPipeFileSystemWriteDataStorage(saveProgress, outputDataSlot.getSlotStoragePath());
             try {
-                filtered.exportData(new JIPipeFileSystemWriteDataStorage(saveProgress, outputDataSlot.getSlotStoragePath()), saveProgress);
+                filtered.exportData(storage, saveProgress);
             } finally {
                 filtered.clear(false, getProgressInfo());
                 outputDataSlot.clear(false, getProgressInfo());
             }
+            if (getProfiler() != null) {
+                getProfiler().recordExport(outputDataSlot.getNode(), outputDataSlot.getName(), exportStartNanos, System.nanoTime(), storage.getBytesWritten());
+            }
         }
     }
 }
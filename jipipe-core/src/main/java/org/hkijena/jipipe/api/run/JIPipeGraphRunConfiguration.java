@@ -39,6 +39,7 @@ public class JIPipeGraphRunConfiguration extends AbstractJIPipeParameterCollecti
     private boolean ignoreDeactivatedInputs = false;
     private boolean cleanupOutputsAfterSuccess = false;
     private boolean cleanupOutputsAfterFailure = false;
+    private boolean recordProfile = false;
     private Set<UUID> disableStoreToCacheNodes = new HashSet<>();
     private Set<UUID> disableStoreToDiskNodes = new HashSet<>();
 
@@ -63,6 +64,7 @@ public class JIPipeGraphRunConfiguration extends AbstractJIPipeParameterCollecti
         this.continueOnFailure = other.continueOnFailure;
         this.cleanupOutputsAfterSuccess = other.cleanupOutputsAfterSuccess;
         this.cleanupOutputsAfterFailure = other.cleanupOutputsAfterFailure;
+        this.recordProfile = other.recordProfile;
     }
 
     @JIPipeParameter(value = "output-path", uiOrder = -999)
@@ -152,6 +154,18 @@ public class JIPipeGraphRunConfiguration extends AbstractJIPipeParameterCollecti
         this.cleanupOutputsAfterFailure = cleanupOutputsAfterFailure;
     }
 
+    @SetJIPipeDocumentation(name = "Record run profile", description = "If enabled, the run time, CPU time, iteration steps, I/O, output sizes, garbage collection, and thread pool utilization of each node are recorded. " +
+            "The profile is written into the output folder as JSON, CSV, and Chrome trace (run-profile-trace.json, viewable in chrome://tracing or Perfetto).")
+    @JIPipeParameter("record-profile")
+    public boolean isRecordProfile() {
+        return recordProfile;
+    }
+
+    @JIPipeParameter("record-profile")
+    public void setRecordProfile(boolean recordProfile) {
+        this.recordProfile = recordProfile;
+    }
+
     /**
      * If true, exceptions are discarded
      *
@@ -0,0 +1,167 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.api.run;
+
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.api.data.JIPipeDataSlot;
+import org.hkijena.jipipe.api.data.JIPipeInputDataSlot;
+import org.hkijena.jipipe.api.data.JIPipeOutputDataSlot;
+import org.hkijena.jipipe.api.nodes.JIPipeGraph;
+import org.hkijena.jipipe.api.nodes.JIPipeGraphEdge;
+import org.hkijena.jipipe.api.nodes.JIPipeGraphNode;
+import org.hkijena.jipipe.api.nodes.JIPipeGraphNodeRunContext;
+import org.hkijena.jipipe.api.nodes.algorithm.JIPipeParameterSlotAlgorithm;
+import org.hkijena.jipipe.api.nodes.algorithm.JIPipeSimpleIteratingAlgorithm;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A linear chain of {@link JIPipeSimpleIteratingAlgorithm} nodes that can be executed row by row.
+ * Each node of the chain (except the last one) has exactly one output that is only consumed by the next node.
+ * Intermediate outputs are neither cached nor exported, so they never need to be held for all rows at once.
+ */
+public class JIPipeGraphRunFusedChain {
+    private final List<JIPipeSimpleIteratingAlgorithm> nodes;
+
+    public JIPipeGraphRunFusedChain(List<JIPipeSimpleIteratingAlgorithm> nodes) {
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    }
+
+    /**
+     * Finds all fusable chains within the node set
+     *
+     * @param graph         the graph
+     * @param nodeSet       the nodes that are executed
+     * @param configuration the run configuration (determines if intermediate outputs are stored)
+     * @return chains with at least two nodes
+     */
+    public static List<JIPipeGraphRunFusedChain> findChains(JIPipeGraph graph, Set<JIPipeGraphNode> nodeSet, JIPipeGraphRunConfiguration configuration) {
+        Map<JIPipeGraphNode, JIPipeSimpleIteratingAlgorithm> successors = new HashMap<>();
+        Set<JIPipeGraphNode> hasPredecessor = new HashSet<>();
+        for (JIPipeGraphNode node : nodeSet) {
+            if (!canBeFused(node)) {
+                continue;
+            }
+            JIPipeSimpleIteratingAlgorithm successor = findFusableSuccessor(graph, nodeSet, (JIPipeSimpleIteratingAlgorithm) node, configuration);
+            if (successor != null) {
+                successors.put(node, successor);
+                hasPredecessor.add(successor);
+            }
+        }
+
+        List<JIPipeGraphRunFusedChain> result = new ArrayList<>();
+        for (Map.Entry<JIPipeGraphNode, JIPipeSimpleIteratingAlgorithm> entry : successors.entrySet()) {
+            if (hasPredecessor.contains(entry.getKey())) {
+                continue;
+            }
+            List<JIPipeSimpleIteratingAlgorithm> chain = new ArrayList<>();
+            chain.add((JIPipeSimpleIteratingAlgorithm) entry.getKey());
+            JIPipeSimpleIteratingAlgorithm current = entry.getValue();
+            while (current != null) {
+                chain.add(current);
+                current = successors.get(current);
+            }
+            result.add(new JIPipeGraphRunFusedChain(chain));
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the node processes each row of its single input independently
+     *
+     * @param node the node
+     * @return if the node can be part of a chain
+     */
+    public static boolean canBeFused(JIPipeGraphNode node) {
+        if (!(node instanceof JIPipeSimpleIteratingAlgorithm)) {
+            return false;
+        }
+        JIPipeSimpleIteratingAlgorithm algorithm = (JIPipeSimpleIteratingAlgorithm) node;
+        if (algorithm.isSkipped() || !algorithm.isEnabled() || !algorithm.getInfo().isRunnable()) {
+            return false;
+        }
+        // Also excludes enabled parameter slots
+        if (algorithm.getInputSlots().size() != 1 || algorithm.getOutputSlots().isEmpty()) {
+            return false;
+        }
+        if (algorithm.getDataBatchGenerationSettings().getLimit().isEnabled()) {
+            return false;
+        }
+        // Would produce an additional output for each window with no rows
+        if (algorithm.allowsEmptyIterationSteps()) {
+            return false;
+        }
+        // Nodes with custom run logic might look at all rows at once
+        try {
+            if (algorithm.getClass().getMethod("run", JIPipeGraphNodeRunContext.class, JIPipeProgressInfo.class).getDeclaringClass() != JIPipeParameterSlotAlgorithm.class) {
+                return false;
+            }
+            if (algorithm.getClass().getMethod("runParameterSet", JIPipeGraphNodeRunContext.class, JIPipeProgressInfo.class, List.class).getDeclaringClass() != JIPipeSimpleIteratingAlgorithm.class) {
+                return false;
+            }
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private static JIPipeSimpleIteratingAlgorithm findFusableSuccessor(JIPipeGraph graph, Set<JIPipeGraphNode> nodeSet, JIPipeSimpleIteratingAlgorithm node, JIPipeGraphRunConfiguration configuration) {
+        if (node.getOutputSlots().size() != 1) {
+            return null;
+        }
+        JIPipeOutputDataSlot outputSlot = node.getFirstOutputSlot();
+        if (isStored(outputSlot, configuration)) {
+            return null;
+        }
+        Set<JIPipeGraphEdge> outgoingEdges = graph.getGraph().outgoingEdgesOf(outputSlot);
+        if (outgoingEdges.size() != 1) {
+            return null;
+        }
+        JIPipeDataSlot target = graph.getGraph().getEdgeTarget(outgoingEdges.iterator().next());
+        if (!(target instanceof JIPipeInputDataSlot) || !nodeSet.contains(target.getNode()) || !canBeFused(target.getNode())) {
+            return null;
+        }
+        JIPipeInputDataSlot inputSlot = (JIPipeInputDataSlot) target;
+        if (inputSlot.isSkipDataGathering() || graph.getGraph().inDegreeOf(inputSlot) != 1) {
+            return null;
+        }
+        return (JIPipeSimpleIteratingAlgorithm) inputSlot.getNode();
+    }
+
+    private static boolean isStored(JIPipeOutputDataSlot outputSlot, JIPipeGraphRunConfiguration configuration) {
+        UUID uuid = outputSlot.getNode().getUUIDInParentGraph();
+        if (configuration.isStoreToCache() && !configuration.getDisableStoreToCacheNodes().contains(uuid) && !outputSlot.isSkipCache()) {
+            return true;
+        }
+        return configuration.isStoreToDisk() && !configuration.getDisableStoreToDiskNodes().contains(uuid) && outputSlot.getInfo().isStoreToDisk() && !outputSlot.isSkipExport();
+    }
+
+    public List<JIPipeSimpleIteratingAlgorithm> getNodes() {
+        return nodes;
+    }
+
+    public JIPipeSimpleIteratingAlgorithm getFirstNode() {
+        return nodes.get(0);
+    }
+
+    public JIPipeSimpleIteratingAlgorithm getLastNode() {
+        return nodes.get(nodes.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return nodes.stream().map(JIPipeGraphNode::getDisplayName).collect(Collectors.joining(" >> "));
+    }
+}
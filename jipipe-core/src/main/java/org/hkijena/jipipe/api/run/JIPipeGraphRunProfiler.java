@@ -0,0 +1,565 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.api.run;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.api.data.JIPipeData;
+import org.hkijena.jipipe.api.data.JIPipeDataTable;
+import org.hkijena.jipipe.api.data.storage.JIPipeDataStorageIOStatistics;
+import org.hkijena.jipipe.api.data.storage.JIPipeFileSystemReadDataStorage;
+import org.hkijena.jipipe.api.data.storage.JIPipeFileSystemWriteDataStorage;
+import org.hkijena.jipipe.api.nodes.JIPipeGraphNode;
+import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
+import org.hkijena.jipipe.utils.StringUtils;
+import org.hkijena.jipipe.utils.json.JsonUtils;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Records per-node resource usage of a {@link JIPipeGraphRun}.
+ * Nodes within a partition are executed one after another, so process-wide measurements (CPU time, garbage collection)
+ * taken before and after a node are attributed to this node.
+ * I/O is measured as the bytes read and written via {@link JIPipeFileSystemReadDataStorage} and {@link JIPipeFileSystemWriteDataStorage} streams
+ * that were created with the progress info returned by {@link Sample#attachTo(JIPipeProgressInfo)}.
+ * It is counted per node, so concurrently executed runs or nodes do not influence each other.
+ * The thread pool utilization is measured on the run's thread pool, which is also used by nodes for their internal parallelization.
+ * Nodes that are configured to use their own number of threads run on a separate pool that is not measured.
+ * The profile is exported as JSON, CSV, and Chrome trace (open via chrome://tracing or https://ui.perfetto.dev).
+ */
+public class JIPipeGraphRunProfiler {
+
+    public static final String REPORT_JSON_FILE_NAME = "run-profile.json";
+    public static final String REPORT_CSV_FILE_NAME = "run-profile.csv";
+    public static final String TRACE_FILE_NAME = "run-profile-trace.json";
+
+    /**
+     * Maximum number of recorded trace events. Prevents unbounded growth for runs with many loop iterations.
+     */
+    public static final int MAX_TRACE_EVENTS = 200000;
+
+    private final LocalDateTime startDateTime = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private final long startCpuNanos;
+    private final long startGcMillis;
+    private final long startGcCount;
+    private final Map<String, NodeProfile> nodeProfiles = new LinkedHashMap<>();
+    private final List<Map<String, Object>> traceEvents = new ArrayList<>();
+    private int droppedTraceEvents = 0;
+    private long endNanos = -1;
+    private long peakHeapBytes = 0;
+
+    public JIPipeGraphRunProfiler() {
+        this.startCpuNanos = getProcessCpuNanos();
+        this.startGcMillis = getGcMillis();
+        this.startGcCount = getGcCount();
+    }
+
+    private static long getProcessCpuNanos() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static long getGcMillis() {
+        long result = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, bean.getCollectionTime());
+        }
+        return result;
+    }
+
+    private static long getGcCount() {
+        long result = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, bean.getCollectionCount());
+        }
+        return result;
+    }
+
+    private static String getNodeKey(JIPipeGraphNode node) {
+        UUID uuid = node.getUUIDInParentGraph();
+        return uuid != null ? uuid.toString() : node.getDisplayName();
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Starts measuring the execution of a node
+     *
+     * @param node       the node
+     * @param threadPool the thread pool available to the node (can be null)
+     * @return the sample that must be passed to endNode()
+     */
+    public Sample startNode(JIPipeGraphNode node, JIPipeFixedThreadPool threadPool) {
+        return new Sample(node, threadPool, System.nanoTime(), getProcessCpuNanos(), getGcMillis(), getGcCount(),
+                threadPool != null ? threadPool.getBusyNanos() : 0);
+    }
+
+    /**
+     * Ends the measurement of a node
+     *
+     * @param sample the sample created by startNode()
+     */
+    public void endNode(Sample sample) {
+        long now = System.nanoTime();
+        long cpuNanos = getProcessCpuNanos();
+        long gcMillis = getGcMillis();
+        long gcCount = getGcCount();
+        long busyNanos = sample.threadPool != null ? sample.threadPool.getBusyNanos() : 0;
+        long heapBytes = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+
+        synchronized (this) {
+            NodeProfile profile = getOrCreateNodeProfile(sample.node);
+            long wallNanos = now - sample.startNanos;
+            profile.runs++;
+            profile.wallTimeNanos += wallNanos;
+            if (cpuNanos >= 0 && sample.cpuNanos >= 0) {
+                profile.cpuTimeNanos += cpuNanos - sample.cpuNanos;
+            }
+            profile.gcTimeMillis += gcMillis - sample.gcMillis;
+            profile.gcCount += gcCount - sample.gcCount;
+            profile.bytesRead += sample.ioStatistics.getBytesRead();
+            profile.bytesWritten += sample.ioStatistics.getBytesWritten();
+            if (sample.threadPool != null && sample.threadPool.getExecutorService() != null) {
+                profile.threadPoolBusyNanos += busyNanos - sample.threadPoolBusyNanos;
+                profile.threadPoolCapacityNanos += wallNanos * sample.threadPool.getMaxThreads();
+            }
+            profile.maxHeapBytes = Math.max(profile.maxHeapBytes, heapBytes);
+            peakHeapBytes = Math.max(peakHeapBytes, heapBytes);
+
+            Map<String, Object> args = new LinkedHashMap<>();
+            args.put("uuid", profile.getUUID());
+            args.put("gc-ms", gcMillis - sample.gcMillis);
+            addTraceEvent(sample.node.getDisplayName(), "node", sample.startNanos, now, args);
+        }
+    }
+
+    /**
+     * Adds the number of iteration steps executed by a node
+     *
+     * @param node              the node
+     * @param numIterationSteps the number of iteration steps
+     */
+    public synchronized void addIterationSteps(JIPipeGraphNode node, int numIterationSteps) {
+        getOrCreateNodeProfile(node).iterationSteps += numIterationSteps;
+    }
+
+    /**
+     * Records the output data of a node. The memory size is estimated via {@link JIPipeData#estimateMemorySize()}
+     *
+     * @param node       the node
+     * @param outputSlot the output data
+     */
+    public void recordOutput(JIPipeGraphNode node, JIPipeDataTable outputSlot) {
+        long size = 0;
+        for (int row = 0; row < outputSlot.getRowCount(); row++) {
+            JIPipeData data = outputSlot.getDataItemStore(row).get();
+            if (data != null) {
+                size += Math.max(0, data.estimateMemorySize());
+            }
+        }
+        synchronized (this) {
+            NodeProfile profile = getOrCreateNodeProfile(node);
+            profile.outputRows += outputSlot.getRowCount();
+            profile.outputSizeBytes += size;
+        }
+    }
+
+    /**
+     * Records that output data of a node was exported to the disk
+     *
+     * @param node        the node
+     * @param slotName    the name of the exported slot
+     * @param startNanos  start time ({@link System#nanoTime()})
+     * @param endNanos    end time ({@link System#nanoTime()})
+     * @param size        the number of written bytes (see {@link JIPipeFileSystemWriteDataStorage#getBytesWritten()})
+     */
+    public void recordExport(JIPipeGraphNode node, String slotName, long startNanos, long endNanos, long size) {
+        synchronized (this) {
+            NodeProfile profile = getOrCreateNodeProfile(node);
+            profile.exportTimeNanos += endNanos - startNanos;
+            profile.exportedBytes += size;
+            Map<String, Object> args = new LinkedHashMap<>();
+            args.put("uuid", profile.getUUID());
+            args.put("bytes", size);
+            addTraceEvent(node.getDisplayName() + "/" + slotName, "export", startNanos, endNanos, args);
+        }
+    }
+
+    /**
+     * Records the execution of a runtime partition
+     *
+     * @param name       the name of the partition
+     * @param startNanos start time ({@link System#nanoTime()})
+     * @param endNanos   end time ({@link System#nanoTime()})
+     */
+    public synchronized void recordPartition(String name, long startNanos, long endNanos) {
+        addTraceEvent(name, "partition", startNanos, endNanos, Collections.emptyMap());
+    }
+
+    /**
+     * Marks the end of the run
+     */
+    public synchronized void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    private void addTraceEvent(String name, String category, long startNanos, long endNanos, Map<String, Object> args) {
+        if (traceEvents.size() >= MAX_TRACE_EVENTS) {
+            ++droppedTraceEvents;
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", name);
+        event.put("cat", category);
+        event.put("ph", "X");
+        event.put("ts", (startNanos - this.startNanos) / 1000);
+        event.put("dur", Math.max(0, (endNanos - startNanos) / 1000));
+        event.put("pid", 1);
+        event.put("tid", Thread.currentThread().getId());
+        if (!args.isEmpty()) {
+            event.put("args", args);
+        }
+        traceEvents.add(event);
+    }
+
+    private NodeProfile getOrCreateNodeProfile(JIPipeGraphNode node) {
+        return nodeProfiles.computeIfAbsent(getNodeKey(node), key -> new NodeProfile(node));
+    }
+
+    /**
+     * Returns the node profiles sorted by wall time (descending)
+     *
+     * @return the node profiles
+     */
+    public synchronized List<NodeProfile> getNodeProfiles() {
+        return nodeProfiles.values().stream().sorted(Comparator.comparing(NodeProfile::getWallTimeMillis).reversed()).collect(Collectors.toList());
+    }
+
+    public synchronized double getWallTimeMillis() {
+        return nanosToMillis((endNanos >= 0 ? endNanos : System.nanoTime()) - startNanos);
+    }
+
+    public double getCpuTimeMillis() {
+        long cpuNanos = getProcessCpuNanos();
+        if (cpuNanos < 0 || startCpuNanos < 0) {
+            return -1;
+        }
+        return nanosToMillis(cpuNanos - startCpuNanos);
+    }
+
+    /**
+     * Exports the report files into the directory
+     *
+     * @param outputDirectory the directory
+     * @throws IOException if writing failed
+     */
+    public void exportReport(Path outputDirectory) throws IOException {
+        List<NodeProfile> profiles = getNodeProfiles();
+
+        // JSON
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("start-time", StringUtils.formatDateTime(startDateTime));
+        report.put("wall-time-ms", getWallTimeMillis());
+        report.put("cpu-time-ms", getCpuTimeMillis());
+        report.put("gc-time-ms", getGcMillis() - startGcMillis);
+        report.put("gc-count", getGcCount() - startGcCount);
+        report.put("peak-heap-bytes", peakHeapBytes);
+        report.put("max-heap-bytes", Runtime.getRuntime().maxMemory());
+        report.put("nodes", profiles);
+        JsonUtils.saveToFile(report, outputDirectory.resolve(REPORT_JSON_FILE_NAME));
+
+        // CSV
+        ResultsTableData table = new ResultsTableData();
+        for (NodeProfile profile : profiles) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("uuid", profile.getUUID());
+            row.put("alias-id", StringUtils.nullToEmpty(profile.getAliasId()));
+            row.put("name", profile.getName());
+            row.put("node-type-id", StringUtils.nullToEmpty(profile.getNodeTypeId()));
+            row.put("runs", profile.getRuns());
+            row.put("wall-time-ms", profile.getWallTimeMillis());
+            row.put("cpu-time-ms", profile.getCpuTimeMillis());
+            row.put("iteration-steps", profile.getIterationSteps());
+            row.put("bytes-read", profile.getBytesRead());
+            row.put("bytes-written", profile.getBytesWritten());
+            row.put("export-time-ms", profile.getExportTimeMillis());
+            row.put("exported-bytes", profile.getExportedBytes());
+            row.put("output-rows", profile.getOutputRows());
+            row.put("output-size-bytes", profile.getOutputSizeBytes());
+            row.put("gc-count", profile.getGcCount());
+            row.put("gc-time-ms", profile.getGcTimeMillis());
+            row.put("max-heap-bytes", profile.getMaxHeapBytes());
+            row.put("thread-pool-busy-ms", profile.getThreadPoolBusyMillis());
+            row.put("thread-pool-utilization", profile.getThreadPoolUtilization());
+            table.addRow(row);
+        }
+        table.saveAsCSV(outputDirectory.resolve(REPORT_CSV_FILE_NAME));
+
+        // Chrome trace
+        Map<String, Object> trace = new LinkedHashMap<>();
+        synchronized (this) {
+            trace.put("traceEvents", new ArrayList<>(traceEvents));
+        }
+        trace.put("displayTimeUnit", "ms");
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("dropped-events", droppedTraceEvents);
+        trace.put("otherData", metadata);
+        // Not pretty-printed, as traces can become large
+        JsonUtils.getObjectMapper().writeValue(outputDirectory.resolve(TRACE_FILE_NAME).toFile(), trace);
+    }
+
+    /**
+     * Creates a human-readable summary of the slowest nodes
+     *
+     * @param maxNodes the maximum number of listed nodes
+     * @return the summary
+     */
+    public String getSummary(int maxNodes) {
+        StringBuilder builder = new StringBuilder();
+        double cpuTimeMillis = getCpuTimeMillis();
+        builder.append("Run profile: wall time ").append(StringUtils.formatDuration((long) getWallTimeMillis()));
+        if (cpuTimeMillis >= 0) {
+            builder.append(", CPU time ").append(StringUtils.formatDuration((long) cpuTimeMillis));
+        }
+        builder.append(", GC ").append(StringUtils.formatDuration(getGcMillis() - startGcMillis));
+        builder.append(", peak heap ").append(StringUtils.formatSize(peakHeapBytes)).append("\n");
+        List<NodeProfile> profiles = getNodeProfiles();
+        for (int i = 0; i < Math.min(maxNodes, profiles.size()); i++) {
+            NodeProfile profile = profiles.get(i);
+            builder.append(String.format("%3d. %-40s %12s wall %12s CPU %8d steps %10s read %10s written %10s exported",
+                    i + 1,
+                    StringUtils.orElse(profile.getAliasId(), profile.getName()),
+                    StringUtils.formatDuration((long) profile.getWallTimeMillis()),
+                    StringUtils.formatDuration((long) profile.getCpuTimeMillis()),
+                    profile.getIterationSteps(),
+                    StringUtils.formatSize(profile.getBytesRead()),
+                    StringUtils.formatSize(profile.getBytesWritten()),
+                    StringUtils.formatSize(profile.getExportedBytes())));
+            if (profile.getThreadPoolUtilization() >= 0) {
+                builder.append(String.format(" %5.1f%% pool", profile.getThreadPoolUtilization() * 100));
+            }
+            builder.append("\n");
+        }
+        if (profiles.size() > maxNodes) {
+            builder.append("... and ").append(profiles.size() - maxNodes).append(" more nodes\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A running measurement
+     */
+    public static class Sample {
+        private final JIPipeGraphNode node;
+        private final JIPipeFixedThreadPool threadPool;
+        private final long startNanos;
+        private final long cpuNanos;
+        private final long gcMillis;
+        private final long gcCount;
+        private final long threadPoolBusyNanos;
+        private final JIPipeDataStorageIOStatistics ioStatistics = new JIPipeDataStorageIOStatistics();
+
+        private Sample(JIPipeGraphNode node, JIPipeFixedThreadPool threadPool, long startNanos, long cpuNanos, long gcMillis, long gcCount, long threadPoolBusyNanos) {
+            this.node = node;
+            this.threadPool = threadPool;
+            this.startNanos = startNanos;
+            this.cpuNanos = cpuNanos;
+            this.gcMillis = gcMillis;
+            this.gcCount = gcCount;
+            this.threadPoolBusyNanos = threadPoolBusyNanos;
+        }
+
+        /**
+         * Returns a progress info that counts the I/O of data storages into this sample.
+         * Must be passed to the node instead of the original progress info.
+         *
+         * @param progressInfo the progress info of the node
+         * @return the progress info with the I/O statistics of this sample
+         */
+        public JIPipeProgressInfo attachTo(JIPipeProgressInfo progressInfo) {
+            return progressInfo.withIOStatistics(ioStatistics);
+        }
+    }
+
+    /**
+     * Accumulated measurements of one node.
+     * Nodes that are executed multiple times (e.g., in looped partitions) are accumulated.
+     */
+    public static class NodeProfile {
+        private final String uuid;
+        private final String aliasId;
+        private final String name;
+        private final String nodeTypeId;
+        private int runs;
+        private long wallTimeNanos;
+        private long cpuTimeNanos;
+        private long iterationSteps;
+        private long bytesRead;
+        private long bytesWritten;
+        private long exportTimeNanos;
+        private long exportedBytes;
+        private long outputRows;
+        private long outputSizeBytes;
+        private long gcCount;
+        private long gcTimeMillis;
+        private long maxHeapBytes;
+        private long threadPoolBusyNanos;
+        private long threadPoolCapacityNanos;
+
+        public NodeProfile(JIPipeGraphNode node) {
+            this.uuid = getNodeKey(node);
+            this.aliasId = node.getParentGraph() != null ? node.getAliasIdInParentGraph() : null;
+            this.name = node.getDisplayName();
+            this.nodeTypeId = node.getInfo() != null ? node.getInfo().getId() : null;
+        }
+
+        @JsonGetter("uuid")
+        public String getUUID() {
+            return uuid;
+        }
+
+        @JsonGetter("alias-id")
+        public String getAliasId() {
+            return aliasId;
+        }
+
+        @JsonGetter("name")
+        public String getName() {
+            return name;
+        }
+
+        @JsonGetter("node-type-id")
+        public String getNodeTypeId() {
+            return nodeTypeId;
+        }
+
+        @JsonGetter("runs")
+        public int getRuns() {
+            return runs;
+        }
+
+        @JsonGetter("wall-time-ms")
+        public double getWallTimeMillis() {
+            return nanosToMillis(wallTimeNanos);
+        }
+
+        /**
+         * The CPU time of the whole process while the node was running (includes all worker threads)
+         *
+         * @return the CPU time in milliseconds
+         */
+        @JsonGetter("cpu-time-ms")
+        public double getCpuTimeMillis() {
+            return nanosToMillis(cpuTimeNanos);
+        }
+
+        @JsonGetter("iteration-steps")
+        public long getIterationSteps() {
+            return iterationSteps;
+        }
+
+        /**
+         * Bytes read via the data storages of the node
+         *
+         * @return the number of bytes
+         */
+        @JsonGetter("bytes-read")
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * Bytes written via the data storages of the node
+         *
+         * @return the number of bytes
+         */
+        @JsonGetter("bytes-written")
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @JsonGetter("export-time-ms")
+        public double getExportTimeMillis() {
+            return nanosToMillis(exportTimeNanos);
+        }
+
+        @JsonGetter("exported-bytes")
+        public long getExportedBytes() {
+            return exportedBytes;
+        }
+
+        @JsonGetter("output-rows")
+        public long getOutputRows() {
+            return outputRows;
+        }
+
+        /**
+         * The estimated memory size of the outputs. Data types without an estimate are not counted.
+         *
+         * @return the size in bytes
+         */
+        @JsonGetter("output-size-bytes")
+        public long getOutputSizeBytes() {
+            return outputSizeBytes;
+        }
+
+        @JsonGetter("gc-count")
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        @JsonGetter("gc-time-ms")
+        public long getGcTimeMillis() {
+            return gcTimeMillis;
+        }
+
+        @JsonGetter("max-heap-bytes")
+        public long getMaxHeapBytes() {
+            return maxHeapBytes;
+        }
+
+        @JsonGetter("thread-pool-busy-ms")
+        public double getThreadPoolBusyMillis() {
+            return nanosToMillis(threadPoolBusyNanos);
+        }
+
+        /**
+         * The fraction of the available thread pool time that was used by the node.
+         * Includes the internal parallelization of nodes that run on the run's thread pool.
+         *
+         * @return the utilization (0-1) or -1 if the node never had a multi-threaded pool available
+         */
+        @JsonGetter("thread-pool-utilization")
+        public double getThreadPoolUtilization() {
+            if (threadPoolCapacityNanos <= 0) {
+                return -1;
+            }
+            return Math.min(1.0, 1.0 * threadPoolBusyNanos / threadPoolCapacityNanos);
+        }
+    }
+}
@@ -33,6 +33,7 @@ public class JIPipeRuntimePartition extends AbstractJIPipeParameterCollection {
     private HTMLText description = new HTMLText();
     private OptionalColorParameter color = new OptionalColorParameter(Color.RED, true);
     private boolean enableParallelization = false;
+    private boolean streamIteratingChains = false;
     private boolean forcePassThroughLoopIterationInCaching = false;
     private JIPipeIteratingAlgorithmIterationStepGenerationSettings loopIterationIteratingSettings;
     private JIPipeMergingAlgorithmIterationStepGenerationSettings loopIterationMergingSettings;
@@ -53,6 +54,7 @@ public class JIPipeRuntimePartition extends AbstractJIPipeParameterCollection {
         this.description = new HTMLText(other.description);
         this.color = new OptionalColorParameter(other.color);
         this.enableParallelization = other.enableParallelization;
+        this.streamIteratingChains = other.streamIteratingChains;
         this.iterationMode = other.iterationMode;
         this.outputSettings = new OutputSettings(other.outputSettings);
         this.loopIterationMergingSettings = new JIPipeMergingAlgorithmIterationStepGenerationSettings(other.loopIterationMergingSettings);
@@ -67,6 +69,7 @@ public class JIPipeRuntimePartition extends AbstractJIPipeParameterCollection {
         this.description = new HTMLText(other.description);
         this.color = new OptionalColorParameter(other.color);
         this.enableParallelization = other.enableParallelization;
+        this.streamIteratingChains = other.streamIteratingChains;
         this.iterationMode = other.iterationMode;
         this.outputSettings = new OutputSettings(other.outputSettings);
         this.loopIterationMergingSettings = new JIPipeMergingAlgorithmIterationStepGenerationSettings(other.loopIterationMergingSettings);
@@ -103,6 +106,22 @@ public class JIPipeRuntimePartition extends AbstractJIPipeParameterCollection {
         this.enableParallelization = enableParallelization;
     }
 
+    @SetJIPipeDocumentation(name = "Stream simple node chains", description = "If enabled, linear chains of simple iterating nodes (one input, per-row processing) are executed row by row " +
+            "in pass-through mode, so that intermediate results do not need to be held in memory for all rows at once. " +
+            "Chains are only formed if the intermediate outputs are neither cached nor exported. " +
+            "Not applied if continue on failure is enabled.")
+    @JIPipeParameter("stream-iterating-chains")
+    @JsonGetter("stream-iterating-chains")
+    public boolean isStreamIteratingChains() {
+        return streamIteratingChains;
+    }
+
+    @JIPipeParameter("stream-iterating-chains")
+    @JsonSetter("stream-iterating-chains")
+    public void setStreamIteratingChains(boolean streamIteratingChains) {
+        this.streamIteratingChains = streamIteratingChains;
+    }
+
     @SetJIPipeDocumentation(name = "Name", description = "Name of the partition")
     @JIPipeParameter(value = "name", pinned = true, uiOrder = -100)
     @JsonGetter("name")
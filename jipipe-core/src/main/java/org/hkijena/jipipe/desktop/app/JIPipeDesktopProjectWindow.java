@@ -373,7 +373,7 @@ public class JIPipeDesktopProjectWindow extends JFrame {
                                 getProgressInfo().log("INFO: File size is " + (Files.size(path) / 1024 / 1024) + " MB. Loading this project may take long.");
                                 getProgressInfo().log("INFO: Consider down-sizing your projects if you experience performance issues.");
                             }
-                            project.fromJson(jsonData, new UnspecifiedValidationReportContext(), report, notifications);
+                            project.fromJson(jsonData, path, new UnspecifiedValidationReportContext(), report, notifications);
                             project.setWorkDirectory(path.getParent());
                             project.validateUserDirectories(notifications);
 
@@ -516,6 +516,51 @@ public class JIPipeDesktopProjectWindow extends JFrame {
         }
     }
 
+    /**
+     * Saves the project into a directory, where each node is stored in a separate file.
+     * Opens a dialog to select the directory.
+     */
+    public void saveProjectAsDirectory() {
+        Path directory = JIPipeDesktop.saveDirectory(this,
+                getProjectUI(),
+                JIPipeFileChooserApplicationSettings.LastDirectoryKey.Projects,
+                "Save JIPipe project as directory",
+                HTMLText.EMPTY);
+        if (directory == null)
+            return;
+        saveProjectToDirectory(directory, true);
+    }
+
+    /**
+     * Saves the project into a directory, where each node is stored in a separate file.
+     * Only changed nodes are written if the project was previously saved into the same directory.
+     *
+     * @param directory      the directory
+     * @param updateSavePath if the current project path should be updated
+     */
+    public void saveProjectToDirectory(Path directory, boolean updateSavePath) {
+        try {
+            getProject().setWorkDirectory(directory);
+            getProject().getAdditionalMetadata().put(JIPipeDesktopJIPipeProjectTabMetadata.METADATA_KEY, new JIPipeDesktopJIPipeProjectTabMetadata(getProjectUI()));
+            getProject().saveProjectToDirectory(directory);
+            Path savePath = getProject().getDirectoryStorage().getProjectFile();
+
+            if (updateSavePath) {
+                projectSavePath = savePath;
+            }
+            updateTitle();
+            projectUI.setProjectModified(false);
+            projectUI.sendStatusBarText("Saved project to " + savePath);
+            JIPipe.getInstance().getRecentProjectsRegistry().add(savePath);
+        } catch (IOException e) {
+            UIUtils.showErrorDialog(getProjectUI(), this, new JIPipeValidationRuntimeException(e,
+                    "Error during saving!",
+                    "While saving the project into '" + directory + "'. The issue cannot be determined. Please contact the JIPipe authors.",
+                    "Please check if you have write access to the target directory. " +
+                            "If this is the case, please contact the JIPipe authors."));
+        }
+    }
+
     /**
      * Saves the project
      *
@@ -526,6 +571,12 @@ public class JIPipeDesktopProjectWindow extends JFrame {
         Path savePath = null;
         if (avoidDialog && projectSavePath != null)
             savePath = projectSavePath;
+        if (savePath != null && getProject().getDirectoryStorage() != null &&
+                getProject().getDirectoryStorage().getProjectFile().equals(savePath.toAbsolutePath().normalize())) {
+            // Projects stored as directory are saved incrementally
+            saveProjectToDirectory(getProject().getDirectoryStorage().getDirectory(), updateSavePath);
+            return;
+        }
         if (savePath == null) {
             savePath = JIPipeDesktop.saveFile(this,
                     getProjectUI(),
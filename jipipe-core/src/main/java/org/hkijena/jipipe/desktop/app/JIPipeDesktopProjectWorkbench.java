@@ -610,6 +610,18 @@ public class JIPipeDesktopProjectWorkbench extends JPanel implements JIPipeDeskt
         });
         projectMenu.add(saveProjectCopyAsButton);
 
+        // "Save project as directory" entry
+        JMenuItem saveProjectAsDirectoryButton = new JMenuItem("Save as multi-file project ...", UIUtils.getIconFromResources("actions/document-save-as.png"));
+        saveProjectAsDirectoryButton.setToolTipText("Saves the project into a directory, where each node is stored in a separate file. " +
+                "Subsequent saves only write the nodes that were changed, which is faster for large projects.");
+        saveProjectAsDirectoryButton.addActionListener(e -> {
+            window.saveProjectAsDirectory();
+            if (JIPipeGeneralUIApplicationSettings.getInstance().isValidateOnSave()) {
+                validateProject(true);
+            }
+        });
+        projectMenu.add(saveProjectAsDirectoryButton);
+
         // "Save project" entry
         JMenuItem saveProjectAndCache = new JMenuItem("Save project and cache ...", UIUtils.getIconFromResources("actions/document-export.png"));
         saveProjectAndCache.setToolTipText("Saves the project and all current cached data into a folder.");
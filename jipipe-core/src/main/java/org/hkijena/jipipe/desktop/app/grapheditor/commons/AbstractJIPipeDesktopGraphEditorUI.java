@@ -21,7 +21,9 @@ import org.hkijena.jipipe.api.grapheditortool.JIPipeDefaultGraphEditorTool;
 import org.hkijena.jipipe.api.grapheditortool.JIPipeGraphEditorTool;
 import org.hkijena.jipipe.api.grapheditortool.JIPipeToggleableGraphEditorTool;
 import org.hkijena.jipipe.api.history.JIPipeHistoryJournal;
+import org.hkijena.jipipe.api.history.JIPipeProjectHistoryJournal;
 import org.hkijena.jipipe.api.nodes.*;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReport;
 import org.hkijena.jipipe.desktop.JIPipeDesktop;
 import org.hkijena.jipipe.desktop.app.JIPipeDesktopWorkbench;
 import org.hkijena.jipipe.desktop.app.JIPipeDesktopWorkbenchPanel;
@@ -542,6 +544,7 @@ public abstract class AbstractJIPipeDesktopGraphEditorUI extends JIPipeDesktopWo
             int scrollY = scrollPane.getVerticalScrollBar().getValue();
             if (getHistoryJournal().redo(getCompartment())) {
                 getDesktopWorkbench().sendStatusBarText("Redo successful");
+                showHistoryRestoreReport();
             } else {
                 getDesktopWorkbench().sendStatusBarText("Redo unsuccessful");
             }
@@ -552,12 +555,23 @@ public abstract class AbstractJIPipeDesktopGraphEditorUI extends JIPipeDesktopWo
         }
     }
 
+    private void showHistoryRestoreReport() {
+        if (getHistoryJournal() instanceof JIPipeProjectHistoryJournal) {
+            JIPipeValidationReport report = ((JIPipeProjectHistoryJournal) getHistoryJournal()).getLastRestoreReport();
+            if (!report.isEmpty()) {
+                UIUtils.showValidityReportDialog(getDesktopWorkbench(), this, report, "Issues while restoring the project state",
+                        "The following issues were detected while restoring the project state:", false);
+            }
+        }
+    }
+
     private void undo() {
         if (getHistoryJournal() != null) {
             int scrollX = scrollPane.getHorizontalScrollBar().getValue();
             int scrollY = scrollPane.getVerticalScrollBar().getValue();
             if (getHistoryJournal().undo(getCompartment())) {
                 getDesktopWorkbench().sendStatusBarText("Undo successful");
+                showHistoryRestoreReport();
             } else {
                 getDesktopWorkbench().sendStatusBarText("Undo unsuccessful");
             }
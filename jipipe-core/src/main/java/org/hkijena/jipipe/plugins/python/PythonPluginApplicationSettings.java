@@ -34,6 +34,9 @@ public class PythonPluginApplicationSettings extends JIPipeDefaultApplicationsSe
     private final PythonEnvironment standardEnvironment = new PythonEnvironment();
     private OptionalPythonEnvironment defaultEnvironment = new OptionalPythonEnvironment();
     private PythonEnvironment.List presets = new PythonEnvironment.List();
+    private boolean useWorkerPool = false;
+    private int maxWorkersPerEnvironment = 2;
+    private int workerTimeout = 0;
 
     public PythonPluginApplicationSettings() {
         preconfigureEnvironment(standardEnvironment);
@@ -87,6 +90,47 @@ public class PythonPluginApplicationSettings extends JIPipeDefaultApplicationsSe
         this.defaultEnvironment = defaultEnvironment;
     }
 
+    @SetJIPipeDocumentation(name = "Keep Python processes running", description = "If enabled, Python-based nodes are executed within long-running " +
+            "Python processes (one pool per environment) instead of starting a new Python interpreter for each run. " +
+            "This avoids repeatedly importing large libraries (e.g., numpy or torch). Crashed or failed processes are automatically replaced.")
+    @JIPipeParameter("use-worker-pool")
+    public boolean isUseWorkerPool() {
+        return useWorkerPool;
+    }
+
+    @JIPipeParameter("use-worker-pool")
+    public void setUseWorkerPool(boolean useWorkerPool) {
+        this.useWorkerPool = useWorkerPool;
+    }
+
+    @SetJIPipeDocumentation(name = "Maximum Python processes per environment", description = "The maximum number of long-running Python processes per environment. " +
+            "Only applies if 'Keep Python processes running' is enabled.")
+    @JIPipeParameter("max-workers-per-environment")
+    public int getMaxWorkersPerEnvironment() {
+        return maxWorkersPerEnvironment;
+    }
+
+    @JIPipeParameter("max-workers-per-environment")
+    public boolean setMaxWorkersPerEnvironment(int maxWorkersPerEnvironment) {
+        if (maxWorkersPerEnvironment < 1) {
+            return false;
+        }
+        this.maxWorkersPerEnvironment = maxWorkersPerEnvironment;
+        return true;
+    }
+
+    @SetJIPipeDocumentation(name = "Python process timeout (seconds)", description = "If larger than zero, long-running Python processes are stopped if a single " +
+            "run takes longer than the specified number of seconds. Only applies if 'Keep Python processes running' is enabled.")
+    @JIPipeParameter("worker-timeout")
+    public int getWorkerTimeout() {
+        return workerTimeout;
+    }
+
+    @JIPipeParameter("worker-timeout")
+    public void setWorkerTimeout(int workerTimeout) {
+        this.workerTimeout = workerTimeout;
+    }
+
     @Override
     public List<JIPipeEnvironment> getPresetsListInterface(Class<?> environmentClass) {
         return ImmutableList.copyOf(presets);
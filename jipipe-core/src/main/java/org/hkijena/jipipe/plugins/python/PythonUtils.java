@@ -324,30 +324,21 @@ public class PythonUtils {
      * @param progressInfo the progress info
      */
     public static void runPython(Path scriptFile, PythonEnvironment environment, List<Path> libraryPaths, boolean suppressLogs, boolean detached, JIPipeProgressInfo progressInfo) {
+        if (!detached && PythonWorkerPool.isEnabled()) {
+            PythonWorkerPool.getInstance().runScript(scriptFile, environment, libraryPaths, Collections.emptyMap(), suppressLogs, progressInfo);
+            return;
+        }
+
         Path pythonExecutable = PathUtils.relativeJIPipeUserDirToAbsolute(environment.getExecutablePath());
         CommandLine commandLine = new CommandLine(pythonExecutable.toFile());
 
-        Map<String, String> environmentVariables = new HashMap<>();
-        JIPipeExpressionVariablesMap existingEnvironmentVariables = new JIPipeExpressionVariablesMap();
-        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
-            existingEnvironmentVariables.put(entry.getKey(), entry.getValue());
-            environmentVariables.put(entry.getKey(), entry.getValue());
-        }
-        for (StringQueryExpressionAndStringPairParameter environmentVariable : environment.getEnvironmentVariables()) {
-            String value = StringUtils.nullToEmpty(environmentVariable.getKey().evaluate(existingEnvironmentVariables));
-            environmentVariables.put(environmentVariable.getValue(), value);
-        }
-        installLibraryPaths(environmentVariables, libraryPaths);
+        Map<String, String> environmentVariables = getPythonEnvironmentVariables(environment, libraryPaths);
         for (Map.Entry<String, String> entry : environmentVariables.entrySet()) {
             progressInfo.log("Setting environment variable " + entry.getKey() + "=" + entry.getValue());
         }
 
-        JIPipeExpressionVariablesMap parameters = new JIPipeExpressionVariablesMap();
-        parameters.set("script_file", scriptFile.toString());
-        parameters.set("python_executable", environment.getExecutablePath().toString());
-        Object evaluationResult = environment.getArguments().evaluate(parameters);
-        for (Object item : (Collection<?>) evaluationResult) {
-            commandLine.addArgument(StringUtils.nullToEmpty(item), ProcessUtils.shouldHandleQuoting());
+        for (String argument : getPythonArguments(environment, scriptFile.toString())) {
+            commandLine.addArgument(argument, ProcessUtils.shouldHandleQuoting());
         }
 
         ProcessUtils.ExtendedExecutor executor = new ProcessUtils.ExtendedExecutor(ExecuteWatchdog.INFINITE_TIMEOUT, progressInfo);
@@ -364,6 +355,50 @@ public class PythonUtils {
         }
     }
 
+    /**
+     * Evaluates the arguments of a Python environment
+     *
+     * @param environment the environment
+     * @param scriptFile  the script file (can be empty)
+     * @return the arguments passed to the Python executable (empty arguments are removed if no script file is provided)
+     */
+    public static List<String> getPythonArguments(PythonEnvironment environment, String scriptFile) {
+        JIPipeExpressionVariablesMap parameters = new JIPipeExpressionVariablesMap();
+        parameters.set("script_file", scriptFile);
+        parameters.set("python_executable", environment.getExecutablePath().toString());
+        Object evaluationResult = environment.getArguments().evaluate(parameters);
+        List<String> result = new ArrayList<>();
+        for (Object item : (Collection<?>) evaluationResult) {
+            String arg = StringUtils.nullToEmpty(item);
+            if (!StringUtils.isNullOrEmpty(arg) || !StringUtils.isNullOrEmpty(scriptFile))
+                result.add(arg);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the environment variables for running Python.
+     * Contains the system environment variables, the variables configured in the environment, and the library paths.
+     *
+     * @param environment  the environment
+     * @param libraryPaths additional library paths
+     * @return the environment variables
+     */
+    public static Map<String, String> getPythonEnvironmentVariables(PythonEnvironment environment, List<Path> libraryPaths) {
+        Map<String, String> environmentVariables = new HashMap<>();
+        JIPipeExpressionVariablesMap existingEnvironmentVariables = new JIPipeExpressionVariablesMap();
+        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
+            existingEnvironmentVariables.put(entry.getKey(), entry.getValue());
+            environmentVariables.put(entry.getKey(), entry.getValue());
+        }
+        for (StringQueryExpressionAndStringPairParameter environmentVariable : environment.getEnvironmentVariables()) {
+            String value = StringUtils.nullToEmpty(environmentVariable.getKey().evaluate(existingEnvironmentVariables));
+            environmentVariables.put(environmentVariable.getValue(), value);
+        }
+        installLibraryPaths(environmentVariables, libraryPaths);
+        return environmentVariables;
+    }
+
     /**
      * Sets the PYTHONPATH variable, so it contains the provided libraries
      *
@@ -395,20 +430,15 @@ public class PythonUtils {
      * @param progressInfo                   the progress info
      */
     public static void runPython(String[] arguments, PythonEnvironment environment, List<Path> libraryPaths, Map<String, String> additionalEnvironmentVariables, boolean suppressLogs, boolean detached, JIPipeProgressInfo progressInfo) {
+        if (!detached && PythonWorkerPool.isEnabled()) {
+            PythonWorkerPool.getInstance().runArguments(arguments, environment, libraryPaths, additionalEnvironmentVariables, suppressLogs, progressInfo);
+            return;
+        }
+
         Path pythonExecutable = PathUtils.relativeJIPipeUserDirToAbsolute(environment.getExecutablePath());
         CommandLine commandLine = new CommandLine(pythonExecutable.toFile());
 
-        Map<String, String> environmentVariables = new HashMap<>();
-        JIPipeExpressionVariablesMap existingEnvironmentVariables = new JIPipeExpressionVariablesMap();
-        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
-            existingEnvironmentVariables.put(entry.getKey(), entry.getValue());
-            environmentVariables.put(entry.getKey(), entry.getValue());
-        }
-        for (StringQueryExpressionAndStringPairParameter environmentVariable : environment.getEnvironmentVariables()) {
-            String value = StringUtils.nullToEmpty(environmentVariable.getKey().evaluate(existingEnvironmentVariables));
-            environmentVariables.put(environmentVariable.getValue(), value);
-        }
-        installLibraryPaths(environmentVariables, libraryPaths);
+        Map<String, String> environmentVariables = getPythonEnvironmentVariables(environment, libraryPaths);
         environmentVariables.putAll(additionalEnvironmentVariables);
 
 
@@ -416,14 +446,8 @@ public class PythonUtils {
             progressInfo.log("Setting environment variable " + entry.getKey() + "=" + entry.getValue());
         }
 
-        JIPipeExpressionVariablesMap parameters = new JIPipeExpressionVariablesMap();
-        parameters.set("script_file", "");
-        parameters.set("python_executable", environment.getExecutablePath().toString());
-        Object evaluationResult = environment.getArguments().evaluate(parameters);
-        for (Object item : (Collection<?>) evaluationResult) {
-            String arg = StringUtils.nullToEmpty(item);
-            if (!StringUtils.isNullOrEmpty(arg))
-                commandLine.addArgument(arg, ProcessUtils.shouldHandleQuoting());
+        for (String argument : getPythonArguments(environment, "")) {
+            commandLine.addArgument(argument, ProcessUtils.shouldHandleQuoting());
         }
         for (String argument : arguments) {
             commandLine.addArgument(argument, ProcessUtils.shouldHandleQuoting());
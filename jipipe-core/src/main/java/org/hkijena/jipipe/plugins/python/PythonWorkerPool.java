@@ -0,0 +1,414 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.python;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.text.WordUtils;
+import org.hkijena.jipipe.JIPipe;
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
+import org.hkijena.jipipe.utils.json.JsonUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of long-running Python processes.
+ * Workers are kept per environment (executable, arguments, environment variables, and library paths) and receive
+ * their work via a line-based JSON protocol over stdin/stdout (see jipipe-python-worker.py).
+ * This avoids repeated interpreter startup and module imports (e.g., numpy or torch) for Python-based nodes.
+ * Crashed workers are discarded and lazily replaced by new ones.
+ */
+public class PythonWorkerPool {
+
+    private static PythonWorkerPool INSTANCE;
+
+    private final Map<String, Deque<PythonWorker>> idleWorkers = new HashMap<>();
+    private final Map<String, Integer> workerCounts = new HashMap<>();
+    private final AtomicInteger requestCounter = new AtomicInteger();
+    private Path workerScript;
+
+    private PythonWorkerPool() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+    }
+
+    public static synchronized PythonWorkerPool getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new PythonWorkerPool();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Returns true if Python runs should be delegated to the worker pool
+     *
+     * @return if the worker pool is enabled in the application settings
+     */
+    public static boolean isEnabled() {
+        if (!JIPipe.isInstantiated() || JIPipe.getSettings() == null) {
+            return false;
+        }
+        PythonPluginApplicationSettings settings = PythonPluginApplicationSettings.getInstance();
+        return settings != null && settings.isUseWorkerPool();
+    }
+
+    /**
+     * Returns the worker script. If none was set, the default worker script is extracted from the resources.
+     *
+     * @return the worker script
+     */
+    public synchronized Path getWorkerScript() {
+        if (workerScript == null) {
+            workerScript = JIPipeRuntimeApplicationSettings.getTemporaryFile("jipipe-python-worker", ".py");
+            JIPipe.RESOURCES.exportResourceToFile("plugins/python/jipipe-python-worker.py", workerScript);
+        }
+        return workerScript;
+    }
+
+    /**
+     * Sets the worker script. Allows using a stub worker that follows the same protocol.
+     * Existing workers are not affected.
+     *
+     * @param workerScript the worker script
+     */
+    public synchronized void setWorkerScript(Path workerScript) {
+        this.workerScript = workerScript;
+    }
+
+    /**
+     * Executes a Python script file in a worker
+     *
+     * @param scriptFile                     the script file
+     * @param environment                    the environment
+     * @param libraryPaths                   additional library paths
+     * @param additionalEnvironmentVariables environment variables that are set during the execution
+     * @param suppressLogs                   if logs should be suppressed
+     * @param progressInfo                   the progress info
+     */
+    public void runScript(Path scriptFile, PythonEnvironment environment, List<Path> libraryPaths, Map<String, String> additionalEnvironmentVariables, boolean suppressLogs, JIPipeProgressInfo progressInfo) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("type", "exec");
+        request.put("code_file", scriptFile.toAbsolutePath().toString());
+        request.put("cwd", scriptFile.toAbsolutePath().getParent().toString());
+        request.put("env", additionalEnvironmentVariables);
+        execute(request, environment, libraryPaths, suppressLogs, progressInfo);
+    }
+
+    /**
+     * Executes Python arguments (e.g., -m module ...) in a worker
+     *
+     * @param arguments                      the arguments passed to Python
+     * @param environment                    the environment
+     * @param libraryPaths                   additional library paths
+     * @param additionalEnvironmentVariables environment variables that are set during the execution
+     * @param suppressLogs                   if logs should be suppressed
+     * @param progressInfo                   the progress info
+     */
+    public void runArguments(String[] arguments, PythonEnvironment environment, List<Path> libraryPaths, Map<String, String> additionalEnvironmentVariables, boolean suppressLogs, JIPipeProgressInfo progressInfo) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("type", "run");
+        request.put("argv", Arrays.asList(arguments));
+        request.put("env", additionalEnvironmentVariables);
+        execute(request, environment, libraryPaths, suppressLogs, progressInfo);
+    }
+
+    private void execute(Map<String, Object> request, PythonEnvironment environment, List<Path> libraryPaths, boolean suppressLogs, JIPipeProgressInfo progressInfo) {
+        PythonPluginApplicationSettings settings = PythonPluginApplicationSettings.getInstance();
+        String key = createKey(environment, libraryPaths);
+        PythonWorker worker = acquire(key, settings.getMaxWorkersPerEnvironment(), progressInfo);
+        if (worker == null) {
+            try {
+                worker = PythonWorker.start(getWorkerScript(), environment, libraryPaths, progressInfo);
+            } catch (RuntimeException e) {
+                releaseSlot(key);
+                throw e;
+            }
+        }
+        boolean healthy = false;
+        try {
+            request.put("id", requestCounter.incrementAndGet());
+            worker.execute(request, settings.getWorkerTimeout(), suppressLogs, progressInfo);
+            healthy = true;
+        } finally {
+            // Workers that failed are replaced, as their state might be inconsistent
+            release(key, worker, healthy);
+        }
+    }
+
+    private String createKey(PythonEnvironment environment, List<Path> libraryPaths) {
+        return environment.getAbsoluteExecutablePath() + "\n" +
+                environment.getType() + "\n" +
+                environment.getArguments().getExpression() + "\n" +
+                JsonUtils.toJsonString(environment.getEnvironmentVariables()) + "\n" +
+                libraryPaths;
+    }
+
+    /**
+     * Returns an idle worker or reserves a slot for a new worker (returns null in this case)
+     */
+    private synchronized PythonWorker acquire(String key, int maxWorkers, JIPipeProgressInfo progressInfo) {
+        Deque<PythonWorker> idle = idleWorkers.computeIfAbsent(key, k -> new ArrayDeque<>());
+        while (true) {
+            while (!idle.isEmpty()) {
+                PythonWorker worker = idle.pop();
+                if (worker.isAlive()) {
+                    progressInfo.log("Using existing Python worker #" + worker.getId());
+                    return worker;
+                }
+                progressInfo.log("Discarding crashed Python worker #" + worker.getId());
+                workerCounts.put(key, workerCounts.getOrDefault(key, 1) - 1);
+            }
+            int count = workerCounts.getOrDefault(key, 0);
+            if (count < Math.max(1, maxWorkers)) {
+                workerCounts.put(key, count + 1);
+                return null;
+            }
+            if (progressInfo.isCancelled()) {
+                throw new RuntimeException("Cancelled while waiting for a Python worker");
+            }
+            try {
+                wait(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private synchronized void releaseSlot(String key) {
+        workerCounts.put(key, workerCounts.getOrDefault(key, 1) - 1);
+        notifyAll();
+    }
+
+    private synchronized void release(String key, PythonWorker worker, boolean healthy) {
+        if (healthy && worker.isAlive()) {
+            idleWorkers.computeIfAbsent(key, k -> new ArrayDeque<>()).push(worker);
+        } else {
+            worker.destroy();
+            workerCounts.put(key, workerCounts.getOrDefault(key, 1) - 1);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stops all idle workers
+     */
+    public synchronized void shutdown() {
+        for (Deque<PythonWorker> workers : idleWorkers.values()) {
+            for (PythonWorker worker : workers) {
+                worker.destroy();
+            }
+        }
+        idleWorkers.clear();
+        workerCounts.clear();
+        notifyAll();
+    }
+
+    /**
+     * A single long-running Python process
+     */
+    public static class PythonWorker {
+        private static final AtomicInteger ID_COUNTER = new AtomicInteger();
+        private final int id = ID_COUNTER.incrementAndGet();
+        private final Process process;
+        private final BufferedWriter writer;
+        private final BlockingQueue<JsonNode> responses = new LinkedBlockingQueue<>();
+        private volatile JIPipeProgressInfo currentProgressInfo;
+        private volatile boolean currentSuppressLogs;
+
+        private PythonWorker(Process process) {
+            this.process = process;
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+            Thread protocolReader = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        try {
+                            responses.add(JsonUtils.getObjectMapper().readerFor(JsonNode.class).readValue(line));
+                        } catch (IOException e) {
+                            logLine("[Python worker] Invalid response: " + line);
+                        }
+                    }
+                } catch (IOException ignored) {
+                }
+            }, "jipipe-python-worker-protocol");
+            protocolReader.setDaemon(true);
+            protocolReader.start();
+
+            Thread logReader = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        for (String s1 : line.split("\\r")) {
+                            logLine(WordUtils.wrap(s1, 120));
+                        }
+                    }
+                } catch (IOException ignored) {
+                }
+            }, "jipipe-python-worker-log");
+            logReader.setDaemon(true);
+            logReader.start();
+        }
+
+        /**
+         * Starts a new worker process and waits until it is ready
+         *
+         * @param workerScript the worker script
+         * @param environment  the environment
+         * @param libraryPaths additional library paths
+         * @param progressInfo the progress info
+         * @return the worker
+         */
+        public static PythonWorker start(Path workerScript, PythonEnvironment environment, List<Path> libraryPaths, JIPipeProgressInfo progressInfo) {
+            List<String> command = new ArrayList<>();
+            command.add(environment.getAbsoluteExecutablePath().toString());
+            command.addAll(PythonUtils.getPythonArguments(environment, workerScript.toAbsolutePath().toString()));
+            Map<String, String> environmentVariables = PythonUtils.getPythonEnvironmentVariables(environment, libraryPaths);
+            return start(command, environmentVariables, progressInfo);
+        }
+
+        /**
+         * Starts a new worker process from a command line and waits until it is ready.
+         * The process must follow the protocol of jipipe-python-worker.py.
+         *
+         * @param command              the command line
+         * @param environmentVariables the environment variables of the process
+         * @param progressInfo         the progress info
+         * @return the worker
+         */
+        public static PythonWorker start(List<String> command, Map<String, String> environmentVariables, JIPipeProgressInfo progressInfo) {
+            progressInfo.log("Starting Python worker: " + String.join(" ", command));
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.environment().clear();
+            processBuilder.environment().putAll(environmentVariables);
+            processBuilder.environment().put("PYTHONUNBUFFERED", "1");
+            PythonWorker worker;
+            try {
+                worker = new PythonWorker(processBuilder.start());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            worker.currentProgressInfo = progressInfo;
+            try {
+                JsonNode ready = worker.awaitResponse(0, progressInfo);
+                if (ready == null || !"ready".equals(ready.path("status").asText())) {
+                    throw new RuntimeException("Python worker did not start correctly");
+                }
+            } catch (RuntimeException e) {
+                worker.destroy();
+                throw e;
+            }
+            progressInfo.log("Python worker #" + worker.getId() + " is ready");
+            return worker;
+        }
+
+        private void logLine(String line) {
+            JIPipeProgressInfo progressInfo = currentProgressInfo;
+            if (progressInfo != null && !currentSuppressLogs) {
+                progressInfo.log(line);
+            }
+        }
+
+        /**
+         * Sends a request to the worker and waits for the response
+         *
+         * @param request      the request
+         * @param timeout      timeout in seconds (zero or negative for no timeout)
+         * @param suppressLogs if logs should be suppressed
+         * @param progressInfo the progress info
+         */
+        public void execute(Map<String, Object> request, int timeout, boolean suppressLogs, JIPipeProgressInfo progressInfo) {
+            currentProgressInfo = progressInfo;
+            currentSuppressLogs = suppressLogs;
+            if (suppressLogs) {
+                progressInfo.log("LOGS ARE SUPPRESSED. NOT STATUS UPDATES FROM PYTHON ARE RECEIVED.");
+            }
+            try {
+                progressInfo.log("Sending request to Python worker #" + getId() + ": " + JsonUtils.toJsonString(request));
+                writer.write(JsonUtils.getObjectMapper().writeValueAsString(request));
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to communicate with the Python worker (exit code " + getExitCodeString() + ")", e);
+            }
+            JsonNode response = awaitResponse(timeout, progressInfo);
+            currentProgressInfo = null;
+            if (!"ok".equals(response.path("status").asText())) {
+                throw new RuntimeException("Python worker reported an error: " + response.path("message").asText());
+            }
+        }
+
+        private JsonNode awaitResponse(int timeout, JIPipeProgressInfo progressInfo) {
+            long deadline = timeout > 0 ? System.currentTimeMillis() + timeout * 1000L : Long.MAX_VALUE;
+            while (true) {
+                JsonNode response;
+                try {
+                    response = responses.poll(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    destroy();
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                if (response != null) {
+                    return response;
+                }
+                if (progressInfo.isCancelled()) {
+                    destroy();
+                    throw new RuntimeException("Cancelled. The Python worker was stopped.");
+                }
+                if (!process.isAlive() && responses.isEmpty()) {
+                    throw new RuntimeException("The Python worker crashed (exit code " + getExitCodeString() + ")");
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    destroy();
+                    throw new RuntimeException("The Python worker timed out after " + timeout + " seconds and was stopped.");
+                }
+            }
+        }
+
+        private String getExitCodeString() {
+            return process.isAlive() ? "N/A" : String.valueOf(process.exitValue());
+        }
+
+        public boolean isAlive() {
+            return process.isAlive();
+        }
+
+        /**
+         * Returns a unique identifier of this worker within the current JIPipe session.
+         * This is not the process ID, as it cannot be obtained in Java 8.
+         *
+         * @return the worker ID
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Stops the worker process
+         */
+        public void destroy() {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class JIPipeHistoryJournalApplicationSettings extends JIPipeDefaultApplic
 
     public static String ID = "org.hkijena.jipipe:history-journal";
     private int maxEntries = 50;
+    private int checkpointInterval = 20;
 
     public static JIPipeHistoryJournalApplicationSettings getInstance() {
         return JIPipe.getSettings().getById(ID, JIPipeHistoryJournalApplicationSettings.class);
@@ -47,6 +48,22 @@ public class JIPipeHistoryJournalApplicationSettings extends JIPipeDefaultApplic
         this.maxEntries = maxEntries;
     }
 
+    @SetJIPipeDocumentation(name = "Checkpoint interval", description = "The journal only stores the changes between two entries. " +
+            "Every N entries, a full copy of the project is stored instead, which limits the number of changes that need to be replayed on undo/redo. " +
+            "Lower values make undo/redo faster, but require more memory. Must be at least 1.")
+    @JIPipeParameter("checkpoint-interval")
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    @JIPipeParameter("checkpoint-interval")
+    public boolean setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval <= 0)
+            return false;
+        this.checkpointInterval = checkpointInterval;
+        return true;
+    }
+
     @Override
     public JIPipeDefaultApplicationSettingsSheetCategory getDefaultCategory() {
         return JIPipeDefaultApplicationSettingsSheetCategory.General;
@@ -13,6 +13,7 @@
 
 package org.hkijena.jipipe.plugins.settings;
 
+import org.apache.commons.lang3.SystemUtils;
 import org.hkijena.jipipe.JIPipe;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
@@ -23,12 +24,14 @@ import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.Optiona
 import org.hkijena.jipipe.utils.PathIOMode;
 import org.hkijena.jipipe.utils.PathType;
 import org.hkijena.jipipe.utils.PathUtils;
+import org.hkijena.jipipe.utils.StringUtils;
 import org.hkijena.jipipe.utils.UIUtils;
 
 import javax.swing.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Settings related to how algorithms are executed
@@ -42,6 +45,11 @@ public class JIPipeRuntimeApplicationSettings extends JIPipeDefaultApplicationsS
     private int defaultRunThreads = 1;
     private int defaultQuickRunThreads = 1;
     private int logLimit = 15;
+    private boolean useSharedMemoryExchange = false;
+    private int sharedMemoryMinFreeSpace = 2048;
+    private int prefetchDepth = 2;
+    private int prefetchThreads = 2;
+    private int prefetchMemoryBudget = 1024;
 
     /**
      * Creates a new instance
@@ -148,6 +156,122 @@ public class JIPipeRuntimeApplicationSettings extends JIPipeDefaultApplicationsS
         this.tempDirectory = tempDirectory;
     }
 
+    /**
+     * Returns true if data should be exchanged with external processes via shared memory (Linux only).
+     * Nodes should only switch to exchange formats that are optimized for shared memory (e.g., raw pixel buffers) if this returns true.
+     *
+     * @return if shared memory exchange is enabled
+     */
+    public static boolean isSharedMemoryExchangeEnabled() {
+        if (!SystemUtils.IS_OS_LINUX || JIPipe.getInstance() == null || !JIPipe.getInstance().getApplicationSettingsRegistry().getRegisteredSheets().containsKey(ID)) {
+            return false;
+        }
+        return getInstance().isUseSharedMemoryExchange();
+    }
+
+    /**
+     * Generates a temporary directory for exchanging data with external processes (e.g., Python, Cellpose, Ilastik, R)
+     * If enabled in the settings and available (Linux /dev/shm), the directory is located in memory-backed shared memory,
+     * which avoids disk (or network file system) I/O.
+     * The caller is responsible for deleting the directory (in a finally block), as shared memory is not released otherwise.
+     *
+     * @param baseName optional base name
+     * @return the directory or null if shared memory is disabled or not available
+     */
+    public static Path getSharedMemoryExchangeDirectory(String baseName) {
+        if (!isSharedMemoryExchangeEnabled()) {
+            return null;
+        }
+        JIPipeRuntimeApplicationSettings settings = getInstance();
+        Path sharedMemoryRoot = Paths.get("/dev/shm");
+        if (!Files.isDirectory(sharedMemoryRoot) || !Files.isWritable(sharedMemoryRoot)) {
+            return null;
+        }
+        try {
+            long freeSpace = Files.getFileStore(sharedMemoryRoot).getUsableSpace();
+            if (freeSpace < settings.getSharedMemoryMinFreeSpace() * 1024L * 1024L) {
+                return null;
+            }
+            return Files.createTempDirectory(sharedMemoryRoot, "JIPipe-" + StringUtils.nullToEmpty(baseName));
+        } catch (Exception e) {
+            System.err.println("Unable to create shared memory directory:");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @SetJIPipeDocumentation(name = "Use shared memory for external tools", description = "If enabled, nodes that exchange data with external tools " +
+            "(e.g., Python, Cellpose, Omnipose, Ilastik, R) store the exchanged files in memory-backed shared memory (/dev/shm) instead of the " +
+            "output/temporary directory. Only available on Linux. Falls back to the standard behavior if not enough space is available.")
+    @JIPipeParameter("use-shared-memory-exchange")
+    public boolean isUseSharedMemoryExchange() {
+        return useSharedMemoryExchange;
+    }
+
+    @JIPipeParameter("use-shared-memory-exchange")
+    public void setUseSharedMemoryExchange(boolean useSharedMemoryExchange) {
+        this.useSharedMemoryExchange = useSharedMemoryExchange;
+    }
+
+    @SetJIPipeDocumentation(name = "Shared memory minimum free space (MB)", description = "Shared memory is only used for the data exchange if at least " +
+            "the specified amount of space (in megabytes) is available.")
+    @JIPipeParameter("shared-memory-min-free-space")
+    public int getSharedMemoryMinFreeSpace() {
+        return sharedMemoryMinFreeSpace;
+    }
+
+    @JIPipeParameter("shared-memory-min-free-space")
+    public boolean setSharedMemoryMinFreeSpace(int sharedMemoryMinFreeSpace) {
+        if (sharedMemoryMinFreeSpace < 0)
+            return false;
+        this.sharedMemoryMinFreeSpace = sharedMemoryMinFreeSpace;
+        return true;
+    }
+
+    @SetJIPipeDocumentation(name = "Import read-ahead (files)", description = "Import nodes that support it load the next files in the background while the current one is processed. " +
+            "Determines how many files are loaded in advance. Set to zero to disable read-ahead.")
+    @JIPipeParameter("prefetch-depth")
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    @JIPipeParameter("prefetch-depth")
+    public boolean setPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 0)
+            return false;
+        this.prefetchDepth = prefetchDepth;
+        return true;
+    }
+
+    @SetJIPipeDocumentation(name = "Import read-ahead threads", description = "Number of background threads that load files in advance.")
+    @JIPipeParameter("prefetch-threads")
+    public int getPrefetchThreads() {
+        return prefetchThreads;
+    }
+
+    @JIPipeParameter("prefetch-threads")
+    public boolean setPrefetchThreads(int prefetchThreads) {
+        if (prefetchThreads <= 0)
+            return false;
+        this.prefetchThreads = prefetchThreads;
+        return true;
+    }
+
+    @SetJIPipeDocumentation(name = "Import read-ahead memory budget (MB)", description = "Files are only loaded in advance as long as the " +
+            "(estimated) size of all loaded, but not yet processed files stays below this limit. At least one file is always loaded in advance.")
+    @JIPipeParameter("prefetch-memory-budget")
+    public int getPrefetchMemoryBudget() {
+        return prefetchMemoryBudget;
+    }
+
+    @JIPipeParameter("prefetch-memory-budget")
+    public boolean setPrefetchMemoryBudget(int prefetchMemoryBudget) {
+        if (prefetchMemoryBudget < 0)
+            return false;
+        this.prefetchMemoryBudget = prefetchMemoryBudget;
+        return true;
+    }
+
     @SetJIPipeDocumentation(name = "Default thread count", description = "Default number of threads for running whole pipelines.")
     @JIPipeParameter("default-run-threads")
     public int getDefaultRunThreads() {
@@ -0,0 +1,66 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+package org.hkijena.jipipe.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wrapper around an {@link InputStream} that adds the number of read bytes to one or multiple counters
+ */
+public class ByteCountingInputStream extends FilterInputStream {
+
+    private final AtomicLong[] counters;
+
+    public ByteCountingInputStream(InputStream wrappedStream, AtomicLong... counters) {
+        super(wrappedStream);
+        this.counters = counters;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = in.read();
+        if (result >= 0) {
+            count(1);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int result = in.read(b, off, len);
+        if (result > 0) {
+            count(result);
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return in.skip(n);
+    }
+
+    @Override
+    public boolean markSupported() {
+        // Re-reading marked bytes would count them twice
+        return false;
+    }
+
+    private void count(long bytes) {
+        for (AtomicLong counter : counters) {
+            counter.addAndGet(bytes);
+        }
+    }
+}
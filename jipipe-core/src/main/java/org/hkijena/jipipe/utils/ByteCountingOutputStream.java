@@ -0,0 +1,49 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+package org.hkijena.jipipe.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wrapper around an {@link OutputStream} that adds the number of written bytes to one or multiple counters
+ */
+public class ByteCountingOutputStream extends FilterOutputStream {
+
+    private final AtomicLong[] counters;
+
+    public ByteCountingOutputStream(OutputStream wrappedStream, AtomicLong... counters) {
+        super(wrappedStream);
+        this.counters = counters;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count(len);
+    }
+
+    private void count(long bytes) {
+        for (AtomicLong counter : counters) {
+            counter.addAndGet(bytes);
+        }
+    }
+}
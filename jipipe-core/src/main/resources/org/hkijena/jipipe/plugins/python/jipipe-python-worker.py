@@ -0,0 +1,97 @@
+# Copyright by Zoltán Cseresnyés, Ruman Gerst
+#
+# Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+# https://www.leibniz-hki.de/en/applied-systems-biology.html
+# HKI-Center for Systems Biology of Infection
+# Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+# Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+#
+# The project code is licensed under MIT.
+# See the LICENSE file provided with the code for the full license.
+
+# Long-running Python worker used by JIPipe's PythonWorkerPool
+# Requests are read line-wise as JSON from stdin
+# Responses are written line-wise as JSON into the original stdout
+# Everything printed by the executed code (including native libraries) is redirected into stderr
+
+import json
+import os
+import runpy
+import sys
+import traceback
+
+_protocol = os.fdopen(os.dup(1), "w", encoding="utf-8")
+os.dup2(2, 1)
+sys.stdout = sys.stderr
+
+
+def respond(request_id, status, message=None):
+    _protocol.write(json.dumps({"id": request_id, "status": status, "message": message}) + "\n")
+    _protocol.flush()
+
+
+def run_arguments(argv):
+    argv = list(argv)
+    while argv and argv[0] in ("-u", "-B"):
+        argv.pop(0)
+    if not argv:
+        raise ValueError("No script or module provided")
+    if argv[0] == "-m":
+        sys.argv = [argv[1]] + argv[2:]
+        runpy.run_module(argv[1], run_name="__main__", alter_sys=True)
+    else:
+        sys.argv = argv
+        runpy.run_path(argv[0], run_name="__main__")
+
+
+def handle(request):
+    request_type = request.get("type")
+    if request_type == "ping":
+        return
+    old_environ = dict(os.environ)
+    old_cwd = os.getcwd()
+    old_argv = list(sys.argv)
+    try:
+        os.environ.update(request.get("env") or {})
+        if request.get("cwd"):
+            os.chdir(request["cwd"])
+        if request_type == "exec":
+            sys.argv = [request["code_file"]]
+            runpy.run_path(request["code_file"], run_name="__main__")
+        elif request_type == "run":
+            run_arguments(request["argv"])
+        else:
+            raise ValueError("Unknown request type: " + str(request_type))
+    finally:
+        os.environ.clear()
+        os.environ.update(old_environ)
+        os.chdir(old_cwd)
+        sys.argv = old_argv
+
+
+def main():
+    respond(None, "ready")
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        request = json.loads(line)
+        request_id = request.get("id")
+        if request.get("type") == "exit":
+            respond(request_id, "ok")
+            break
+        try:
+            handle(request)
+            respond(request_id, "ok")
+        except SystemExit as e:
+            if e.code is None or e.code == 0:
+                respond(request_id, "ok")
+            else:
+                respond(request_id, "error", "Exited with code " + str(e.code))
+        except BaseException:
+            respond(request_id, "error", traceback.format_exc())
+        sys.stderr.flush()
+
+
+if __name__ == "__main__":
+    main()
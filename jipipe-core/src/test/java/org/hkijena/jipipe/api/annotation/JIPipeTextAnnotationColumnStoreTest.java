@@ -0,0 +1,130 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.api.annotation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link JIPipeTextAnnotationColumnStore}, including the contract of
+ * {@link JIPipeTextAnnotationColumnStore#getTextAnnotations(java.util.Collection, int)} that backs
+ * {@link org.hkijena.jipipe.api.data.JIPipeDataTable#getTextAnnotations(int)}
+ */
+public class JIPipeTextAnnotationColumnStoreTest {
+
+    @Test
+    public void testGetTextAnnotationsFollowsColumnOrderAndSkipsEmptyCells() {
+        JIPipeTextAnnotationColumnStore store = new JIPipeTextAnnotationColumnStore();
+        store.ensureColumn("b", 2);
+        store.ensureColumn("a", 2);
+        store.setValue("a", 0, "a0");
+        store.setValue("b", 0, "b0");
+        store.setValue("a", 1, "a1");
+
+        assertEquals(Arrays.asList(new JIPipeTextAnnotation("b", "b0"), new JIPipeTextAnnotation("a", "a0")),
+                store.getTextAnnotations(Arrays.asList("b", "a"), 0));
+        assertEquals(Collections.singletonList(new JIPipeTextAnnotation("a", "a1")),
+                store.getTextAnnotations(Arrays.asList("b", "a"), 1));
+    }
+
+    @Test
+    public void testGetTextAnnotationsSkipsUnknownColumnsAndRows() {
+        JIPipeTextAnnotationColumnStore store = new JIPipeTextAnnotationColumnStore();
+        store.ensureColumn("a", 1);
+        store.setValue("a", 0, "value");
+
+        assertEquals(Collections.singletonList(new JIPipeTextAnnotation("a", "value")),
+                store.getTextAnnotations(Arrays.asList("missing", "a"), 0));
+        assertTrue(store.getTextAnnotations(Collections.singletonList("a"), 5).isEmpty());
+    }
+
+    @Test
+    public void testGetTextAnnotationsReturnsDetachedList() {
+        JIPipeTextAnnotationColumnStore store = new JIPipeTextAnnotationColumnStore();
+        store.ensureColumn("a", 1);
+        store.setValue("a", 0, "value");
+
+        List<JIPipeTextAnnotation> annotations = store.getTextAnnotations(Collections.singletonList("a"), 0);
+        annotations.clear();
+        assertEquals(1, store.getTextAnnotations(Collections.singletonList("a"), 0).size());
+
+        store.setValue("a", 0, "other");
+        assertTrue(annotations.isEmpty());
+        assertEquals("other", store.getTextAnnotations(Collections.singletonList("a"), 0).get(0).getValue());
+    }
+
+    @Test
+    public void testGetTextAnnotationsReflectsRemovedValuesAndColumns() {
+        JIPipeTextAnnotationColumnStore store = new JIPipeTextAnnotationColumnStore();
+        store.ensureColumn("a", 1);
+        store.ensureColumn("b", 1);
+        store.fillValue("a", "a", true);
+        store.fillValue("b", "b", true);
+
+        store.setValue("a", 0, null);
+        assertEquals(Collections.singletonList(new JIPipeTextAnnotation("b", "b")),
+                store.getTextAnnotations(Arrays.asList("a", "b"), 0));
+
+        store.removeColumn("b");
+        assertTrue(store.getTextAnnotations(Arrays.asList("a", "b"), 0).isEmpty());
+    }
+
+    @Test
+    public void testUnusedDictionaryEntriesAreCompacted() {
+        JIPipeTextAnnotationColumnStore store = new JIPipeTextAnnotationColumnStore();
+        store.ensureColumn("a", 2);
+        store.ensureColumn("b", 2);
+        store.fillValue("b", "kept", true);
+        int numValues = JIPipeTextAnnotationColumnStore.MIN_UNUSED_ENTRIES_FOR_COMPACTION * 4;
+        for (int i = 0; i < numValues; i++) {
+            store.setValue("a", 0, "value" + i);
+        }
+
+        assertTrue(store.getDictionarySize() <= JIPipeTextAnnotationColumnStore.MIN_UNUSED_ENTRIES_FOR_COMPACTION * 2 + 2);
+        assertEquals(Arrays.asList(new JIPipeTextAnnotation("a", "value" + (numValues - 1)), new JIPipeTextAnnotation("b", "kept")),
+                store.getTextAnnotations(Arrays.asList("a", "b"), 0));
+        assertEquals(Collections.singletonList(new JIPipeTextAnnotation("b", "kept")),
+                store.getTextAnnotations(Arrays.asList("a", "b"), 1));
+    }
+
+    @Test
+    public void testRemovedColumnReleasesDictionaryEntries() {
+        JIPipeTextAnnotationColumnStore store = new JIPipeTextAnnotationColumnStore();
+        store.ensureColumn("a", 1);
+        store.ensureColumn("b", 1);
+        store.setValue("a", 0, "shared");
+        store.setValue("b", 0, "shared");
+        store.ensureColumn("c", 1);
+        store.setValue("c", 0, "only-c");
+
+        store.removeColumn("c");
+        assertEquals(1, store.getUnusedDictionarySize());
+        store.removeColumn("b");
+        assertEquals(1, store.getUnusedDictionarySize());
+
+        store.compact();
+        assertEquals(1, store.getDictionarySize());
+        assertEquals(0, store.getUnusedDictionarySize());
+        assertEquals("shared", store.getValue("a", 0));
+
+        store.setValue("a", 0, "new");
+        assertEquals("new", store.getValue("a", 0));
+        assertEquals(1, store.getUnusedDictionarySize());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.python;
+
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the worker protocol handling of {@link PythonWorkerPool.PythonWorker} with a stub worker process
+ */
+public class PythonWorkerPoolTest {
+
+    private PythonWorkerPool.PythonWorker worker;
+
+    @BeforeEach
+    public void setUp() {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp",
+                System.getProperty("java.class.path"),
+                PythonWorkerStub.class.getName()));
+        Map<String, String> environmentVariables = new HashMap<>(System.getenv());
+        worker = PythonWorkerPool.PythonWorker.start(command, environmentVariables, new JIPipeProgressInfo());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (worker != null) {
+            worker.destroy();
+        }
+    }
+
+    @Test
+    public void testSuccessfulRequestsReuseWorker() {
+        worker.execute(createRequest("exec", 1), 0, false, new JIPipeProgressInfo());
+        worker.execute(createRequest("exec", 2), 0, false, new JIPipeProgressInfo());
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    public void testWorkerIdsAreUnique() {
+        PythonWorkerPool.PythonWorker other = PythonWorkerPool.PythonWorker.start(
+                Arrays.asList(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp",
+                        System.getProperty("java.class.path"),
+                        PythonWorkerStub.class.getName()),
+                new HashMap<>(System.getenv()),
+                new JIPipeProgressInfo());
+        try {
+            assertNotEquals(worker.getId(), other.getId());
+        } finally {
+            other.destroy();
+        }
+    }
+
+    @Test
+    public void testErrorResponseThrows() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> worker.execute(createRequest("fail", 1), 0, false, new JIPipeProgressInfo()));
+        assertTrue(exception.getMessage().contains("Stub failure"));
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    public void testCrashIsDetected() {
+        assertThrows(RuntimeException.class,
+                () -> worker.execute(createRequest("crash", 1), 0, false, new JIPipeProgressInfo()));
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    public void testTimeoutStopsWorker() throws InterruptedException {
+        assertThrows(RuntimeException.class,
+                () -> worker.execute(createRequest("hang", 1), 1, false, new JIPipeProgressInfo()));
+        assertTrue(awaitExit(worker));
+    }
+
+    @Test
+    public void testCancellationStopsWorker() throws InterruptedException {
+        JIPipeProgressInfo progressInfo = new JIPipeProgressInfo();
+        progressInfo.cancel();
+        assertThrows(RuntimeException.class,
+                () -> worker.execute(createRequest("hang", 1), 0, false, progressInfo));
+        assertTrue(awaitExit(worker));
+    }
+
+    private boolean awaitExit(PythonWorkerPool.PythonWorker worker) throws InterruptedException {
+        // Forcibly destroyed processes might not terminate immediately
+        for (int i = 0; i < 100 && worker.isAlive(); i++) {
+            Thread.sleep(50);
+        }
+        return !worker.isAlive();
+    }
+
+    private Map<String, Object> createRequest(String type, int id) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("id", id);
+        request.put("type", type);
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.python;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stub worker that follows the protocol of jipipe-python-worker.py without requiring Python.
+ * Requests of type "exec" succeed, "fail" report an error, "crash" exit the process, and "hang" never respond.
+ */
+public class PythonWorkerStub {
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        PrintStream protocol = new PrintStream(System.out, true, "UTF-8");
+        respond(mapper, protocol, 0, "ready", null);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            JsonNode request = mapper.readTree(line);
+            int id = request.path("id").asInt();
+            String type = request.path("type").asText();
+            System.err.println("Stub received " + type);
+            switch (type) {
+                case "crash":
+                    System.exit(3);
+                    break;
+                case "hang":
+                    Thread.sleep(Long.MAX_VALUE);
+                    break;
+                case "fail":
+                    respond(mapper, protocol, id, "error", "Stub failure");
+                    break;
+                default:
+                    respond(mapper, protocol, id, "ok", null);
+                    break;
+            }
+        }
+    }
+
+    private static void respond(ObjectMapper mapper, PrintStream protocol, int id, String status, String message) throws Exception {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", id);
+        response.put("status", status);
+        response.put("message", message);
+        protocol.println(mapper.writeValueAsString(response));
+    }
+}
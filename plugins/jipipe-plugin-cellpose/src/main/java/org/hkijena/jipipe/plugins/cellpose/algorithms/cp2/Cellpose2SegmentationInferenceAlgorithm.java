@@ -52,6 +52,7 @@ import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.Optiona
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
 import org.hkijena.jipipe.plugins.python.OptionalPythonEnvironment;
 import org.hkijena.jipipe.plugins.python.PythonUtils;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
 import org.hkijena.jipipe.utils.PathUtils;
 import org.hkijena.jipipe.utils.ResourceUtils;
 import org.hkijena.jipipe.utils.json.JsonUtils;
@@ -227,30 +228,32 @@ public class Cellpose2SegmentationInferenceAlgorithm extends JIPipeSingleIterati
 
     @Override
     protected void runIteration(JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        Path workDirectory = getNewScratch();
-        progressInfo.log("Work directory is " + workDirectory);
-
-        progressInfo.log("Collecting models ...");
-        List<CellposeModelInfo> modelInfos = new ArrayList<>();
-        JIPipeInputDataSlot modelSlot = getInputSlot("Model");
-        for (int modelRow : iterationStep.getInputRows(modelSlot)) {
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model row " + modelRow);
-            CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, modelProgress);
-
-            // Save the model out
-            CellposeModelInfo modelInfo = CellposeUtils.createModelInfo(modelSlot.getTextAnnotations(modelRow), modelData, workDirectory, modelProgress);
-            modelInfos.add(modelInfo);
-        }
-
-        for (int i = 0; i < modelInfos.size(); i++) {
-            CellposeModelInfo modelInfo = modelInfos.get(i);
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", i, modelInfos.size());
-            processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, iterationStep, iterationContext, runContext, modelProgress);
-        }
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            progressInfo.log("Work directory is " + workDirectory);
+
+            progressInfo.log("Collecting models ...");
+            List<CellposeModelInfo> modelInfos = new ArrayList<>();
+            JIPipeInputDataSlot modelSlot = getInputSlot("Model");
+            for (int modelRow : iterationStep.getInputRows(modelSlot)) {
+                JIPipeProgressInfo modelProgress = progressInfo.resolve("Model row " + modelRow);
+                CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, modelProgress);
+
+                // Save the model out
+                CellposeModelInfo modelInfo = CellposeUtils.createModelInfo(modelSlot.getTextAnnotations(modelRow), modelData, workDirectory, modelProgress);
+                modelInfos.add(modelInfo);
+            }
 
-        // Cleanup
-        if (cleanUpAfterwards) {
-            PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            for (int i = 0; i < modelInfos.size(); i++) {
+                CellposeModelInfo modelInfo = modelInfos.get(i);
+                JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", i, modelInfos.size());
+                processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, iterationStep, iterationContext, runContext, modelProgress);
+            }
+        } finally {
+            // Cleanup
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            }
         }
     }
 
@@ -286,9 +289,14 @@ public class Cellpose2SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         progressInfo.log("Deploying script to extract Cellpose *.npy results ...");
         Path npyExtractorScript = workDirectory.resolve("extract-cellpose2-npy.py");
         CellposePlugin.RESOURCES.exportResourceToFile("extract-cellpose2-npy.py", npyExtractorScript);
+        // Raw pixel buffers are only used together with shared memory. Otherwise, TIFF files are extracted as before.
+        boolean useRawExchange = JIPipeRuntimeApplicationSettings.isSharedMemoryExchangeEnabled();
         if (!runWith2D.isEmpty()) {
             List<String> arguments = new ArrayList<>();
             arguments.add(npyExtractorScript.toString());
+            if (useRawExchange) {
+                arguments.add("--raw");
+            }
             if (!segmentationOutputSettings.isOutputROI())
                 arguments.add("--skip-roi");
             arguments.add(io2DPath.toString());
@@ -303,6 +311,9 @@ public class Cellpose2SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         if (!runWith3D.isEmpty()) {
             List<String> arguments = new ArrayList<>();
             arguments.add(npyExtractorScript.toString());
+            if (useRawExchange) {
+                arguments.add("--raw");
+            }
             if (!segmentationOutputSettings.isOutputROI()) {
                 arguments.add("--skip-roi");
             }
@@ -164,30 +164,32 @@ public class Cellpose3DenoiseInferenceAlgorithm extends JIPipeSingleIterationAlg
 
     @Override
     protected void runIteration(JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        Path workDirectory = getNewScratch();
-        progressInfo.log("Work directory is " + workDirectory);
-
-        progressInfo.log("Collecting models ...");
-        List<CellposeModelInfo> modelInfos = new ArrayList<>();
-        JIPipeInputDataSlot modelSlot = getInputSlot("Model");
-        for (int modelRow : iterationStep.getInputRows(modelSlot)) {
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model row " + modelRow);
-            CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, modelProgress);
-
-            // Save the model out
-            CellposeModelInfo modelInfo = CellposeUtils.createModelInfo(modelSlot.getTextAnnotations(modelRow), modelData, workDirectory, modelProgress);
-            modelInfos.add(modelInfo);
-        }
-
-        for (int i = 0; i < modelInfos.size(); i++) {
-            CellposeModelInfo modelInfo = modelInfos.get(i);
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", i, modelInfos.size());
-            processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, iterationStep, modelProgress);
-        }
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            progressInfo.log("Work directory is " + workDirectory);
+
+            progressInfo.log("Collecting models ...");
+            List<CellposeModelInfo> modelInfos = new ArrayList<>();
+            JIPipeInputDataSlot modelSlot = getInputSlot("Model");
+            for (int modelRow : iterationStep.getInputRows(modelSlot)) {
+                JIPipeProgressInfo modelProgress = progressInfo.resolve("Model row " + modelRow);
+                CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, modelProgress);
+
+                // Save the model out
+                CellposeModelInfo modelInfo = CellposeUtils.createModelInfo(modelSlot.getTextAnnotations(modelRow), modelData, workDirectory, modelProgress);
+                modelInfos.add(modelInfo);
+            }
 
-        // Cleanup
-        if (cleanUpAfterwards) {
-            PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            for (int i = 0; i < modelInfos.size(); i++) {
+                CellposeModelInfo modelInfo = modelInfos.get(i);
+                JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", i, modelInfos.size());
+                processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, iterationStep, modelProgress);
+            }
+        } finally {
+            // Cleanup
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            }
         }
     }
 
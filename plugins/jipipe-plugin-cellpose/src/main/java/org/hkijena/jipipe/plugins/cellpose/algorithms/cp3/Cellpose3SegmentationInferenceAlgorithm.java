@@ -39,11 +39,13 @@ import org.hkijena.jipipe.api.validation.JIPipeValidationReport;
 import org.hkijena.jipipe.api.validation.JIPipeValidationReportContext;
 import org.hkijena.jipipe.plugins.cellpose.CellposePlugin;
 import org.hkijena.jipipe.plugins.cellpose.datatypes.CellposeModelData;
+import org.hkijena.jipipe.plugins.cellpose.parameters.CellposeBatchingSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp2.Cellpose2ChannelSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp2.Cellpose2GPUSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp2.Cellpose2SegmentationOutputSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp2.Cellpose2SegmentationThresholdSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp3.Cellpose3SegmentationTweaksSettings;
+import org.hkijena.jipipe.plugins.cellpose.utils.CellposeBatchItem;
 import org.hkijena.jipipe.plugins.cellpose.utils.CellposeImageInfo;
 import org.hkijena.jipipe.plugins.cellpose.utils.CellposeModelInfo;
 import org.hkijena.jipipe.plugins.cellpose.utils.CellposeUtils;
@@ -56,6 +58,7 @@ import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.Optiona
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
 import org.hkijena.jipipe.plugins.python.OptionalPythonEnvironment;
 import org.hkijena.jipipe.plugins.python.PythonUtils;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
 import org.hkijena.jipipe.utils.PathUtils;
 import org.hkijena.jipipe.utils.ProcessUtils;
 import org.hkijena.jipipe.utils.ResourceUtils;
@@ -106,6 +109,7 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
     private final Cellpose2SegmentationOutputSettings segmentationOutputSettings;
 
     private final Cellpose2ChannelSettings channelSettings;
+    private final CellposeBatchingSettings batchingSettings;
     private OptionalDoubleParameter diameter = new OptionalDoubleParameter(30.0, true);
     private boolean enable3D = true;
     private OptionalTextAnnotationNameParameter diameterAnnotation = new OptionalTextAnnotationNameParameter("Diameter", true);
@@ -123,6 +127,7 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         this.segmentationThresholdSettings = new Cellpose2SegmentationThresholdSettings();
         this.segmentationOutputSettings = new Cellpose2SegmentationOutputSettings();
         this.channelSettings = new Cellpose2ChannelSettings();
+        this.batchingSettings = new CellposeBatchingSettings();
 
         updateOutputSlots();
 
@@ -131,6 +136,7 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         registerSubParameter(segmentationOutputSettings);
         registerSubParameter(gpuSettings);
         registerSubParameter(channelSettings);
+        registerSubParameter(batchingSettings);
     }
 
     public Cellpose3SegmentationInferenceAlgorithm(Cellpose3SegmentationInferenceAlgorithm other) {
@@ -140,6 +146,7 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         this.segmentationThresholdSettings = new Cellpose2SegmentationThresholdSettings(other.segmentationThresholdSettings);
         this.segmentationOutputSettings = new Cellpose2SegmentationOutputSettings(other.segmentationOutputSettings);
         this.channelSettings = new Cellpose2ChannelSettings(other.channelSettings);
+        this.batchingSettings = new CellposeBatchingSettings(other.batchingSettings);
         this.suppressLogs = other.suppressLogs;
 //        this.sizeModelAnnotationName = new OptionalDataAnnotationNameParameter(other.sizeModelAnnotationName);
 
@@ -157,6 +164,7 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         registerSubParameter(segmentationOutputSettings);
         registerSubParameter(gpuSettings);
         registerSubParameter(channelSettings);
+        registerSubParameter(batchingSettings);
     }
 
     @Override
@@ -231,35 +239,56 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
     }
 
     @Override
-    protected void runIteration(JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        Path workDirectory = getNewScratch();
-        progressInfo.log("Work directory is " + workDirectory);
-
-        progressInfo.log("Collecting models ...");
-        List<CellposeModelInfo> modelInfos = new ArrayList<>();
-        JIPipeInputDataSlot modelSlot = getInputSlot("Model");
-        for (int modelRow : iterationStep.getInputRows(modelSlot)) {
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model row " + modelRow);
-            CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, modelProgress);
+    protected boolean isProcessingIterationStepsTogether() {
+        // Allows the inputs of all iteration steps to share Cellpose invocations
+        return batchingSettings.isEnabled();
+    }
 
-            // Save the model out
-            CellposeModelInfo modelInfo = CellposeUtils.createModelInfo(modelSlot.getTextAnnotations(modelRow), modelData, workDirectory, modelProgress);
-            modelInfos.add(modelInfo);
-        }
+    @Override
+    protected void runIterations(List<JIPipeMultiIterationStep> iterationSteps, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        runInference(iterationSteps, progressInfo);
+    }
 
-        for (int i = 0; i < modelInfos.size(); i++) {
-            CellposeModelInfo modelInfo = modelInfos.get(i);
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", i, modelInfos.size());
-            processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, iterationStep, modelProgress);
-        }
+    @Override
+    protected void runIteration(JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        runInference(Collections.singletonList(iterationStep), progressInfo);
+    }
 
-        // Cleanup
-        if (cleanUpAfterwards) {
-            PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+    private void runInference(List<JIPipeMultiIterationStep> iterationSteps, JIPipeProgressInfo progressInfo) {
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            progressInfo.log("Work directory is " + workDirectory);
+
+            progressInfo.log("Collecting models and batches ...");
+            JIPipeInputDataSlot modelSlot = getInputSlot("Model");
+            Map<Integer, List<List<CellposeBatchItem>>> batches = CellposeUtils.createInferenceBatches(iterationSteps, getInputSlot("Input"), modelSlot, batchingSettings, progressInfo);
+
+            int modelIndex = 0;
+            for (Map.Entry<Integer, List<List<CellposeBatchItem>>> entry : batches.entrySet()) {
+                int modelRow = entry.getKey();
+                JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", modelIndex++, batches.size());
+                CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, modelProgress);
+
+                // Save the model out
+                CellposeModelInfo modelInfo = CellposeUtils.createModelInfo(modelSlot.getTextAnnotations(modelRow), modelData, workDirectory, modelProgress);
+
+                List<List<CellposeBatchItem>> modelBatches = entry.getValue();
+                for (int i = 0; i < modelBatches.size(); i++) {
+                    if (progressInfo.isCancelled())
+                        return;
+                    JIPipeProgressInfo batchProgress = modelBatches.size() > 1 ? modelProgress.resolve("Batch", i, modelBatches.size()) : modelProgress;
+                    processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, modelBatches.get(i), batchProgress);
+                }
+            }
+        } finally {
+            // Cleanup
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            }
         }
     }
 
-    private void processModel(Path workDirectory, CellposeModelInfo modelInfo, JIPipeMultiIterationStep iterationStep, JIPipeProgressInfo progressInfo) {
+    private void processModel(Path workDirectory, CellposeModelInfo modelInfo, List<CellposeBatchItem> items, JIPipeProgressInfo progressInfo) {
         // We need a 2D and a 3D branch due to incompatibilities on the side of Cellpose
         final Path io2DPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "io-2d");
         final Path io3DPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "io-3d");
@@ -269,7 +298,7 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
 
         // Save input images
         CellposeUtils.saveInputImages(getInputSlot("Input"),
-                iterationStep.getInputRows("Input"),
+                items,
                 enable3D,
                 enableMultiChannel,
                 io2DPath,
@@ -292,9 +321,14 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         progressInfo.log("Deploying script to extract Cellpose *.npy results ...");
         Path npyExtractorScript = workDirectory.resolve("extract-cellpose3-npy.py");
         CellposePlugin.RESOURCES.exportResourceToFile("extract-cellpose3-npy.py", npyExtractorScript);
+        // Raw pixel buffers are only used together with shared memory. Otherwise, TIFF files are extracted as before.
+        boolean useRawExchange = JIPipeRuntimeApplicationSettings.isSharedMemoryExchangeEnabled();
         if (!runWith2D.isEmpty()) {
             List<String> arguments = new ArrayList<>();
             arguments.add(npyExtractorScript.toString());
+            if (useRawExchange) {
+                arguments.add("--raw");
+            }
             if (!segmentationOutputSettings.isOutputROI()) {
                 arguments.add("--skip-roi");
             }
@@ -310,6 +344,9 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         if (!runWith3D.isEmpty()) {
             List<String> arguments = new ArrayList<>();
             arguments.add(npyExtractorScript.toString());
+            if (useRawExchange) {
+                arguments.add("--raw");
+            }
             if (!segmentationOutputSettings.isOutputROI()) {
                 arguments.add("--skip-roi");
             }
@@ -325,10 +362,10 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
 
         // Fetch the data from the directory
         for (CellposeImageInfo imageInfo : runWith2D) {
-            extractDataFromInfo(modelInfo, iterationStep, imageInfo, io2DPath, progressInfo.resolve("Importing results row " + imageInfo.getSourceRow()));
+            extractDataFromInfo(modelInfo, imageInfo.getIterationStep(), imageInfo, io2DPath, progressInfo.resolve("Importing results row " + imageInfo.getSourceRow()));
         }
         for (CellposeImageInfo imageInfo : runWith3D) {
-            extractDataFromInfo(modelInfo, iterationStep, imageInfo, io3DPath, progressInfo.resolve("Importing results row " + imageInfo.getSourceRow()));
+            extractDataFromInfo(modelInfo, imageInfo.getIterationStep(), imageInfo, io3DPath, progressInfo.resolve("Importing results row " + imageInfo.getSourceRow()));
         }
     }
 
@@ -548,6 +585,12 @@ public class Cellpose3SegmentationInferenceAlgorithm extends JIPipeSingleIterati
         return segmentationOutputSettings;
     }
 
+    @SetJIPipeDocumentation(name = "Cellpose: Batching", description = "Controls how inputs are grouped into Cellpose invocations.")
+    @JIPipeParameter(value = "batching-parameters", collapsed = true, iconURL = ResourceUtils.RESOURCE_BASE_PATH + "/icons/apps/cellpose.png")
+    public CellposeBatchingSettings getBatchingSettings() {
+        return batchingSettings;
+    }
+
     @SetJIPipeDocumentation(name = "Cellpose: GPU", description = "Controls how the graphics card is utilized.")
     @JIPipeParameter(value = "gpu-parameters", collapsed = true, iconURL = ResourceUtils.RESOURCE_BASE_PATH + "/icons/apps/cellpose.png")
     public Cellpose2GPUSettings getGpuSettings() {
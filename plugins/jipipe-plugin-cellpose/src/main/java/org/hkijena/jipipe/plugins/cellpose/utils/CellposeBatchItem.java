@@ -0,0 +1,52 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.cellpose.utils;
+
+import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeMultiIterationStep;
+
+/**
+ * An input image that is processed within a batched Cellpose/Omnipose invocation
+ */
+public class CellposeBatchItem {
+    private final JIPipeMultiIterationStep iterationStep;
+    private final int inputRow;
+    private final long numPixels;
+
+    public CellposeBatchItem(JIPipeMultiIterationStep iterationStep, int inputRow, long numPixels) {
+        this.iterationStep = iterationStep;
+        this.inputRow = inputRow;
+        this.numPixels = numPixels;
+    }
+
+    /**
+     * @return the iteration step that receives the outputs
+     */
+    public JIPipeMultiIterationStep getIterationStep() {
+        return iterationStep;
+    }
+
+    /**
+     * @return the row within the input slot
+     */
+    public int getInputRow() {
+        return inputRow;
+    }
+
+    /**
+     * @return the number of pixels of the input image (all planes)
+     */
+    public long getNumPixels() {
+        return numPixels;
+    }
+}
@@ -13,6 +13,7 @@
 
 package org.hkijena.jipipe.plugins.cellpose.utils;
 
+import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeMultiIterationStep;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.dimensions.ImageSliceIndex;
 
 import java.util.HashMap;
@@ -20,10 +21,16 @@ import java.util.Map;
 
 public class CellposeImageInfo {
     private final int sourceRow;
+    private final JIPipeMultiIterationStep iterationStep;
     private final Map<ImageSliceIndex, String> sliceBaseNames;
 
     public CellposeImageInfo(int sourceRow) {
+        this(sourceRow, null);
+    }
+
+    public CellposeImageInfo(int sourceRow, JIPipeMultiIterationStep iterationStep) {
         this.sourceRow = sourceRow;
+        this.iterationStep = iterationStep;
         this.sliceBaseNames = new HashMap<>();
     }
 
@@ -31,6 +38,16 @@ public class CellposeImageInfo {
         return sourceRow;
     }
 
+    /**
+     * The iteration step that receives the outputs.
+     * Only set if the image was saved via a {@link CellposeBatchItem}
+     *
+     * @return the iteration step or null
+     */
+    public JIPipeMultiIterationStep getIterationStep() {
+        return iterationStep;
+    }
+
     public Map<ImageSliceIndex, String> getSliceBaseNames() {
         return sliceBaseNames;
     }
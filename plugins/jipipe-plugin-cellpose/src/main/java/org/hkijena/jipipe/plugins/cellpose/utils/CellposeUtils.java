@@ -23,16 +23,21 @@ import ij.ImagePlus;
 import ij.gui.PolygonRoi;
 import ij.gui.Roi;
 import ij.process.ImageProcessor;
+import org.apache.commons.lang3.StringUtils;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotation;
+import org.hkijena.jipipe.api.data.JIPipeData;
 import org.hkijena.jipipe.api.data.JIPipeInputDataSlot;
 import org.hkijena.jipipe.api.data.storage.JIPipeFileSystemWriteDataStorage;
 import org.hkijena.jipipe.api.nodes.JIPipeGraphNode;
+import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeMultiIterationStep;
 import org.hkijena.jipipe.plugins.cellpose.datatypes.CellposeModelData;
+import org.hkijena.jipipe.plugins.cellpose.parameters.CellposeBatchingSettings;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.OMEImageData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ROI2DListData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJIterationUtils;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJRawExchangeUtils;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJUtils;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.dimensions.ImageSliceIndex;
 import org.hkijena.jipipe.plugins.python.PythonEnvironment;
@@ -132,74 +137,165 @@ public class CellposeUtils {
 
     public static void saveInputImages(JIPipeInputDataSlot inputSlot, Set<Integer> inputRows, boolean enable3D, boolean enableMultiChannel, Path io2DPath, Path io3DPath, List<CellposeImageInfo> runWith2D, List<CellposeImageInfo> runWith3D, JIPipeGraphNode executingNode, JIPipeProgressInfo progressInfo) {
         for (int row : inputRows) {
-            JIPipeProgressInfo rowProgress = progressInfo.resolveAndLog("Saving input image @ row " + row);
-            ImagePlus img = inputSlot.getData(row, ImagePlusData.class, rowProgress).getImage();
+            saveInputImage(inputSlot, row, "", null, enable3D, enableMultiChannel, io2DPath, io3DPath, runWith2D, runWith3D, progressInfo);
+        }
+    }
 
-            // Save only one slice
-            if (img.getStackSize() == 1) {
+    /**
+     * Saves the input images of batch items.
+     * The file names are prefixed with the item index, so the same input row can be part of multiple items.
+     * The created {@link CellposeImageInfo} instances reference the iteration step of their item.
+     */
+    public static void saveInputImages(JIPipeInputDataSlot inputSlot, List<CellposeBatchItem> items, boolean enable3D, boolean enableMultiChannel, Path io2DPath, Path io3DPath, List<CellposeImageInfo> runWith2D, List<CellposeImageInfo> runWith3D, JIPipeGraphNode executingNode, JIPipeProgressInfo progressInfo) {
+        for (int i = 0; i < items.size(); i++) {
+            CellposeBatchItem item = items.get(i);
+            saveInputImage(inputSlot, item.getInputRow(), "i" + i + "_", item.getIterationStep(), enable3D, enableMultiChannel, io2DPath, io3DPath, runWith2D, runWith3D, progressInfo);
+        }
+    }
 
-                CellposeImageInfo info = new CellposeImageInfo(row);
-                saveInputImage(row, img, io2DPath, new ImageSliceIndex(-1, -1, -1), info);
-                runWith2D.add(info);
-                continue;
-            }
+    /**
+     * Returns the number of pixels of an input row.
+     * Reads the dimensions from the stored data, so no conversion or copy of the image is created.
+     *
+     * @param inputSlot    the input slot
+     * @param row          the row
+     * @param progressInfo the progress info
+     * @return the number of pixels
+     */
+    private static long getNumPixels(JIPipeInputDataSlot inputSlot, int row, JIPipeProgressInfo progressInfo) {
+        JIPipeData data = inputSlot.getDataItemStore(row).getData(progressInfo);
+        ImagePlus img;
+        if (data instanceof ImagePlusData) {
+            img = ((ImagePlusData) data).getImage();
+        } else if (data instanceof OMEImageData) {
+            img = ((OMEImageData) data).getImage();
+        } else {
+            img = inputSlot.getData(row, ImagePlusData.class, progressInfo).getImage();
+        }
+        return (long) img.getWidth() * img.getHeight() * img.getStackSize();
+    }
 
+    private static void saveInputImage(JIPipeInputDataSlot inputSlot, int row, String baseNamePrefix, JIPipeMultiIterationStep iterationStep, boolean enable3D, boolean enableMultiChannel, Path io2DPath, Path io3DPath, List<CellposeImageInfo> runWith2D, List<CellposeImageInfo> runWith3D, JIPipeProgressInfo progressInfo) {
+        JIPipeProgressInfo rowProgress = progressInfo.resolveAndLog("Saving input image @ row " + row);
+        ImagePlus img = inputSlot.getData(row, ImagePlusData.class, rowProgress).getImage();
 
-            if (enable3D && img.getNSlices() > 1) {
-                final boolean isRGB = img.getType() == ImagePlus.COLOR_RGB;
-                final boolean isMultiChannel = img.getNChannels() > 1;
-
-                if (enableMultiChannel) {
-                    if (isRGB ^ isMultiChannel || !isRGB) {
-                        rowProgress.log("3D mode, multichannel (multichannel XOR RGB) -> Image will be split by frame.");
-                        CellposeImageInfo info = new CellposeImageInfo(row);
-                        ImageJIterationUtils.forEachIndexedTHyperStack(img, (sliceImage, index, sliceProgress) -> {
-                            saveInputImage(row, sliceImage, io3DPath, index, info);
-                        }, progressInfo);
-                        runWith3D.add(info);
-                    } else {
-                        rowProgress.log("3D mode, multichannel (multichannel !! RGB conflict) -> Image will be converted to greyscale.");
-                        rowProgress.log("vvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvv");
-                        rowProgress.log("CONVERTING TO GREYSCALE, AS CHANNEL SLICES ARE CONSIDERED MORE IMPORTANT");
-                        rowProgress.log("^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^");
-                        CellposeImageInfo info = new CellposeImageInfo(row);
-                        ImageJIterationUtils.forEachIndexedTHyperStack(img, (sliceImage, index, sliceProgress) -> {
-                            saveInputImage(row, ImageJUtils.convertToGreyscaleIfNeeded(sliceImage), io3DPath, index, info);
-                        }, progressInfo);
-                        runWith3D.add(info);
-                    }
+        // Save only one slice
+        if (img.getStackSize() == 1) {
+
+            CellposeImageInfo info = new CellposeImageInfo(row, iterationStep);
+            saveInputImage(baseNamePrefix + row, img, io2DPath, new ImageSliceIndex(-1, -1, -1), info);
+            runWith2D.add(info);
+            return;
+        }
+
+
+        if (enable3D && img.getNSlices() > 1) {
+            final boolean isRGB = img.getType() == ImagePlus.COLOR_RGB;
+            final boolean isMultiChannel = img.getNChannels() > 1;
+
+            if (enableMultiChannel) {
+                if (isRGB ^ isMultiChannel || !isRGB) {
+                    rowProgress.log("3D mode, multichannel (multichannel XOR RGB) -> Image will be split by frame.");
+                    CellposeImageInfo info = new CellposeImageInfo(row, iterationStep);
+                    ImageJIterationUtils.forEachIndexedTHyperStack(img, (sliceImage, index, sliceProgress) -> {
+                        saveInputImage(baseNamePrefix + row, sliceImage, io3DPath, index, info);
+                    }, progressInfo);
+                    runWith3D.add(info);
                 } else {
-                    CellposeImageInfo info = new CellposeImageInfo(row);
-                    ImageJIterationUtils.forEachIndexedCTStack(img, (sliceImage, index, sliceProcess) -> {
-                        saveInputImage(row, ImageJUtils.convertToGreyscaleIfNeeded(sliceImage), io3DPath, index, info);
+                    rowProgress.log("3D mode, multichannel (multichannel !! RGB conflict) -> Image will be converted to greyscale.");
+                    rowProgress.log("vvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvv");
+                    rowProgress.log("CONVERTING TO GREYSCALE, AS CHANNEL SLICES ARE CONSIDERED MORE IMPORTANT");
+                    rowProgress.log("^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^");
+                    CellposeImageInfo info = new CellposeImageInfo(row, iterationStep);
+                    ImageJIterationUtils.forEachIndexedTHyperStack(img, (sliceImage, index, sliceProgress) -> {
+                        saveInputImage(baseNamePrefix + row, ImageJUtils.convertToGreyscaleIfNeeded(sliceImage), io3DPath, index, info);
                     }, progressInfo);
                     runWith3D.add(info);
                 }
             } else {
-                if (enableMultiChannel) {
-                    // Split into stacks per frame
-                    CellposeImageInfo info = new CellposeImageInfo(row);
-                    rowProgress.log("3D mode not active, multichannel -> Image will be split into multi-channel images + split by frame.");
-                    ImageJIterationUtils.forEachIndexedZTStack(img, (sliceImage, index, stackProgress) -> {
-                        saveInputImage(row, sliceImage, io2DPath, index, info);
-                    }, progressInfo);
-                    runWith2D.add(info);
+                CellposeImageInfo info = new CellposeImageInfo(row, iterationStep);
+                ImageJIterationUtils.forEachIndexedCTStack(img, (sliceImage, index, sliceProcess) -> {
+                    saveInputImage(baseNamePrefix + row, ImageJUtils.convertToGreyscaleIfNeeded(sliceImage), io3DPath, index, info);
+                }, progressInfo);
+                runWith3D.add(info);
+            }
+        } else {
+            if (enableMultiChannel) {
+                // Split into stacks per frame
+                CellposeImageInfo info = new CellposeImageInfo(row, iterationStep);
+                rowProgress.log("3D mode not active, multichannel -> Image will be split into multi-channel images + split by frame.");
+                ImageJIterationUtils.forEachIndexedZTStack(img, (sliceImage, index, stackProgress) -> {
+                    saveInputImage(baseNamePrefix + row, sliceImage, io2DPath, index, info);
+                }, progressInfo);
+                runWith2D.add(info);
 
-                } else {
-                    // Split everything into 2D slices
-                    rowProgress.log("3D mode not active, no multichannel -> Image will be split into 2D slices.");
-                    CellposeImageInfo info = new CellposeImageInfo(row);
-                    ImageJIterationUtils.forEachIndexedZCTSlice(img, (ip, index) -> {
-                        saveInputImage(row, new ImagePlus("slice", ip), io2DPath, index, info);
-                    }, rowProgress);
+            } else {
+                // Split everything into 2D slices
+                rowProgress.log("3D mode not active, no multichannel -> Image will be split into 2D slices.");
+                CellposeImageInfo info = new CellposeImageInfo(row, iterationStep);
+                ImageJIterationUtils.forEachIndexedZCTSlice(img, (ip, index) -> {
+                    saveInputImage(baseNamePrefix + row, new ImagePlus("slice", ip), io2DPath, index, info);
+                }, rowProgress);
+            }
+        }
+    }
+
+    /**
+     * Groups the inputs of the provided iteration steps by model row and splits them into batches.
+     * If batching is disabled, all inputs of a model are placed into a single batch.
+     *
+     * @param iterationSteps   the iteration steps
+     * @param inputSlot        the slot containing the input images
+     * @param modelSlot        the slot containing the models
+     * @param batchingSettings the batching settings
+     * @param progressInfo     the progress info
+     * @return map from model row to the list of batches (insertion ordered)
+     */
+    public static Map<Integer, List<List<CellposeBatchItem>>> createInferenceBatches(List<JIPipeMultiIterationStep> iterationSteps, JIPipeInputDataSlot inputSlot, JIPipeInputDataSlot modelSlot, CellposeBatchingSettings batchingSettings, JIPipeProgressInfo progressInfo) {
+        Map<Integer, List<CellposeBatchItem>> itemsByModel = new LinkedHashMap<>();
+        for (JIPipeMultiIterationStep iterationStep : iterationSteps) {
+            for (int modelRow : iterationStep.getInputRows(modelSlot)) {
+                List<CellposeBatchItem> items = itemsByModel.computeIfAbsent(modelRow, k -> new ArrayList<>());
+                for (int inputRow : iterationStep.getInputRows(inputSlot)) {
+                    long numPixels = 0;
+                    if (batchingSettings.isEnabled()) {
+                        numPixels = getNumPixels(inputSlot, inputRow, progressInfo);
+                    }
+                    items.add(new CellposeBatchItem(iterationStep, inputRow, numPixels));
                 }
             }
+        }
 
+        Map<Integer, List<List<CellposeBatchItem>>> result = new LinkedHashMap<>();
+        long maxPixels = batchingSettings.getMaxMegapixelsPerBatch() * 1_000_000L;
+        int maxImages = batchingSettings.getMaxImagesPerBatch().isEnabled() ? Math.max(1, batchingSettings.getMaxImagesPerBatch().getContent()) : Integer.MAX_VALUE;
+        for (Map.Entry<Integer, List<CellposeBatchItem>> entry : itemsByModel.entrySet()) {
+            List<List<CellposeBatchItem>> batches = new ArrayList<>();
+            if (!batchingSettings.isEnabled()) {
+                batches.add(entry.getValue());
+            } else {
+                List<CellposeBatchItem> currentBatch = new ArrayList<>();
+                long currentPixels = 0;
+                for (CellposeBatchItem item : entry.getValue()) {
+                    if (!currentBatch.isEmpty() && (currentPixels + item.getNumPixels() > maxPixels || currentBatch.size() >= maxImages)) {
+                        batches.add(currentBatch);
+                        currentBatch = new ArrayList<>();
+                        currentPixels = 0;
+                    }
+                    currentBatch.add(item);
+                    currentPixels += item.getNumPixels();
+                }
+                if (!currentBatch.isEmpty()) {
+                    batches.add(currentBatch);
+                }
+            }
+            result.put(entry.getKey(), batches);
         }
+        return result;
     }
 
-    private static void saveInputImage(int row, ImagePlus img, Path ioPath, ImageSliceIndex index, CellposeImageInfo info) {
-        String baseName = row + "_z" + index.getZ() + "_c" + index.getC() + "_t" + index.getT() + "_";
+    private static void saveInputImage(String rowName, ImagePlus img, Path ioPath, ImageSliceIndex index, CellposeImageInfo info) {
+        String baseName = rowName + "_z" + index.getZ() + "_c" + index.getC() + "_t" + index.getT() + "_";
         Path outputPath = ioPath.resolve(baseName + ".tif");
         IJ.saveAsTiff(img, outputPath.toString());
 
@@ -228,14 +324,19 @@ public class CellposeUtils {
         for (Map.Entry<ImageSliceIndex, String> entry : imageInfo.getSliceBaseNames().entrySet()) {
             ImageSliceIndex sourceIndex = entry.getKey();
             Path imageFile = ioPath.resolve(entry.getValue() + basePathSuffix);
+            Path rawBasePath = ioPath.resolve(entry.getValue() + StringUtils.removeEnd(basePathSuffix, ".tif"));
 
             // Read the slice image
-            progressInfo.log("Reading: " + imageFile);
             ImagePlus sliceImg;
-            if (useBioFormats) {
+            if (ImageJRawExchangeUtils.exists(rawBasePath)) {
+                progressInfo.log("Reading (raw): " + rawBasePath);
+                sliceImg = ImageJRawExchangeUtils.readImage(rawBasePath);
+            } else if (useBioFormats) {
+                progressInfo.log("Reading: " + imageFile);
                 OMEImageData omeImageData = OMEImageData.simpleOMEImport(imageFile);
                 sliceImg = omeImageData.getImage();
             } else {
+                progressInfo.log("Reading: " + imageFile);
                 sliceImg = IJ.openImage(imageFile.toString());
             }
             if (sliceImg == null) {
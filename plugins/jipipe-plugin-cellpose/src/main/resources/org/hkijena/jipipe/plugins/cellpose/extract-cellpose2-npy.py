@@ -10,6 +10,7 @@ parser = argparse.ArgumentParser(description="Extracts data from a Cellpose *.np
 parser.add_argument("input_files", help="The *.npy file or a directory that contains the *.npy files")
 parser.add_argument("output_dir", help="Directory where the outputs will be stored")
 parser.add_argument("--skip-roi", help="Skips the extraction of ROI", action="store_true")
+parser.add_argument("--raw", help="Stores labels and probabilities as raw pixel buffers (*.raw + *.raw.json) instead of TIFF", action="store_true")
 
 args = parser.parse_args()
 
@@ -19,10 +20,30 @@ if not os.path.isdir(output_dir):
 npy_files = []
 
 
+def save_greyscale_image(path_without_extension, data):
+    # Raw exchange only supports single-channel 2D/3D data
+    if args.raw and data.ndim in (2, 3):
+        if data.dtype not in (np.uint8, np.uint16, np.int16, np.float32):
+            data = data.astype(np.float32)
+        data = np.ascontiguousarray(data, dtype=data.dtype.newbyteorder("<"))
+        data.tofile(path_without_extension + ".raw")
+        header = {
+            "width": int(data.shape[-1]),
+            "height": int(data.shape[-2]),
+            "planes": int(data.shape[0]) if data.ndim == 3 else 1,
+            "dtype": data.dtype.name,
+            "byte_order": "little"
+        }
+        with open(path_without_extension + ".raw.json", "w") as f:
+            json.dump(header, f)
+    else:
+        io.imsave(path_without_extension + ".tif", data)
+
+
 def process_probabilities(npy_data, npy_base_output_path):
     print(" - Extracting probabilities")
     flows = npy_data.item().get("flows")
-    io.imsave(npy_base_output_path + "_probabilities.tif", flows[1])
+    save_greyscale_image(npy_base_output_path + "_probabilities", flows[1])
 
 def process_flows_rgb(npy_data, npy_base_output_path):
     print(" - Extracting flows (x, y, RGB)")
@@ -44,7 +65,7 @@ def process_labels(npy_data, npy_base_output_path):
     masks = npy_data.item().get("masks")
     if masks.dtype != np.short and masks.dtype != np.uint8:
         masks = masks.astype(np.float32)
-    io.imsave(npy_base_output_path + "_labels.tif", masks)
+    save_greyscale_image(npy_base_output_path + "_labels", masks)
 
 def process_roi(npy_data, npy_base_output_path):
     print(" - Extracting ROI")
@@ -28,12 +28,12 @@ import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.plugins.filesystem.dataypes.PathData;
+import org.hkijena.jipipe.plugins.filesystem.utils.ParallelDirectoryWalker;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
 
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
@@ -50,6 +50,7 @@ public class AnnotateWithPathProperties extends JIPipeSimpleIteratingAlgorithm {
     private OptionalTextAnnotationNameParameter sizeAnnotation = new OptionalTextAnnotationNameParameter("Size", true);
     private OptionalTextAnnotationNameParameter typeAnnotation = new OptionalTextAnnotationNameParameter("Type", true);
     private OptionalTextAnnotationNameParameter lastModifiedTime = new OptionalTextAnnotationNameParameter("Last modified", true);
+    private int numListingThreads = 4;
 
 
     public AnnotateWithPathProperties(JIPipeNodeInfo info) {
@@ -63,80 +64,103 @@ public class AnnotateWithPathProperties extends JIPipeSimpleIteratingAlgorithm {
         this.sizeAnnotation = new OptionalTextAnnotationNameParameter(other.sizeAnnotation);
         this.typeAnnotation = new OptionalTextAnnotationNameParameter(other.typeAnnotation);
         this.lastModifiedTime = new OptionalTextAnnotationNameParameter(other.lastModifiedTime);
+        this.numListingThreads = other.numListingThreads;
     }
 
     @Override
+    public boolean supportsPrefetching() {
+        return true;
+    }
+
+    @Override
+    protected Object prefetchIterationStep(JIPipeSingleIterationStep iterationStep, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        PathData pathData = iterationStep.getInputData(getFirstInputSlot(), PathData.class, progressInfo);
+        return createAnnotations(pathData, progressInfo);
+    }
+
+    @Override
+    protected long estimatePrefetchSize(JIPipeSingleIterationStep iterationStep) {
+        return 1024;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        List<JIPipeTextAnnotation> annotations = new ArrayList<>();
         PathData pathData = iterationStep.getInputData(getFirstInputSlot(), PathData.class, progressInfo);
+        List<JIPipeTextAnnotation> annotations = (List<JIPipeTextAnnotation>) iterationStep.getPrefetchedData();
+        if (annotations == null) {
+            annotations = createAnnotations(pathData, progressInfo);
+        }
+        iterationStep.addOutputData(getFirstOutputSlot(), pathData, annotations, JIPipeTextAnnotationMergeMode.Merge, progressInfo);
+    }
 
+    private List<JIPipeTextAnnotation> createAnnotations(PathData pathData, JIPipeProgressInfo progressInfo) {
+        List<JIPipeTextAnnotation> annotations = new ArrayList<>();
         try {
             Path path = pathData.toPath();
 
             fileNameAnnotation.addAnnotationIfEnabled(annotations, path.getFileName().toString());
             parentPathAnnotation.addAnnotationIfEnabled(annotations, path.getParent().toString());
+
+            // Read all properties at once instead of querying the file system for each property
+            BasicFileAttributes attributes = null;
+            if (typeAnnotation.isEnabled() || lastModifiedTime.isEnabled() || sizeAnnotation.isEnabled()) {
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    try {
+                        attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
             if (typeAnnotation.isEnabled()) {
                 String value = "Unknown";
-                try {
-                    if (Files.isRegularFile(path)) {
+                if (attributes != null) {
+                    if (attributes.isRegularFile()) {
                         value = "File";
-                    } else if (Files.isDirectory(path)) {
+                    } else if (attributes.isDirectory()) {
                         value = "Directory";
-                    } else if (Files.isSymbolicLink(path)) {
+                    } else if (attributes.isSymbolicLink()) {
                         value = "Link";
                     }
-                } catch (Exception e) {
                 }
                 typeAnnotation.addAnnotationIfEnabled(annotations, value);
             }
             if (lastModifiedTime.isEnabled()) {
                 String value = "Unknown";
-                try {
-                    value = Files.getLastModifiedTime(path).toString();
-                } catch (IOException e) {
+                if (attributes != null) {
+                    value = attributes.lastModifiedTime().toString();
                 }
                 lastModifiedTime.addAnnotationIfEnabled(annotations, value);
             }
             if (sizeAnnotation.isEnabled()) {
+                if (attributes == null) {
+                    throw new IOException("Unable to read attributes of " + path);
+                }
                 long[] size = new long[1];
-                if (Files.isRegularFile(path)) {
-                    size[0] = Files.size(path);
-                } else {
-                    Files.walkFileTree(path, new FileVisitor<Path>() {
-                        @Override
-                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                            return FileVisitResult.CONTINUE;
-                        }
-
-                        @Override
-                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                            if (Files.isRegularFile(file))
-                                size[0] += Files.size(file);
-                            return FileVisitResult.CONTINUE;
-                        }
-
-                        @Override
-                        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-                            return FileVisitResult.CONTINUE;
-                        }
-
-                        @Override
-                        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                            return FileVisitResult.CONTINUE;
+                if (attributes.isRegularFile()) {
+                    size[0] = attributes.size();
+                } else if (attributes.isDirectory()) {
+                    // Unreadable sub-directories are skipped, so they do not turn all annotations into errors
+                    ParallelDirectoryWalker walker = new ParallelDirectoryWalker(numListingThreads, false, Integer.MAX_VALUE, true);
+                    walker.walk(path, progressInfo, entry -> {
+                        if (entry.isRegularFile()) {
+                            size[0] += entry.getAttributes().isSymbolicLink() ? entry.getPath().toFile().length() : entry.getAttributes().size();
                         }
                     });
                 }
                 sizeAnnotation.addAnnotationIfEnabled(annotations, "" + size[0]);
             }
         } catch (Exception e) {
+            annotations.clear();
             fileNameAnnotation.addAnnotationIfEnabled(annotations, "Error");
             parentPathAnnotation.addAnnotationIfEnabled(annotations, "Error");
             sizeAnnotation.addAnnotationIfEnabled(annotations, "Error");
             typeAnnotation.addAnnotationIfEnabled(annotations, "Error");
             lastModifiedTime.addAnnotationIfEnabled(annotations, "Error");
         }
-
-        iterationStep.addOutputData(getFirstOutputSlot(), pathData, annotations, JIPipeTextAnnotationMergeMode.Merge, progressInfo);
+        return annotations;
     }
 
     @SetJIPipeDocumentation(name = "Annotate with file name", description = "If enabled, a file/directory name annotation is created")
@@ -193,4 +217,16 @@ public class AnnotateWithPathProperties extends JIPipeSimpleIteratingAlgorithm {
     public void setLastModifiedTime(OptionalTextAnnotationNameParameter lastModifiedTime) {
         this.lastModifiedTime = lastModifiedTime;
     }
+
+    @SetJIPipeDocumentation(name = "Listing threads", description = "The number of threads that list directories concurrently while determining the size of directories. " +
+            "Higher values can considerably speed up large folder structures on network shares.")
+    @JIPipeParameter("num-listing-threads")
+    public int getNumListingThreads() {
+        return numListingThreads;
+    }
+
+    @JIPipeParameter("num-listing-threads")
+    public void setNumListingThreads(int numListingThreads) {
+        this.numListingThreads = numListingThreads;
+    }
 }
@@ -29,16 +29,13 @@ import org.hkijena.jipipe.plugins.expressions.JIPipeExpressionVariablesMap;
 import org.hkijena.jipipe.plugins.expressions.PathQueryExpression;
 import org.hkijena.jipipe.plugins.filesystem.dataypes.FileData;
 import org.hkijena.jipipe.plugins.filesystem.dataypes.FolderData;
+import org.hkijena.jipipe.plugins.filesystem.utils.ParallelDirectoryWalker;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.StringParameterSettings;
 import org.hkijena.jipipe.utils.ResourceUtils;
 import org.hkijena.jipipe.utils.StringUtils;
 
 import java.io.IOException;
-import java.nio.file.FileVisitOption;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Algorithms that lists the sub folders for each input folder
@@ -57,6 +54,7 @@ public class ListSubfolders extends JIPipeSimpleIteratingAlgorithm {
     private String subFolder;
     private boolean recursive = false;
     private boolean recursiveFollowsLinks = true;
+    private int numListingThreads = 4;
 
     /**
      * Creates a new instance
@@ -77,6 +75,7 @@ public class ListSubfolders extends JIPipeSimpleIteratingAlgorithm {
         this.subFolder = other.subFolder;
         this.recursive = other.recursive;
         this.recursiveFollowsLinks = other.recursiveFollowsLinks;
+        this.numListingThreads = other.numListingThreads;
         this.filters = new PathQueryExpression(other.filters);
     }
 
@@ -91,35 +90,22 @@ public class ListSubfolders extends JIPipeSimpleIteratingAlgorithm {
         if (!StringUtils.isNullOrEmpty(subFolder)) {
             inputPath = inputPath.resolve(subFolder);
         }
-        Stream<Path> stream = null;
+        // The recursive search always included the input folder itself
+        if (recursive && filters.test(inputPath, expressionVariables)) {
+            iterationStep.addOutputData(getFirstOutputSlot(), new FileData(inputPath), progressInfo);
+        }
+
+        // Folders are added to the output as soon as their parent was listed
+        ParallelDirectoryWalker walker = new ParallelDirectoryWalker(numListingThreads, recursiveFollowsLinks, recursive ? Integer.MAX_VALUE : 1);
         try {
-            if (recursive) {
-                FileVisitOption[] options;
-                if (recursiveFollowsLinks) {
-                    options = new FileVisitOption[]{FileVisitOption.FOLLOW_LINKS};
-                } else {
-                    options = new FileVisitOption[0];
-                }
-                stream = Files.walk(inputPath, options).filter(Files::isDirectory);
-            } else {
-                stream = Files.list(inputPath).filter(Files::isDirectory);
-            }
-            for (Path file : stream.collect(Collectors.toSet())) {
-                if(progressInfo.isCanceled()) {
-                    return;
+            walker.walk(inputPath, progressInfo, entry -> {
+                if (entry.isDirectory() && filters.test(entry.getPath(), expressionVariables)) {
+                    iterationStep.addOutputData(getFirstOutputSlot(), new FileData(entry.getPath()), progressInfo);
                 }
-                if (filters.test(file, expressionVariables)) {
-                    iterationStep.addOutputData(getFirstOutputSlot(), new FileData(file), progressInfo);
-                }
-            }
+            });
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        finally {
-            if(stream != null) {
-                stream.close();
-            }
-        }
     }
 
     @SetJIPipeDocumentation(name = "Keep path if ...", description = "You can optionally filter the result folders. " +
@@ -170,4 +156,16 @@ public class ListSubfolders extends JIPipeSimpleIteratingAlgorithm {
     public void setRecursiveFollowsLinks(boolean recursiveFollowsLinks) {
         this.recursiveFollowsLinks = recursiveFollowsLinks;
     }
+
+    @SetJIPipeDocumentation(name = "Listing threads", description = "The number of threads that list directories and read file properties concurrently. " +
+            "Higher values can considerably speed up the listing of large folder structures on network shares.")
+    @JIPipeParameter("num-listing-threads")
+    public int getNumListingThreads() {
+        return numListingThreads;
+    }
+
+    @JIPipeParameter("num-listing-threads")
+    public void setNumListingThreads(int numListingThreads) {
+        this.numListingThreads = numListingThreads;
+    }
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.filesystem.utils;
+
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Walks a directory tree breadth-first with multiple threads.
+ * Each directory is listed by one of the worker threads, which also reads the attributes of all its entries in one go.
+ * Sub-directories are scheduled as soon as they are found, so slow file systems (e.g., network shares) are queried concurrently.
+ * The entries are passed to the consumer on the calling thread as soon as the listing of their directory is available.
+ * The order is deterministic: breadth-first, sorted by name within each directory.
+ * If errors are ignored, directories that cannot be listed and entries whose attributes cannot be read are skipped
+ * (same as returning {@link java.nio.file.FileVisitResult#CONTINUE} from {@link java.nio.file.FileVisitor#visitFileFailed(Object, IOException)}).
+ */
+public class ParallelDirectoryWalker {
+
+    private final int numThreads;
+    private final boolean followLinks;
+    private final int maxDepth;
+    private final boolean ignoreErrors;
+
+    /**
+     * Creates a new walker
+     *
+     * @param numThreads  the number of threads that list directories concurrently
+     * @param followLinks if symbolic links to directories should be followed
+     * @param maxDepth    the maximum depth. 1 only lists the entries of the root directory.
+     */
+    public ParallelDirectoryWalker(int numThreads, boolean followLinks, int maxDepth) {
+        this(numThreads, followLinks, maxDepth, false);
+    }
+
+    /**
+     * Creates a new walker
+     *
+     * @param numThreads   the number of threads that list directories concurrently
+     * @param followLinks  if symbolic links to directories should be followed
+     * @param maxDepth     the maximum depth. 1 only lists the entries of the root directory.
+     * @param ignoreErrors if true, directories and entries that cannot be read are skipped instead of failing the walk
+     */
+    public ParallelDirectoryWalker(int numThreads, boolean followLinks, int maxDepth, boolean ignoreErrors) {
+        this.numThreads = Math.max(1, numThreads);
+        this.followLinks = followLinks;
+        this.maxDepth = maxDepth;
+        this.ignoreErrors = ignoreErrors;
+    }
+
+    /**
+     * Walks the directory tree. The root directory itself is not passed to the consumer.
+     *
+     * @param root         the root directory
+     * @param progressInfo the progress info. Walking stops if it is cancelled.
+     * @param consumer     receives the found entries. Called on the calling thread.
+     * @throws IOException if a directory could not be listed and errors are not ignored
+     */
+    public void walk(Path root, JIPipeProgressInfo progressInfo, Consumer<Entry> consumer) throws IOException {
+        if (maxDepth <= 0) {
+            return;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "JIPipe directory walker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+        try {
+            Deque<Future<DirectoryListing>> queue = new ArrayDeque<>();
+            queue.add(scheduleListing(executorService, root, 0, visitedDirectories));
+            long numEntries = 0;
+            long nextLog = 10000;
+            while (!queue.isEmpty()) {
+                if (progressInfo.isCancelled()) {
+                    return;
+                }
+                DirectoryListing listing = getListing(queue.removeFirst());
+                for (Entry entry : listing.entries) {
+                    consumer.accept(entry);
+                }
+                queue.addAll(listing.children);
+                numEntries += listing.entries.size();
+                if (numEntries >= nextLog) {
+                    progressInfo.log("Found " + numEntries + " entries (" + queue.size() + " directories pending)");
+                    nextLog = numEntries + 10000;
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private DirectoryListing getListing(Future<DirectoryListing> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private Future<DirectoryListing> scheduleListing(ExecutorService executorService, Path directory, int depth, Set<Object> visitedDirectories) {
+        return executorService.submit(() -> {
+            List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path child : stream) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = readAttributes(child);
+                    } catch (IOException e) {
+                        if (ignoreErrors) {
+                            continue;
+                        }
+                        throw e;
+                    }
+                    entries.add(new Entry(child, attributes, depth + 1));
+                }
+            } catch (IOException | UncheckedIOException | SecurityException e) {
+                if (ignoreErrors) {
+                    return new DirectoryListing(Collections.emptyList(), Collections.emptyList());
+                }
+                throw e;
+            }
+            entries.sort(Comparator.comparing(entry -> entry.getPath().getFileName().toString()));
+
+            List<Future<DirectoryListing>> children = new ArrayList<>();
+            if (depth + 1 < maxDepth) {
+                for (Entry entry : entries) {
+                    BasicFileAttributes attributes = entry.getAttributes();
+                    if (attributes.isDirectory()) {
+                        // Prevent loops via symbolic links
+                        Object fileKey = attributes.fileKey();
+                        if (followLinks && fileKey != null && !visitedDirectories.add(fileKey)) {
+                            continue;
+                        }
+                        children.add(scheduleListing(executorService, entry.getPath(), depth + 1, visitedDirectories));
+                    }
+                }
+            }
+            return new DirectoryListing(entries, children);
+        });
+    }
+
+    private BasicFileAttributes readAttributes(Path path) throws IOException {
+        if (followLinks) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Broken link
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            }
+        } else {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public boolean isFollowLinks() {
+        return followLinks;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public boolean isIgnoreErrors() {
+        return ignoreErrors;
+    }
+
+    /**
+     * An entry found by the walker
+     */
+    public static class Entry {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+        private final int depth;
+
+        public Entry(Path path, BasicFileAttributes attributes, int depth) {
+            this.path = path;
+            this.attributes = attributes;
+            this.depth = depth;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * The attributes that were read while listing the parent directory.
+         * If links are not followed, these are the attributes of the link itself.
+         *
+         * @return the attributes
+         */
+        public BasicFileAttributes getAttributes() {
+            return attributes;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Returns true if the entry is a regular file or a link to one (same as {@link Files#isRegularFile(Path, LinkOption...)})
+         *
+         * @return if the entry is a regular file
+         */
+        public boolean isRegularFile() {
+            if (attributes.isSymbolicLink()) {
+                return Files.isRegularFile(path);
+            }
+            return attributes.isRegularFile();
+        }
+
+        /**
+         * Returns true if the entry is a directory or a link to one (same as {@link Files#isDirectory(Path, LinkOption...)})
+         *
+         * @return if the entry is a directory
+         */
+        public boolean isDirectory() {
+            if (attributes.isSymbolicLink()) {
+                return Files.isDirectory(path);
+            }
+            return attributes.isDirectory();
+        }
+    }
+
+    private static class DirectoryListing {
+        private final List<Entry> entries;
+        private final List<Future<DirectoryListing>> children;
+
+        private DirectoryListing(List<Entry> entries, List<Future<DirectoryListing>> children) {
+            this.entries = entries;
+            this.children = children;
+        }
+    }
+}
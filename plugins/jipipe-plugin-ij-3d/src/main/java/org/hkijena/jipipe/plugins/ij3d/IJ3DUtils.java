@@ -14,6 +14,7 @@
 package org.hkijena.jipipe.plugins.ij3d;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import ij.ImagePlus;
 import ij.ImageStack;
 import ij.gui.Roi;
@@ -22,9 +23,11 @@ import mcib3d.geom.*;
 import mcib3d.image3d.ImageFloat;
 import mcib3d.image3d.ImageHandler;
 import org.apache.commons.lang3.function.TriFunction;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3D;
 import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3DListData;
+import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DBoundingBoxIndex;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DMeasurement;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DRelationMeasurement;
 import org.hkijena.jipipe.plugins.imagejalgorithms.parameters.Neighborhood3D;
@@ -43,8 +46,12 @@ import org.jogamp.vecmath.Point3f;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class IJ3DUtils {
 
@@ -203,67 +210,243 @@ public class IJ3DUtils {
     }
 
     public static void measureRoi3d(ImageHandler referenceImage, ROI3DListData roiList, int measurements, boolean physicalUnits, String columnPrefix, ResultsTableData target, JIPipeProgressInfo progressInfo) {
-        int lastPercentage = 0;
+        measureRoi3d(referenceImage, roiList, measurements, physicalUnits, columnPrefix, target, null, progressInfo);
+    }
+
+    /**
+     * Measures a list of 3D ROI.
+     * The ROI are measured in parallel (in contiguous batches). Each task writes the values of its rows into a local buffer.
+     * After all measurements are done, the rows are allocated in the target table and the buffers are written in order of the ROI index.
+     * Only the requested measurements are computed.
+     * If the ROI are measured in parallel, each ROI is copied before measuring it, as the measurements initialize lazy state of the shared ROI.
+     *
+     * @param referenceImage the reference image (can be null)
+     * @param roiList        the ROI
+     * @param measurements   the measurements
+     * @param physicalUnits  measure in physical units
+     * @param columnPrefix   prefix for the columns
+     * @param target         the target table
+     * @param threadPool     the thread pool (can be null for sequential measurement)
+     * @param progressInfo   the progress info
+     */
+    public static void measureRoi3d(ImageHandler referenceImage, ROI3DListData roiList, int measurements, boolean physicalUnits, String columnPrefix, ResultsTableData target, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        if (roiList.isEmpty()) {
+            return;
+        }
+        int numThreads = threadPool != null ? threadPool.getMaxThreads() : 1;
+
+        List<Map<String, Object>> rows = new ArrayList<>(roiList.size());
         for (int i = 0; i < roiList.size(); i++) {
-            if (progressInfo.isCancelled()) {
-                return;
+            rows.add(null);
+        }
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger lastPercentage = new AtomicInteger();
+        int batchSize = Math.max(1, Math.min(256, roiList.size() / (numThreads * 8)));
+        int numBatches = (roiList.size() + batchSize - 1) / batchSize;
+        boolean parallel = numThreads > 1 && numBatches > 1;
+        List<Runnable> tasks = new ArrayList<>();
+        for (int start = 0; start < roiList.size(); start += batchSize) {
+            final int batchStart = start;
+            final int batchEnd = Math.min(roiList.size(), start + batchSize);
+            tasks.add(() -> {
+                for (int i = batchStart; i < batchEnd; i++) {
+                    if (progressInfo.isCancelled()) {
+                        return;
+                    }
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    ROI3D roi = parallel ? copyRoi3dForMeasurement(roiList.get(i), physicalUnits) : roiList.get(i);
+                    generateRoi3dRowMeasurements(referenceImage, i, roi, measurements, physicalUnits, columnPrefix, row);
+                    rows.set(i, row);
+                }
+
+                int newPercentage = (int) (100.0 * finished.addAndGet(batchEnd - batchStart) / roiList.size());
+                int oldPercentage = lastPercentage.get();
+                if (newPercentage != oldPercentage && lastPercentage.compareAndSet(oldPercentage, newPercentage)) {
+                    progressInfo.log(finished.get() + "/" + roiList.size() + " (" + newPercentage + "%)");
+                }
+            });
+        }
+
+        if (!parallel) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        } else {
+            try {
+                for (Future<Exception> future : threadPool.scheduleBatches(tasks, 1)) {
+                    Exception exception = future.get();
+                    if (exception != null) {
+                        throw new RuntimeException(exception);
+                    }
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
             }
-            int newPercentage = (int) (1.0 * i / roiList.size() * 100);
-            if (lastPercentage != newPercentage) {
-                progressInfo.log(i + "/" + roiList.size() + " (" + newPercentage + "%)");
-                lastPercentage = newPercentage;
+        }
+
+        if (progressInfo.isCancelled()) {
+            return;
+        }
+
+        // Collect the columns in order of their first occurrence (a column is a string column if any value is not numeric)
+        Map<String, Boolean> stringColumns = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                boolean isString = !(entry.getValue() instanceof Number);
+                stringColumns.merge(entry.getKey(), isString, Boolean::logicalOr);
+            }
+        }
+
+        // Allocate the rows and columns, then copy the buffers
+        int firstRow = target.getRowCount();
+        target.addRows(rows.size());
+        Map<String, Integer> columnIndices = new HashMap<>();
+        for (Map.Entry<String, Boolean> entry : stringColumns.entrySet()) {
+            columnIndices.put(entry.getKey(), target.getOrCreateColumnIndex(entry.getKey(), entry.getValue()));
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            for (Map.Entry<String, Object> entry : rows.get(i).entrySet()) {
+                Object value = entry.getValue();
+                if (stringColumns.get(entry.getKey()) && value instanceof Number) {
+                    value = String.valueOf(((Number) value).doubleValue());
+                }
+                target.setValueAt(value, firstRow + i, columnIndices.get(entry.getKey()));
             }
-            int row = target.addRow();
-            generateRoi3dRowMeasurements(referenceImage, i, roiList.get(i), measurements, physicalUnits, target, row, columnPrefix);
         }
     }
 
     public static void measureRoi3dRelation(ImageHandler referenceImage, ROI3DListData roi1List, ROI3DListData roi2List, int measurements, boolean physicalUnits, boolean requireColocalization, boolean preciseColocalization, boolean ignoreC, boolean ignoreT, String columnPrefix, ResultsTableData target, JIPipeProgressInfo progressInfo) {
-        int maxItems = roi1List.size() * roi2List.size();
-        int currentItems = 0;
-        int lastPercentage = 0;
+        measureRoi3dRelation(referenceImage, roi1List, roi2List, measurements, physicalUnits, requireColocalization, preciseColocalization, ignoreC, ignoreT, columnPrefix, target, null, progressInfo);
+    }
+
+    /**
+     * Measures the relation between two lists of 3D ROI.
+     * Candidate pairs are generated via a {@link ROI3DBoundingBoxIndex}, meaning that only pairs with matching channel/frame
+     * (unless ignored) and (if colocalization is required) intersecting bounding boxes are tested.
+     * The rows are measured in parallel (one task per ROI in the first list) and are added in the same order as the pairs
+     * would have been tested sequentially.
+     * The lazily computed properties of {@link Object3D} are not thread-safe, so parallel tasks only measure thread-local copies of the ROI.
+     *
+     * @param referenceImage        the reference image
+     * @param roi1List              the first list
+     * @param roi2List              the second list
+     * @param measurements          the measurements
+     * @param physicalUnits         measure in physical units
+     * @param requireColocalization only measure pairs whose bounding boxes overlap
+     * @param preciseColocalization only measure pairs that share at least one voxel (requires requireColocalization)
+     * @param ignoreC               ignore the channel
+     * @param ignoreT               ignore the frame
+     * @param columnPrefix          prefix for the columns
+     * @param target                the target table
+     * @param threadPool            the thread pool (can be null for sequential measurement)
+     * @param progressInfo          the progress info
+     */
+    public static void measureRoi3dRelation(ImageHandler referenceImage, ROI3DListData roi1List, ROI3DListData roi2List, int measurements, boolean physicalUnits, boolean requireColocalization, boolean preciseColocalization, boolean ignoreC, boolean ignoreT, String columnPrefix, ResultsTableData target, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        if (roi1List.isEmpty() || roi2List.isEmpty()) {
+            return;
+        }
+
+        // Also initializes the bounding boxes
+        progressInfo.log("Indexing " + roi2List.size() + " ROI ...");
+        ROI3DBoundingBoxIndex index = new ROI3DBoundingBoxIndex(roi2List, ignoreC, ignoreT);
+
+        boolean parallel = threadPool != null && threadPool.getMaxThreads() > 1 && !threadPool.isWorkerThread() && roi1List.size() > 1;
+        if (parallel) {
+            // Initialize the voxels, so the copies can be created concurrently
+            for (ROI3D roi : Iterables.concat(roi1List, roi2List)) {
+                roi.getObject3D().getVoxels();
+            }
+        }
+        ThreadLocal<Map<Integer, ROI3D>> localRoi2Copies = ThreadLocal.withInitial(HashMap::new);
+
+        ResultsTableData[] rows = new ResultsTableData[roi1List.size()];
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger lastPercentage = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
         for (int i = 0; i < roi1List.size(); i++) {
-            ROI3D roi1 = roi1List.get(i);
-            for (int j = 0; j < roi2List.size(); j++) {
-                ROI3D roi2 = roi2List.get(j);
-                ++currentItems;
+            final int roi1Index = i;
+            tasks.add(() -> {
                 if (progressInfo.isCancelled()) {
                     return;
                 }
-                int newPercentage = (int) (1.0 * currentItems / maxItems * 100);
-                if (lastPercentage != newPercentage) {
-                    progressInfo.log(currentItems + "/" + maxItems + " (" + newPercentage + "%)");
-                    lastPercentage = newPercentage;
-                }
-
-                if (!ignoreT) {
-                    if (roi1.getFrame() != roi2.getFrame()) {
-                        continue;
+                ROI3D roi1 = parallel ? copyRoi3dForMeasurement(roi1List.get(roi1Index), physicalUnits) : roi1List.get(roi1Index);
+                int[] candidates = requireColocalization ? index.findCandidates(roi1, 0) : index.findSamePartition(roi1);
+                ResultsTableData localTarget = new ResultsTableData();
+                for (int roi2Index : candidates) {
+                    ROI3D roi2 = parallel ? localRoi2Copies.get().computeIfAbsent(roi2Index, key -> copyRoi3dForMeasurement(roi2List.get(key), physicalUnits)) : roi2List.get(roi2Index);
+                    if (requireColocalization) {
+                        if (!roi1.getObject3D().overlapBox(roi2.getObject3D())) {
+                            continue;
+                        }
+                        if (preciseColocalization) {
+                            if (!roi1.getObject3D().hasOneVoxelColoc(roi2.getObject3D())) {
+                                continue;
+                            }
+                        }
                     }
+                    int row = localTarget.addRow();
+                    generateRoi3dRelationRowMeasurements(referenceImage, roi1Index, roi2Index, measurements, physicalUnits, localTarget, roi1, roi2, row, columnPrefix);
                 }
-                if (!ignoreC) {
-                    if (roi1.getChannel() != roi2.getChannel()) {
-                        continue;
-                    }
+                rows[roi1Index] = localTarget;
+
+                int newPercentage = (int) (100.0 * finished.incrementAndGet() / roi1List.size());
+                int oldPercentage = lastPercentage.get();
+                if (newPercentage != oldPercentage && lastPercentage.compareAndSet(oldPercentage, newPercentage)) {
+                    progressInfo.log(finished.get() + "/" + roi1List.size() + " (" + newPercentage + "%)");
                 }
+            });
+        }
 
-                if (requireColocalization) {
-                    if (!roi1.getObject3D().overlapBox(roi2.getObject3D())) {
-                        continue;
-                    }
-                    if (preciseColocalization) {
-                        if (!roi1.getObject3D().hasOneVoxelColoc(roi2.getObject3D())) {
-                            continue;
-                        }
+        if (!parallel) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        } else {
+            try {
+                for (Future<Exception> future : threadPool.scheduleBatches(tasks, Math.max(1, tasks.size() / (threadPool.getMaxThreads() * 8)))) {
+                    Exception exception = future.get();
+                    if (exception != null) {
+                        throw new RuntimeException(exception);
                     }
                 }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
 
-                int row = target.addRow();
-                generateRoi3dRelationRowMeasurements(referenceImage, i, j, measurements, physicalUnits, target, roi1, roi2, row, columnPrefix);
+        if (progressInfo.isCancelled()) {
+            return;
+        }
+        for (ResultsTableData localTarget : rows) {
+            if (localTarget != null && localTarget.getRowCount() > 0) {
+                target.addRows(localTarget);
             }
         }
     }
 
+    /**
+     * Creates a deep copy of a ROI that is used for measurements in a separate thread.
+     * Copies the properties that are written into the measurements (name, comment, value, metadata, location, color).
+     *
+     * @param roi           the ROI
+     * @param physicalUnits if false, the calibration of the copy is set to pixels
+     * @return the copy
+     */
+    private static ROI3D copyRoi3dForMeasurement(ROI3D roi, boolean physicalUnits) {
+        ROI3D copy = new ROI3D(roi);
+        Object3D source = roi.getObject3D();
+        Object3D target = copy.getObject3D();
+        target.setName(source.getName());
+        target.setComment(source.getComment());
+        target.setValue(source.getValue());
+        if (!physicalUnits) {
+            target.setResXY(1);
+            target.setResZ(1);
+            target.setUnits("pixels");
+        }
+        return copy;
+    }
+
     public static void generateRoi3dRelationRowMeasurements(ImageHandler reference, int roi1Index, int roi2Index, int measurements, boolean physicalUnits, ResultsTableData target, ROI3D roi1, ROI3D roi2, int row, String columnPrefix) {
         Object3D object1 = roi1.getObject3D();
         Object3D object2 = roi2.getObject3D();
@@ -372,27 +555,48 @@ public class IJ3DUtils {
     }
 
     public static void generateRoi3dRowMeasurements(ImageHandler referenceImage, int index, ROI3D roi3D, int measurements, boolean physicalUnits, ResultsTableData target, int row, String columnPrefix) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        generateRoi3dRowMeasurements(referenceImage, index, roi3D, measurements, physicalUnits, columnPrefix, values);
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            target.setValueAt(entry.getValue(), row, entry.getKey());
+        }
+    }
+
+    /**
+     * Measures a single 3D ROI and writes the values into a map (column name to value).
+     * Only the requested measurements are computed. Does not modify the ROI calibration, so it can be used from multiple threads
+     * as long as each ROI is only measured by one thread.
+     *
+     * @param referenceImage the reference image (can be null)
+     * @param index          the index of the ROI
+     * @param roi3D          the ROI
+     * @param measurements   the measurements
+     * @param physicalUnits  measure in physical units
+     * @param columnPrefix   prefix for the columns
+     * @param target         the target map. values are either numbers or strings.
+     */
+    public static void generateRoi3dRowMeasurements(ImageHandler referenceImage, int index, ROI3D roi3D, int measurements, boolean physicalUnits, String columnPrefix, Map<String, Object> target) {
         Object3D object3D = roi3D.getObject3D();
 
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Index)) {
-            target.setValueAt(index, row, columnPrefix + "Index");
+            target.put(columnPrefix + "Index", index);
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Name)) {
-            target.setValueAt(StringUtils.nullToEmpty(object3D.getName()), row, columnPrefix + "Name");
+            target.put(columnPrefix + "Name", StringUtils.nullToEmpty(object3D.getName()));
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Comment)) {
-            target.setValueAt(StringUtils.nullToEmpty(object3D.getComment()), row, columnPrefix + "Comment");
+            target.put(columnPrefix + "Comment", StringUtils.nullToEmpty(object3D.getComment()));
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Location)) {
-            target.setValueAt(StringUtils.nullToEmpty(roi3D.getChannel()), row, columnPrefix + "Channel");
-            target.setValueAt(StringUtils.nullToEmpty(roi3D.getFrame()), row, columnPrefix + "Frame");
+            target.put(columnPrefix + "Channel", StringUtils.nullToEmpty(roi3D.getChannel()));
+            target.put(columnPrefix + "Frame", StringUtils.nullToEmpty(roi3D.getFrame()));
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Color)) {
-            target.setValueAt(ColorUtils.colorToHexString(roi3D.getFillColor()), row, columnPrefix + "FillColor");
+            target.put(columnPrefix + "FillColor", ColorUtils.colorToHexString(roi3D.getFillColor()));
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.CustomMetadata)) {
             for (Map.Entry<String, String> entry : roi3D.getMetadata().entrySet()) {
-                target.setValueAt(entry.getValue(), row, columnPrefix + "Metadata." + entry.getKey());
+                target.put(columnPrefix + "Metadata." + entry.getKey(), entry.getValue());
             }
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Area)) {
@@ -402,7 +606,7 @@ public class IJ3DUtils {
             } else {
                 value = object3D.getAreaPixels();
             }
-            target.setValueAt(value, row, columnPrefix + "Area");
+            target.put(columnPrefix + "Area", value);
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Volume)) {
             double value;
@@ -411,7 +615,7 @@ public class IJ3DUtils {
             } else {
                 value = object3D.getVolumePixels();
             }
-            target.setValueAt(value, row, columnPrefix + "Volume");
+            target.put(columnPrefix + "Volume", value);
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Center)) {
             Vector3D value;
@@ -420,33 +624,33 @@ public class IJ3DUtils {
             } else {
                 value = object3D.getCenterAsVector();
             }
-            target.setValueAt(value.getX(), row, columnPrefix + "CenterX");
-            target.setValueAt(value.getY(), row, columnPrefix + "CenterY");
-            target.setValueAt(value.getZ(), row, columnPrefix + "CenterZ");
+            target.put(columnPrefix + "CenterX", value.getX());
+            target.put(columnPrefix + "CenterY", value.getY());
+            target.put(columnPrefix + "CenterZ", value.getZ());
 
             if (referenceImage != null) {
                 double centerValue = object3D.getPixCenterValue(referenceImage);
-                target.setValueAt(centerValue, row, columnPrefix + "CenterPixelValue");
+                target.put(columnPrefix + "CenterPixelValue", centerValue);
             } else {
-                target.setValueAt(Double.NaN, row, columnPrefix + "CenterPixelValue");
+                target.put(columnPrefix + "CenterPixelValue", Double.NaN);
             }
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.ShapeMeasurements)) {
-            target.setValueAt(object3D.getCompactness(), row, columnPrefix + "Compactness");
-            target.setValueAt(object3D.getSphericity(), row, columnPrefix + "Sphericity");
-            target.setValueAt(object3D.getFeret(), row, columnPrefix + "Feret");
-            target.setValueAt(object3D.getMainElongation(), row, columnPrefix + "MainElongation");
-            target.setValueAt(object3D.getMedianElongation(), row, columnPrefix + "MedianElongation");
-            target.setValueAt(object3D.getRatioBox(), row, columnPrefix + "RatioBox");
-            target.setValueAt(object3D.getRatioEllipsoid(), row, columnPrefix + "RatioEllipsoid");
+            target.put(columnPrefix + "Compactness", object3D.getCompactness());
+            target.put(columnPrefix + "Sphericity", object3D.getSphericity());
+            target.put(columnPrefix + "Feret", object3D.getFeret());
+            target.put(columnPrefix + "MainElongation", object3D.getMainElongation());
+            target.put(columnPrefix + "MedianElongation", object3D.getMedianElongation());
+            target.put(columnPrefix + "RatioBox", object3D.getRatioBox());
+            target.put(columnPrefix + "RatioEllipsoid", object3D.getRatioEllipsoid());
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.BoundingBox)) {
-            target.setValueAt(object3D.getXmin(), row, columnPrefix + "BoundingBoxMinX");
-            target.setValueAt(object3D.getXmax(), row, columnPrefix + "BoundingBoxMaxX");
-            target.setValueAt(object3D.getYmin(), row, columnPrefix + "BoundingBoxMinY");
-            target.setValueAt(object3D.getYmax(), row, columnPrefix + "BoundingBoxMaxY");
-            target.setValueAt(object3D.getZmin(), row, columnPrefix + "BoundingBoxMinZ");
-            target.setValueAt(object3D.getZmax(), row, columnPrefix + "BoundingBoxMaxZ");
+            target.put(columnPrefix + "BoundingBoxMinX", object3D.getXmin());
+            target.put(columnPrefix + "BoundingBoxMaxX", object3D.getXmax());
+            target.put(columnPrefix + "BoundingBoxMinY", object3D.getYmin());
+            target.put(columnPrefix + "BoundingBoxMaxY", object3D.getYmax());
+            target.put(columnPrefix + "BoundingBoxMinZ", object3D.getZmin());
+            target.put(columnPrefix + "BoundingBoxMaxZ", object3D.getZmax());
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.DistCenterStats)) {
             double max, mean, sigma;
@@ -465,9 +669,9 @@ public class IJ3DUtils {
             } else {
                 sigma = object3D.getDistCenterSigmaPixel();
             }
-            target.setValueAt(max, row, columnPrefix + "DistCenterMax");
-            target.setValueAt(mean, row, columnPrefix + "DistCenterMean");
-            target.setValueAt(sigma, row, columnPrefix + "DistCenterSigma");
+            target.put(columnPrefix + "DistCenterMax", max);
+            target.put(columnPrefix + "DistCenterMean", mean);
+            target.put(columnPrefix + "DistCenterSigma", sigma);
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.PixelValueStats)) {
             if (referenceImage != null) {
@@ -479,50 +683,50 @@ public class IJ3DUtils {
                 double modeNonZero = object3D.getPixModeNonZero(referenceImage);
                 double median = object3D.getPixMedianValue(referenceImage);
                 double intDen = object3D.getIntegratedDensity(referenceImage);
-                target.setValueAt(max, row, columnPrefix + "PixelValueMax");
-                target.setValueAt(min, row, columnPrefix + "PixelValueMin");
-                target.setValueAt(mean, row, columnPrefix + "PixelValueMean");
-                target.setValueAt(median, row, columnPrefix + "PixelValueMedian");
-                target.setValueAt(sigma, row, columnPrefix + "PixelValueStdDev");
-                target.setValueAt(mode, row, columnPrefix + "PixelValueMode");
-                target.setValueAt(modeNonZero, row, columnPrefix + "PixelValueModeNonZero");
-                target.setValueAt(intDen, row, columnPrefix + "PixelValueIntDen");
+                target.put(columnPrefix + "PixelValueMax", max);
+                target.put(columnPrefix + "PixelValueMin", min);
+                target.put(columnPrefix + "PixelValueMean", mean);
+                target.put(columnPrefix + "PixelValueMedian", median);
+                target.put(columnPrefix + "PixelValueStdDev", sigma);
+                target.put(columnPrefix + "PixelValueMode", mode);
+                target.put(columnPrefix + "PixelValueModeNonZero", modeNonZero);
+                target.put(columnPrefix + "PixelValueIntDen", intDen);
             } else {
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueMax");
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueMin");
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueMean");
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueMedian");
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueStdDev");
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueMode");
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueModeNonZero");
-                target.setValueAt(Double.NaN, row, columnPrefix + "PixelValueIntDen");
+                target.put(columnPrefix + "PixelValueMax", Double.NaN);
+                target.put(columnPrefix + "PixelValueMin", Double.NaN);
+                target.put(columnPrefix + "PixelValueMean", Double.NaN);
+                target.put(columnPrefix + "PixelValueMedian", Double.NaN);
+                target.put(columnPrefix + "PixelValueStdDev", Double.NaN);
+                target.put(columnPrefix + "PixelValueMode", Double.NaN);
+                target.put(columnPrefix + "PixelValueModeNonZero", Double.NaN);
+                target.put(columnPrefix + "PixelValueIntDen", Double.NaN);
             }
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.ContourPixelValueStats)) {
             if (referenceImage != null) {
                 double mean = object3D.getPixMeanValueContour(referenceImage);
-                target.setValueAt(mean, row, columnPrefix + "ContourPixelValueMean");
+                target.put(columnPrefix + "ContourPixelValueMean", mean);
             } else {
-                target.setValueAt(Double.NaN, row, columnPrefix + "ContourPixelValueMean");
+                target.put(columnPrefix + "ContourPixelValueMean", Double.NaN);
             }
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.Calibration)) {
-            target.setValueAt(object3D.getResXY(), row, columnPrefix + "ResolutionXY");
-            target.setValueAt(object3D.getResZ(), row, columnPrefix + "ResolutionZ");
-            target.setValueAt(object3D.getUnits(), row, columnPrefix + "ResolutionUnit");
+            target.put(columnPrefix + "ResolutionXY", object3D.getResXY());
+            target.put(columnPrefix + "ResolutionZ", object3D.getResZ());
+            target.put(columnPrefix + "ResolutionUnit", object3D.getUnits());
         }
         if (ROI3DMeasurement.includes(measurements, ROI3DMeasurement.MassCenter)) {
             if (referenceImage != null) {
                 double x = object3D.getMassCenterX(referenceImage);
                 double y = object3D.getMassCenterY(referenceImage);
                 double z = object3D.getMassCenterZ(referenceImage);
-                target.setValueAt(x, row, columnPrefix + "MassCenterX");
-                target.setValueAt(y, row, columnPrefix + "MassCenterY");
-                target.setValueAt(z, row, columnPrefix + "MassCenterZ");
+                target.put(columnPrefix + "MassCenterX", x);
+                target.put(columnPrefix + "MassCenterY", y);
+                target.put(columnPrefix + "MassCenterZ", z);
             } else {
-                target.setValueAt(Double.NaN, row, columnPrefix + "MassCenterX");
-                target.setValueAt(Double.NaN, row, columnPrefix + "MassCenterY");
-                target.setValueAt(Double.NaN, row, columnPrefix + "MassCenterZ");
+                target.put(columnPrefix + "MassCenterX", Double.NaN);
+                target.put(columnPrefix + "MassCenterY", Double.NaN);
+                target.put(columnPrefix + "MassCenterZ", Double.NaN);
             }
         }
     }
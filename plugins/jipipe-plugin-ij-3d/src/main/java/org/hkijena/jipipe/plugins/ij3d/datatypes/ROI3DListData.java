@@ -23,6 +23,7 @@ import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
 import mcib3d.geom.*;
 import mcib3d.image3d.ImageHandler;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.LabelAsJIPipeCommonData;
 import org.hkijena.jipipe.api.LabelAsJIPipeHeavyData;
@@ -258,8 +259,12 @@ public class ROI3DListData extends ArrayList<ROI3D> implements JIPipeData, JIPip
     }
 
     public ResultsTableData measure(ImageHandler referenceImage, int measurements, boolean physicalUnits, String columnPrefix, JIPipeProgressInfo progressInfo) {
+        return measure(referenceImage, measurements, physicalUnits, columnPrefix, null, progressInfo);
+    }
+
+    public ResultsTableData measure(ImageHandler referenceImage, int measurements, boolean physicalUnits, String columnPrefix, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
         ResultsTableData target = new ResultsTableData();
-        IJ3DUtils.measureRoi3d(referenceImage, this, measurements, physicalUnits, columnPrefix, target, progressInfo);
+        IJ3DUtils.measureRoi3d(referenceImage, this, measurements, physicalUnits, columnPrefix, target, threadPool, progressInfo);
         return target;
     }
 
@@ -19,6 +19,7 @@ import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import mcib3d.image3d.ImageHandler;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.data.JIPipeDefaultMutableSlotConfiguration;
@@ -44,6 +45,7 @@ import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3DListData;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DRelationMeasurementExpressionParameterVariablesInfo;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DRelationMeasurementSetParameter;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
 import org.hkijena.jipipe.utils.ResourceUtils;
 import org.hkijena.jipipe.utils.StringUtils;
@@ -61,6 +63,7 @@ public class FilterRoi3DByOverlapAlgorithm extends JIPipeIteratingAlgorithm {
     private ROI3DRelationMeasurementSetParameter overlapFilterMeasurements = new ROI3DRelationMeasurementSetParameter();
     private ROIFilterSettings roi1Settings = new ROIFilterSettings();
     private ROIFilterSettings roi2Settings = new ROIFilterSettings();
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public FilterRoi3DByOverlapAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -74,6 +77,7 @@ public class FilterRoi3DByOverlapAlgorithm extends JIPipeIteratingAlgorithm {
         this.roi1Settings = new ROIFilterSettings(other.roi1Settings);
         this.roi2Settings = new ROIFilterSettings(other.roi2Settings);
         this.overlapFilterMeasurements = new ROI3DRelationMeasurementSetParameter(other.overlapFilterMeasurements);
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
         registerSubParameter(roi1Settings);
         registerSubParameter(roi2Settings);
         updateSlots();
@@ -148,18 +152,31 @@ public class FilterRoi3DByOverlapAlgorithm extends JIPipeIteratingAlgorithm {
     private ROI3DListData applyFilter(ROI3DListData roi1List, ROI3DListData roi2List, ROIFilterSettings settings, ImageHandler imageHandler, JIPipeExpressionVariablesMap variables, JIPipeProgressInfo progressInfo) {
         ROI3DListData output = new ROI3DListData();
         ResultsTableData measurements = new ResultsTableData();
-        IJ3DUtils.measureRoi3dRelation(imageHandler,
-                roi1List,
-                roi2List,
-                overlapFilterMeasurements.getNativeValue(),
-                settings.isMeasureInPhysicalUnits(),
-                settings.isRequireColocalization(),
-                settings.isPreciseColocalization(),
-                settings.isIgnoreC(),
-                settings.isIgnoreT(),
-                "",
-                measurements,
-                progressInfo.resolve("Measure Overlaps"));
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled()) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        try {
+            IJ3DUtils.measureRoi3dRelation(imageHandler,
+                    roi1List,
+                    roi2List,
+                    overlapFilterMeasurements.getNativeValue(),
+                    settings.isMeasureInPhysicalUnits(),
+                    settings.isRequireColocalization(),
+                    settings.isPreciseColocalization(),
+                    settings.isIgnoreC(),
+                    settings.isIgnoreT(),
+                    "",
+                    measurements,
+                    threadPool,
+                    progressInfo.resolve("Measure Overlaps"));
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
 
         progressInfo.log("Processing measurements ...");
         Multimap<Integer, Integer> roi1To2Overlaps = HashMultimap.create();
@@ -245,6 +262,18 @@ public class FilterRoi3DByOverlapAlgorithm extends JIPipeIteratingAlgorithm {
         this.overlapFilterMeasurements = overlapFilterMeasurements;
     }
 
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for measuring the ROI relations. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
+
     public static class ROIFilterSettings extends AbstractJIPipeParameterCollection {
         private boolean enabled = true;
         private boolean invert = false;
@@ -15,6 +15,7 @@ package org.hkijena.jipipe.plugins.ij3d.nodes.roi3d.filter;
 
 import com.google.common.primitives.Doubles;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.nodes.AddJIPipeInputSlot;
@@ -39,6 +40,7 @@ import org.hkijena.jipipe.plugins.ij3d.utils.AllROI3DMeasurementExpressionParame
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DMeasurementExpressionParameterVariablesInfo;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DMeasurementSetParameter;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
 import org.hkijena.jipipe.plugins.tables.datatypes.TableColumnData;
 
@@ -59,6 +61,7 @@ public class FilterRoi3DByStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
     private ROI3DMeasurementSetParameter measurements = new ROI3DMeasurementSetParameter();
     private boolean outputEmptyLists = true;
     private boolean measureInPhysicalUnits = true;
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     /**
      * Instantiates a new node type.
@@ -80,6 +83,7 @@ public class FilterRoi3DByStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
         this.measurements = new ROI3DMeasurementSetParameter(other.measurements);
         this.outputEmptyLists = other.outputEmptyLists;
         this.measureInPhysicalUnits = other.measureInPhysicalUnits;
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
     }
 
     @Override
@@ -91,7 +95,20 @@ public class FilterRoi3DByStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
         JIPipeExpressionVariablesMap variableSet = new JIPipeExpressionVariablesMap(iterationStep);
 
         // Obtain statistics
-        ResultsTableData statistics = inputRois.measure(IJ3DUtils.wrapImage(inputReference), measurements.getNativeValue(), measureInPhysicalUnits, "", progressInfo.resolve("Measuring ROIs"));
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled()) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        ResultsTableData statistics;
+        try {
+            statistics = inputRois.measure(IJ3DUtils.wrapImage(inputReference), measurements.getNativeValue(), measureInPhysicalUnits, "", threadPool, progressInfo.resolve("Measuring ROIs"));
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
 
         // Write statistics into variables
         for (int col = 0; col < statistics.getColumnCount(); col++) {
@@ -187,4 +204,16 @@ public class FilterRoi3DByStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
     public void setMeasureInPhysicalUnits(boolean measureInPhysicalUnits) {
         this.measureInPhysicalUnits = measureInPhysicalUnits;
     }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for measuring the ROI. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
 }
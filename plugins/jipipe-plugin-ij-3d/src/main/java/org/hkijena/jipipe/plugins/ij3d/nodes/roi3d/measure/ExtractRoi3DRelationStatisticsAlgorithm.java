@@ -15,6 +15,7 @@ package org.hkijena.jipipe.plugins.ij3d.nodes.roi3d.measure;
 
 import mcib3d.image3d.ImageHandler;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.nodes.AddJIPipeInputSlot;
@@ -30,6 +31,7 @@ import org.hkijena.jipipe.plugins.ij3d.IJ3DUtils;
 import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3DListData;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DRelationMeasurementSetParameter;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
 
 @SetJIPipeDocumentation(name = "Extract pairwise 3D ROI statistics", description = "Extracts all pairwise statistics between the 3D ROI")
@@ -49,6 +51,7 @@ public class ExtractRoi3DRelationStatisticsAlgorithm extends JIPipeIteratingAlgo
 
     private boolean ignoreC = true;
     private boolean ignoreT = true;
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public ExtractRoi3DRelationStatisticsAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -62,6 +65,7 @@ public class ExtractRoi3DRelationStatisticsAlgorithm extends JIPipeIteratingAlgo
         this.preciseColocalization = other.preciseColocalization;
         this.ignoreC = other.ignoreC;
         this.ignoreT = other.ignoreT;
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
     }
 
     @Override
@@ -71,18 +75,31 @@ public class ExtractRoi3DRelationStatisticsAlgorithm extends JIPipeIteratingAlgo
         ImageHandler imageHandler = IJ3DUtils.wrapImage(iterationStep.getInputData("Reference", ImagePlusData.class, progressInfo));
         ResultsTableData outputResults = new ResultsTableData();
 
-        IJ3DUtils.measureRoi3dRelation(imageHandler,
-                roi1List,
-                roi2List,
-                measurements.getNativeValue(),
-                measureInPhysicalUnits,
-                requireColocalization,
-                preciseColocalization,
-                ignoreC,
-                ignoreT,
-                "",
-                outputResults,
-                progressInfo.resolve("Measure ROI"));
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled()) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        try {
+            IJ3DUtils.measureRoi3dRelation(imageHandler,
+                    roi1List,
+                    roi2List,
+                    measurements.getNativeValue(),
+                    measureInPhysicalUnits,
+                    requireColocalization,
+                    preciseColocalization,
+                    ignoreC,
+                    ignoreT,
+                    "",
+                    outputResults,
+                    threadPool,
+                    progressInfo.resolve("Measure ROI"));
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
 
         iterationStep.addOutputData(getFirstOutputSlot(), outputResults, progressInfo);
     }
@@ -153,4 +170,16 @@ public class ExtractRoi3DRelationStatisticsAlgorithm extends JIPipeIteratingAlgo
     public void setMeasureInPhysicalUnits(boolean measureInPhysicalUnits) {
         this.measureInPhysicalUnits = measureInPhysicalUnits;
     }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for measuring the ROI relations. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
 }
@@ -15,6 +15,7 @@ package org.hkijena.jipipe.plugins.ij3d.nodes.roi3d.measure;
 
 import mcib3d.image3d.ImageHandler;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.nodes.*;
@@ -27,6 +28,7 @@ import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3DListData;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DMeasurementSetParameter;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
 
 @SetJIPipeDocumentation(name = "Extract ROI 3D statistics", description = "Generates a results table containing 3D ROI statistics. If a reference image is provided, the statistics are calculated for the reference image. Otherwise, " +
@@ -40,6 +42,7 @@ public class ExtractRoi3DStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
 
     private boolean measureInPhysicalUnits = true;
     private ROI3DMeasurementSetParameter measurements = new ROI3DMeasurementSetParameter();
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public ExtractRoi3DStatisticsAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -48,6 +51,7 @@ public class ExtractRoi3DStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
     public ExtractRoi3DStatisticsAlgorithm(ExtractRoi3DStatisticsAlgorithm other) {
         super(other);
         this.measureInPhysicalUnits = other.measureInPhysicalUnits;
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
         this.measurements = new ROI3DMeasurementSetParameter(other.measurements);
     }
 
@@ -61,7 +65,20 @@ public class ExtractRoi3DStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
         } else {
             referenceHandler = ImageHandler.wrap(reference.getImage());
         }
-        ResultsTableData result = roi.measure(referenceHandler, measurements.getNativeValue(), measureInPhysicalUnits, "", progressInfo.resolve("Measure 3D objects"));
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled()) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        ResultsTableData result;
+        try {
+            result = roi.measure(referenceHandler, measurements.getNativeValue(), measureInPhysicalUnits, "", threadPool, progressInfo.resolve("Measure 3D objects"));
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
         iterationStep.addOutputData(getFirstOutputSlot(), result, progressInfo);
     }
 
@@ -86,4 +103,16 @@ public class ExtractRoi3DStatisticsAlgorithm extends JIPipeIteratingAlgorithm {
     public void setMeasureInPhysicalUnits(boolean measureInPhysicalUnits) {
         this.measureInPhysicalUnits = measureInPhysicalUnits;
     }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for measuring the ROI. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
 }
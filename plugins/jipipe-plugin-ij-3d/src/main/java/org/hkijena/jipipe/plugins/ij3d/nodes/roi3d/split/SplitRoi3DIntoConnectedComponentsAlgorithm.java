@@ -15,6 +15,7 @@ package org.hkijena.jipipe.plugins.ij3d.nodes.roi3d.split;
 
 import mcib3d.image3d.ImageHandler;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotation;
@@ -39,6 +40,7 @@ import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3DListData;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DRelationMeasurementExpressionParameterVariablesInfo;
 import org.hkijena.jipipe.plugins.ij3d.utils.ROI3DRelationMeasurementSetParameter;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
 import org.hkijena.jipipe.utils.StringUtils;
@@ -65,6 +67,7 @@ public class SplitRoi3DIntoConnectedComponentsAlgorithm extends JIPipeIteratingA
 
     private boolean ignoreC = true;
     private boolean ignoreT = true;
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public SplitRoi3DIntoConnectedComponentsAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -80,6 +83,7 @@ public class SplitRoi3DIntoConnectedComponentsAlgorithm extends JIPipeIteratingA
         this.preciseColocalization = other.preciseColocalization;
         this.ignoreC = other.ignoreC;
         this.ignoreT = other.ignoreT;
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
     }
 
     @Override
@@ -90,18 +94,31 @@ public class SplitRoi3DIntoConnectedComponentsAlgorithm extends JIPipeIteratingA
         JIPipeExpressionVariablesMap variables = new JIPipeExpressionVariablesMap(iterationStep);
 
         ResultsTableData measurements = new ResultsTableData();
-        IJ3DUtils.measureRoi3dRelation(imageHandler,
-                roiList,
-                roiList,
-                overlapFilterMeasurements.getNativeValue(),
-                measureInPhysicalUnits,
-                requireColocalization,
-                preciseColocalization,
-                ignoreC,
-                ignoreT,
-                "",
-                measurements,
-                progressInfo.resolve("Measure overlap"));
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled()) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        try {
+            IJ3DUtils.measureRoi3dRelation(imageHandler,
+                    roiList,
+                    roiList,
+                    overlapFilterMeasurements.getNativeValue(),
+                    measureInPhysicalUnits,
+                    requireColocalization,
+                    preciseColocalization,
+                    ignoreC,
+                    ignoreT,
+                    "",
+                    measurements,
+                    threadPool,
+                    progressInfo.resolve("Measure overlap"));
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
 
         progressInfo.log("Generating graph ...");
         DefaultUndirectedGraph<Integer, DefaultEdge> componentGraph = new DefaultUndirectedGraph<>(DefaultEdge.class);
@@ -243,4 +260,16 @@ public class SplitRoi3DIntoConnectedComponentsAlgorithm extends JIPipeIteratingA
     public void setMeasureInPhysicalUnits(boolean measureInPhysicalUnits) {
         this.measureInPhysicalUnits = measureInPhysicalUnits;
     }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for measuring the ROI relations. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
 }
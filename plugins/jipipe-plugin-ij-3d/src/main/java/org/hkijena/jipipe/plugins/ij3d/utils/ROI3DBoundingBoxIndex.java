@@ -0,0 +1,159 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.ij3d.utils;
+
+import gnu.trove.list.array.TIntArrayList;
+import mcib3d.geom.Object3D;
+import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3D;
+
+import java.util.*;
+
+/**
+ * Index over the bounding boxes of a list of {@link ROI3D}.
+ * The ROI are partitioned by channel and frame (unless ignored). Within each partition, the ROI are sorted by their minimum X coordinate,
+ * which allows to find all ROI whose bounding box intersects with a query box via a sorted sweep.
+ * The index is immutable after construction and can be queried from multiple threads.
+ */
+public class ROI3DBoundingBoxIndex {
+
+    private final boolean ignoreC;
+    private final boolean ignoreT;
+    private final Map<List<Integer>, Partition> partitions = new HashMap<>();
+
+    /**
+     * Creates a new index
+     *
+     * @param rois    the ROI
+     * @param ignoreC if the channel should be ignored
+     * @param ignoreT if the frame should be ignored
+     */
+    public ROI3DBoundingBoxIndex(List<ROI3D> rois, boolean ignoreC, boolean ignoreT) {
+        this.ignoreC = ignoreC;
+        this.ignoreT = ignoreT;
+        Map<List<Integer>, TIntArrayList> groups = new HashMap<>();
+        for (int i = 0; i < rois.size(); i++) {
+            groups.computeIfAbsent(getPartitionKey(rois.get(i)), key -> new TIntArrayList()).add(i);
+        }
+        for (Map.Entry<List<Integer>, TIntArrayList> entry : groups.entrySet()) {
+            partitions.put(entry.getKey(), new Partition(rois, entry.getValue().toArray()));
+        }
+    }
+
+    private List<Integer> getPartitionKey(ROI3D roi) {
+        return Arrays.asList(ignoreC ? 0 : roi.getChannel(), ignoreT ? 0 : roi.getFrame());
+    }
+
+    /**
+     * Returns the indices of all ROI that have the same channel/frame (unless ignored) and
+     * whose bounding box intersects with the bounding box of the query ROI (extended by a margin).
+     *
+     * @param query  the query ROI
+     * @param margin margin in pixels that is added to the query box (zero for only intersecting boxes)
+     * @return indices of the candidate ROI (sorted ascending)
+     */
+    public int[] findCandidates(ROI3D query, int margin) {
+        Partition partition = partitions.get(getPartitionKey(query));
+        if (partition == null) {
+            return new int[0];
+        }
+        Object3D object3D = query.getObject3D();
+        return partition.query(object3D.getXmin() - margin, object3D.getXmax() + margin,
+                object3D.getYmin() - margin, object3D.getYmax() + margin,
+                object3D.getZmin() - margin, object3D.getZmax() + margin);
+    }
+
+    /**
+     * Returns the indices of all ROI that have the same channel/frame (unless ignored)
+     *
+     * @param query the query ROI
+     * @return indices of the ROI (sorted ascending)
+     */
+    public int[] findSamePartition(ROI3D query) {
+        Partition partition = partitions.get(getPartitionKey(query));
+        if (partition == null) {
+            return new int[0];
+        }
+        int[] result = Arrays.copyOf(partition.indices, partition.indices.length);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static class Partition {
+        private final int[] indices;
+        private final int[] xMin;
+        private final int[] xMax;
+        private final int[] yMin;
+        private final int[] yMax;
+        private final int[] zMin;
+        private final int[] zMax;
+        private final int maxWidth;
+
+        private Partition(List<ROI3D> rois, int[] roiIndices) {
+            int n = roiIndices.length;
+            int[][] boxes = new int[n][];
+            for (int i = 0; i < n; i++) {
+                Object3D object3D = rois.get(roiIndices[i]).getObject3D();
+                boxes[i] = new int[]{object3D.getXmin(), object3D.getXmax(), object3D.getYmin(), object3D.getYmax(), object3D.getZmin(), object3D.getZmax(), roiIndices[i]};
+            }
+            Arrays.sort(boxes, Comparator.comparingInt(box -> box[0]));
+            this.indices = new int[n];
+            this.xMin = new int[n];
+            this.xMax = new int[n];
+            this.yMin = new int[n];
+            this.yMax = new int[n];
+            this.zMin = new int[n];
+            this.zMax = new int[n];
+            int width = 0;
+            for (int i = 0; i < n; i++) {
+                int[] box = boxes[i];
+                xMin[i] = box[0];
+                xMax[i] = box[1];
+                yMin[i] = box[2];
+                yMax[i] = box[3];
+                zMin[i] = box[4];
+                zMax[i] = box[5];
+                indices[i] = box[6];
+                width = Math.max(width, box[1] - box[0]);
+            }
+            this.maxWidth = width;
+        }
+
+        private int[] query(int qxMin, int qxMax, int qyMin, int qyMax, int qzMin, int qzMax) {
+            // All boxes that can intersect start within [qxMin - maxWidth, qxMax]
+            int start = lowerBound(qxMin - maxWidth);
+            TIntArrayList result = new TIntArrayList();
+            for (int i = start; i < indices.length && xMin[i] <= qxMax; i++) {
+                if (xMax[i] >= qxMin && yMax[i] >= qyMin && yMin[i] <= qyMax && zMax[i] >= qzMin && zMin[i] <= qzMax) {
+                    result.add(indices[i]);
+                }
+            }
+            result.sort();
+            return result.toArray();
+        }
+
+        private int lowerBound(int value) {
+            int low = 0;
+            int high = xMin.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (xMin[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
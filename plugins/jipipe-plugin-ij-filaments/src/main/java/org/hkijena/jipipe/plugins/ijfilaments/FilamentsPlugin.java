@@ -45,6 +45,7 @@ import org.hkijena.jipipe.plugins.ijfilaments.nodes.split.SplitFilamentsIntoConn
 import org.hkijena.jipipe.plugins.ijfilaments.nodes.split.SplitFilamentsIntoCyclesAlgorithm;
 import org.hkijena.jipipe.plugins.ijfilaments.parameters.CycleFinderAlgorithm;
 import org.hkijena.jipipe.plugins.ijfilaments.settings.FilamentsPluginProjectSettings;
+import org.hkijena.jipipe.plugins.ijfilaments.settings.FilamentsStorageApplicationSettings;
 import org.hkijena.jipipe.plugins.ijfilaments.settings.ImageViewerUIFilamentDisplayApplicationSettings;
 import org.hkijena.jipipe.plugins.ijfilaments.settings.TSOAXApplicationSettings;
 import org.hkijena.jipipe.plugins.ijfilaments.viewers.Filaments3DGraphDataViewer;
@@ -156,6 +157,7 @@ public class FilamentsPlugin extends JIPipePrepackagedDefaultJavaPlugin {
         registerNodeTypeCategory(new FilamentsNodeTypeCategory());
         registerApplicationSettingsSheet(new ImageViewerUIFilamentDisplayApplicationSettings());
         registerApplicationSettingsSheet(tsoaxApplicationSettings);
+        registerApplicationSettingsSheet(new FilamentsStorageApplicationSettings());
         registerProjectSettingsSheet(FilamentsPluginProjectSettings.class);
 
         registerDatatype("filaments", Filaments3DGraphData.class, RESOURCES.getIcon16URLFromResources("data-type-filaments.png"));
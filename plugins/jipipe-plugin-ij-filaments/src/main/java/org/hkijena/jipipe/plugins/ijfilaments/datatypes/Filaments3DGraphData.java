@@ -27,6 +27,7 @@ import ij.process.ColorProcessor;
 import ij.process.ImageProcessor;
 import mcib3d.geom.Vector3D;
 import mcib3d.image3d.ImageHandler;
+import org.hkijena.jipipe.JIPipe;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.data.JIPipeData;
@@ -41,6 +42,7 @@ import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3D;
 import org.hkijena.jipipe.plugins.ij3d.datatypes.ROI3DListData;
 import org.hkijena.jipipe.plugins.ij3d.utils.ExtendedObjectCreator3D;
 import org.hkijena.jipipe.plugins.ijfilaments.display.FilamentsManagerPlugin2D;
+import org.hkijena.jipipe.plugins.ijfilaments.settings.FilamentsStorageApplicationSettings;
 import org.hkijena.jipipe.plugins.ijfilaments.util.*;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ROI2DListData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJIterationUtils;
@@ -60,11 +62,12 @@ import org.hkijena.jipipe.utils.json.JsonUtils;
 import org.jgrapht.Graphs;
 import org.jgrapht.alg.connectivity.ConnectivityInspector;
 import org.jgrapht.graph.SimpleGraph;
-import org.jgrapht.nio.json.JSONImporter;
 import org.scijava.vecmath.Vector3d;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -75,7 +78,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @SetJIPipeDocumentation(name = "Filaments 3D", description = "Stores 3D filaments as graph")
-@JIPipeDataStorageDocumentation(humanReadableDescription = "A *.json file containing a JGraphT graph in its serialized form",
+@JIPipeDataStorageDocumentation(humanReadableDescription = "A *.filaments file containing the graph in a chunked binary format or a *.json file containing a JGraphT graph in its serialized form",
         jsonSchemaURL = "https://jipipe.org/schemas/datatypes/jipipe-json-data.schema.json")
 @JsonSerialize(using = FilamentsDataSerializer.class)
 @JsonDeserialize(using = FilamentsDataDeserializer.class)
@@ -92,12 +95,24 @@ public class Filaments3DGraphData extends SimpleGraph<FilamentVertex, FilamentEd
 
     public static Filaments3DGraphData importData(JIPipeReadDataStorage storage, JIPipeProgressInfo progressInfo) {
         Filaments3DGraphData graph;
-        JSONImporter<FilamentVertex, FilamentEdge> importer = new JSONImporter<>();
-        Path jsonPath = storage.findFileByExtension(".json").get();
-        try (InputStream stream = storage.open(jsonPath)) {
-            graph = JsonUtils.getObjectMapper().readValue(stream, Filaments3DGraphData.class);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        Optional<Path> binaryPath = storage.findFileByExtension(FilamentsBinaryFormat.EXTENSION);
+        if (binaryPath.isPresent()) {
+            try (InputStream stream = storage.open(binaryPath.get())) {
+                graph = FilamentsBinaryFormat.read(stream, progressInfo);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        } else {
+            Path jsonPath = storage.findFileByExtension(".json").get();
+            try (InputStream stream = new BufferedInputStream(storage.open(jsonPath))) {
+                if (FilamentsBinaryFormat.isBinaryFormat(stream)) {
+                    graph = FilamentsBinaryFormat.read(stream, progressInfo);
+                } else {
+                    graph = JsonUtils.getObjectMapper().readValue(stream, Filaments3DGraphData.class);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
         }
         return graph;
     }
@@ -208,10 +223,19 @@ public class Filaments3DGraphData extends SimpleGraph<FilamentVertex, FilamentEd
 
     @Override
     public void exportData(JIPipeWriteDataStorage storage, String name, boolean forceName, JIPipeProgressInfo progressInfo) {
-        try (OutputStream stream = storage.write("graph.json")) {
-            JsonUtils.getObjectMapper().writerWithDefaultPrettyPrinter().writeValue(stream, this);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        FilamentsStorageApplicationSettings settings = JIPipe.isInstantiated() ? FilamentsStorageApplicationSettings.getInstance() : new FilamentsStorageApplicationSettings();
+        if (settings.isUseBinaryFormat()) {
+            try (OutputStream stream = new BufferedOutputStream(storage.write("graph" + FilamentsBinaryFormat.EXTENSION))) {
+                FilamentsBinaryFormat.write(this, stream, settings.isCompress(), settings.getChunkSize(), progressInfo);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        } else {
+            try (OutputStream stream = storage.write("graph.json")) {
+                JsonUtils.getObjectMapper().writerWithDefaultPrettyPrinter().writeValue(stream, this);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
         }
     }
 
@@ -818,16 +842,23 @@ public class Filaments3DGraphData extends SimpleGraph<FilamentVertex, FilamentEd
         return new ConnectivityInspector<>(this);
     }
 
+    /**
+     * Measures all connected components.
+     * The measurements are calculated on the compact representation of the graph.
+     *
+     * @return the measurements
+     */
     public ResultsTableData measureComponents() {
-        ResultsTableData measurements = new ResultsTableData();
-        ConnectivityInspector<FilamentVertex, FilamentEdge> connectivityInspector = getConnectivityInspector();
-        List<Set<FilamentVertex>> connectedSets = connectivityInspector.connectedSets();
-        String consensusPhysicalSizeUnit = getConsensusPhysicalSizeUnit();
-        for (int i = 0; i < connectedSets.size(); i++) {
-            Set<FilamentVertex> vertices = connectedSets.get(i);
-            measureComponent(measurements, consensusPhysicalSizeUnit, vertices);
-        }
-        return measurements;
+        return toCompact().measureComponents();
+    }
+
+    /**
+     * Converts the graph into its compact representation
+     *
+     * @return the compact graph
+     */
+    public CompactFilaments3DGraph toCompact() {
+        return CompactFilaments3DGraph.fromGraph(this);
     }
 
     public void measureComponent(ResultsTableData measurements, String consensusPhysicalSizeUnit, Set<FilamentVertex> vertices) {
@@ -13,6 +13,7 @@
 
 package org.hkijena.jipipe.plugins.ijfilaments.nodes.filter;
 
+import gnu.trove.list.array.TIntArrayList;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
@@ -34,15 +35,11 @@ import org.hkijena.jipipe.plugins.ijfilaments.FilamentsNodeTypeCategory;
 import org.hkijena.jipipe.plugins.ijfilaments.datatypes.Filaments3DGraphData;
 import org.hkijena.jipipe.plugins.ijfilaments.util.AllFilamentComponentVariablesInfo;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentComponentVariablesInfo;
-import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentEdge;
-import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertex;
+import org.hkijena.jipipe.plugins.ijfilaments.util.CompactFilaments3DGraph;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 @SetJIPipeDocumentation(name = "Filter filament components", description = "Filters filament connected components by various properties")
 @ConfigureJIPipeNode(nodeTypeCategory = FilamentsNodeTypeCategory.class, menuPath = "Filter")
@@ -64,22 +61,20 @@ public class FilterFilamentsByProperties extends JIPipeSimpleIteratingAlgorithm
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         Filaments3DGraphData inputData = iterationStep.getInputData(getFirstInputSlot(), Filaments3DGraphData.class, progressInfo);
-        Filaments3DGraphData outputData = new Filaments3DGraphData(inputData);
+        CompactFilaments3DGraph compactGraph = inputData.toCompact();
 
         JIPipeExpressionVariablesMap variables = new JIPipeExpressionVariablesMap(iterationStep);
 
-        ConnectivityInspector<FilamentVertex, FilamentEdge> connectivityInspector = outputData.getConnectivityInspector();
-        List<Set<FilamentVertex>> connectedSets = connectivityInspector.connectedSets();
-        String consensusPhysicalSizeUnit = outputData.getConsensusPhysicalSizeUnit();
-        Set<FilamentVertex> toDelete = new HashSet<>();
+        List<int[]> components = compactGraph.findComponents();
+        String consensusPhysicalSizeUnit = compactGraph.getConsensusPhysicalSizeUnit();
+        TIntArrayList toKeep = new TIntArrayList();
         List<ResultsTableData> measurementList = new ArrayList<>();
         ResultsTableData mergedMeasurements = new ResultsTableData();
 
         // Collect all measurements
-        for (int i = 0; i < connectedSets.size(); i++) {
+        for (int i = 0; i < components.size(); i++) {
             ResultsTableData measurements = new ResultsTableData();
-            Set<FilamentVertex> vertices = connectedSets.get(i);
-            outputData.measureComponent(measurements, consensusPhysicalSizeUnit, vertices);
+            compactGraph.measureComponent(measurements, consensusPhysicalSizeUnit, components.get(i));
 
             measurementList.add(measurements);
             mergedMeasurements.addRows(measurements);
@@ -91,20 +86,20 @@ public class FilterFilamentsByProperties extends JIPipeSimpleIteratingAlgorithm
         }
 
         // Filter
-        for (int i = 0; i < connectedSets.size(); i++) {
+        for (int i = 0; i < components.size(); i++) {
             ResultsTableData measurements = measurementList.get(i);
-            Set<FilamentVertex> vertices = connectedSets.get(i);
             for (int col = 0; col < measurements.getColumnCount(); col++) {
                 variables.set(measurements.getColumnName(col), measurements.getValueAt(0, col));
             }
 
-            if (!filter.test(variables)) {
-                toDelete.addAll(vertices);
+            if (filter.test(variables)) {
+                toKeep.addAll(components.get(i));
             }
         }
 
-
-        outputData.removeAllVertices(toDelete);
+        // Keep the original vertex order
+        toKeep.sort();
+        Filaments3DGraphData outputData = compactGraph.extract(toKeep.toArray()).toGraph();
         iterationStep.addOutputData(getFirstOutputSlot(), outputData, progressInfo);
     }
 
@@ -37,11 +37,13 @@ import org.hkijena.jipipe.plugins.ijfilaments.parameters.VertexMaskParameter;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentEdge;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentUnconnectedEdgeVariablesInfo;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertex;
+import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertexKDTree;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertexVariablesInfo;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.greyscale.ImagePlusGreyscaleMaskData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJUtils;
 import org.hkijena.jipipe.plugins.parameters.library.colors.OptionalColorParameter;
 import org.hkijena.jipipe.plugins.parameters.library.pairs.StringAndStringPairParameter;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalDoubleParameter;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.jetbrains.annotations.NotNull;
 import org.jgrapht.GraphPath;
@@ -74,6 +76,7 @@ public class ConnectVerticesAlgorithm extends JIPipeIteratingAlgorithm {
     private boolean ignoreLimitConnectionsForSource = false;
     private boolean isIgnoreLimitConnectionsForTarget = false;
     private StringAndStringPairParameter.List newEdgeMetadata = new StringAndStringPairParameter.List();
+    private OptionalDoubleParameter maxSearchRadius = new OptionalDoubleParameter(100, false);
 
     public ConnectVerticesAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -96,6 +99,20 @@ public class ConnectVerticesAlgorithm extends JIPipeIteratingAlgorithm {
         this.ignoreLimitConnectionsForSource = other.ignoreLimitConnectionsForSource;
         this.isIgnoreLimitConnectionsForTarget = other.isIgnoreLimitConnectionsForTarget;
         this.newEdgeMetadata = new StringAndStringPairParameter.List(other.newEdgeMetadata);
+        this.maxSearchRadius = new OptionalDoubleParameter(other.maxSearchRadius);
+    }
+
+    @SetJIPipeDocumentation(name = "Limit search radius", description = "If enabled, only target vertices within the specified (euclidean) distance of the source vertex are considered as candidates. " +
+            "The candidates are looked up via a spatial index, which greatly reduces the number of evaluated expressions for large filament graphs. " +
+            "Should be set to the maximum edge length allowed by the filter function.")
+    @JIPipeParameter("max-search-radius")
+    public OptionalDoubleParameter getMaxSearchRadius() {
+        return maxSearchRadius;
+    }
+
+    @JIPipeParameter("max-search-radius")
+    public void setMaxSearchRadius(OptionalDoubleParameter maxSearchRadius) {
+        this.maxSearchRadius = maxSearchRadius;
     }
 
     @SetJIPipeDocumentation(name = "Bypass connection limit for sources", description = "If enabled, the 'Limit connections' parameter does not apply to source vertices.")
@@ -331,6 +348,12 @@ public class ConnectVerticesAlgorithm extends JIPipeIteratingAlgorithm {
         progressInfo.log("Filtering connection targets ...");
         Set<FilamentVertex> targets = VertexMaskParameter.filter(targetVertexFilter, outputData, null, variables);
 
+        FilamentVertexKDTree targetTree = null;
+        if (maxSearchRadius.isEnabled()) {
+            progressInfo.log("Building spatial index over " + targets.size() + " target vertices ...");
+            targetTree = new FilamentVertexKDTree(targets);
+        }
+
         HashSet<EdgeCandidate> candidates = new HashSet<>();
         DijkstraShortestPath<FilamentVertex, FilamentEdge> outputDataInspector = findPath ? new DijkstraShortestPath<>(outputData) : null;
         for (FilamentVertex current : sources) {
@@ -364,8 +387,10 @@ public class ConnectVerticesAlgorithm extends JIPipeIteratingAlgorithm {
                 currentDirection.normalize();
             }
 
+            Collection<FilamentVertex> candidateTargets = targetTree != null ? targetTree.findWithinRadius(current.getSpatialLocation(), maxSearchRadius.getContent()) : targets;
+
             outer:
-            for (FilamentVertex other : targets) {
+            for (FilamentVertex other : candidateTargets) {
                 if (other != current) {
                     if (!enable3D && current.getSpatialLocation().getZ() != other.getSpatialLocation().getZ()) {
                         continue;
@@ -16,6 +16,7 @@ package org.hkijena.jipipe.plugins.ijfilaments.nodes.modify;
 import ij.ImagePlus;
 import ij.process.ImageProcessor;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.nodes.AddJIPipeInputSlot;
@@ -37,6 +38,7 @@ import org.hkijena.jipipe.plugins.ijfilaments.datatypes.Filaments3DGraphData;
 import org.hkijena.jipipe.plugins.ijfilaments.parameters.VertexMaskParameter;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentEdge;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertex;
+import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertexKDTree;
 import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertexVariablesInfo;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.greyscale.ImagePlusGreyscaleMaskData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJUtils;
@@ -53,7 +55,10 @@ import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
 import org.scijava.vecmath.Vector3d;
 
 import java.awt.*;
+import java.util.List;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @SetJIPipeDocumentation(name = "Connect filament vertices (Fast)", description = "Connect existing vertices based on distance.")
@@ -78,6 +83,7 @@ public class ConnectVerticesFastAlgorithm extends JIPipeIteratingAlgorithm {
     private boolean ignoreLimitConnectionsForSource = false;
     private boolean isIgnoreLimitConnectionsForTarget = false;
     private StringAndStringPairParameter.List newEdgeMetadata = new StringAndStringPairParameter.List();
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public ConnectVerticesFastAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -101,6 +107,19 @@ public class ConnectVerticesFastAlgorithm extends JIPipeIteratingAlgorithm {
         this.ignoreLimitConnectionsForSource = other.ignoreLimitConnectionsForSource;
         this.isIgnoreLimitConnectionsForTarget = other.isIgnoreLimitConnectionsForTarget;
         this.newEdgeMetadata = new StringAndStringPairParameter.List(other.newEdgeMetadata);
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
+    }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for finding candidate edges. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
     }
 
     @SetJIPipeDocumentation(name = "Set new edges metadata", description = "Allows to set the metadata of newly created edges")
@@ -315,94 +334,57 @@ public class ConnectVerticesFastAlgorithm extends JIPipeIteratingAlgorithm {
         progressInfo.log("Filtering connection targets ...");
         Set<FilamentVertex> targets = VertexMaskParameter.filter(targetVertexFilter, outputData, null, variables);
 
-        HashSet<EdgeCandidate> candidates = new HashSet<>();
+        progressInfo.log("Building spatial index over " + targets.size() + " target vertices ...");
+        FilamentVertexKDTree targetTree = new FilamentVertexKDTree(targets);
         DijkstraShortestPath<FilamentVertex, FilamentEdge> outputDataInspector = ignoreIfHasPath ? new DijkstraShortestPath<>(outputData) : null;
-        for (FilamentVertex current : sources) {
 
-            int currentDegree = outputData.degreeOf(current);
-            if (currentDegree < candidateVertexDegreeLimit.getX() || currentDegree > candidateVertexDegreeLimit.getY()) {
-                continue;
+        // The graph is not modified while looking for candidates, so the sources can be processed in parallel
+        List<FilamentVertex> sourceList = new ArrayList<>(sources);
+        List<List<EdgeCandidate>> candidatesPerSource = new ArrayList<>(Collections.nCopies(sourceList.size(), null));
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < sourceList.size(); i++) {
+            final int sourceIndex = i;
+            tasks.add(() -> {
+                if (!progressInfo.isCancelled()) {
+                    candidatesPerSource.set(sourceIndex, findCandidates(sourceList.get(sourceIndex), targetTree, outputData, outputDataInspector, mask));
+                }
+            });
+        }
+        // Use the run's thread pool unless the number of threads is overridden
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled() || threadPool == null) {
+            int threads = numThreads.getContentOrDefault(1);
+            if (threads <= 0) {
+                threads = Runtime.getRuntime().availableProcessors();
             }
-            double currentValue = current.getValue();
-            if (currentValue < candidateVertexValueLimit.getX() || currentValue > candidateVertexValueLimit.getY()) {
-                continue;
+            threadPool = new JIPipeFixedThreadPool(threads);
+            isCustomThreadPool = true;
+        }
+        int threads = threadPool.getMaxThreads();
+        progressInfo.log("Finding candidate edges for " + sourceList.size() + " source vertices (" + threads + " threads) ...");
+        try {
+            for (Future<Exception> future : threadPool.scheduleBatches(tasks, Math.max(1, tasks.size() / (threads * 8)))) {
+                Exception exception = future.get();
+                if (exception != null) {
+                    throw new RuntimeException(exception);
+                }
             }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
+        if (progressInfo.isCancelled()) {
+            return;
+        }
 
-            Vector3d currentV1 = current.getSpatialLocation().toSciJavaVector3d();
-
-            outer:
-            for (FilamentVertex other : targets) {
-                if (other != current) {
-                    if (!enable3D && current.getSpatialLocation().getZ() != other.getSpatialLocation().getZ()) {
-                        continue;
-                    }
-                    if (!connectAcrossC && current.getNonSpatialLocation().getChannel() != other.getNonSpatialLocation().getChannel()) {
-                        continue;
-                    }
-                    if (!connectAcrossT && current.getNonSpatialLocation().getFrame() != other.getNonSpatialLocation().getFrame()) {
-                        continue;
-                    }
-                    if (outputData.containsEdge(current, other)) {
-                        continue;
-                    }
-                    int otherDegree = outputData.degreeOf(other);
-                    if (otherDegree < candidateVertexDegreeLimit.getX() || otherDegree > candidateVertexDegreeLimit.getY()) {
-                        continue;
-                    }
-                    double otherValue = other.getValue();
-                    if (otherValue < candidateVertexValueLimit.getX() || otherValue > candidateVertexValueLimit.getY()) {
-                        continue;
-                    }
-                    if (progressInfo.isCancelled()) {
-                        return;
-                    }
-
-                    if (mask != null) {
-                        // Just test at vertex location
-                        Vector3d testLocation = new Vector3d(currentV1.x,
-                                currentV1.y,
-                                currentV1.z);
-                        int x = Math.max(0, Math.min(mask.getWidth() - 1, (int) Math.round(testLocation.x)));
-                        int y = (int) Math.round(testLocation.y);
-                        int z = Math.max(0, (int) Math.round(testLocation.z));
-
-                        ImageProcessor ip = ImageJUtils.getSliceZero(mask, 0, z, 0);
-                        if (ip.get(x, y) == 0) {
-                            continue;
-                        }
-                    }
-
-                    if (progressInfo.isCancelled()) {
-                        return;
-                    }
-
-                    // Calculate other direction
-                    Vector3d otherV1 = other.getSpatialLocation().toSciJavaVector3d();
-
-                    if (!enable3D) {
-                        otherV1.z = 0;
-                    }
-
-                    // Check length limits
-                    double distance = current.getSpatialLocation().distanceTo(other.getSpatialLocation());
-                    if (distance < this.lengthRange.getX() || distance > this.lengthRange.getY()) {
-                        continue;
-                    }
-
-                    // Check path exists
-                    if (ignoreIfHasPath && outputDataInspector != null) {
-                        GraphPath<FilamentVertex, FilamentEdge> path = outputDataInspector.getPath(current, other);
-                        if (path != null) {
-                            continue;
-                        }
-                    }
-
-                    // Add as candidate
-                    double score = this.limitConnectionsLengthSortOrder == SortOrder.Ascending ? distance : -distance;
-                    EdgeCandidate candidate = new EdgeCandidate(current, other, score);
-                    candidates.add(candidate);
-
-                }
+        HashSet<EdgeCandidate> candidates = new HashSet<>();
+        for (List<EdgeCandidate> sourceCandidates : candidatesPerSource) {
+            if (sourceCandidates != null) {
+                candidates.addAll(sourceCandidates);
             }
         }
 
@@ -450,6 +432,79 @@ public class ConnectVerticesFastAlgorithm extends JIPipeIteratingAlgorithm {
         iterationStep.addOutputData(getFirstOutputSlot(), outputData, progressInfo);
     }
 
+    private List<EdgeCandidate> findCandidates(FilamentVertex current, FilamentVertexKDTree targetTree, Filaments3DGraphData outputData, DijkstraShortestPath<FilamentVertex, FilamentEdge> outputDataInspector, ImagePlus mask) {
+        List<EdgeCandidate> candidates = new ArrayList<>();
+
+        int currentDegree = outputData.degreeOf(current);
+        if (currentDegree < candidateVertexDegreeLimit.getX() || currentDegree > candidateVertexDegreeLimit.getY()) {
+            return candidates;
+        }
+        double currentValue = current.getValue();
+        if (currentValue < candidateVertexValueLimit.getX() || currentValue > candidateVertexValueLimit.getY()) {
+            return candidates;
+        }
+
+        Vector3d currentV1 = current.getSpatialLocation().toSciJavaVector3d();
+
+        // Only vertices within the maximum edge length can become candidates
+        for (FilamentVertex other : targetTree.findWithinRadius(current.getSpatialLocation(), lengthRange.getY())) {
+            if (other != current) {
+                if (!enable3D && current.getSpatialLocation().getZ() != other.getSpatialLocation().getZ()) {
+                    continue;
+                }
+                if (!connectAcrossC && current.getNonSpatialLocation().getChannel() != other.getNonSpatialLocation().getChannel()) {
+                    continue;
+                }
+                if (!connectAcrossT && current.getNonSpatialLocation().getFrame() != other.getNonSpatialLocation().getFrame()) {
+                    continue;
+                }
+                if (outputData.containsEdge(current, other)) {
+                    continue;
+                }
+                int otherDegree = outputData.degreeOf(other);
+                if (otherDegree < candidateVertexDegreeLimit.getX() || otherDegree > candidateVertexDegreeLimit.getY()) {
+                    continue;
+                }
+                double otherValue = other.getValue();
+                if (otherValue < candidateVertexValueLimit.getX() || otherValue > candidateVertexValueLimit.getY()) {
+                    continue;
+                }
+
+                if (mask != null) {
+                    // Just test at vertex location
+                    int x = Math.max(0, Math.min(mask.getWidth() - 1, (int) Math.round(currentV1.x)));
+                    int y = (int) Math.round(currentV1.y);
+                    int z = Math.max(0, (int) Math.round(currentV1.z));
+
+                    ImageProcessor ip = ImageJUtils.getSliceZero(mask, 0, z, 0);
+                    if (ip.get(x, y) == 0) {
+                        continue;
+                    }
+                }
+
+                // Check length limits
+                double distance = current.getSpatialLocation().distanceTo(other.getSpatialLocation());
+                if (distance < this.lengthRange.getX() || distance > this.lengthRange.getY()) {
+                    continue;
+                }
+
+                // Check path exists
+                if (ignoreIfHasPath && outputDataInspector != null) {
+                    GraphPath<FilamentVertex, FilamentEdge> path = outputDataInspector.getPath(current, other);
+                    if (path != null) {
+                        continue;
+                    }
+                }
+
+                // Add as candidate
+                double score = this.limitConnectionsLengthSortOrder == SortOrder.Ascending ? distance : -distance;
+                candidates.add(new EdgeCandidate(current, other, score));
+            }
+        }
+
+        return candidates;
+    }
+
     public static class EdgeCandidate implements Comparable<EdgeCandidate> {
         private final FilamentVertex source;
         private final FilamentVertex target;
@@ -60,9 +60,7 @@ public class SmoothFilamentsAlgorithm extends JIPipeSimpleIteratingAlgorithm {
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         Filaments3DGraphData inputData = iterationStep.getInputData(getFirstInputSlot(), Filaments3DGraphData.class, progressInfo);
-        Filaments3DGraphData outputData = new Filaments3DGraphData(inputData);
-
-        outputData.smooth(factorX, factorY, factorZ, enforceSameComponent, locationMergingFunction);
+        Filaments3DGraphData outputData = inputData.toCompact().smooth(factorX, factorY, factorZ, enforceSameComponent, locationMergingFunction).toGraph();
 
         iterationStep.addOutputData(getFirstOutputSlot(), outputData, progressInfo);
     }
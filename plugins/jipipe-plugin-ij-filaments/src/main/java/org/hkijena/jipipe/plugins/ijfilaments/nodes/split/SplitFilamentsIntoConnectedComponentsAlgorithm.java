@@ -28,15 +28,11 @@ import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.plugins.ijfilaments.FilamentsNodeTypeCategory;
 import org.hkijena.jipipe.plugins.ijfilaments.datatypes.Filaments3DGraphData;
-import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentEdge;
-import org.hkijena.jipipe.plugins.ijfilaments.util.FilamentVertex;
+import org.hkijena.jipipe.plugins.ijfilaments.util.CompactFilaments3DGraph;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.graph.AsSubgraph;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 @SetJIPipeDocumentation(name = "Split filaments into connected components", description = "Splits the filament graph into connected components and outputs one graph per component")
 @ConfigureJIPipeNode(nodeTypeCategory = FilamentsNodeTypeCategory.class, menuPath = "Split")
@@ -58,20 +54,13 @@ public class SplitFilamentsIntoConnectedComponentsAlgorithm extends JIPipeSimple
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         Filaments3DGraphData inputData = iterationStep.getInputData(getFirstInputSlot(), Filaments3DGraphData.class, progressInfo);
-        ConnectivityInspector<FilamentVertex, FilamentEdge> connectivityInspector = new ConnectivityInspector<>(inputData);
+        CompactFilaments3DGraph compactGraph = inputData.toCompact();
         int componentId = 0;
-        for (Set<FilamentVertex> connectedSet : connectivityInspector.connectedSets()) {
-            Filaments3DGraphData outputData = new Filaments3DGraphData();
+        for (int[] component : compactGraph.findComponents()) {
             List<JIPipeTextAnnotation> annotationList = new ArrayList<>();
             componentIdAnnotation.addAnnotationIfEnabled(annotationList, componentId + "");
 
-            AsSubgraph<FilamentVertex, FilamentEdge> subgraph = new AsSubgraph<>(inputData, connectedSet);
-            for (FilamentVertex filamentVertex : connectedSet) {
-                outputData.addVertex(filamentVertex);
-            }
-            for (FilamentEdge edge : subgraph.edgeSet()) {
-                outputData.addEdge(subgraph.getEdgeSource(edge), subgraph.getEdgeTarget(edge), edge);
-            }
+            Filaments3DGraphData outputData = compactGraph.extract(component).toGraph();
 
             componentId++;
 
@@ -0,0 +1,103 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.ijfilaments.settings;
+
+import org.hkijena.jipipe.JIPipe;
+import org.hkijena.jipipe.api.SetJIPipeDocumentation;
+import org.hkijena.jipipe.api.parameters.JIPipeParameter;
+import org.hkijena.jipipe.api.settings.JIPipeDefaultApplicationSettingsSheetCategory;
+import org.hkijena.jipipe.api.settings.JIPipeDefaultApplicationsSettingsSheet;
+import org.hkijena.jipipe.plugins.ijfilaments.FilamentsPlugin;
+
+import javax.swing.*;
+
+public class FilamentsStorageApplicationSettings extends JIPipeDefaultApplicationsSettingsSheet {
+
+    public static final String ID = "org.hkijena.jipipe:filaments-storage";
+
+    private boolean useBinaryFormat = false;
+    private boolean compress = true;
+    private int chunkSize = 65536;
+
+    public FilamentsStorageApplicationSettings() {
+    }
+
+    public static FilamentsStorageApplicationSettings getInstance() {
+        return JIPipe.getSettings().getById(ID, FilamentsStorageApplicationSettings.class);
+    }
+
+    @SetJIPipeDocumentation(name = "Use binary format", description = "If enabled, filaments are stored in a chunked binary format (*.filaments) that is much faster to read and write than JSON. " +
+            "If disabled, filaments are stored as JSON (*.json). Please note that JIPipe versions without support for the binary format cannot read *.filaments files. " +
+            "This JIPipe version can always read both formats.")
+    @JIPipeParameter("use-binary-format")
+    public boolean isUseBinaryFormat() {
+        return useBinaryFormat;
+    }
+
+    @JIPipeParameter("use-binary-format")
+    public void setUseBinaryFormat(boolean useBinaryFormat) {
+        this.useBinaryFormat = useBinaryFormat;
+    }
+
+    @SetJIPipeDocumentation(name = "Compress binary files", description = "If enabled, binary filament files are compressed (GZIP)")
+    @JIPipeParameter("compress")
+    public boolean isCompress() {
+        return compress;
+    }
+
+    @JIPipeParameter("compress")
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    @SetJIPipeDocumentation(name = "Chunk size", description = "The number of vertices/edges that are written per chunk of a binary filament file")
+    @JIPipeParameter("chunk-size")
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @JIPipeParameter("chunk-size")
+    public boolean setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            return false;
+        }
+        this.chunkSize = chunkSize;
+        return true;
+    }
+
+    @Override
+    public JIPipeDefaultApplicationSettingsSheetCategory getDefaultCategory() {
+        return JIPipeDefaultApplicationSettingsSheetCategory.Data;
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public Icon getIcon() {
+        return FilamentsPlugin.RESOURCES.getIconFromResources("data-type-filaments.png");
+    }
+
+    @Override
+    public String getName() {
+        return "Filaments storage";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Settings on how filaments are stored";
+    }
+}
@@ -0,0 +1,1268 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.ijfilaments.util;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.hkijena.jipipe.plugins.expressions.JIPipeExpressionParameter;
+import org.hkijena.jipipe.plugins.expressions.JIPipeExpressionVariablesMap;
+import org.hkijena.jipipe.plugins.ijfilaments.datatypes.Filaments3DGraphData;
+import org.hkijena.jipipe.plugins.parameters.library.quantities.Quantity;
+import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
+import org.hkijena.jipipe.utils.ColorUtils;
+import org.hkijena.jipipe.utils.StringUtils;
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compact representation of a {@link Filaments3DGraphData}.
+ * Vertex and edge properties are stored column-wise in primitive arrays and the adjacency is stored in CSR (compressed sparse row) format.
+ * Vertices and edges are addressed by their index.
+ * Metadata is stored as one column per key, physical voxel sizes are stored in a dictionary that is shared by all vertices.
+ * The graph is immutable. Operations that change the structure create a new instance.
+ * Use {@link #asGraph()} to apply JGraphT algorithms without converting back into {@link Filaments3DGraphData}.
+ */
+public class CompactFilaments3DGraph {
+
+    private final int vertexCount;
+    private final int edgeCount;
+
+    // Vertex columns
+    private final long[] vertexUuidMost;
+    private final long[] vertexUuidLeast;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final int[] c;
+    private final int[] t;
+    private final double[] radius;
+    private final double[] value;
+    private final int[] vertexColor;
+    private final int[] voxelSizeIndex;
+    private final Map<String, String[]> vertexMetadata = new LinkedHashMap<>();
+    private final Map<String, ValueBackupColumn> vertexValueBackups = new LinkedHashMap<>();
+    private final List<Quantity[]> voxelSizes = new ArrayList<>();
+
+    // Edge columns
+    private final long[] edgeUuidMost;
+    private final long[] edgeUuidLeast;
+    private final int[] edgeSource;
+    private final int[] edgeTarget;
+    private final int[] edgeColor;
+    private final Map<String, String[]> edgeMetadata = new LinkedHashMap<>();
+
+    // CSR adjacency
+    private final int[] adjacencyOffsets;
+    private final int[] adjacencyVertices;
+    private final int[] adjacencyEdges;
+
+    private CompactFilaments3DGraph(int vertexCount, int edgeCount, int[] edgeSource, int[] edgeTarget) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.vertexUuidMost = new long[vertexCount];
+        this.vertexUuidLeast = new long[vertexCount];
+        this.x = new double[vertexCount];
+        this.y = new double[vertexCount];
+        this.z = new double[vertexCount];
+        this.c = new int[vertexCount];
+        this.t = new int[vertexCount];
+        this.radius = new double[vertexCount];
+        this.value = new double[vertexCount];
+        this.vertexColor = new int[vertexCount];
+        this.voxelSizeIndex = new int[vertexCount];
+        this.edgeUuidMost = new long[edgeCount];
+        this.edgeUuidLeast = new long[edgeCount];
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+        this.edgeColor = new int[edgeCount];
+
+        // Build the CSR structure
+        this.adjacencyOffsets = new int[vertexCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            ++adjacencyOffsets[edgeSource[edge] + 1];
+            ++adjacencyOffsets[edgeTarget[edge] + 1];
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            adjacencyOffsets[vertex + 1] += adjacencyOffsets[vertex];
+        }
+        this.adjacencyVertices = new int[edgeCount * 2];
+        this.adjacencyEdges = new int[edgeCount * 2];
+        int[] fill = Arrays.copyOf(adjacencyOffsets, vertexCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int source = edgeSource[edge];
+            int target = edgeTarget[edge];
+            adjacencyVertices[fill[source]] = target;
+            adjacencyEdges[fill[source]++] = edge;
+            adjacencyVertices[fill[target]] = source;
+            adjacencyEdges[fill[target]++] = edge;
+        }
+    }
+
+    /**
+     * Converts a filament graph into its compact representation.
+     * The vertex indices follow the iteration order of the vertex set.
+     *
+     * @param graph the graph
+     * @return the compact graph
+     */
+    public static CompactFilaments3DGraph fromGraph(Filaments3DGraphData graph) {
+        List<FilamentVertex> vertices = new ArrayList<>(graph.vertexSet());
+        List<FilamentEdge> edges = new ArrayList<>(graph.edgeSet());
+        Map<FilamentVertex, Integer> vertexIndices = new IdentityHashMap<>(vertices.size());
+        for (int i = 0; i < vertices.size(); i++) {
+            vertexIndices.put(vertices.get(i), i);
+        }
+        int[] edgeSource = new int[edges.size()];
+        int[] edgeTarget = new int[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            FilamentEdge edge = edges.get(i);
+            edgeSource[i] = vertexIndices.get(graph.getEdgeSource(edge));
+            edgeTarget[i] = vertexIndices.get(graph.getEdgeTarget(edge));
+        }
+
+        CompactFilaments3DGraph result = new CompactFilaments3DGraph(vertices.size(), edges.size(), edgeSource, edgeTarget);
+        Map<List<Object>, Integer> voxelSizeDictionary = new HashMap<>();
+        for (int i = 0; i < vertices.size(); i++) {
+            FilamentVertex vertex = vertices.get(i);
+            result.vertexUuidMost[i] = vertex.getUuid().getMostSignificantBits();
+            result.vertexUuidLeast[i] = vertex.getUuid().getLeastSignificantBits();
+            result.x[i] = vertex.getSpatialLocation().getX();
+            result.y[i] = vertex.getSpatialLocation().getY();
+            result.z[i] = vertex.getSpatialLocation().getZ();
+            result.c[i] = vertex.getNonSpatialLocation().getChannel();
+            result.t[i] = vertex.getNonSpatialLocation().getFrame();
+            result.radius[i] = vertex.getRadius();
+            result.value[i] = vertex.getValue();
+            result.vertexColor[i] = vertex.getColor().getRGB();
+
+            Quantity vsx = vertex.getPhysicalVoxelSizeX();
+            Quantity vsy = vertex.getPhysicalVoxelSizeY();
+            Quantity vsz = vertex.getPhysicalVoxelSizeZ();
+            List<Object> voxelSizeKey = Arrays.asList(vsx.getValue(), vsx.getUnit(), vsy.getValue(), vsy.getUnit(), vsz.getValue(), vsz.getUnit());
+            Integer voxelSize = voxelSizeDictionary.get(voxelSizeKey);
+            if (voxelSize == null) {
+                voxelSize = result.voxelSizes.size();
+                result.voxelSizes.add(new Quantity[]{new Quantity(vsx), new Quantity(vsy), new Quantity(vsz)});
+                voxelSizeDictionary.put(voxelSizeKey, voxelSize);
+            }
+            result.voxelSizeIndex[i] = voxelSize;
+
+            for (Map.Entry<String, String> entry : vertex.getMetadata().entrySet()) {
+                result.vertexMetadata.computeIfAbsent(entry.getKey(), key -> new String[result.vertexCount])[i] = entry.getValue();
+            }
+            for (Map.Entry<String, Double> entry : vertex.getValueBackups().entrySet()) {
+                result.vertexValueBackups.computeIfAbsent(entry.getKey(), key -> new ValueBackupColumn(result.vertexCount)).set(i, entry.getValue());
+            }
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            FilamentEdge edge = edges.get(i);
+            result.edgeUuidMost[i] = edge.getUuid().getMostSignificantBits();
+            result.edgeUuidLeast[i] = edge.getUuid().getLeastSignificantBits();
+            result.edgeColor[i] = edge.getColor().getRGB();
+            for (Map.Entry<String, String> entry : edge.getMetadata().entrySet()) {
+                result.edgeMetadata.computeIfAbsent(entry.getKey(), key -> new String[result.edgeCount])[i] = entry.getValue();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts the compact representation back into a filament graph.
+     * The vertex and edge UUIDs are preserved.
+     *
+     * @return the filament graph
+     */
+    public Filaments3DGraphData toGraph() {
+        Filaments3DGraphData graph = new Filaments3DGraphData();
+        FilamentVertex[] vertices = new FilamentVertex[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            FilamentVertex vertex = new FilamentVertex();
+            vertex.setUuid(new UUID(vertexUuidMost[i], vertexUuidLeast[i]));
+            vertex.setSpatialLocation(new Point3d(x[i], y[i], z[i]));
+            vertex.setNonSpatialLocation(new NonSpatialPoint3d(c[i], t[i]));
+            vertex.setRadius(radius[i]);
+            vertex.setValue(value[i]);
+            vertex.setColor(new Color(vertexColor[i], true));
+            Quantity[] voxelSize = voxelSizes.get(voxelSizeIndex[i]);
+            vertex.setPhysicalVoxelSizeX(new Quantity(voxelSize[0]));
+            vertex.setPhysicalVoxelSizeY(new Quantity(voxelSize[1]));
+            vertex.setPhysicalVoxelSizeZ(new Quantity(voxelSize[2]));
+            for (Map.Entry<String, String[]> entry : vertexMetadata.entrySet()) {
+                String metadataValue = entry.getValue()[i];
+                if (metadataValue != null) {
+                    vertex.getMetadata().put(entry.getKey(), metadataValue);
+                }
+            }
+            for (Map.Entry<String, ValueBackupColumn> entry : vertexValueBackups.entrySet()) {
+                if (entry.getValue().isSet(i)) {
+                    vertex.getValueBackups().put(entry.getKey(), entry.getValue().get(i));
+                }
+            }
+            vertices[i] = vertex;
+            graph.addVertex(vertex);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            FilamentEdge edge = new FilamentEdge();
+            edge.setUuid(new UUID(edgeUuidMost[i], edgeUuidLeast[i]));
+            edge.setColor(new Color(edgeColor[i], true));
+            for (Map.Entry<String, String[]> entry : edgeMetadata.entrySet()) {
+                String metadataValue = entry.getValue()[i];
+                if (metadataValue != null) {
+                    edge.getMetadata().put(entry.getKey(), metadataValue);
+                }
+            }
+            graph.addEdge(vertices[edgeSource[i]], vertices[edgeTarget[i]], edge);
+        }
+        return graph;
+    }
+
+    /**
+     * Creates a new compact graph that only contains the selected vertices and the edges between them
+     *
+     * @param vertices the vertex indices
+     * @return the extracted graph
+     */
+    public CompactFilaments3DGraph extract(int[] vertices) {
+        int[] vertexMapping = new int[vertexCount];
+        Arrays.fill(vertexMapping, -1);
+        for (int i = 0; i < vertices.length; i++) {
+            vertexMapping[vertices[i]] = i;
+        }
+        TIntArrayList edges = new TIntArrayList();
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (vertexMapping[edgeSource[edge]] >= 0 && vertexMapping[edgeTarget[edge]] >= 0) {
+                edges.add(edge);
+            }
+        }
+        int[] newEdgeSource = new int[edges.size()];
+        int[] newEdgeTarget = new int[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            newEdgeSource[i] = vertexMapping[edgeSource[edges.get(i)]];
+            newEdgeTarget[i] = vertexMapping[edgeTarget[edges.get(i)]];
+        }
+        CompactFilaments3DGraph result = new CompactFilaments3DGraph(vertices.length, edges.size(), newEdgeSource, newEdgeTarget);
+        result.voxelSizes.addAll(voxelSizes);
+        for (int i = 0; i < vertices.length; i++) {
+            result.copyVertexFrom(this, vertices[i], i);
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            result.copyEdgeFrom(this, edges.get(i), i);
+        }
+        return result;
+    }
+
+    private void copyVertexFrom(CompactFilaments3DGraph source, int sourceIndex, int targetIndex) {
+        vertexUuidMost[targetIndex] = source.vertexUuidMost[sourceIndex];
+        vertexUuidLeast[targetIndex] = source.vertexUuidLeast[sourceIndex];
+        x[targetIndex] = source.x[sourceIndex];
+        y[targetIndex] = source.y[sourceIndex];
+        z[targetIndex] = source.z[sourceIndex];
+        c[targetIndex] = source.c[sourceIndex];
+        t[targetIndex] = source.t[sourceIndex];
+        radius[targetIndex] = source.radius[sourceIndex];
+        value[targetIndex] = source.value[sourceIndex];
+        vertexColor[targetIndex] = source.vertexColor[sourceIndex];
+        voxelSizeIndex[targetIndex] = source.voxelSizeIndex[sourceIndex];
+        for (Map.Entry<String, String[]> entry : source.vertexMetadata.entrySet()) {
+            String metadataValue = entry.getValue()[sourceIndex];
+            if (metadataValue != null) {
+                vertexMetadata.computeIfAbsent(entry.getKey(), key -> new String[vertexCount])[targetIndex] = metadataValue;
+            }
+        }
+        for (Map.Entry<String, ValueBackupColumn> entry : source.vertexValueBackups.entrySet()) {
+            if (entry.getValue().isSet(sourceIndex)) {
+                vertexValueBackups.computeIfAbsent(entry.getKey(), key -> new ValueBackupColumn(vertexCount)).set(targetIndex, entry.getValue().get(sourceIndex));
+            }
+        }
+    }
+
+    private void copyEdgeFrom(CompactFilaments3DGraph source, int sourceIndex, int targetIndex) {
+        edgeUuidMost[targetIndex] = source.edgeUuidMost[sourceIndex];
+        edgeUuidLeast[targetIndex] = source.edgeUuidLeast[sourceIndex];
+        edgeColor[targetIndex] = source.edgeColor[sourceIndex];
+        for (Map.Entry<String, String[]> entry : source.edgeMetadata.entrySet()) {
+            String metadataValue = entry.getValue()[sourceIndex];
+            if (metadataValue != null) {
+                edgeMetadata.computeIfAbsent(entry.getKey(), key -> new String[edgeCount])[targetIndex] = metadataValue;
+            }
+        }
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public double getX(int vertex) {
+        return x[vertex];
+    }
+
+    public double getY(int vertex) {
+        return y[vertex];
+    }
+
+    public double getZ(int vertex) {
+        return z[vertex];
+    }
+
+    public int getC(int vertex) {
+        return c[vertex];
+    }
+
+    public int getT(int vertex) {
+        return t[vertex];
+    }
+
+    public double getRadius(int vertex) {
+        return radius[vertex];
+    }
+
+    public double getValue(int vertex) {
+        return value[vertex];
+    }
+
+    public UUID getVertexUuid(int vertex) {
+        return new UUID(vertexUuidMost[vertex], vertexUuidLeast[vertex]);
+    }
+
+    public int getEdgeSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    public UUID getEdgeUuid(int edge) {
+        return new UUID(edgeUuidMost[edge], edgeUuidLeast[edge]);
+    }
+
+    public int degreeOf(int vertex) {
+        return adjacencyOffsets[vertex + 1] - adjacencyOffsets[vertex];
+    }
+
+    /**
+     * Returns the n-th neighbor of a vertex
+     *
+     * @param vertex the vertex
+     * @param n      the neighbor index (0 to degree - 1)
+     * @return the neighbor vertex
+     */
+    public int getNeighbor(int vertex, int n) {
+        return adjacencyVertices[adjacencyOffsets[vertex] + n];
+    }
+
+    /**
+     * Returns the edge that connects a vertex to its n-th neighbor
+     *
+     * @param vertex the vertex
+     * @param n      the neighbor index (0 to degree - 1)
+     * @return the edge
+     */
+    public int getNeighborEdge(int vertex, int n) {
+        return adjacencyEdges[adjacencyOffsets[vertex] + n];
+    }
+
+    /**
+     * Returns the edge between two vertices
+     *
+     * @param source the source
+     * @param target the target
+     * @return the edge or -1 if there is none
+     */
+    public int getEdge(int source, int target) {
+        for (int i = adjacencyOffsets[source]; i < adjacencyOffsets[source + 1]; i++) {
+            if (adjacencyVertices[i] == target) {
+                return adjacencyEdges[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Assigns a component index to each vertex.
+     * Components are numbered in the order of their first vertex.
+     *
+     * @return array of component indices (indexed by vertex)
+     */
+    public int[] findComponentIds() {
+        int[] componentIds = new int[vertexCount];
+        Arrays.fill(componentIds, -1);
+        int[] queue = new int[vertexCount];
+        int component = 0;
+        for (int start = 0; start < vertexCount; start++) {
+            if (componentIds[start] >= 0) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            componentIds[start] = component;
+            while (head < tail) {
+                int vertex = queue[head++];
+                for (int i = adjacencyOffsets[vertex]; i < adjacencyOffsets[vertex + 1]; i++) {
+                    int neighbor = adjacencyVertices[i];
+                    if (componentIds[neighbor] < 0) {
+                        componentIds[neighbor] = component;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            ++component;
+        }
+        return componentIds;
+    }
+
+    /**
+     * Returns the vertex indices of each connected component
+     *
+     * @return the components
+     */
+    public List<int[]> findComponents() {
+        int[] componentIds = findComponentIds();
+        int componentCount = 0;
+        for (int componentId : componentIds) {
+            componentCount = Math.max(componentCount, componentId + 1);
+        }
+        int[] sizes = new int[componentCount];
+        for (int componentId : componentIds) {
+            ++sizes[componentId];
+        }
+        List<int[]> components = new ArrayList<>(componentCount);
+        for (int size : sizes) {
+            components.add(new int[size]);
+        }
+        int[] fill = new int[componentCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int componentId = componentIds[vertex];
+            components.get(componentId)[fill[componentId]++] = vertex;
+        }
+        return components;
+    }
+
+    /**
+     * Splits the graph into its connected components
+     *
+     * @return one compact graph per component
+     */
+    public List<CompactFilaments3DGraph> splitComponents() {
+        List<CompactFilaments3DGraph> result = new ArrayList<>();
+        for (int[] component : findComponents()) {
+            result.add(extract(component));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the common unit within the whole vertex set.
+     * Returns 'pixels' if units are inconsistent or other error conditions happen
+     *
+     * @return the consensus unit
+     */
+    public String getConsensusPhysicalSizeUnit() {
+        if (vertexCount == 0) {
+            return Quantity.UNIT_PIXELS;
+        }
+        // Only voxel sizes that are actually in use are relevant
+        boolean[] used = new boolean[voxelSizes.size()];
+        for (int index : voxelSizeIndex) {
+            used[index] = true;
+        }
+        String unit = null;
+        for (int i = 0; i < voxelSizes.size(); i++) {
+            if (!used[i]) {
+                continue;
+            }
+            String voxelSizeUnit = getConsensusPhysicalSizeUnit(voxelSizes.get(i));
+            if (unit == null) {
+                unit = voxelSizeUnit;
+            } else if (!Objects.equals(unit, voxelSizeUnit)) {
+                return Quantity.UNIT_PIXELS;
+            }
+        }
+        return unit;
+    }
+
+    private static String getConsensusPhysicalSizeUnit(Quantity[] voxelSize) {
+        if (voxelSize[2].getValue() <= 0) {
+            if (Objects.equals(voxelSize[0].getUnit(), voxelSize[1].getUnit())) {
+                return voxelSize[0].getUnit();
+            } else {
+                return Quantity.UNIT_PIXELS;
+            }
+        } else {
+            if (Objects.equals(voxelSize[0].getUnit(), voxelSize[1].getUnit())
+                    && Objects.equals(voxelSize[1].getUnit(), voxelSize[2].getUnit())) {
+                return voxelSize[0].getUnit();
+            } else {
+                return Quantity.UNIT_PIXELS;
+            }
+        }
+    }
+
+    /**
+     * Converts all voxel sizes in the dictionary into the unit
+     *
+     * @param unit the unit
+     * @return array of [vsx, vsy, vsz] in the target unit (indexed by voxel size index)
+     */
+    private double[][] getVoxelSizesInUnit(String unit) {
+        double[][] result = new double[voxelSizes.size()][];
+        for (int i = 0; i < voxelSizes.size(); i++) {
+            Quantity[] voxelSize = voxelSizes.get(i);
+            result[i] = new double[]{voxelSize[0].convertTo(unit).getValue(),
+                    voxelSize[1].convertTo(unit).getValue(),
+                    voxelSize[2].convertTo(unit).getValue()};
+        }
+        return result;
+    }
+
+    private boolean is2D(int vertex) {
+        return voxelSizes.get(voxelSizeIndex[vertex])[2].getValue() <= 0;
+    }
+
+    private double getMaxRadiusInUnit(int vertex, double[][] voxelSizesInUnit) {
+        double[] voxelSize = voxelSizesInUnit[voxelSizeIndex[vertex]];
+        double rx = voxelSize[0] * radius[vertex];
+        double ry = voxelSize[1] * radius[vertex];
+        if (is2D(vertex)) {
+            return Math.max(rx, ry);
+        } else {
+            double rz = voxelSize[2] * radius[vertex];
+            return Math.max(rx, Math.max(ry, rz));
+        }
+    }
+
+    private double getDistance(int source, int target) {
+        double dx = x[source] - x[target];
+        double dy = y[source] - y[target];
+        double dz = z[source] - z[target];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private double getDistanceInUnit(int source, int target, double[][] voxelSizesInUnit) {
+        if (voxelSizesInUnit == null) {
+            return getDistance(source, target);
+        }
+        double[] sourceVoxelSize = voxelSizesInUnit[voxelSizeIndex[source]];
+        double[] targetVoxelSize = voxelSizesInUnit[voxelSizeIndex[target]];
+        double dx = targetVoxelSize[0] * x[target] - sourceVoxelSize[0] * x[source];
+        double dy = targetVoxelSize[1] * y[target] - sourceVoxelSize[1] * y[source];
+        double dz = targetVoxelSize[2] * z[target] - sourceVoxelSize[2] * z[source];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Gets the length of an edge in the specified unit
+     *
+     * @param edge             the edge
+     * @param usePhysicalSizes if the length should be returned in pixels or in the physical size
+     * @param unit             the unit (any supported by {@link Quantity})
+     * @return the length of the edge
+     */
+    public double getEdgeLength(int edge, boolean usePhysicalSizes, String unit) {
+        if (!usePhysicalSizes || Quantity.isPixelsUnit(unit)) {
+            return getDistance(edgeSource[edge], edgeTarget[edge]);
+        } else {
+            return getDistanceInUnit(edgeSource[edge], edgeTarget[edge], getVoxelSizesInUnit(unit));
+        }
+    }
+
+    /**
+     * Measures the vertices.
+     * Produces the same table as {@link Filaments3DGraphData#measureVertices()}
+     *
+     * @return the measurements
+     */
+    public ResultsTableData measureVertices() {
+        ResultsTableData tableData = new ResultsTableData();
+        tableData.addStringColumn("uuid");
+        tableData.addNumericColumn("x");
+        tableData.addNumericColumn("y");
+        tableData.addNumericColumn("z");
+        tableData.addNumericColumn("c");
+        tableData.addNumericColumn("t");
+        tableData.addNumericColumn("radius");
+        tableData.addNumericColumn("value");
+        tableData.addStringColumn("color");
+        tableData.addNumericColumn("degree");
+        tableData.addNumericColumn("vsx");
+        tableData.addNumericColumn("vsy");
+        tableData.addNumericColumn("vsz");
+        Map<String, Object> rowData = new LinkedHashMap<>();
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            rowData.clear();
+            Quantity[] voxelSize = voxelSizes.get(voxelSizeIndex[vertex]);
+            rowData.put("uuid", getVertexUuid(vertex).toString());
+            rowData.put("x", x[vertex]);
+            rowData.put("y", y[vertex]);
+            rowData.put("z", z[vertex]);
+            rowData.put("c", c[vertex]);
+            rowData.put("t", t[vertex]);
+            rowData.put("radius", radius[vertex]);
+            rowData.put("value", value[vertex]);
+            rowData.put("color", ColorUtils.colorToHexString(new Color(vertexColor[vertex], true)));
+            rowData.put("degree", degreeOf(vertex));
+            rowData.put("vsx", voxelSize[0].toString());
+            rowData.put("vsy", voxelSize[1].toString());
+            rowData.put("vsz", voxelSize[2].toString());
+            for (Map.Entry<String, String[]> entry : vertexMetadata.entrySet()) {
+                String metadataValue = entry.getValue()[vertex];
+                if (metadataValue != null) {
+                    rowData.put(entry.getKey(), StringUtils.tryParseDoubleOrReturnString(metadataValue));
+                }
+            }
+            for (Map.Entry<String, ValueBackupColumn> entry : vertexValueBackups.entrySet()) {
+                if (entry.getValue().isSet(vertex)) {
+                    rowData.put(".value." + entry.getKey(), entry.getValue().get(vertex));
+                }
+            }
+            tableData.addRow(rowData);
+        }
+        return tableData;
+    }
+
+    /**
+     * Measures all connected components.
+     * Produces the same table as {@link Filaments3DGraphData#measureComponents()}
+     *
+     * @return the measurements
+     */
+    public ResultsTableData measureComponents() {
+        ResultsTableData measurements = new ResultsTableData();
+        String consensusPhysicalSizeUnit = getConsensusPhysicalSizeUnit();
+        for (int[] component : findComponents()) {
+            measureComponent(measurements, consensusPhysicalSizeUnit, component);
+        }
+        return measurements;
+    }
+
+    /**
+     * Measures a connected component and adds the results as new row
+     *
+     * @param measurements              the target table
+     * @param consensusPhysicalSizeUnit the physical size unit
+     * @param vertices                  the vertices of the component
+     */
+    public void measureComponent(ResultsTableData measurements, String consensusPhysicalSizeUnit, int[] vertices) {
+        double[][] voxelSizesInUnit = Quantity.isPixelsUnit(consensusPhysicalSizeUnit) ? null : getVoxelSizesInUnit(consensusPhysicalSizeUnit);
+
+        // Vertex stats
+        double minVertexRadiusPixels = Double.POSITIVE_INFINITY;
+        double maxVertexRadiusPixels = Double.NEGATIVE_INFINITY;
+        double sumVertexRadiusPixels = 0;
+        double minVertexRadiusUnit = Double.POSITIVE_INFINITY;
+        double maxVertexRadiusUnit = Double.NEGATIVE_INFINITY;
+        double sumVertexRadiusUnit = 0;
+        double minVertexIntensity = Double.POSITIVE_INFINITY;
+        double maxVertexIntensity = Double.NEGATIVE_INFINITY;
+        double sumVertexIntensity = 0;
+
+        // Edge stats
+        int numEdges = 0;
+        double minEdgeLengthPixels = Double.POSITIVE_INFINITY;
+        double maxEdgeLengthPixels = Double.NEGATIVE_INFINITY;
+        double sumEdgeLengthPixels = 0;
+        double minEdgeLengthUnit = Double.POSITIVE_INFINITY;
+        double maxEdgeLengthUnit = Double.NEGATIVE_INFINITY;
+        double sumEdgeLengthUnit = 0;
+        double radiusCorrectionPixels = 0;
+        double radiusCorrectionUnit = 0;
+
+        // Degree stats
+        int[] degreeCounts = new int[7];
+        int minDegree = vertices.length > 0 ? Integer.MAX_VALUE : 0;
+        int maxDegree = 0;
+
+        // Location stats
+        double minXCenter = Double.POSITIVE_INFINITY;
+        double maxXCenter = Double.NEGATIVE_INFINITY;
+        double minYCenter = Double.POSITIVE_INFINITY;
+        double maxYCenter = Double.NEGATIVE_INFINITY;
+        double minZCenter = Double.POSITIVE_INFINITY;
+        double maxZCenter = Double.NEGATIVE_INFINITY;
+        double minXRadius = Double.POSITIVE_INFINITY;
+        double maxXRadius = Double.NEGATIVE_INFINITY;
+        double minYRadius = Double.POSITIVE_INFINITY;
+        double maxYRadius = Double.NEGATIVE_INFINITY;
+        double minZRadius = Double.POSITIVE_INFINITY;
+        double maxZRadius = Double.NEGATIVE_INFINITY;
+        double sumX = 0;
+        double sumY = 0;
+        double sumZ = 0;
+        double sumC = 0;
+        double sumT = 0;
+
+        for (int vertex : vertices) {
+            double vertexRadius = radius[vertex];
+            double radiusInUnit = voxelSizesInUnit != null ? getMaxRadiusInUnit(vertex, voxelSizesInUnit) : vertexRadius;
+            minVertexRadiusPixels = Math.min(vertexRadius, minVertexRadiusPixels);
+            maxVertexRadiusPixels = Math.max(vertexRadius, maxVertexRadiusPixels);
+            sumVertexRadiusPixels += vertexRadius;
+            minVertexRadiusUnit = Math.min(radiusInUnit, minVertexRadiusUnit);
+            maxVertexRadiusUnit = Math.max(radiusInUnit, maxVertexRadiusUnit);
+            sumVertexRadiusUnit += radiusInUnit;
+            minVertexIntensity = Math.min(value[vertex], minVertexIntensity);
+            maxVertexIntensity = Math.max(value[vertex], maxVertexIntensity);
+            sumVertexIntensity += value[vertex];
+
+            // Each edge is visited from its source
+            for (int i = adjacencyOffsets[vertex]; i < adjacencyOffsets[vertex + 1]; i++) {
+                int edge = adjacencyEdges[i];
+                if (edgeSource[edge] == vertex) {
+                    double lengthPixels = getDistance(vertex, edgeTarget[edge]);
+                    double lengthUnit = getDistanceInUnit(vertex, edgeTarget[edge], voxelSizesInUnit);
+                    minEdgeLengthPixels = Math.min(minEdgeLengthPixels, lengthPixels);
+                    maxEdgeLengthPixels = Math.max(maxEdgeLengthPixels, lengthPixels);
+                    sumEdgeLengthPixels += lengthPixels;
+                    minEdgeLengthUnit = Math.min(minEdgeLengthUnit, lengthUnit);
+                    maxEdgeLengthUnit = Math.max(maxEdgeLengthUnit, lengthUnit);
+                    sumEdgeLengthUnit += lengthUnit;
+                    ++numEdges;
+                }
+            }
+
+            int degree = degreeOf(vertex);
+            if (degree == 0) {
+                // Count radius 2 times
+                radiusCorrectionPixels += vertexRadius * 2;
+                radiusCorrectionUnit += radiusInUnit * 2;
+            } else if (degree == 1) {
+                // Count radius 1 time
+                radiusCorrectionPixels += vertexRadius;
+                radiusCorrectionUnit += radiusInUnit;
+            }
+            ++degreeCounts[Math.min(degree, 6)];
+            minDegree = Math.min(minDegree, degree);
+            maxDegree = Math.max(maxDegree, degree);
+
+            boolean vertexIs2D = is2D(vertex);
+            minXCenter = Math.min(x[vertex], minXCenter);
+            minYCenter = Math.min(y[vertex], minYCenter);
+            minZCenter = Math.min(z[vertex], minZCenter);
+            maxXCenter = Math.max(x[vertex], maxXCenter);
+            maxYCenter = Math.max(y[vertex], maxYCenter);
+            maxZCenter = Math.max(z[vertex], maxZCenter);
+            minXRadius = Math.min(x[vertex] - vertexRadius, minXRadius);
+            minYRadius = Math.min(y[vertex] - vertexRadius, minYRadius);
+            minZRadius = Math.min(vertexIs2D ? z[vertex] : z[vertex] - vertexRadius, minZRadius);
+            maxXRadius = Math.max(x[vertex] + vertexRadius, maxXRadius);
+            maxYRadius = Math.max(y[vertex] + vertexRadius, maxYRadius);
+            maxZRadius = Math.max(vertexIs2D ? z[vertex] : z[vertex] + vertexRadius, maxZRadius);
+            sumX += x[vertex];
+            sumY += y[vertex];
+            sumZ += z[vertex];
+            sumC += c[vertex];
+            sumT += t[vertex];
+        }
+
+        double sumEdgeLengthCorrectedPixels = sumEdgeLengthPixels + radiusCorrectionPixels;
+        double sumEdgeLengthCorrectedUnit = sumEdgeLengthUnit + radiusCorrectionUnit;
+
+        // Simplified edge lengths
+        TIntObjectHashMap<TIntHashSet> simplified = simplifyComponent(vertices);
+        double simplifiedSumEdgeLengthPixels = 0;
+        double simplifiedSumEdgeLengthUnit = 0;
+        double simplifiedSumEdgeLengthCorrectedPixels = 0;
+        double simplifiedSumEdgeLengthCorrectedUnit = 0;
+        for (int vertex : simplified.keys()) {
+            TIntHashSet neighbors = simplified.get(vertex);
+            for (int neighbor : neighbors.toArray()) {
+                if (vertex < neighbor) {
+                    simplifiedSumEdgeLengthPixels += getDistance(vertex, neighbor);
+                    simplifiedSumEdgeLengthUnit += getDistanceInUnit(vertex, neighbor, voxelSizesInUnit);
+                }
+            }
+            double radiusInUnit = voxelSizesInUnit != null ? getMaxRadiusInUnit(vertex, voxelSizesInUnit) : radius[vertex];
+            if (neighbors.isEmpty()) {
+                // Count radius 2 times
+                simplifiedSumEdgeLengthCorrectedPixels += radius[vertex] * 2;
+                simplifiedSumEdgeLengthCorrectedUnit += radiusInUnit * 2;
+            } else if (neighbors.size() == 1) {
+                // Count radius 1 time
+                simplifiedSumEdgeLengthCorrectedPixels += radius[vertex];
+                simplifiedSumEdgeLengthCorrectedUnit += radiusInUnit;
+            }
+        }
+        simplifiedSumEdgeLengthCorrectedPixels += simplifiedSumEdgeLengthPixels;
+        simplifiedSumEdgeLengthCorrectedUnit += simplifiedSumEdgeLengthUnit;
+
+        int row = measurements.addRow();
+        measurements.setValueAt(row, row, "Component");
+        measurements.setValueAt(vertices.length, row, "numVertices");
+        measurements.setValueAt(numEdges, row, "numEdges");
+
+        measurements.setValueAt(sumEdgeLengthPixels, row, "lengthPixels");
+        measurements.setValueAt(sumEdgeLengthUnit, row, "lengthUnit");
+        measurements.setValueAt(sumEdgeLengthCorrectedPixels, row, "lengthPixelsRadiusCorrected");
+        measurements.setValueAt(sumEdgeLengthCorrectedUnit, row, "lengthUnitRadiusCorrected");
+        measurements.setValueAt(simplifiedSumEdgeLengthPixels, row, "simplifiedLengthPixels");
+        measurements.setValueAt(simplifiedSumEdgeLengthUnit, row, "simplifiedLengthUnit");
+        measurements.setValueAt(simplifiedSumEdgeLengthCorrectedPixels, row, "simplifiedLengthPixelsRadiusCorrected");
+        measurements.setValueAt(simplifiedSumEdgeLengthCorrectedUnit, row, "simplifiedLengthUnitRadiusCorrected");
+
+        measurements.setValueAt(simplifiedSumEdgeLengthPixels / sumEdgeLengthPixels, row, "confinementRatio");
+        measurements.setValueAt(simplifiedSumEdgeLengthCorrectedPixels / sumEdgeLengthCorrectedPixels, row, "confinementRatioRadiusCorrected");
+        measurements.setValueAt(degreeCounts[0], row, "numVerticesWithDegree0");
+        measurements.setValueAt(degreeCounts[1], row, "numVerticesWithDegree1");
+        measurements.setValueAt(degreeCounts[2], row, "numVerticesWithDegree2");
+        measurements.setValueAt(degreeCounts[3], row, "numVerticesWithDegree3");
+        measurements.setValueAt(degreeCounts[4], row, "numVerticesWithDegree4");
+        measurements.setValueAt(degreeCounts[5], row, "numVerticesWithDegree5");
+        measurements.setValueAt(degreeCounts[6], row, "numVerticesWithDegreeMoreThan5");
+        measurements.setValueAt(maxDegree, row, "maxDegree");
+        measurements.setValueAt(minDegree, row, "minDegree");
+        measurements.setValueAt(minXCenter, row, "centerMinX");
+        measurements.setValueAt(minYCenter, row, "centerMinY");
+        measurements.setValueAt(minZCenter, row, "centerMinZ");
+        measurements.setValueAt(maxXCenter, row, "centerMaxX");
+        measurements.setValueAt(maxYCenter, row, "centerMaxY");
+        measurements.setValueAt(maxZCenter, row, "centerMaxZ");
+        measurements.setValueAt(minXRadius, row, "sphereMinX");
+        measurements.setValueAt(minYRadius, row, "sphereMinY");
+        measurements.setValueAt(minZRadius, row, "sphereMinZ");
+        measurements.setValueAt(maxXRadius, row, "sphereMaxX");
+        measurements.setValueAt(maxYRadius, row, "sphereMaxY");
+        measurements.setValueAt(maxZRadius, row, "sphereMaxZ");
+
+        measurements.setValueAt(sumX / vertices.length, row, "centroidX");
+        measurements.setValueAt(sumY / vertices.length, row, "centroidY");
+        measurements.setValueAt(sumZ / vertices.length, row, "centroidZ");
+        measurements.setValueAt(sumC / vertices.length, row, "centroidC");
+        measurements.setValueAt(sumT / vertices.length, row, "centroidT");
+
+        measurements.setValueAt(minEdgeLengthPixels, row, "minEdgeLengthPixels");
+        measurements.setValueAt(minEdgeLengthUnit, row, "minEdgeLengthUnit");
+        measurements.setValueAt(maxEdgeLengthPixels, row, "maxEdgeLengthPixels");
+        measurements.setValueAt(maxEdgeLengthUnit, row, "maxEdgeLengthUnit");
+        measurements.setValueAt(sumEdgeLengthPixels / numEdges, row, "avgEdgeLengthPixels");
+        measurements.setValueAt(sumEdgeLengthUnit / numEdges, row, "avgEdgeLengthUnit");
+
+        measurements.setValueAt(minVertexRadiusPixels, row, "minVertexRadiusPixels");
+        measurements.setValueAt(minVertexRadiusUnit, row, "minVertexRadiusUnit");
+        measurements.setValueAt(maxVertexRadiusPixels, row, "maxVertexRadiusPixels");
+        measurements.setValueAt(maxVertexRadiusUnit, row, "maxVertexRadiusUnit");
+        measurements.setValueAt(sumVertexRadiusPixels / vertices.length, row, "avgVertexRadiusPixels");
+        measurements.setValueAt(sumVertexRadiusUnit / vertices.length, row, "avgVertexRadiusUnit");
+
+        measurements.setValueAt(minVertexIntensity, row, "minVertexValue");
+        measurements.setValueAt(maxVertexIntensity, row, "maxVertexValue");
+        measurements.setValueAt(sumVertexIntensity / vertices.length, row, "avgVertexValue");
+
+        measurements.setValueAt(consensusPhysicalSizeUnit, row, "physicalSizeUnit");
+    }
+
+    /**
+     * Equivalent of {@link Filaments3DGraphData#simplify()} for a single component.
+     * Chains of degree 2 vertices are collapsed by walking them in the CSR structure.
+     * The (small) remaining graph is then simplified further the same way as the original algorithm.
+     *
+     * @param vertices the vertices of the component
+     * @return adjacency of the simplified component
+     */
+    private TIntObjectHashMap<TIntHashSet> simplifyComponent(int[] vertices) {
+        TIntObjectHashMap<TIntHashSet> result = new TIntObjectHashMap<>();
+        TIntHashSet anchors = new TIntHashSet();
+        for (int vertex : vertices) {
+            if (degreeOf(vertex) != 2) {
+                anchors.add(vertex);
+            }
+        }
+        if (anchors.isEmpty() && vertices.length > 0) {
+            // A cycle collapses into a single edge
+            anchors.add(vertices[0]);
+            anchors.add(getNeighbor(vertices[0], 0));
+        }
+        for (int anchor : anchors.toArray()) {
+            result.put(anchor, new TIntHashSet());
+        }
+        for (int anchor : anchors.toArray()) {
+            for (int i = adjacencyOffsets[anchor]; i < adjacencyOffsets[anchor + 1]; i++) {
+                int first = adjacencyVertices[i];
+                int previous = anchor;
+                int current = first;
+                while (!anchors.contains(current)) {
+                    int next = getNeighbor(current, 0) == previous ? getNeighbor(current, 1) : getNeighbor(current, 0);
+                    previous = current;
+                    current = next;
+                }
+                if (current != anchor) {
+                    result.get(anchor).add(current);
+                    result.get(current).add(anchor);
+                } else if (first < previous) {
+                    // A loop collapses into an edge to one of its vertices (walked from both sides, so only handle it once)
+                    result.putIfAbsent(previous, new TIntHashSet());
+                    result.get(anchor).add(previous);
+                    result.get(previous).add(anchor);
+                }
+            }
+        }
+
+        // Remaining degree 2 vertices can be created by merging parallel chains
+        boolean updated;
+        do {
+            updated = false;
+            for (int vertex : result.keys()) {
+                TIntHashSet neighbors = result.get(vertex);
+                if (neighbors != null && neighbors.size() == 2) {
+                    int[] pair = neighbors.toArray();
+                    result.get(pair[0]).remove(vertex);
+                    result.get(pair[1]).remove(vertex);
+                    result.get(pair[0]).add(pair[1]);
+                    result.get(pair[1]).add(pair[0]);
+                    result.remove(vertex);
+                    updated = true;
+                }
+            }
+        }
+        while (updated);
+
+        return result;
+    }
+
+    /**
+     * Smooths the graph by downscaling the locations and merging vertices that share the same downscaled location.
+     * The location of merged vertices is calculated by the merging function, while the radius is averaged.
+     * Operates directly on the arrays and is the equivalent of {@link Filaments3DGraphData#smooth(double, double, double, boolean, JIPipeExpressionParameter)}.
+     *
+     * @param factorX                 the downscaling factor in X (zero to disable)
+     * @param factorY                 the downscaling factor in Y (zero to disable)
+     * @param factorZ                 the downscaling factor in Z (zero to disable)
+     * @param enforceSameComponent    only merge vertices within the same component
+     * @param locationMergingFunction function that calculates the new location from a list of values
+     * @return the smoothed graph
+     */
+    public CompactFilaments3DGraph smooth(double factorX, double factorY, double factorZ, boolean enforceSameComponent, JIPipeExpressionParameter locationMergingFunction) {
+        int[] componentIds = enforceSameComponent ? findComponentIds() : null;
+
+        // Group by downscaled location
+        Map<List<Object>, TIntArrayList> groups = new LinkedHashMap<>();
+        int[] groupOf = new int[vertexCount];
+        List<TIntArrayList> groupList = new ArrayList<>();
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            double gx = factorX > 0 ? Math.round(x[vertex] / factorX) : x[vertex];
+            double gy = factorY > 0 ? Math.round(y[vertex] / factorY) : y[vertex];
+            double gz = factorZ > 0 ? Math.round(z[vertex] / factorZ) : z[vertex];
+            List<Object> key = Arrays.asList(gx, gy, gz, componentIds != null ? componentIds[vertex] : 0);
+            TIntArrayList group = groups.get(key);
+            if (group == null) {
+                group = new TIntArrayList();
+                groups.put(key, group);
+                groupList.add(group);
+            }
+            groupOf[vertex] = groupList.size() - 1;
+            group.add(vertex);
+        }
+
+        // Merge edges (no loops, no duplicates)
+        TLongHashSet existingEdges = new TLongHashSet();
+        TIntArrayList edges = new TIntArrayList();
+        TIntArrayList newEdgeSource = new TIntArrayList();
+        TIntArrayList newEdgeTarget = new TIntArrayList();
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int source = groupOf[edgeSource[edge]];
+            int target = groupOf[edgeTarget[edge]];
+            if (source != target && existingEdges.add((long) Math.min(source, target) * groupList.size() + Math.max(source, target))) {
+                edges.add(edge);
+                newEdgeSource.add(source);
+                newEdgeTarget.add(target);
+            }
+        }
+
+        CompactFilaments3DGraph result = new CompactFilaments3DGraph(groupList.size(), edges.size(), newEdgeSource.toArray(), newEdgeTarget.toArray());
+        result.voxelSizes.addAll(voxelSizes);
+        JIPipeExpressionVariablesMap variables = new JIPipeExpressionVariablesMap();
+        for (int i = 0; i < groupList.size(); i++) {
+            TIntArrayList group = groupList.get(i);
+            result.copyVertexFrom(this, group.get(0), i);
+            if (group.size() > 1) {
+                double radiusSum = 0;
+                for (int j = 0; j < group.size(); j++) {
+                    radiusSum += radius[group.get(j)];
+                }
+                result.radius[i] = radiusSum / group.size();
+                if (factorX > 0) {
+                    result.x[i] = mergeLocations(x, group, locationMergingFunction, variables);
+                }
+                if (factorY > 0) {
+                    result.y[i] = mergeLocations(y, group, locationMergingFunction, variables);
+                }
+                if (factorZ > 0) {
+                    result.z[i] = mergeLocations(z, group, locationMergingFunction, variables);
+                }
+            }
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            result.copyEdgeFrom(this, edges.get(i), i);
+        }
+        return result;
+    }
+
+    private static double mergeLocations(double[] locations, TIntArrayList group, JIPipeExpressionParameter locationMergingFunction, JIPipeExpressionVariablesMap variables) {
+        List<Double> values = new ArrayList<>(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            values.add(locations[group.get(i)]);
+        }
+        variables.set("values", values);
+        return locationMergingFunction.evaluateToInteger(variables);
+    }
+
+    /**
+     * Returns a read-only JGraphT view of this graph.
+     * Vertices and edges are represented by their indices.
+     *
+     * @return the graph view
+     */
+    public Graph<Integer, Integer> asGraph() {
+        return new GraphView(this);
+    }
+
+    /**
+     * Stores value backups. Not all vertices have a backup for each key.
+     */
+    private static class ValueBackupColumn {
+        private final double[] values;
+        private final BitSet set;
+
+        private ValueBackupColumn(int size) {
+            this.values = new double[size];
+            this.set = new BitSet(size);
+        }
+
+        public double get(int index) {
+            return values[index];
+        }
+
+        public boolean isSet(int index) {
+            return set.get(index);
+        }
+
+        public void set(int index, double value) {
+            values[index] = value;
+            set.set(index);
+        }
+    }
+
+    /**
+     * Read-only JGraphT view on a {@link CompactFilaments3DGraph}
+     */
+    private static class GraphView extends AbstractGraph<Integer, Integer> {
+        private final CompactFilaments3DGraph graph;
+        private final Set<Integer> vertexSet;
+        private final Set<Integer> edgeSet;
+
+        private GraphView(CompactFilaments3DGraph graph) {
+            this.graph = graph;
+            this.vertexSet = new IndexSet(graph.vertexCount);
+            this.edgeSet = new IndexSet(graph.edgeCount);
+        }
+
+        @Override
+        public Set<Integer> getAllEdges(Integer sourceVertex, Integer targetVertex) {
+            if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+                return null;
+            }
+            int edge = graph.getEdge(sourceVertex, targetVertex);
+            return edge >= 0 ? Collections.singleton(edge) : Collections.emptySet();
+        }
+
+        @Override
+        public Integer getEdge(Integer sourceVertex, Integer targetVertex) {
+            if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+                return null;
+            }
+            int edge = graph.getEdge(sourceVertex, targetVertex);
+            return edge >= 0 ? edge : null;
+        }
+
+        @Override
+        public Supplier<Integer> getVertexSupplier() {
+            return null;
+        }
+
+        @Override
+        public Supplier<Integer> getEdgeSupplier() {
+            return null;
+        }
+
+        @Override
+        public Integer addEdge(Integer sourceVertex, Integer targetVertex) {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+
+        @Override
+        public boolean addEdge(Integer sourceVertex, Integer targetVertex, Integer integer) {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+
+        @Override
+        public Integer addVertex() {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+
+        @Override
+        public boolean addVertex(Integer integer) {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+
+        @Override
+        public boolean containsEdge(Integer edge) {
+            return edgeSet.contains(edge);
+        }
+
+        @Override
+        public boolean containsVertex(Integer vertex) {
+            return vertexSet.contains(vertex);
+        }
+
+        @Override
+        public Set<Integer> edgeSet() {
+            return edgeSet;
+        }
+
+        @Override
+        public int degreeOf(Integer vertex) {
+            assertVertexExist(vertex);
+            return graph.degreeOf(vertex);
+        }
+
+        @Override
+        public Set<Integer> edgesOf(Integer vertex) {
+            assertVertexExist(vertex);
+            Set<Integer> result = new LinkedHashSet<>();
+            for (int i = graph.adjacencyOffsets[vertex]; i < graph.adjacencyOffsets[vertex + 1]; i++) {
+                result.add(graph.adjacencyEdges[i]);
+            }
+            return Collections.unmodifiableSet(result);
+        }
+
+        @Override
+        public int inDegreeOf(Integer vertex) {
+            return degreeOf(vertex);
+        }
+
+        @Override
+        public Set<Integer> incomingEdgesOf(Integer vertex) {
+            return edgesOf(vertex);
+        }
+
+        @Override
+        public int outDegreeOf(Integer vertex) {
+            return degreeOf(vertex);
+        }
+
+        @Override
+        public Set<Integer> outgoingEdgesOf(Integer vertex) {
+            return edgesOf(vertex);
+        }
+
+        @Override
+        public Integer removeEdge(Integer sourceVertex, Integer targetVertex) {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+
+        @Override
+        public boolean removeEdge(Integer edge) {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+
+        @Override
+        public boolean removeVertex(Integer vertex) {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+
+        @Override
+        public Set<Integer> vertexSet() {
+            return vertexSet;
+        }
+
+        @Override
+        public Integer getEdgeSource(Integer edge) {
+            return graph.edgeSource[edge];
+        }
+
+        @Override
+        public Integer getEdgeTarget(Integer edge) {
+            return graph.edgeTarget[edge];
+        }
+
+        @Override
+        public GraphType getType() {
+            return new DefaultGraphType.Builder().undirected().allowSelfLoops(false).allowMultipleEdges(false).weighted(false).modifiable(false).build();
+        }
+
+        @Override
+        public double getEdgeWeight(Integer edge) {
+            return Graph.DEFAULT_EDGE_WEIGHT;
+        }
+
+        @Override
+        public void setEdgeWeight(Integer edge, double weight) {
+            throw new UnsupportedOperationException("The graph is read-only");
+        }
+    }
+
+    /**
+     * Set of the integers 0 to size - 1
+     */
+    private static class IndexSet extends AbstractSet<Integer> {
+        private final int size;
+
+        private IndexSet(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && (Integer) o >= 0 && (Integer) o < size;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<Integer>() {
+                private int current = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return current < size;
+                }
+
+                @Override
+                public Integer next() {
+                    if (current >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return current++;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
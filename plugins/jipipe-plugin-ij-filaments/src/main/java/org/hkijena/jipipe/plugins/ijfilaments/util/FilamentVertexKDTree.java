@@ -0,0 +1,178 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.ijfilaments.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A static 3D KD-tree over the spatial locations of {@link FilamentVertex} instances.
+ * Allows to find all vertices within a radius without testing all pairs of vertices.
+ * The tree is immutable after construction and can be queried from multiple threads.
+ */
+public class FilamentVertexKDTree {
+
+    /**
+     * Added to the query radius to compensate for rounding errors.
+     * Callers are expected to apply their exact distance check on the results.
+     */
+    private static final double RADIUS_TOLERANCE = 1e-9;
+
+    private final FilamentVertex[] vertices;
+    private final double[] coordinates;
+
+    /**
+     * Builds the tree
+     *
+     * @param vertices the vertices
+     */
+    public FilamentVertexKDTree(Collection<FilamentVertex> vertices) {
+        this.vertices = vertices.toArray(new FilamentVertex[0]);
+        this.coordinates = new double[this.vertices.length * 3];
+        for (int i = 0; i < this.vertices.length; i++) {
+            Point3d location = this.vertices[i].getSpatialLocation();
+            coordinates[i * 3] = location.getX();
+            coordinates[i * 3 + 1] = location.getY();
+            coordinates[i * 3 + 2] = location.getZ();
+        }
+        build(0, this.vertices.length, 0);
+    }
+
+    /**
+     * Returns the number of vertices in the tree
+     *
+     * @return the number of vertices
+     */
+    public int size() {
+        return vertices.length;
+    }
+
+    /**
+     * Returns all vertices whose euclidean distance to the center is at most the radius
+     *
+     * @param center the center
+     * @param radius the radius (can be infinite)
+     * @return the vertices within the radius
+     */
+    public List<FilamentVertex> findWithinRadius(Point3d center, double radius) {
+        List<FilamentVertex> result = new ArrayList<>();
+        forEachWithinRadius(center, radius, result::add);
+        return result;
+    }
+
+    /**
+     * Passes all vertices whose euclidean distance to the center is at most the radius to the consumer
+     *
+     * @param center   the center
+     * @param radius   the radius (can be infinite)
+     * @param consumer the consumer
+     */
+    public void forEachWithinRadius(Point3d center, double radius, Consumer<FilamentVertex> consumer) {
+        if (vertices.length == 0 || radius < 0 || Double.isNaN(radius)) {
+            return;
+        }
+        if (Double.isInfinite(radius)) {
+            for (FilamentVertex vertex : vertices) {
+                consumer.accept(vertex);
+            }
+            return;
+        }
+        double queryRadius = radius + radius * RADIUS_TOLERANCE + RADIUS_TOLERANCE;
+        double[] query = new double[]{center.getX(), center.getY(), center.getZ()};
+        search(0, vertices.length, 0, query, queryRadius, queryRadius * queryRadius, consumer);
+    }
+
+    private void search(int from, int to, int axis, double[] query, double radius, double radiusSquared, Consumer<FilamentVertex> consumer) {
+        while (from < to) {
+            int median = (from + to) >>> 1;
+            double dx = coordinates[median * 3] - query[0];
+            double dy = coordinates[median * 3 + 1] - query[1];
+            double dz = coordinates[median * 3 + 2] - query[2];
+            if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                consumer.accept(vertices[median]);
+            }
+            double delta = query[axis] - coordinates[median * 3 + axis];
+            int nextAxis = (axis + 1) % 3;
+            if (delta <= radius) {
+                // The query sphere reaches into the left half
+                if (delta >= -radius) {
+                    search(from, median, nextAxis, query, radius, radiusSquared, consumer);
+                    from = median + 1;
+                } else {
+                    to = median;
+                }
+            } else {
+                from = median + 1;
+            }
+            axis = nextAxis;
+        }
+    }
+
+    private void build(int from, int to, int axis) {
+        while (to - from > 1) {
+            int median = (from + to) >>> 1;
+            select(from, to - 1, median, axis);
+            int nextAxis = (axis + 1) % 3;
+            build(from, median, nextAxis);
+            from = median + 1;
+            axis = nextAxis;
+        }
+    }
+
+    /**
+     * Partially sorts the range [left, right], so that the element at index k is at its sorted position regarding the axis (quickselect)
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            int pivotIndex = partition(left, right, (left + right) >>> 1, axis);
+            if (pivotIndex == k) {
+                return;
+            } else if (k < pivotIndex) {
+                right = pivotIndex - 1;
+            } else {
+                left = pivotIndex + 1;
+            }
+        }
+    }
+
+    private int partition(int left, int right, int pivotIndex, int axis) {
+        double pivotValue = coordinates[pivotIndex * 3 + axis];
+        swap(pivotIndex, right);
+        int storeIndex = left;
+        for (int i = left; i < right; i++) {
+            if (coordinates[i * 3 + axis] < pivotValue) {
+                swap(storeIndex, i);
+                ++storeIndex;
+            }
+        }
+        swap(right, storeIndex);
+        return storeIndex;
+    }
+
+    private void swap(int i, int j) {
+        if (i == j) {
+            return;
+        }
+        FilamentVertex vertex = vertices[i];
+        vertices[i] = vertices[j];
+        vertices[j] = vertex;
+        for (int d = 0; d < 3; d++) {
+            double value = coordinates[i * 3 + d];
+            coordinates[i * 3 + d] = coordinates[j * 3 + d];
+            coordinates[j * 3 + d] = value;
+        }
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.ijfilaments.util;
+
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.plugins.ijfilaments.datatypes.Filaments3DGraphData;
+import org.hkijena.jipipe.plugins.parameters.library.quantities.Quantity;
+
+import java.awt.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Chunked binary storage format for {@link Filaments3DGraphData}.
+ * <p>
+ * The file starts with an uncompressed header (magic bytes, version, flags).
+ * The remaining data is optionally GZIP-compressed and consists of a sequence of chunks:
+ * <ul>
+ *     <li>Voxel size chunks: new entries of the voxel size dictionary</li>
+ *     <li>Vertex chunks: up to chunk size vertices stored column-wise (UUIDs, locations, radii, values, colors, voxel size indices) followed by sparse metadata and value backup columns</li>
+ *     <li>Edge chunks: up to chunk size edges stored column-wise (UUIDs, source and target as vertex indices, colors) followed by sparse metadata columns</li>
+ *     <li>End marker</li>
+ * </ul>
+ * Vertices are indexed in the order they were written. Edges always come after all vertices.
+ * Reading and writing is streaming, meaning that only one chunk is buffered at a time.
+ */
+public class FilamentsBinaryFormat {
+
+    public static final String EXTENSION = ".filaments";
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = "JIPFIL".getBytes(StandardCharsets.US_ASCII);
+    private static final int FLAG_COMPRESSED = 1;
+    private static final byte CHUNK_END = 0;
+    private static final byte CHUNK_VOXEL_SIZES = 1;
+    private static final byte CHUNK_VERTICES = 2;
+    private static final byte CHUNK_EDGES = 3;
+
+    private FilamentsBinaryFormat() {
+
+    }
+
+    /**
+     * Returns true if the stream starts with the magic bytes of the binary format.
+     * The stream must support mark/reset.
+     *
+     * @param stream the stream
+     * @return if the stream contains binary filaments
+     * @throws IOException thrown by the stream
+     */
+    public static boolean isBinaryFormat(InputStream stream) throws IOException {
+        stream.mark(MAGIC.length);
+        try {
+            byte[] buffer = new byte[MAGIC.length];
+            int read = 0;
+            while (read < buffer.length) {
+                int n = stream.read(buffer, read, buffer.length - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+            return Arrays.equals(buffer, MAGIC);
+        } finally {
+            stream.reset();
+        }
+    }
+
+    /**
+     * Writes a graph into a stream
+     *
+     * @param graph        the graph
+     * @param outputStream the stream (will not be closed)
+     * @param compress     if the data should be compressed
+     * @param chunkSize    the number of vertices/edges per chunk
+     * @param progressInfo the progress info
+     * @throws IOException thrown by the stream
+     */
+    public static void write(Filaments3DGraphData graph, OutputStream outputStream, boolean compress, int chunkSize, JIPipeProgressInfo progressInfo) throws IOException {
+        DataOutputStream header = new DataOutputStream(outputStream);
+        header.write(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(compress ? FLAG_COMPRESSED : 0);
+        header.flush();
+
+        GZIPOutputStream gzipOutputStream = compress ? new GZIPOutputStream(new NonClosingOutputStream(outputStream), 65536) : null;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(compress ? gzipOutputStream : new NonClosingOutputStream(outputStream), 65536));
+
+        // Vertices
+        Map<FilamentVertex, Integer> vertexIndices = new IdentityHashMap<>(graph.vertexSet().size());
+        Map<List<Object>, Integer> voxelSizeDictionary = new HashMap<>();
+        List<FilamentVertex> chunk = new ArrayList<>(chunkSize);
+        for (FilamentVertex vertex : graph.vertexSet()) {
+            vertexIndices.put(vertex, vertexIndices.size());
+            chunk.add(vertex);
+            if (chunk.size() >= chunkSize) {
+                writeVertexChunk(out, chunk, voxelSizeDictionary);
+                progressInfo.log("Written " + vertexIndices.size() + "/" + graph.vertexSet().size() + " vertices");
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeVertexChunk(out, chunk, voxelSizeDictionary);
+        }
+
+        // Edges
+        List<FilamentEdge> edgeChunk = new ArrayList<>(chunkSize);
+        int writtenEdges = 0;
+        for (FilamentEdge edge : graph.edgeSet()) {
+            edgeChunk.add(edge);
+            if (edgeChunk.size() >= chunkSize) {
+                writeEdgeChunk(out, graph, edgeChunk, vertexIndices);
+                writtenEdges += edgeChunk.size();
+                progressInfo.log("Written " + writtenEdges + "/" + graph.edgeSet().size() + " edges");
+                edgeChunk.clear();
+            }
+        }
+        if (!edgeChunk.isEmpty()) {
+            writeEdgeChunk(out, graph, edgeChunk, vertexIndices);
+        }
+
+        out.writeByte(CHUNK_END);
+        out.flush();
+        if (gzipOutputStream != null) {
+            gzipOutputStream.finish();
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Reads a graph from a stream
+     *
+     * @param inputStream  the stream (will not be closed)
+     * @param progressInfo the progress info
+     * @return the graph
+     * @throws IOException thrown by the stream or if the data is invalid
+     */
+    public static Filaments3DGraphData read(InputStream inputStream, JIPipeProgressInfo progressInfo) throws IOException {
+        DataInputStream header = new DataInputStream(inputStream);
+        byte[] magic = new byte[MAGIC.length];
+        header.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary filaments file!");
+        }
+        int version = header.readInt();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary filaments version " + version + " (supported: " + VERSION + ")");
+        }
+        int flags = header.readInt();
+        InputStream dataStream = (flags & FLAG_COMPRESSED) != 0 ? new GZIPInputStream(inputStream, 65536) : inputStream;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(dataStream, 65536));
+
+        Filaments3DGraphData graph = new Filaments3DGraphData();
+        List<Quantity[]> voxelSizes = new ArrayList<>();
+        List<FilamentVertex> vertices = new ArrayList<>();
+        while (true) {
+            byte chunkType = in.readByte();
+            if (chunkType == CHUNK_END) {
+                break;
+            } else if (chunkType == CHUNK_VOXEL_SIZES) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Quantity[] voxelSize = new Quantity[3];
+                    for (int j = 0; j < 3; j++) {
+                        double value = in.readDouble();
+                        voxelSize[j] = new Quantity(value, readString(in));
+                    }
+                    voxelSizes.add(voxelSize);
+                }
+            } else if (chunkType == CHUNK_VERTICES) {
+                readVertexChunk(in, graph, vertices, voxelSizes);
+                progressInfo.log("Read " + vertices.size() + " vertices");
+            } else if (chunkType == CHUNK_EDGES) {
+                readEdgeChunk(in, graph, vertices);
+                progressInfo.log("Read " + graph.edgeSet().size() + " edges");
+            } else {
+                throw new IOException("Unknown chunk type " + chunkType);
+            }
+        }
+        return graph;
+    }
+
+    private static void writeVertexChunk(DataOutputStream out, List<FilamentVertex> chunk, Map<List<Object>, Integer> voxelSizeDictionary) throws IOException {
+        // Update the voxel size dictionary
+        int[] voxelSizeIndices = new int[chunk.size()];
+        List<Quantity[]> newVoxelSizes = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            FilamentVertex vertex = chunk.get(i);
+            Quantity vsx = vertex.getPhysicalVoxelSizeX();
+            Quantity vsy = vertex.getPhysicalVoxelSizeY();
+            Quantity vsz = vertex.getPhysicalVoxelSizeZ();
+            List<Object> key = Arrays.asList(vsx.getValue(), vsx.getUnit(), vsy.getValue(), vsy.getUnit(), vsz.getValue(), vsz.getUnit());
+            Integer index = voxelSizeDictionary.get(key);
+            if (index == null) {
+                index = voxelSizeDictionary.size();
+                voxelSizeDictionary.put(key, index);
+                newVoxelSizes.add(new Quantity[]{vsx, vsy, vsz});
+            }
+            voxelSizeIndices[i] = index;
+        }
+        if (!newVoxelSizes.isEmpty()) {
+            out.writeByte(CHUNK_VOXEL_SIZES);
+            out.writeInt(newVoxelSizes.size());
+            for (Quantity[] voxelSize : newVoxelSizes) {
+                for (Quantity quantity : voxelSize) {
+                    out.writeDouble(quantity.getValue());
+                    writeString(out, quantity.getUnit());
+                }
+            }
+        }
+
+        out.writeByte(CHUNK_VERTICES);
+        out.writeInt(chunk.size());
+        for (FilamentVertex vertex : chunk) {
+            out.writeLong(vertex.getUuid().getMostSignificantBits());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeLong(vertex.getUuid().getLeastSignificantBits());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeDouble(vertex.getSpatialLocation().getX());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeDouble(vertex.getSpatialLocation().getY());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeDouble(vertex.getSpatialLocation().getZ());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeInt(vertex.getNonSpatialLocation().getChannel());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeInt(vertex.getNonSpatialLocation().getFrame());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeDouble(vertex.getRadius());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeDouble(vertex.getValue());
+        }
+        for (FilamentVertex vertex : chunk) {
+            out.writeInt(vertex.getColor().getRGB());
+        }
+        for (int voxelSizeIndex : voxelSizeIndices) {
+            out.writeInt(voxelSizeIndex);
+        }
+
+        // Metadata (sparse columns)
+        Map<String, List<Integer>> metadataColumns = new LinkedHashMap<>();
+        Map<String, List<Integer>> valueBackupColumns = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            for (String key : chunk.get(i).getMetadata().keySet()) {
+                metadataColumns.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+            for (String key : chunk.get(i).getValueBackups().keySet()) {
+                valueBackupColumns.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+        out.writeInt(metadataColumns.size());
+        for (Map.Entry<String, List<Integer>> entry : metadataColumns.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (int i : entry.getValue()) {
+                out.writeInt(i);
+                writeString(out, chunk.get(i).getMetadata().get(entry.getKey()));
+            }
+        }
+        out.writeInt(valueBackupColumns.size());
+        for (Map.Entry<String, List<Integer>> entry : valueBackupColumns.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (int i : entry.getValue()) {
+                out.writeInt(i);
+                out.writeDouble(chunk.get(i).getValueBackups().get(entry.getKey()));
+            }
+        }
+    }
+
+    private static void readVertexChunk(DataInputStream in, Filaments3DGraphData graph, List<FilamentVertex> vertices, List<Quantity[]> voxelSizes) throws IOException {
+        int count = in.readInt();
+        long[] uuidMost = new long[count];
+        long[] uuidLeast = new long[count];
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] z = new double[count];
+        int[] c = new int[count];
+        int[] t = new int[count];
+        double[] radius = new double[count];
+        double[] value = new double[count];
+        int[] color = new int[count];
+        int[] voxelSizeIndex = new int[count];
+        readLongs(in, uuidMost);
+        readLongs(in, uuidLeast);
+        readDoubles(in, x);
+        readDoubles(in, y);
+        readDoubles(in, z);
+        readInts(in, c);
+        readInts(in, t);
+        readDoubles(in, radius);
+        readDoubles(in, value);
+        readInts(in, color);
+        readInts(in, voxelSizeIndex);
+
+        FilamentVertex[] chunk = new FilamentVertex[count];
+        for (int i = 0; i < count; i++) {
+            FilamentVertex vertex = new FilamentVertex();
+            vertex.setUuid(new UUID(uuidMost[i], uuidLeast[i]));
+            vertex.setSpatialLocation(new Point3d(x[i], y[i], z[i]));
+            vertex.setNonSpatialLocation(new NonSpatialPoint3d(c[i], t[i]));
+            vertex.setRadius(radius[i]);
+            vertex.setValue(value[i]);
+            vertex.setColor(new Color(color[i], true));
+            if (voxelSizeIndex[i] < 0 || voxelSizeIndex[i] >= voxelSizes.size()) {
+                throw new IOException("Invalid voxel size index " + voxelSizeIndex[i]);
+            }
+            Quantity[] voxelSize = voxelSizes.get(voxelSizeIndex[i]);
+            vertex.setPhysicalVoxelSizeX(new Quantity(voxelSize[0]));
+            vertex.setPhysicalVoxelSizeY(new Quantity(voxelSize[1]));
+            vertex.setPhysicalVoxelSizeZ(new Quantity(voxelSize[2]));
+            chunk[i] = vertex;
+        }
+
+        int metadataColumns = in.readInt();
+        for (int column = 0; column < metadataColumns; column++) {
+            String key = readString(in);
+            int entries = in.readInt();
+            for (int j = 0; j < entries; j++) {
+                int i = in.readInt();
+                chunk[i].getMetadata().put(key, readString(in));
+            }
+        }
+        int valueBackupColumns = in.readInt();
+        for (int column = 0; column < valueBackupColumns; column++) {
+            String key = readString(in);
+            int entries = in.readInt();
+            for (int j = 0; j < entries; j++) {
+                int i = in.readInt();
+                chunk[i].getValueBackups().put(key, in.readDouble());
+            }
+        }
+
+        for (FilamentVertex vertex : chunk) {
+            graph.addVertex(vertex);
+            vertices.add(vertex);
+        }
+    }
+
+    private static void writeEdgeChunk(DataOutputStream out, Filaments3DGraphData graph, List<FilamentEdge> chunk, Map<FilamentVertex, Integer> vertexIndices) throws IOException {
+        out.writeByte(CHUNK_EDGES);
+        out.writeInt(chunk.size());
+        for (FilamentEdge edge : chunk) {
+            out.writeLong(edge.getUuid().getMostSignificantBits());
+        }
+        for (FilamentEdge edge : chunk) {
+            out.writeLong(edge.getUuid().getLeastSignificantBits());
+        }
+        for (FilamentEdge edge : chunk) {
+            out.writeInt(vertexIndices.get(graph.getEdgeSource(edge)));
+        }
+        for (FilamentEdge edge : chunk) {
+            out.writeInt(vertexIndices.get(graph.getEdgeTarget(edge)));
+        }
+        for (FilamentEdge edge : chunk) {
+            out.writeInt(edge.getColor().getRGB());
+        }
+
+        // Metadata (sparse columns)
+        Map<String, List<Integer>> metadataColumns = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            for (String key : chunk.get(i).getMetadata().keySet()) {
+                metadataColumns.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+        out.writeInt(metadataColumns.size());
+        for (Map.Entry<String, List<Integer>> entry : metadataColumns.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (int i : entry.getValue()) {
+                out.writeInt(i);
+                writeString(out, chunk.get(i).getMetadata().get(entry.getKey()));
+            }
+        }
+    }
+
+    private static void readEdgeChunk(DataInputStream in, Filaments3DGraphData graph, List<FilamentVertex> vertices) throws IOException {
+        int count = in.readInt();
+        long[] uuidMost = new long[count];
+        long[] uuidLeast = new long[count];
+        int[] source = new int[count];
+        int[] target = new int[count];
+        int[] color = new int[count];
+        readLongs(in, uuidMost);
+        readLongs(in, uuidLeast);
+        readInts(in, source);
+        readInts(in, target);
+        readInts(in, color);
+
+        FilamentEdge[] chunk = new FilamentEdge[count];
+        for (int i = 0; i < count; i++) {
+            FilamentEdge edge = new FilamentEdge();
+            edge.setUuid(new UUID(uuidMost[i], uuidLeast[i]));
+            edge.setColor(new Color(color[i], true));
+            chunk[i] = edge;
+        }
+
+        int metadataColumns = in.readInt();
+        for (int column = 0; column < metadataColumns; column++) {
+            String key = readString(in);
+            int entries = in.readInt();
+            for (int j = 0; j < entries; j++) {
+                int i = in.readInt();
+                chunk[i].getMetadata().put(key, readString(in));
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (source[i] < 0 || source[i] >= vertices.size() || target[i] < 0 || target[i] >= vertices.size()) {
+                throw new IOException("Edge references unknown vertex");
+            }
+            graph.addEdge(vertices.get(source[i]), vertices.get(target[i]), chunk[i]);
+        }
+    }
+
+    private static void readLongs(DataInputStream in, long[] target) throws IOException {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = in.readLong();
+        }
+    }
+
+    private static void readDoubles(DataInputStream in, double[] target) throws IOException {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = in.readDouble();
+        }
+    }
+
+    private static void readInts(DataInputStream in, int[] target) throws IOException {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = in.readInt();
+        }
+    }
+
+    /**
+     * Writes a string (length-prefixed UTF-8). Unlike writeUTF, there is no length limit.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Prevents the compression stream from closing the underlying stream
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -66,10 +66,20 @@ public class TrackCollectionData extends SpotsCollectionData {
     }
 
     public void computeTrackFeatures(JIPipeProgressInfo progressInfo) {
+        computeTrackFeatures(1, progressInfo);
+    }
+
+    /**
+     * Computes the track features
+     *
+     * @param numThreads   the number of threads
+     * @param progressInfo the progress info
+     */
+    public void computeTrackFeatures(int numThreads, JIPipeProgressInfo progressInfo) {
         final Logger logger = new JIPipeLogger(progressInfo);
         getModel().setLogger(logger);
         final TrackFeatureCalculator calculator = new TrackFeatureCalculator(getModel(), getSettings(), true);
-        calculator.setNumThreads(1);
+        calculator.setNumThreads(Math.max(1, numThreads));
         if (calculator.checkInput() && calculator.process()) {
             getModel().notifyFeaturesComputed();
         } else {
@@ -78,10 +88,20 @@ public class TrackCollectionData extends SpotsCollectionData {
     }
 
     public void computeEdgeFeatures(JIPipeProgressInfo progressInfo) {
+        computeEdgeFeatures(1, progressInfo);
+    }
+
+    /**
+     * Computes the edge features
+     *
+     * @param numThreads   the number of threads
+     * @param progressInfo the progress info
+     */
+    public void computeEdgeFeatures(int numThreads, JIPipeProgressInfo progressInfo) {
         final Logger logger = new JIPipeLogger(progressInfo);
         getModel().setLogger(logger);
         final EdgeFeatureCalculator calculator = new EdgeFeatureCalculator(getModel(), getSettings(), true);
-        calculator.setNumThreads(1);
+        calculator.setNumThreads(Math.max(1, numThreads));
         if (calculator.checkInput() && calculator.process()) {
             getModel().notifyFeaturesComputed();
         } else {
@@ -13,7 +13,6 @@
 
 package org.hkijena.jipipe.plugins.ijtrackmate.nodes.spots;
 
-import fiji.plugin.trackmate.Spot;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
@@ -27,10 +26,9 @@ import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.SpotsCollectionData;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.TrackCollectionData;
+import org.hkijena.jipipe.plugins.ijtrackmate.utils.TrackMateUtils;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
 
-import java.util.Map;
-
 @SetJIPipeDocumentation(name = "Measure spots", description = "Measures the spots and outputs the results into a table. If tracked spots are provided, the track ID will also be added.")
 @ConfigureJIPipeNode(nodeTypeCategory = ImagesNodeTypeCategory.class, menuPath = "Tracking\nMeasure")
 @AddJIPipeInputSlot(value = SpotsCollectionData.class, name = "Input", create = true)
@@ -48,37 +46,12 @@ public class MeasureSpotsNode extends JIPipeSimpleIteratingAlgorithm {
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         SpotsCollectionData spotsCollectionData = iterationStep.getInputData(getFirstInputSlot(), SpotsCollectionData.class, progressInfo);
-        ResultsTableData tableData = new ResultsTableData();
+        int numThreads = TrackMateUtils.getNumThreads(null, runContext);
         if (spotsCollectionData instanceof TrackCollectionData) {
-            TrackCollectionData trackCollectionData = (TrackCollectionData) spotsCollectionData;
             // Compute features
-            trackCollectionData.computeTrackFeatures(progressInfo.resolve("Compute features"));
-
-            for (Integer trackID : trackCollectionData.getTrackModel().trackIDs(true)) {
-                for (Spot spot : trackCollectionData.getTrackSpots(trackID)) {
-                    int row = tableData.addRow();
-                    tableData.setValueAt(trackCollectionData.getTrackModel().name(trackID), row, "Track name");
-                    tableData.setValueAt(trackID, row, "Track index");
-                    tableData.setValueAt(trackID, row, "Track ID");
-                    tableData.setValueAt(spot.getName(), row, "Name");
-                    for (Map.Entry<String, Double> entry : spot.getFeatures().entrySet()) {
-                        String columnName = spotsCollectionData.getModel().getFeatureModel().getSpotFeatureNames().get(entry.getKey());
-                        int column = tableData.getOrCreateColumnIndex(columnName, false);
-                        tableData.setValueAt(entry.getValue(), row, column);
-                    }
-                }
-            }
-        } else {
-            for (Spot spot : spotsCollectionData.getSpots().iterable(true)) {
-                int row = tableData.addRow();
-                tableData.setValueAt(spot.getName(), row, "Name");
-                for (Map.Entry<String, Double> entry : spot.getFeatures().entrySet()) {
-                    String columnName = spotsCollectionData.getModel().getFeatureModel().getSpotFeatureNames().get(entry.getKey());
-                    int column = tableData.getOrCreateColumnIndex(columnName, false);
-                    tableData.setValueAt(entry.getValue(), row, column);
-                }
-            }
+            ((TrackCollectionData) spotsCollectionData).computeTrackFeatures(numThreads, progressInfo.resolve("Compute features"));
         }
+        ResultsTableData tableData = TrackMateUtils.measureSpots(spotsCollectionData, progressInfo.resolve("Measure"));
         iterationStep.addOutputData(getFirstOutputSlot(), tableData, progressInfo);
     }
 }
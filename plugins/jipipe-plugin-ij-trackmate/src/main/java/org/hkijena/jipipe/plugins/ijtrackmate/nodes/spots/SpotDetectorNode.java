@@ -28,6 +28,7 @@ import org.hkijena.jipipe.api.nodes.algorithm.JIPipeIteratingAlgorithm;
 import org.hkijena.jipipe.api.nodes.categories.ImagesNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
+import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.api.validation.JIPipeValidationReportEntry;
 import org.hkijena.jipipe.api.validation.JIPipeValidationReportEntryLevel;
 import org.hkijena.jipipe.api.validation.JIPipeValidationRuntimeException;
@@ -35,7 +36,9 @@ import org.hkijena.jipipe.api.validation.contexts.GraphNodeValidationReportConte
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.SpotDetectorData;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.SpotsCollectionData;
 import org.hkijena.jipipe.plugins.ijtrackmate.utils.JIPipeLogger;
+import org.hkijena.jipipe.plugins.ijtrackmate.utils.TrackMateUtils;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 
 @SetJIPipeDocumentation(name = "Detect spots", description = "Detect spots using TrackMate")
 @ConfigureJIPipeNode(nodeTypeCategory = ImagesNodeTypeCategory.class, menuPath = "Tracking")
@@ -44,7 +47,7 @@ import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
 @AddJIPipeOutputSlot(value = SpotsCollectionData.class, name = "Spots", description = "The detected spots", create = true)
 public class SpotDetectorNode extends JIPipeIteratingAlgorithm {
 
-    private int numThreads = 1;
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public SpotDetectorNode(JIPipeNodeInfo info) {
         super(info);
@@ -52,7 +55,7 @@ public class SpotDetectorNode extends JIPipeIteratingAlgorithm {
 
     public SpotDetectorNode(SpotDetectorNode other) {
         super(other);
-        this.numThreads = other.numThreads;
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
     }
 
     @Override
@@ -69,6 +72,7 @@ public class SpotDetectorNode extends JIPipeIteratingAlgorithm {
         settings.addAllAnalyzers();
 
         TrackMate trackMate = new TrackMate(model, settings);
+        trackMate.setNumThreads(TrackMateUtils.getNumThreads(numThreads, runContext));
 
 //        if(!trackMate.checkInput()) {
 //            progressInfo.log(trackMate.getErrorMessage());
@@ -91,14 +95,16 @@ public class SpotDetectorNode extends JIPipeIteratingAlgorithm {
         iterationStep.addOutputData(getFirstOutputSlot(), new SpotsCollectionData(model, settings, image), progressInfo);
     }
 
-    @Override
-    public boolean supportsParallelization() {
-        return true;
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads to be utilized by TrackMate. Set to zero for all available processors. " +
+            "Otherwise, the number of threads of the current run is used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
     }
 
-    @Override
-    public int getParallelizationBatchSize() {
-        return numThreads;
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
     }
 
 //    public void execDetection(Model model, Settings settings, JIPipeProgressInfo progressInfo) {
@@ -25,8 +25,8 @@ import org.hkijena.jipipe.api.nodes.categories.ImagesNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.TrackCollectionData;
+import org.hkijena.jipipe.plugins.ijtrackmate.utils.TrackMateUtils;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
-import org.jgrapht.graph.DefaultWeightedEdge;
 
 @SetJIPipeDocumentation(name = "Measure edges", description = "Measures the edges and outputs the results into a table")
 @ConfigureJIPipeNode(nodeTypeCategory = ImagesNodeTypeCategory.class, menuPath = "Tracking\nMeasure")
@@ -45,28 +45,12 @@ public class MeasureEdgesNode extends JIPipeSimpleIteratingAlgorithm {
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         TrackCollectionData trackCollectionData = iterationStep.getInputData(getFirstInputSlot(), TrackCollectionData.class, progressInfo);
-        ResultsTableData tableData = new ResultsTableData();
+        int numThreads = TrackMateUtils.getNumThreads(null, runContext);
 
         // Compute features
-        trackCollectionData.computeEdgeFeatures(progressInfo.resolve("Compute features"));
+        trackCollectionData.computeEdgeFeatures(numThreads, progressInfo.resolve("Compute features"));
 
-        for (Integer trackID : trackCollectionData.getTrackModel().trackIDs(true)) {
-            for (DefaultWeightedEdge trackEdge : trackCollectionData.getTrackModel().trackEdges(trackID)) {
-                int row = tableData.addRow();
-                tableData.setValueAt("Track_" + trackID, row, "Track");
-                tableData.setValueAt(trackCollectionData.getTrackModel().getEdgeSource(trackEdge).getName(), row, "Edge source");
-                tableData.setValueAt(trackCollectionData.getTrackModel().getEdgeTarget(trackEdge).getName(), row, "Edge target");
-                tableData.setValueAt(trackCollectionData.getTrackModel().getEdgeWeight(trackEdge), row, "Edge weight");
-                for (String edgeFeature : trackCollectionData.getModel().getFeatureModel().getEdgeFeatures()) {
-                    String columnName = trackCollectionData.getModel().getFeatureModel().getEdgeFeatureNames().get(edgeFeature);
-                    Double feature = trackCollectionData.getModel().getFeatureModel().getEdgeFeature(trackEdge, edgeFeature);
-                    if (feature == null)
-                        feature = Double.NaN;
-                    int column = tableData.getOrCreateColumnIndex(columnName, false);
-                    tableData.setValueAt(feature, row, column);
-                }
-            }
-        }
+        ResultsTableData tableData = TrackMateUtils.measureEdges(trackCollectionData, progressInfo.resolve("Measure"));
 
         iterationStep.addOutputData(getFirstOutputSlot(), tableData, progressInfo);
     }
@@ -25,6 +25,7 @@ import org.hkijena.jipipe.api.nodes.categories.ImagesNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.TrackCollectionData;
+import org.hkijena.jipipe.plugins.ijtrackmate.utils.TrackMateUtils;
 import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
 
 @SetJIPipeDocumentation(name = "Measure tracks", description = "Measures the tracks and outputs the results into a table")
@@ -47,7 +48,7 @@ public class MeasureTracksNode extends JIPipeSimpleIteratingAlgorithm {
         ResultsTableData tableData = new ResultsTableData();
 
         // Compute features
-        trackCollectionData.computeTrackFeatures(progressInfo.resolve("Compute features"));
+        trackCollectionData.computeTrackFeatures(TrackMateUtils.getNumThreads(null, runContext), progressInfo.resolve("Compute features"));
 
         for (Integer trackID : trackCollectionData.getTrackModel().trackIDs(true)) {
             int row = tableData.addRow();
@@ -33,6 +33,7 @@ import org.hkijena.jipipe.plugins.expressions.NamedTextAnnotationGeneratorExpres
 import org.hkijena.jipipe.plugins.expressions.variables.JIPipeTextAnnotationsExpressionParameterVariablesInfo;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.TrackCollectionData;
 import org.hkijena.jipipe.plugins.ijtrackmate.utils.TrackFeatureVariablesInfo;
+import org.hkijena.jipipe.plugins.ijtrackmate.utils.TrackMateUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -57,7 +58,7 @@ public class SplitTracksNode extends JIPipeSimpleIteratingAlgorithm {
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         TrackCollectionData oldTrackCollectionData = new TrackCollectionData(iterationStep.getInputData(getFirstInputSlot(), TrackCollectionData.class, progressInfo));
-        oldTrackCollectionData.computeTrackFeatures(progressInfo.resolve("Compute features"));
+        oldTrackCollectionData.computeTrackFeatures(TrackMateUtils.getNumThreads(null, runContext), progressInfo.resolve("Compute features"));
 
         JIPipeExpressionVariablesMap variables = new JIPipeExpressionVariablesMap(iterationStep);
         variables.set("n_tracks", oldTrackCollectionData.getTrackModel().nTracks(true));
@@ -25,10 +25,13 @@ import org.hkijena.jipipe.api.nodes.algorithm.JIPipeIteratingAlgorithm;
 import org.hkijena.jipipe.api.nodes.categories.ImagesNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
+import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.SpotTrackerData;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.SpotsCollectionData;
 import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.TrackCollectionData;
 import org.hkijena.jipipe.plugins.ijtrackmate.utils.JIPipeLogger;
+import org.hkijena.jipipe.plugins.ijtrackmate.utils.TrackMateUtils;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 
 @SetJIPipeDocumentation(name = "Track spots", description = "Track spots using TrackMate")
 @ConfigureJIPipeNode(nodeTypeCategory = ImagesNodeTypeCategory.class, menuPath = "Tracking")
@@ -37,7 +40,7 @@ import org.hkijena.jipipe.plugins.ijtrackmate.utils.JIPipeLogger;
 @AddJIPipeOutputSlot(value = TrackCollectionData.class, name = "Tracks", description = "The detected tracks", create = true)
 public class TrackingNode extends JIPipeIteratingAlgorithm {
 
-    private int numThreads = 1;
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public TrackingNode(JIPipeNodeInfo info) {
         super(info);
@@ -45,7 +48,7 @@ public class TrackingNode extends JIPipeIteratingAlgorithm {
 
     public TrackingNode(TrackingNode other) {
         super(other);
-        numThreads = other.numThreads;
+        numThreads = new OptionalIntegerParameter(other.numThreads);
     }
 
     @Override
@@ -53,7 +56,7 @@ public class TrackingNode extends JIPipeIteratingAlgorithm {
         SpotsCollectionData spotsCollectionData = iterationStep.getInputData("Spots", SpotsCollectionData.class, progressInfo);
         SpotTrackerData spotTrackerData = iterationStep.getInputData("Spot tracker", SpotTrackerData.class, progressInfo);
         final SpotTracker tracker = spotTrackerData.getTrackerFactory().create(spotsCollectionData.getSpots(), spotTrackerData.getSettings());
-        tracker.setNumThreads(numThreads);
+        tracker.setNumThreads(TrackMateUtils.getNumThreads(numThreads, runContext));
         tracker.setLogger(new JIPipeLogger(progressInfo.resolve("TrackMate")));
         if (!tracker.checkInput())
             throw new RuntimeException("Tracker input is invalid: " + tracker.getErrorMessage());
@@ -63,4 +66,16 @@ public class TrackingNode extends JIPipeIteratingAlgorithm {
         trackCollectionData.getModel().setTracks(tracker.getResult(), true);
         iterationStep.addOutputData(getFirstOutputSlot(), trackCollectionData, progressInfo);
     }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads to be utilized by TrackMate. Set to zero for all available processors. " +
+            "Otherwise, the number of threads of the current run is used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
 }
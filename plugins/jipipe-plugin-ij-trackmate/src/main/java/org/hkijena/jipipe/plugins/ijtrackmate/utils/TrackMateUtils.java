@@ -13,20 +13,30 @@
 
 package org.hkijena.jipipe.plugins.ijtrackmate.utils;
 
+import fiji.plugin.trackmate.FeatureModel;
 import fiji.plugin.trackmate.Model;
 import fiji.plugin.trackmate.Settings;
+import fiji.plugin.trackmate.Spot;
+import fiji.plugin.trackmate.TrackModel;
 import fiji.plugin.trackmate.detection.SpotDetectorFactory;
 import fiji.plugin.trackmate.features.edges.EdgeAnalyzer;
 import fiji.plugin.trackmate.features.spot.SpotAnalyzerFactoryBase;
 import fiji.plugin.trackmate.features.track.TrackAnalyzer;
 import fiji.plugin.trackmate.tracking.SpotTrackerFactory;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.api.nodes.JIPipeGraphNodeRunContext;
 import org.hkijena.jipipe.plugins.ijtrackmate.TrackMatePlugin;
+import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.SpotsCollectionData;
+import org.hkijena.jipipe.plugins.ijtrackmate.datatypes.TrackCollectionData;
 import org.hkijena.jipipe.plugins.ijtrackmate.nodes.detectors.CreateSpotDetectorNodeInfo;
 import org.hkijena.jipipe.plugins.ijtrackmate.nodes.detectors.CreateSpotTrackerNodeInfo;
 import org.hkijena.jipipe.plugins.ijtrackmate.parameters.EdgeFeature;
 import org.hkijena.jipipe.plugins.ijtrackmate.parameters.SpotFeature;
 import org.hkijena.jipipe.plugins.ijtrackmate.parameters.TrackFeature;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
+import org.hkijena.jipipe.plugins.tables.datatypes.ResultsTableData;
+import org.jgrapht.graph.DefaultWeightedEdge;
 import org.scijava.plugin.PluginInfo;
 import org.scijava.plugin.PluginService;
 
@@ -145,4 +155,93 @@ public class TrackMateUtils {
             }
         }
     }
+
+    /**
+     * Determines the number of threads that TrackMate should use
+     *
+     * @param overrideNumThreads optional override of the number of threads (zero for all available processors)
+     * @param runContext         the run context. If no override is provided, the thread budget of the run is used.
+     * @return the number of threads (at least 1)
+     */
+    public static int getNumThreads(OptionalIntegerParameter overrideNumThreads, JIPipeGraphNodeRunContext runContext) {
+        if (overrideNumThreads != null && overrideNumThreads.isEnabled()) {
+            if (overrideNumThreads.getContent() <= 0) {
+                return Runtime.getRuntime().availableProcessors();
+            }
+            return overrideNumThreads.getContent();
+        }
+        if (runContext != null && runContext.getThreadPool() != null) {
+            return Math.max(1, runContext.getThreadPool().getMaxThreads());
+        }
+        return Math.max(1, JIPipeRuntimeApplicationSettings.getInstance().getDefaultRunThreads());
+    }
+
+    /**
+     * Measures all visible spots. If tracks are provided, the spots are listed per track.
+     *
+     * @param spotsCollectionData the spots
+     * @param progressInfo        the progress info
+     * @return the table
+     */
+    public static ResultsTableData measureSpots(SpotsCollectionData spotsCollectionData, JIPipeProgressInfo progressInfo) {
+        ResultsTableData tableData = new ResultsTableData();
+        Map<String, String> featureNames = spotsCollectionData.getModel().getFeatureModel().getSpotFeatureNames();
+        if (spotsCollectionData instanceof TrackCollectionData) {
+            TrackCollectionData trackCollectionData = (TrackCollectionData) spotsCollectionData;
+            for (Integer trackID : trackCollectionData.getTrackModel().trackIDs(true)) {
+                for (Spot spot : trackCollectionData.getTrackSpots(trackID)) {
+                    int row = tableData.addRow();
+                    tableData.setValueAt(trackCollectionData.getTrackModel().name(trackID), row, "Track name");
+                    tableData.setValueAt(trackID, row, "Track index");
+                    tableData.setValueAt(trackID, row, "Track ID");
+                    tableData.setValueAt(spot.getName(), row, "Name");
+                    for (Map.Entry<String, Double> entry : spot.getFeatures().entrySet()) {
+                        int column = tableData.getOrCreateColumnIndex(featureNames.get(entry.getKey()), false);
+                        tableData.setValueAt(entry.getValue(), row, column);
+                    }
+                }
+            }
+        } else {
+            for (Spot spot : spotsCollectionData.getSpots().iterable(true)) {
+                int row = tableData.addRow();
+                tableData.setValueAt(spot.getName(), row, "Name");
+                for (Map.Entry<String, Double> entry : spot.getFeatures().entrySet()) {
+                    int column = tableData.getOrCreateColumnIndex(featureNames.get(entry.getKey()), false);
+                    tableData.setValueAt(entry.getValue(), row, column);
+                }
+            }
+        }
+        return tableData;
+    }
+
+    /**
+     * Measures all edges of the visible tracks.
+     *
+     * @param trackCollectionData the tracks
+     * @param progressInfo        the progress info
+     * @return the table
+     */
+    public static ResultsTableData measureEdges(TrackCollectionData trackCollectionData, JIPipeProgressInfo progressInfo) {
+        ResultsTableData tableData = new ResultsTableData();
+        FeatureModel featureModel = trackCollectionData.getModel().getFeatureModel();
+        TrackModel trackModel = trackCollectionData.getTrackModel();
+        for (Integer trackID : trackModel.trackIDs(true)) {
+            for (DefaultWeightedEdge trackEdge : trackModel.trackEdges(trackID)) {
+                int row = tableData.addRow();
+                tableData.setValueAt("Track_" + trackID, row, "Track");
+                tableData.setValueAt(trackModel.getEdgeSource(trackEdge).getName(), row, "Edge source");
+                tableData.setValueAt(trackModel.getEdgeTarget(trackEdge).getName(), row, "Edge target");
+                tableData.setValueAt(trackModel.getEdgeWeight(trackEdge), row, "Edge weight");
+                for (String edgeFeature : featureModel.getEdgeFeatures()) {
+                    String columnName = featureModel.getEdgeFeatureNames().get(edgeFeature);
+                    Double feature = featureModel.getEdgeFeature(trackEdge, edgeFeature);
+                    if (feature == null)
+                        feature = Double.NaN;
+                    int column = tableData.getOrCreateColumnIndex(columnName, false);
+                    tableData.setValueAt(feature, row, column);
+                }
+            }
+        }
+        return tableData;
+    }
 }
@@ -0,0 +1,342 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.ijweka;
+
+import com.google.common.collect.Lists;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.plugins.ijweka.datatypes.WekaModelData;
+import trainableSegmentation.WekaSegmentation;
+import weka.core.Instances;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classifies tiles of an image concurrently.
+ * Each tile is cut from a source image including a halo (overlap) that provides the context for the feature computation.
+ * Only the inner region of each classified tile is written into the output.
+ * The number of concurrently processed tiles is limited by the number of threads and a memory budget.
+ * Each concurrently running tile uses its own copy of the classifier.
+ */
+public class WekaTileScheduler {
+
+    /**
+     * Number of features that is assumed if the model does not provide a training header
+     */
+    private static final int DEFAULT_FEATURE_COUNT = 100;
+
+    private final ImagePlus source;
+    private final int outputWidth;
+    private final int outputHeight;
+    private final int outputDepth;
+    private final List<Tile> tiles = new ArrayList<>();
+
+    /**
+     * Creates a new scheduler
+     *
+     * @param source       the source image (Z slices only). Tiles are cut from this image.
+     * @param outputWidth  the width of the output
+     * @param outputHeight the height of the output
+     * @param outputDepth  the number of Z slices of the output
+     */
+    public WekaTileScheduler(ImagePlus source, int outputWidth, int outputHeight, int outputDepth) {
+        this.source = source;
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        this.outputDepth = outputDepth;
+    }
+
+    /**
+     * Creates a scheduler for a 2D image that was padded by the overlap (e.g., with a mirrored border).
+     * The padded image must have a size of at least (number of tiles * tile size + 2 * overlap) in each dimension.
+     *
+     * @param padded    the padded image
+     * @param width     the width of the original image
+     * @param height    the height of the original image
+     * @param tileSizeX the tile width
+     * @param tileSizeY the tile height
+     * @param overlapX  the overlap in X
+     * @param overlapY  the overlap in Y
+     * @return the scheduler
+     */
+    public static WekaTileScheduler createForPadded2D(ImagePlus padded, int width, int height, int tileSizeX, int tileSizeY, int overlapX, int overlapY) {
+        WekaTileScheduler scheduler = new WekaTileScheduler(padded, width, height, 1);
+        for (int y = 0; y < height; y += tileSizeY) {
+            for (int x = 0; x < width; x += tileSizeX) {
+                scheduler.tiles.add(new Tile(new Rectangle(x, y, tileSizeX + 2 * overlapX, tileSizeY + 2 * overlapY), 0, 1,
+                        overlapX, overlapY, 0,
+                        x, y, 0,
+                        Math.min(tileSizeX, width - x), Math.min(tileSizeY, height - y), 1));
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Creates a scheduler for a 3D image. The halo of each tile is taken from the neighboring image data and truncated at the image borders.
+     *
+     * @param image     the image
+     * @param tileSizeX the tile width
+     * @param tileSizeY the tile height
+     * @param tileSizeZ the tile depth
+     * @param halo      the halo in X, Y, and Z
+     * @return the scheduler
+     */
+    public static WekaTileScheduler create3D(ImagePlus image, int tileSizeX, int tileSizeY, int tileSizeZ, int halo) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int depth = image.getStackSize();
+        WekaTileScheduler scheduler = new WekaTileScheduler(image, width, height, depth);
+        for (int z = 0; z < depth; z += tileSizeZ) {
+            for (int y = 0; y < height; y += tileSizeY) {
+                for (int x = 0; x < width; x += tileSizeX) {
+                    int x0 = Math.max(0, x - halo);
+                    int y0 = Math.max(0, y - halo);
+                    int z0 = Math.max(0, z - halo);
+                    int x1 = Math.min(width, x + tileSizeX + halo);
+                    int y1 = Math.min(height, y + tileSizeY + halo);
+                    int z1 = Math.min(depth, z + tileSizeZ + halo);
+                    scheduler.tiles.add(new Tile(new Rectangle(x0, y0, x1 - x0, y1 - y0), z0, z1 - z0,
+                            x - x0, y - y0, z - z0,
+                            x, y, z,
+                            Math.min(tileSizeX, width - x), Math.min(tileSizeY, height - y), Math.min(tileSizeZ, depth - z)));
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Estimates the memory required for classifying a tile (feature stack and results)
+     *
+     * @param segmentation the segmentation
+     * @param voxels       the number of voxels of the tile (including the halo)
+     * @return the estimated number of bytes
+     */
+    public static long estimateTileMemory(WekaSegmentation segmentation, long voxels) {
+        int features = DEFAULT_FEATURE_COUNT;
+        int classes = Math.max(2, segmentation.getNumOfClasses());
+        Instances header = segmentation.getTrainHeader();
+        if (header != null) {
+            features = header.numAttributes();
+        }
+        // Float feature images, instance copies during classification, and probability output
+        return voxels * 4L * (2L * features + classes);
+    }
+
+    /**
+     * Returns the default memory budget (half of the maximum heap size)
+     *
+     * @return the budget in bytes
+     */
+    public static long getDefaultMemoryBudget() {
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    public List<Tile> getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Classifies all tiles
+     *
+     * @param model           the model. Additional copies of the classifier are created for each concurrently processed tile.
+     * @param threadPool      the thread pool that processes the tiles (can be null for sequential processing). Its number of threads is split across the concurrently processed tiles.
+     * @param memoryBudget    the memory budget in bytes that limits the number of concurrently processed tiles
+     * @param probabilityMaps if probability maps should be generated
+     * @param progressInfo    the progress info
+     * @return the classified image (channels are the probability maps if enabled)
+     */
+    public ImagePlus classify(WekaModelData model, JIPipeFixedThreadPool threadPool, long memoryBudget, boolean probabilityMaps, JIPipeProgressInfo progressInfo) {
+        int numThreads = threadPool != null ? threadPool.getMaxThreads() : 1;
+        // Tiles scheduled from one of the pool's own threads would be run sequentially
+        boolean parallel = threadPool != null && !threadPool.isWorkerThread();
+        long maxTileVoxels = 0;
+        for (Tile tile : tiles) {
+            maxTileVoxels = Math.max(maxTileVoxels, (long) tile.sourceRegion.width * tile.sourceRegion.height * tile.sourceDepth);
+        }
+        long tileMemory = estimateTileMemory(model.getSegmentation(), maxTileVoxels);
+        int concurrentTiles = parallel ? (int) Math.max(1, Math.min(Math.min(numThreads, tiles.size()), memoryBudget / Math.max(1, tileMemory))) : 1;
+        int threadsPerTile = Math.max(1, numThreads / concurrentTiles);
+        progressInfo.log("Classifying " + tiles.size() + " tiles (" + concurrentTiles + " concurrently, " + threadsPerTile + " thread(s) per tile, ~" +
+                (tileMemory / 1024 / 1024) + " MB per tile)");
+
+        // One classifier per concurrently processed tile
+        BlockingQueue<WekaSegmentation> segmentations = new ArrayBlockingQueue<>(concurrentTiles);
+        segmentations.add(model.getSegmentation());
+        for (int i = 1; i < concurrentTiles; i++) {
+            segmentations.add(new WekaModelData(model).getSegmentation());
+        }
+
+        OutputBuffer output = new OutputBuffer();
+        AtomicInteger counter = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (Tile tile : tiles) {
+            tasks.add(() -> {
+                if (progressInfo.isCancelled()) {
+                    return;
+                }
+                ImagePlus tileImage = cropTile(tile);
+                WekaSegmentation segmentation;
+                try {
+                    segmentation = segmentations.take();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                ImagePlus classified;
+                try {
+                    classified = segmentation.applyClassifier(tileImage, threadsPerTile, probabilityMaps);
+                } finally {
+                    segmentations.add(segmentation);
+                }
+                output.write(tile, classified);
+                progressInfo.resolveAndLog("Tile", counter.getAndIncrement(), tiles.size());
+            });
+        }
+
+        if (concurrentTiles == 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        } else {
+            // Limit the number of scheduled tiles, so the memory budget is kept
+            List<List<Runnable>> waves = Lists.partition(tasks, concurrentTiles);
+            try {
+                for (List<Runnable> wave : waves) {
+                    for (Future<Exception> future : threadPool.scheduleBatches(wave, 1)) {
+                        Exception exception = future.get();
+                        if (exception != null) {
+                            throw new RuntimeException(exception);
+                        }
+                    }
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return output.toImage();
+    }
+
+    private ImagePlus cropTile(Tile tile) {
+        ImageStack sourceStack = source.getStack();
+        ImageStack tileStack = new ImageStack(tile.sourceRegion.width, tile.sourceRegion.height);
+        for (int z = tile.sourceZ; z < tile.sourceZ + tile.sourceDepth; z++) {
+            ImageProcessor processor = sourceStack.getProcessor(z + 1);
+            // Processors of virtual stacks may be shared, so the ROI must be set exclusively
+            synchronized (processor) {
+                processor.setRoi(tile.sourceRegion);
+                tileStack.addSlice(processor.crop());
+                processor.resetRoi();
+            }
+        }
+        ImagePlus tileImage = new ImagePlus("Tile", tileStack);
+        tileImage.setDimensions(1, tile.sourceDepth, 1);
+        tileImage.copyScale(source);
+        return tileImage;
+    }
+
+    /**
+     * A tile
+     */
+    public static class Tile {
+        private final Rectangle sourceRegion;
+        private final int sourceZ;
+        private final int sourceDepth;
+        private final int insetX;
+        private final int insetY;
+        private final int insetZ;
+        private final int targetX;
+        private final int targetY;
+        private final int targetZ;
+        private final int width;
+        private final int height;
+        private final int depth;
+
+        public Tile(Rectangle sourceRegion, int sourceZ, int sourceDepth, int insetX, int insetY, int insetZ, int targetX, int targetY, int targetZ, int width, int height, int depth) {
+            this.sourceRegion = sourceRegion;
+            this.sourceZ = sourceZ;
+            this.sourceDepth = sourceDepth;
+            this.insetX = insetX;
+            this.insetY = insetY;
+            this.insetZ = insetZ;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.targetZ = targetZ;
+            this.width = width;
+            this.height = height;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Collects the classified tiles. The output stack is created from the first result,
+     * as the type and number of channels depends on the classifier.
+     */
+    private class OutputBuffer {
+        private ImageProcessor[] processors;
+        private int nChannels;
+
+        private synchronized void ensureCreated(ImageStack resultStack, int tileDepth) {
+            if (processors == null) {
+                nChannels = Math.max(1, resultStack.getSize() / tileDepth);
+                processors = new ImageProcessor[nChannels * outputDepth];
+                for (int i = 0; i < processors.length; i++) {
+                    processors[i] = resultStack.getProcessor(1).createProcessor(outputWidth, outputHeight);
+                }
+            }
+        }
+
+        private void write(Tile tile, ImagePlus classified) {
+            ImageStack resultStack = classified.getStack();
+            ensureCreated(resultStack, tile.sourceDepth);
+            for (int z = 0; z < tile.depth; z++) {
+                for (int c = 0; c < nChannels; c++) {
+                    ImageProcessor processor = resultStack.getProcessor(c + (tile.insetZ + z) * nChannels + 1);
+                    processor.setRoi(tile.insetX, tile.insetY, tile.width, tile.height);
+                    ImageProcessor crop = processor.crop();
+                    ImageProcessor target = processors[c + (tile.targetZ + z) * nChannels];
+                    // Tiles do not overlap in the output, but the processor itself is not thread-safe
+                    synchronized (target) {
+                        target.insert(crop, tile.targetX, tile.targetY);
+                    }
+                }
+            }
+        }
+
+        private ImagePlus toImage() {
+            ImageStack stack = new ImageStack(outputWidth, outputHeight);
+            if (processors != null) {
+                for (ImageProcessor processor : processors) {
+                    stack.addSlice(processor);
+                }
+            }
+            ImagePlus result = new ImagePlus("Classified", stack);
+            if (processors != null) {
+                result.setDimensions(nChannels, outputDepth, 1);
+            }
+            return result;
+        }
+    }
+}
@@ -15,11 +15,10 @@ package org.hkijena.jipipe.plugins.ijweka.nodes;
 
 import ij.ImagePlus;
 import ij.ImageStack;
-import org.hkijena.jipipe.JIPipe;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
-import org.hkijena.jipipe.api.data.JIPipeDataTable;
 import org.hkijena.jipipe.api.nodes.AddJIPipeInputSlot;
 import org.hkijena.jipipe.api.nodes.AddJIPipeOutputSlot;
 import org.hkijena.jipipe.api.nodes.JIPipeGraphNodeRunContext;
@@ -29,17 +28,18 @@ import org.hkijena.jipipe.api.nodes.categories.ImagesNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
+import org.hkijena.jipipe.plugins.ijweka.WekaTileScheduler;
 import org.hkijena.jipipe.plugins.ijweka.datatypes.WekaModelData;
 import org.hkijena.jipipe.plugins.ijweka.parameters.collections.WekaTiling2DSettings;
-import org.hkijena.jipipe.plugins.imagejalgorithms.nodes.transform.TileImage2DAlgorithm;
-import org.hkijena.jipipe.plugins.imagejalgorithms.nodes.transform.UnTileImage2DAlgorithm;
+import org.hkijena.jipipe.plugins.imagejalgorithms.nodes.transform.AddBorder2DAlgorithm;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJIterationUtils;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
-import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
 import org.hkijena.jipipe.utils.IJLogToJIPipeProgressInfoPump;
 import trainableSegmentation.WekaSegmentation;
 
+import java.awt.*;
+
 @SetJIPipeDocumentation(name = "Weka classifier 2D", description = "Classifies an image with a Weka model. If higher-dimensional data is provided, the classification is applied per slice. To obtain ROI from the generated labels, utilize the 'Labels to ROI' node.")
 @ConfigureJIPipeNode(nodeTypeCategory = ImagesNodeTypeCategory.class, menuPath = "Weka")
 @AddJIPipeInputSlot(value = ImagePlusData.class, name = "Image", description = "Image on which the classification should be applied", create = true)
@@ -71,28 +71,9 @@ public class WekaClassification2DAlgorithm extends JIPipeIteratingAlgorithm {
         WekaModelData modelData = iterationStep.getInputData("Model", WekaModelData.class, progressInfo);
         WekaSegmentation segmentation = modelData.getSegmentation();
 
-        TileImage2DAlgorithm tileImage2DAlgorithm = JIPipe.createNode(TileImage2DAlgorithm.class);
-        tileImage2DAlgorithm.setOverlapX(tilingSettings.getOverlapX());
-        tileImage2DAlgorithm.setOverlapY(tilingSettings.getOverlapY());
-        tileImage2DAlgorithm.setTileSizeX(tilingSettings.getTileSizeX());
-        tileImage2DAlgorithm.setTileSizeY(tilingSettings.getTileSizeY());
-        tileImage2DAlgorithm.setBorderMode(tilingSettings.getBorderMode());
-        tileImage2DAlgorithm.setTileInsetXAnnotation(new OptionalTextAnnotationNameParameter("inset_x", true));
-        tileImage2DAlgorithm.setTileInsetYAnnotation(new OptionalTextAnnotationNameParameter("inset_y", true));
-        tileImage2DAlgorithm.setTileRealXAnnotation(new OptionalTextAnnotationNameParameter("real_x", true));
-        tileImage2DAlgorithm.setTileRealYAnnotation(new OptionalTextAnnotationNameParameter("real_y", true));
-        tileImage2DAlgorithm.setImageWidthAnnotation(new OptionalTextAnnotationNameParameter("img_width", true));
-        tileImage2DAlgorithm.setImageHeightAnnotation(new OptionalTextAnnotationNameParameter("img_height", true));
-
-        UnTileImage2DAlgorithm unTileImage2DAlgorithm = JIPipe.createNode(UnTileImage2DAlgorithm.class);
-        unTileImage2DAlgorithm.setTileInsetXAnnotation(new OptionalTextAnnotationNameParameter("inset_x", true));
-        unTileImage2DAlgorithm.setTileInsetYAnnotation(new OptionalTextAnnotationNameParameter("inset_y", true));
-        unTileImage2DAlgorithm.setTileRealXAnnotation(new OptionalTextAnnotationNameParameter("real_x", true));
-        unTileImage2DAlgorithm.setTileRealYAnnotation(new OptionalTextAnnotationNameParameter("real_y", true));
-        unTileImage2DAlgorithm.setImageWidthAnnotation(new OptionalTextAnnotationNameParameter("img_width", true));
-        unTileImage2DAlgorithm.setImageHeightAnnotation(new OptionalTextAnnotationNameParameter("img_height", true));
-
-        ImageStack stack = new ImageStack(image.getWidth(), image.getHeight(), image.getNSlices() * image.getNChannels() * image.getNChannels());
+        long memoryBudget = tilingSettings.getMemoryBudget().isEnabled() ? tilingSettings.getMemoryBudget().getContent() * 1024L * 1024L : WekaTileScheduler.getDefaultMemoryBudget();
+
+        ImageStack stack = new ImageStack(image.getWidth(), image.getHeight(), image.getStackSize());
         try (IJLogToJIPipeProgressInfoPump pump = new IJLogToJIPipeProgressInfoPump(progressInfo.resolve("Weka"))) {
             ImageJIterationUtils.forEachIndexedZCTSlice(image, (ip, index) -> {
                 ImagePlus wholeSlice = new ImagePlus(image.getTitle() + " " + index, ip);
@@ -106,30 +87,30 @@ public class WekaClassification2DAlgorithm extends JIPipeIteratingAlgorithm {
                     } else {
                         progressInfo.log("Generating tiles for " + wholeSlice);
 
-                        // Generate tiles
-                        tileImage2DAlgorithm.clearSlotData(false, progressInfo);
-                        tileImage2DAlgorithm.getFirstInputSlot().addData(new ImagePlusData(wholeSlice), progressInfo);
-                        tileImage2DAlgorithm.run(runContext, progressInfo.resolve("Generate tiles"));
+                        // The border is generated once for the whole slice, so the tiles only need to be cut out
+                        int overlapX = tilingSettings.getOverlapX();
+                        int overlapY = tilingSettings.getOverlapY();
+                        int right = (int) Math.ceil(1.0 * image.getWidth() / tilingSettings.getTileSizeX()) * tilingSettings.getTileSizeX() - image.getWidth() + overlapX;
+                        int bottom = (int) Math.ceil(1.0 * image.getHeight() / tilingSettings.getTileSizeY()) * tilingSettings.getTileSizeY() - image.getHeight() + overlapY;
+                        ImagePlus padded = AddBorder2DAlgorithm.addBorder(wholeSlice, overlapX, overlapY, right, bottom, tilingSettings.getBorderMode(), 0, Color.BLACK, progressInfo.resolve("Adding border due to overlap"));
 
                         // Classify tiles
-                        JIPipeDataTable tileTable = tileImage2DAlgorithm.getFirstOutputSlot();
-                        for (int i = 0; i < tileTable.getRowCount(); i++) {
-                            JIPipeProgressInfo tileProgress = progressInfo.resolveAndLog("Classify tiles", i, tileTable.getRowCount());
-                            ImagePlus tileSlice = tileTable.getData(i, ImagePlusData.class, tileProgress).getImage();
-                            ImagePlus classifiedTileSlice = segmentation.applyClassifier(tileSlice, numThreads.getContentOrDefault(0), outputProbabilityMaps);
-                            tileTable.setData(i, new ImagePlusData(classifiedTileSlice));
+                        WekaTileScheduler scheduler = WekaTileScheduler.createForPadded2D(padded, image.getWidth(), image.getHeight(),
+                                tilingSettings.getTileSizeX(), tilingSettings.getTileSizeY(), overlapX, overlapY);
+                        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+                        boolean isCustomThreadPool = false;
+                        if (numThreads.isEnabled()) {
+                            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+                            isCustomThreadPool = true;
                         }
-
-                        // Merge tiles
-                        unTileImage2DAlgorithm.clearSlotData(false, progressInfo);
-                        unTileImage2DAlgorithm.getFirstInputSlot().addDataFromTable(tileTable, progressInfo);
-                        unTileImage2DAlgorithm.run(runContext, progressInfo.resolve("Merge tiles"));
-
-                        classified = unTileImage2DAlgorithm.getFirstOutputSlot().getData(0, ImagePlusData.class, progressInfo).getImage();
-
-                        // Cleanup
-                        tileImage2DAlgorithm.clearSlotData(false, progressInfo);
-                        unTileImage2DAlgorithm.clearSlotData(false, progressInfo);
+                        try {
+                            classified = scheduler.classify(modelData, threadPool, memoryBudget, outputProbabilityMaps, progressInfo.resolve("Classify tiles"));
+                        } finally {
+                            if (isCustomThreadPool) {
+                                threadPool.shutdown();
+                            }
+                        }
+                        classified.copyScale(wholeSlice);
                     }
                 } else {
                     progressInfo.log("Classifying whole image " + wholeSlice);
@@ -148,7 +129,7 @@ public class WekaClassification2DAlgorithm extends JIPipeIteratingAlgorithm {
         return tilingSettings;
     }
 
-    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads to be utilized. Set to zero for automated assignment of threads.")
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads to be utilized. Set to zero for automated assignment of threads. If disabled, tiles generated by JIPipe are processed with the threads of the current run.")
     @JIPipeParameter("num-threads")
     public OptionalIntegerParameter getNumThreads() {
         return numThreads;
@@ -15,6 +15,7 @@ package org.hkijena.jipipe.plugins.ijweka.nodes;
 
 import ij.ImagePlus;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.nodes.AddJIPipeInputSlot;
@@ -26,6 +27,7 @@ import org.hkijena.jipipe.api.nodes.categories.ImagesNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
+import org.hkijena.jipipe.plugins.ijweka.WekaTileScheduler;
 import org.hkijena.jipipe.plugins.ijweka.datatypes.WekaModelData;
 import org.hkijena.jipipe.plugins.ijweka.parameters.collections.WekaTiling3DSettings;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
@@ -68,13 +70,34 @@ public class WekaClassification3DAlgorithm extends JIPipeIteratingAlgorithm {
         ImagePlus wholeImage = image.getDuplicateImage();
         ImagePlus classified;
 
-        if (tilingSettings.isApplyTiling()) {
+        if (tilingSettings.isApplyTiling() && tilingSettings.isUseWekaNativeTiling()) {
             int tilesX = (int) Math.ceil(1.0 * image.getWidth() / tilingSettings.getTileSizeX());
             int tilesY = (int) Math.ceil(1.0 * image.getHeight() / tilingSettings.getTileSizeY());
             int tilesZ = (int) Math.ceil(1.0 * image.getNSlices() / tilingSettings.getTileSizeZ());
             try (IJLogToJIPipeProgressInfoPump pump = new IJLogToJIPipeProgressInfoPump(progressInfo.resolve("Weka"))) {
                 classified = segmentation.applyClassifier(wholeImage, new int[]{tilesX, tilesY, tilesZ}, numThreads.getContentOrDefault(0), outputProbabilityMaps);
             }
+        } else if (tilingSettings.isApplyTiling()) {
+            // The features at the tile borders require context up to the largest filter radius
+            int halo = (int) Math.ceil(segmentation.getMaximumSigma());
+            long memoryBudget = tilingSettings.getMemoryBudget().isEnabled() ? tilingSettings.getMemoryBudget().getContent() * 1024L * 1024L : WekaTileScheduler.getDefaultMemoryBudget();
+            WekaTileScheduler scheduler = WekaTileScheduler.create3D(wholeImage, tilingSettings.getTileSizeX(), tilingSettings.getTileSizeY(), tilingSettings.getTileSizeZ(), halo);
+            try (IJLogToJIPipeProgressInfoPump pump = new IJLogToJIPipeProgressInfoPump(progressInfo.resolve("Weka"))) {
+                JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+                boolean isCustomThreadPool = false;
+                if (numThreads.isEnabled()) {
+                    threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+                    isCustomThreadPool = true;
+                }
+                try {
+                    classified = scheduler.classify(modelData, threadPool, memoryBudget, outputProbabilityMaps, progressInfo.resolve("Classify tiles"));
+                } finally {
+                    if (isCustomThreadPool) {
+                        threadPool.shutdown();
+                    }
+                }
+            }
+            classified.copyScale(wholeImage);
         } else {
             try (IJLogToJIPipeProgressInfoPump pump = new IJLogToJIPipeProgressInfoPump(progressInfo.resolve("Weka"))) {
                 classified = segmentation.applyClassifier(wholeImage, numThreads.getContentOrDefault(0), outputProbabilityMaps);
@@ -90,7 +113,7 @@ public class WekaClassification3DAlgorithm extends JIPipeIteratingAlgorithm {
         return tilingSettings;
     }
 
-    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads to be utilized. Set to zero for automated assignment of threads.")
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads to be utilized. Set to zero for automated assignment of threads. If disabled, tiles generated by JIPipe are processed with the threads of the current run.")
     @JIPipeParameter("num-threads")
     public OptionalIntegerParameter getNumThreads() {
         return numThreads;
@@ -17,11 +17,12 @@ import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.parameters.AbstractJIPipeParameterCollection;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.plugins.imagejalgorithms.nodes.transform.BorderMode;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 
 public class WekaTiling2DSettings extends AbstractJIPipeParameterCollection {
     private boolean applyTiling = true;
 
-    private boolean useWekaNativeTiling = false;
+    private boolean useWekaNativeTiling = true;
 
     private BorderMode borderMode = BorderMode.Mirror;
     private int tileSizeX = 128;
@@ -31,6 +32,8 @@ public class WekaTiling2DSettings extends AbstractJIPipeParameterCollection {
 
     private int overlapY = 8;
 
+    private OptionalIntegerParameter memoryBudget = new OptionalIntegerParameter(false, 2048);
+
     public WekaTiling2DSettings() {
 
     }
@@ -43,6 +46,7 @@ public class WekaTiling2DSettings extends AbstractJIPipeParameterCollection {
         this.tileSizeY = other.tileSizeY;
         this.overlapX = other.overlapX;
         this.overlapY = other.overlapY;
+        this.memoryBudget = new OptionalIntegerParameter(other.memoryBudget);
     }
 
     @SetJIPipeDocumentation(name = "Use Weka's integrated tiling", description = "If enabled, the native Weka tiling algorithm is utilized. 'Border mode', 'Overlap (X)', and 'Overlap ('Y') do not have any effect in this case.")
@@ -129,4 +133,15 @@ public class WekaTiling2DSettings extends AbstractJIPipeParameterCollection {
         return false;
     }
 
+    @SetJIPipeDocumentation(name = "Limit memory of parallel tiles (MB)", description = "Tiles are classified in parallel. The number of concurrently processed tiles is limited by the number of threads and " +
+            "the estimated memory of the feature stacks. If enabled, this value sets the memory budget for all concurrently processed tiles. Otherwise, half of the maximum memory is used.")
+    @JIPipeParameter("memory-budget")
+    public OptionalIntegerParameter getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    @JIPipeParameter("memory-budget")
+    public void setMemoryBudget(OptionalIntegerParameter memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
 }
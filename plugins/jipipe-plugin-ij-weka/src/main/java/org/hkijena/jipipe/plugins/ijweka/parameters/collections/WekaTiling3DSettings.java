@@ -16,14 +16,18 @@ package org.hkijena.jipipe.plugins.ijweka.parameters.collections;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.parameters.AbstractJIPipeParameterCollection;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 
 public class WekaTiling3DSettings extends AbstractJIPipeParameterCollection {
     private boolean applyTiling = true;
 
+    private boolean useWekaNativeTiling = true;
+
     private int tileSizeX = 64;
     private int tileSizeY = 64;
     private int tileSizeZ = 64;
 
+    private OptionalIntegerParameter memoryBudget = new OptionalIntegerParameter(false, 2048);
 
     public WekaTiling3DSettings() {
 
@@ -34,6 +38,20 @@ public class WekaTiling3DSettings extends AbstractJIPipeParameterCollection {
         this.tileSizeX = other.tileSizeX;
         this.tileSizeY = other.tileSizeY;
         this.tileSizeZ = other.tileSizeZ;
+        this.useWekaNativeTiling = other.useWekaNativeTiling;
+        this.memoryBudget = new OptionalIntegerParameter(other.memoryBudget);
+    }
+
+    @SetJIPipeDocumentation(name = "Use Weka's integrated tiling", description = "If enabled, the native Weka tiling algorithm is utilized, which processes the tiles one after another. " +
+            "Otherwise, tiles are processed in parallel with a border that is determined by the maximum sigma of the model.")
+    @JIPipeParameter(value = "use-weka-native-tiling", important = true)
+    public boolean isUseWekaNativeTiling() {
+        return useWekaNativeTiling;
+    }
+
+    @JIPipeParameter("use-weka-native-tiling")
+    public void setUseWekaNativeTiling(boolean useWekaNativeTiling) {
+        this.useWekaNativeTiling = useWekaNativeTiling;
     }
 
     @SetJIPipeDocumentation(name = "Apply tiling", description = "If enabled, the input image is first split into tiles that are processed individually by the Weka segmentation. " +
@@ -80,4 +98,16 @@ public class WekaTiling3DSettings extends AbstractJIPipeParameterCollection {
     public void setTileSizeZ(int tileSizeZ) {
         this.tileSizeZ = tileSizeZ;
     }
+
+    @SetJIPipeDocumentation(name = "Limit memory of parallel tiles (MB)", description = "Tiles are classified in parallel. The number of concurrently processed tiles is limited by the number of threads and " +
+            "the estimated memory of the feature stacks. If enabled, this value sets the memory budget for all concurrently processed tiles. Otherwise, half of the maximum memory is used.")
+    @JIPipeParameter("memory-budget")
+    public OptionalIntegerParameter getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    @JIPipeParameter("memory-budget")
+    public void setMemoryBudget(OptionalIntegerParameter memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
 }
@@ -18,7 +18,9 @@ import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.api.settings.JIPipeDefaultApplicationSettingsSheetCategory;
 import org.hkijena.jipipe.api.settings.JIPipeDefaultApplicationsSettingsSheet;
+import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.ImagePlusStorageFormat;
 import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.OMETIFFCompression;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.utils.UIUtils;
 
 import javax.swing.*;
@@ -29,6 +31,10 @@ public class ImageJDataTypesApplicationSettings extends JIPipeDefaultApplication
     private boolean useBioFormats = true;
     private boolean saveRGBWithImageJ = true;
     private OMETIFFCompression bioFormatsCompression = OMETIFFCompression.Uncompressed;
+    private ImagePlusStorageFormat storageFormat = ImagePlusStorageFormat.TIFF;
+    private boolean compressZARR = true;
+    private boolean lazyLoadZARR = true;
+    private OptionalIntegerParameter zarrNumThreads = new OptionalIntegerParameter(false, 0);
 
     public static ImageJDataTypesApplicationSettings getInstance() {
         return JIPipe.getSettings().getById(ID, ImageJDataTypesApplicationSettings.class);
@@ -68,6 +74,53 @@ public class ImageJDataTypesApplicationSettings extends JIPipeDefaultApplication
         this.saveRGBWithImageJ = saveRGBWithImageJ;
     }
 
+    @SetJIPipeDocumentation(name = "Storage format", description = "The format in which images are stored. " +
+            "OME-Zarr stores images as directory of compressed chunks (one or multiple tiles per plane) that are written in parallel and can be read plane by plane. " +
+            "Both formats can always be read.")
+    @JIPipeParameter("storage-format")
+    public ImagePlusStorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    @JIPipeParameter("storage-format")
+    public void setStorageFormat(ImagePlusStorageFormat storageFormat) {
+        this.storageFormat = storageFormat;
+    }
+
+    @SetJIPipeDocumentation(name = "Compress OME-Zarr chunks", description = "If enabled, OME-Zarr chunks are compressed (GZIP)")
+    @JIPipeParameter("zarr-compress")
+    public boolean isCompressZARR() {
+        return compressZARR;
+    }
+
+    @JIPipeParameter("zarr-compress")
+    public void setCompressZARR(boolean compressZARR) {
+        this.compressZARR = compressZARR;
+    }
+
+    @SetJIPipeDocumentation(name = "Lazy loading of OME-Zarr", description = "If enabled, planes of images stored as OME-Zarr are only read when they are accessed. " +
+            "Only applies to data that is stored in a directory (not within ZIP files).")
+    @JIPipeParameter("zarr-lazy-loading")
+    public boolean isLazyLoadZARR() {
+        return lazyLoadZARR;
+    }
+
+    @JIPipeParameter("zarr-lazy-loading")
+    public void setLazyLoadZARR(boolean lazyLoadZARR) {
+        this.lazyLoadZARR = lazyLoadZARR;
+    }
+
+    @SetJIPipeDocumentation(name = "OME-Zarr threads", description = "The number of threads for reading and writing OME-Zarr planes. If disabled, the threads of the current run or the threads shared by JIPipe are used.")
+    @JIPipeParameter("zarr-num-threads")
+    public OptionalIntegerParameter getZarrNumThreads() {
+        return zarrNumThreads;
+    }
+
+    @JIPipeParameter("zarr-num-threads")
+    public void setZarrNumThreads(OptionalIntegerParameter zarrNumThreads) {
+        this.zarrNumThreads = zarrNumThreads;
+    }
+
     @Override
     public JIPipeDefaultApplicationSettingsSheetCategory getDefaultCategory() {
         return JIPipeDefaultApplicationSettingsSheetCategory.Plugins;
@@ -77,6 +77,7 @@ import org.hkijena.jipipe.plugins.imagejdatatypes.display.OpenInImageJDataDispla
 import org.hkijena.jipipe.plugins.imagejdatatypes.display.OpenInNapariDataDisplayOperation;
 import org.hkijena.jipipe.plugins.imagejdatatypes.display.viewers.*;
 import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.OMEColorMode;
+import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.ImagePlusStorageFormat;
 import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.OMETIFFCompression;
 import org.hkijena.jipipe.plugins.imagejdatatypes.resultanalysis.ImageDataPreview;
 import org.hkijena.jipipe.plugins.imagejdatatypes.resultanalysis.ImportImageJPathDataDisplayOperation;
@@ -393,6 +394,10 @@ public class ImageJDataTypesPlugin extends JIPipePrepackagedDefaultJavaPlugin {
                 OMETIFFCompression.class,
                 "OME TIFF Compression",
                 "Available compression algorithms");
+        registerEnumParameterType("ij-image-storage-format",
+                ImagePlusStorageFormat.class,
+                "Image storage format",
+                "Available formats for storing images");
         registerEnumParameterType("ij-bit-depth",
                 BitDepth.class,
                 "Bit depth",
@@ -40,6 +40,7 @@ import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.plugins.filesystem.dataypes.FileData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.OMEXMLData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.OMEColorMode;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.BioFormatsReaderPool;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalDataAnnotationNameParameter;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
 import org.hkijena.jipipe.plugins.strings.XMLData;
@@ -67,6 +68,7 @@ import java.util.stream.IntStream;
 public class BioFormatsExtractOMEXMLAlgorithm extends JIPipeSimpleIteratingAlgorithm {
 
     private final BioFormatsSettings bioFormatsSettings;
+    private BioFormatsReaderPool readerPool;
 
     public BioFormatsExtractOMEXMLAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -80,9 +82,29 @@ public class BioFormatsExtractOMEXMLAlgorithm extends JIPipeSimpleIteratingAlgor
         registerSubParameter(bioFormatsSettings);
     }
 
+    @Override
+    public void run(JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        readerPool = new BioFormatsReaderPool();
+        try {
+            super.run(runContext, progressInfo);
+        } finally {
+            readerPool.close();
+            readerPool = null;
+        }
+    }
+
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         FileData inputFile = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
+
+        // These options modify the metadata. Otherwise, we can use the (memoized) metadata of the reader directly.
+        if (readerPool != null && !bioFormatsSettings.swapDimensions && !bioFormatsSettings.concatenate && !bioFormatsSettings.stitchTiles) {
+            try (BioFormatsReaderPool.Lease lease = readerPool.acquire(inputFile.getPath())) {
+                iterationStep.addOutputData(getFirstOutputSlot(), new OMEXMLData(lease.getOMEMetadata().dumpXML()), progressInfo);
+            }
+            return;
+        }
+
         ImporterOptions options;
         try {
             options = new ImporterOptions();
@@ -13,20 +13,31 @@
 
 package org.hkijena.jipipe.plugins.imagejdatatypes.algorithms.io;
 
+import ij.CompositeImage;
+import ij.IJ;
 import ij.ImagePlus;
+import ij.ImageStack;
+import ij.measure.Calibration;
+import ij.process.ImageProcessor;
+import ij.process.LUT;
 import loci.common.Region;
+import loci.formats.ChannelSeparator;
 import loci.formats.FormatException;
+import loci.formats.meta.IMetadata;
 import loci.plugins.config.ConfigWindow;
 import loci.plugins.in.ImagePlusReader;
 import loci.plugins.in.ImportProcess;
 import loci.plugins.in.ImporterOptions;
+import loci.plugins.util.ImageProcessorReader;
 import loci.plugins.util.WindowTools;
+import ome.units.UNITS;
 import ome.xml.meta.OMEXMLMetadata;
 import ome.xml.model.enums.DimensionOrder;
 import org.hkijena.jipipe.api.*;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotation;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotationMergeMode;
 import org.hkijena.jipipe.api.nodes.*;
+import org.hkijena.jipipe.api.nodes.algorithm.JIPipeIterationStepPrefetcher;
 import org.hkijena.jipipe.api.nodes.algorithm.JIPipeSimpleIteratingAlgorithm;
 import org.hkijena.jipipe.api.nodes.categories.DataSourceNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.categories.ImageJNodeTypeCategory;
@@ -34,13 +45,22 @@ import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.api.parameters.JIPipeContextAction;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReportEntry;
+import org.hkijena.jipipe.api.validation.JIPipeValidationReportEntryLevel;
+import org.hkijena.jipipe.api.validation.JIPipeValidationRuntimeException;
+import org.hkijena.jipipe.api.validation.contexts.GraphNodeValidationReportContext;
+import org.hkijena.jipipe.plugins.expressions.JIPipeExpressionVariablesMap;
 import org.hkijena.jipipe.plugins.filesystem.dataypes.FileData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.OMEImageData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ROI2DListData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.OMEColorMode;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.BioFormatsReaderPool;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ROIHandler;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.list.IntegerList;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerRange;
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.ranges.IntegerRange;
 import org.hkijena.jipipe.plugins.parameters.library.roi.RectangleList;
 import org.hkijena.jipipe.utils.IJLogToJIPipeProgressInfoPump;
 import org.hkijena.jipipe.utils.ResourceUtils;
@@ -48,8 +68,12 @@ import org.hkijena.jipipe.utils.StringUtils;
 
 import java.awt.*;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * BioFormats importer wrapper
@@ -80,6 +104,11 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
     private RectangleList cropRegions = new RectangleList();
     private boolean openAllSeries = false;
     private IntegerList seriesToImport = new IntegerList();
+    private OptionalIntegerRange channelsToImport = new OptionalIntegerRange(new IntegerRange("0"), false);
+    private OptionalIntegerRange slicesToImport = new OptionalIntegerRange(new IntegerRange("0"), false);
+    private OptionalIntegerRange framesToImport = new OptionalIntegerRange(new IntegerRange("0"), false);
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
+    private BioFormatsReaderPool readerPool;
 
     /**
      * @param info the info
@@ -112,11 +141,180 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
         this.openAllSeries = other.openAllSeries;
         this.seriesToImport = new IntegerList(other.seriesToImport);
         this.seriesAnnotation = new OptionalTextAnnotationNameParameter(other.seriesAnnotation);
+        this.channelsToImport = new OptionalIntegerRange(other.channelsToImport);
+        this.slicesToImport = new OptionalIntegerRange(other.slicesToImport);
+        this.framesToImport = new OptionalIntegerRange(other.framesToImport);
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
+    }
+
+    @Override
+    public void run(JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        readerPool = new BioFormatsReaderPool();
+        try {
+            super.run(runContext, progressInfo);
+        } finally {
+            readerPool.close();
+            readerPool = null;
+        }
     }
 
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        @SuppressWarnings("unchecked")
+        List<ImportedImage> images = (List<ImportedImage>) iterationStep.getPrefetchedData();
+        if (images == null) {
+            images = importFile(iterationStep, runContext, progressInfo);
+        }
+        for (ImportedImage image : images) {
+            iterationStep.addOutputData(getFirstOutputSlot(), image.getData(), image.getAnnotations(), JIPipeTextAnnotationMergeMode.Merge, progressInfo);
+        }
+    }
+
+    @Override
+    public boolean supportsPrefetching() {
+        return true;
+    }
+
+    @Override
+    protected Object prefetchIterationStep(JIPipeSingleIterationStep iterationStep, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        // Prefetching already runs in parallel to the processing, so the series are imported sequentially
+        FileData inputFile = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
+        return importFile(inputFile.getPath(), null, progressInfo);
+    }
+
+    @Override
+    protected long estimatePrefetchSize(JIPipeSingleIterationStep iterationStep) {
+        FileData inputFile = iterationStep.getInputData(getFirstInputSlot(), FileData.class, JIPipeProgressInfo.SILENT);
+        // The dimensions are read via the pool, so the parsed metadata is re-used by the import
+        BioFormatsReaderPool.SeriesDimensions[] dimensions;
+        try {
+            dimensions = getReaderPool().getSeriesDimensions(inputFile.getPath());
+        } catch (RuntimeException e) {
+            return JIPipeIterationStepPrefetcher.estimateFileSize(inputFile.toPath());
+        }
+        long size = 0;
+        for (int s = 0; s < dimensions.length; s++) {
+            if (openAllSeries || seriesToImport.contains(s)) {
+                size += dimensions[s].getSizeInBytes();
+            }
+        }
+        return size;
+    }
+
+    private List<ImportedImage> importFile(JIPipeSingleIterationStep iterationStep, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         FileData inputFile = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
+        String path = inputFile.getPath();
+
+        // Series are independent, unless they are combined into one image
+        JIPipeFixedThreadPool threadPool = runContext != null ? runContext.getThreadPool() : null;
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled() && !concatenate && !stitchTiles) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        try {
+            return importFile(path, (concatenate || stitchTiles) ? null : threadPool, progressInfo);
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
+    }
+
+    private List<ImportedImage> importFile(String path, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        // Series scheduled from one of the pool's own threads would be imported sequentially anyway
+        int numThreads = threadPool != null && !threadPool.isWorkerThread() ? threadPool.getMaxThreads() : 1;
+        boolean specifyRanges = channelsToImport.isEnabled() || slicesToImport.isEnabled() || framesToImport.isEnabled();
+
+        // The metadata is only needed if we have to know the series/dimensions in advance
+        BioFormatsReaderPool.SeriesDimensions[] dimensions = null;
+        if (specifyRanges || (numThreads > 1 && (openAllSeries || seriesToImport.size() > 1))) {
+            dimensions = getReaderPool().getSeriesDimensions(path);
+        }
+
+        List<Integer> seriesIndices = new ArrayList<>();
+        if (openAllSeries) {
+            if (dimensions != null) {
+                for (int s = 0; s < dimensions.length; s++) {
+                    seriesIndices.add(s);
+                }
+            } else {
+                seriesIndices = null;
+            }
+        } else {
+            for (int s : seriesToImport) {
+                if (dimensions == null || (s >= 0 && s < dimensions.length)) {
+                    seriesIndices.add(s);
+                }
+            }
+        }
+
+        List<List<Integer>> seriesGroups = new ArrayList<>();
+        if (seriesIndices != null && Math.min(seriesIndices.size(), numThreads) > 1) {
+            numThreads = Math.min(seriesIndices.size(), numThreads);
+            for (int i = 0; i < numThreads; i++) {
+                seriesGroups.add(new ArrayList<>());
+            }
+            for (int i = 0; i < seriesIndices.size(); i++) {
+                seriesGroups.get(i % numThreads).add(seriesIndices.get(i));
+            }
+        } else {
+            seriesGroups.add(seriesIndices);
+        }
+
+        List<List<ImportedImage>> groupResults = new ArrayList<>();
+        try (IJLogToJIPipeProgressInfoPump pump = new IJLogToJIPipeProgressInfoPump(progressInfo)) {
+            if (seriesGroups.size() == 1) {
+                groupResults.add(importSeries(path, seriesGroups.get(0), dimensions, progressInfo));
+            } else {
+                progressInfo.log("Importing " + seriesIndices.size() + " series with " + seriesGroups.size() + " threads");
+                List<List<ImportedImage>> results = new ArrayList<>();
+                List<Runnable> tasks = new ArrayList<>();
+                for (List<Integer> group : seriesGroups) {
+                    results.add(null);
+                    int groupIndex = results.size() - 1;
+                    BioFormatsReaderPool.SeriesDimensions[] finalDimensions = dimensions;
+                    tasks.add(() -> results.set(groupIndex, importSeries(path, group, finalDimensions, progressInfo.resolve("Series " + group))));
+                }
+                try {
+                    for (Future<Exception> future : threadPool.scheduleBatches(tasks, 1)) {
+                        Exception exception = future.get();
+                        if (exception != null) {
+                            throw new RuntimeException(exception);
+                        }
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new RuntimeException(e);
+                }
+                groupResults.addAll(results);
+            }
+        }
+
+        // Output in series order
+        List<ImportedImage> images = new ArrayList<>();
+        for (List<ImportedImage> groupResult : groupResults) {
+            images.addAll(groupResult);
+        }
+        images.sort(Comparator.comparingInt(ImportedImage::getSeries));
+        return images;
+    }
+
+    private synchronized BioFormatsReaderPool getReaderPool() {
+        if (readerPool == null) {
+            // Run outside of run() (e.g., direct calls to runIteration)
+            readerPool = new BioFormatsReaderPool();
+        }
+        return readerPool;
+    }
+
+    /**
+     * Creates the Bio-Formats importer options
+     *
+     * @param path          the file
+     * @param seriesIndices the series to import. If null, all series are imported.
+     * @return the options
+     */
+    private ImporterOptions createImporterOptions(String path, List<Integer> seriesIndices) {
         ImporterOptions options;
         try {
             options = new ImporterOptions();
@@ -124,7 +322,7 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
             throw new RuntimeException(e);
         }
 
-        options.setId(inputFile.getPath());
+        options.setId(path);
         options.setWindowless(true);
         options.setQuiet(true);
         options.setShowMetadata(false);
@@ -141,12 +339,12 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
         options.setCrop(crop);
         options.setAutoscale(autoScale);
         options.setStitchTiles(stitchTiles);
-        if (openAllSeries) {
-            options.setOpenAllSeries(openAllSeries);
+        if (seriesIndices == null) {
+            options.setOpenAllSeries(true);
         } else {
-            options.setOpenAllSeries(openAllSeries);
+            options.setOpenAllSeries(false);
             options.clearSeries();
-            for (Integer index : seriesToImport) {
+            for (Integer index : seriesIndices) {
                 options.setSeriesOn(index, true);
             }
         }
@@ -154,8 +352,19 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
             Rectangle rectangle = cropRegions.get(i);
             options.setCropRegion(i, new Region(rectangle.x, rectangle.y, rectangle.width, rectangle.height));
         }
+        return options;
+    }
 
-        try (IJLogToJIPipeProgressInfoPump pump = new IJLogToJIPipeProgressInfoPump(progressInfo)) {
+    private List<ImportedImage> importSeries(String path, List<Integer> seriesIndices, BioFormatsReaderPool.SeriesDimensions[] dimensions, JIPipeProgressInfo progressInfo) {
+        if (canReadFromPool()) {
+            return readSeriesFromPool(path, seriesIndices, progressInfo);
+        }
+        ImporterOptions options = createImporterOptions(path, seriesIndices);
+        if (dimensions != null && (channelsToImport.isEnabled() || slicesToImport.isEnabled() || framesToImport.isEnabled())) {
+            configurePlaneRanges(options, seriesIndices, dimensions, progressInfo);
+        }
+        List<ImportedImage> result = new ArrayList<>();
+        try {
             ImportProcess process = new ImportProcess(options);
             if (!process.execute()) {
                 throw new NullPointerException();
@@ -166,37 +375,260 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
                 process.getReader().close();
             }
 
-            OMEXMLMetadata omexmlMetadata = null;
-            if (process.getOMEMetadata() instanceof OMEXMLMetadata) {
-                omexmlMetadata = (OMEXMLMetadata) process.getOMEMetadata();
+            for (ImagePlus image : images) {
+                result.add(createImportedImage(image, process.getOMEMetadata()));
             }
+        } catch (FormatException | IOException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
 
-            for (ImagePlus image : images) {
-                List<JIPipeTextAnnotation> annotations = new ArrayList<>();
-                String title = image.getTitle();
-                if (titleAnnotation.isEnabled()) {
-                    annotations.add(new JIPipeTextAnnotation(titleAnnotation.getContent(), title));
+    private ImportedImage createImportedImage(ImagePlus image, IMetadata metadata) {
+        OMEXMLMetadata omexmlMetadata = null;
+        if (metadata instanceof OMEXMLMetadata) {
+            omexmlMetadata = (OMEXMLMetadata) metadata;
+        }
+        List<JIPipeTextAnnotation> annotations = new ArrayList<>();
+        String title = image.getTitle();
+        if (titleAnnotation.isEnabled()) {
+            annotations.add(new JIPipeTextAnnotation(titleAnnotation.getContent(), title));
+        }
+        int series = 0;
+        if (image.getProperties().containsKey("Series")) {
+            series = ((Number) image.getProperties().get("Series")).intValue();
+        }
+        if (seriesAnnotation.isEnabled()) {
+            if (image.getProperties().containsKey("Series")) {
+                seriesAnnotation.addAnnotationIfEnabled(annotations, StringUtils.orElse(series + 1, "1"));
+            } else {
+                seriesAnnotation.addAnnotationIfEnabled(annotations, "1");
+            }
+        }
+
+        ROI2DListData rois = new ROI2DListData();
+        if (extractRois) {
+            rois = ROIHandler.openROIs(metadata, new ImagePlus[]{image});
+        }
+
+        return new ImportedImage(series, new OMEImageData(image, rois, omexmlMetadata), annotations);
+    }
+
+    /**
+     * Returns true if the images can be read directly from a pooled reader.
+     * Options that rearrange, split, or combine planes are only supported by the Bio-Formats import process, which always creates its own reader.
+     *
+     * @return if the pooled readers can be used
+     */
+    private boolean canReadFromPool() {
+        return !concatenate && !stitchTiles && !crop && !splitChannels && !splitFocalPlanes && !splitTimePoints && !swapDimensions &&
+                stackOrder == DimensionOrder.XYCZT && colorMode != OMEColorMode.Custom;
+    }
+
+    /**
+     * Reads the series with a reader from the pool, so the parsed (and memoized) metadata is re-used
+     *
+     * @param path          the file
+     * @param seriesIndices the series to import. If null, all series are imported.
+     * @param progressInfo  the progress info
+     * @return the images
+     */
+    private List<ImportedImage> readSeriesFromPool(String path, List<Integer> seriesIndices, JIPipeProgressInfo progressInfo) {
+        List<ImportedImage> result = new ArrayList<>();
+        try (BioFormatsReaderPool.Lease lease = getReaderPool().acquire(path)) {
+            IMetadata metadata = (IMetadata) lease.getReader().getMetadataStore();
+            // The wrappers must not be closed, as this would close the pooled reader
+            ImageProcessorReader reader = new ImageProcessorReader(new ChannelSeparator(lease.getReader()));
+            if (seriesIndices == null) {
+                seriesIndices = new ArrayList<>();
+                for (int s = 0; s < reader.getSeriesCount(); s++) {
+                    seriesIndices.add(s);
                 }
-                if (seriesAnnotation.isEnabled()) {
-                    if (image.getProperties().containsKey("Series")) {
-                        seriesAnnotation.addAnnotationIfEnabled(annotations, StringUtils.orElse(((Number) image.getProperties().get("Series")).intValue() + 1, "1"));
-                    } else {
-                        seriesAnnotation.addAnnotationIfEnabled(annotations, "1");
+            }
+            String fileName = Paths.get(path).getFileName().toString();
+            for (int s : seriesIndices) {
+                if (progressInfo.isCancelled()) {
+                    break;
+                }
+                reader.setSeries(s);
+                int[] channels = channelsToImport.isEnabled() ? toPlaneRange(channelsToImport.getContent(), reader.getSizeC(), "channels") : new int[]{0, reader.getSizeC() - 1, 1};
+                int[] slices = slicesToImport.isEnabled() ? toPlaneRange(slicesToImport.getContent(), reader.getSizeZ(), "slices") : new int[]{0, reader.getSizeZ() - 1, 1};
+                int[] frames = framesToImport.isEnabled() ? toPlaneRange(framesToImport.getContent(), reader.getSizeT(), "frames") : new int[]{0, reader.getSizeT() - 1, 1};
+                ImageStack stack = new ImageStack(reader.getSizeX(), reader.getSizeY());
+                for (int t = frames[0]; t <= frames[1]; t += frames[2]) {
+                    for (int z = slices[0]; z <= slices[1]; z += slices[2]) {
+                        for (int c = channels[0]; c <= channels[1]; c += channels[2]) {
+                            stack.addSlice(reader.openProcessors(reader.getIndex(z, c, t))[0]);
+                        }
                     }
                 }
+                progressInfo.log("Series " + s + ": read " + stack.getSize() + " planes");
+                int nChannels = (channels[1] - channels[0]) / channels[2] + 1;
+                int nSlices = (slices[1] - slices[0]) / slices[2] + 1;
+                int nFrames = (frames[1] - frames[0]) / frames[2] + 1;
+
+                String seriesName = metadata.getImageName(s);
+                String title = reader.getSeriesCount() > 1 ? fileName + " - " + StringUtils.orElse(seriesName, "Series " + (s + 1)) : fileName;
+                ImagePlus image = new ImagePlus(title, stack);
+                image.setDimensions(nChannels, nSlices, nFrames);
+                image.setOpenAsHyperStack(true);
+                image.setProperty("Series", s);
+                image = applyColorMode(image, metadata, s, channels, reader.getBitsPerPixel());
+                calibrate(image, metadata, s);
+
+                result.add(createImportedImage(image, metadata));
+            }
+        } catch (FormatException | IOException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    private void calibrate(ImagePlus image, IMetadata metadata, int series) {
+        Calibration calibration = image.getCalibration();
+        Number sizeX = metadata.getPixelsPhysicalSizeX(series) != null ? metadata.getPixelsPhysicalSizeX(series).value(UNITS.MICROMETER) : null;
+        Number sizeY = metadata.getPixelsPhysicalSizeY(series) != null ? metadata.getPixelsPhysicalSizeY(series).value(UNITS.MICROMETER) : null;
+        Number sizeZ = metadata.getPixelsPhysicalSizeZ(series) != null ? metadata.getPixelsPhysicalSizeZ(series).value(UNITS.MICROMETER) : null;
+        Number timeIncrement = metadata.getPixelsTimeIncrement(series) != null ? metadata.getPixelsTimeIncrement(series).value(UNITS.SECOND) : null;
+        if (sizeX != null) {
+            calibration.pixelWidth = sizeX.doubleValue();
+            calibration.setUnit("micron");
+        }
+        if (sizeY != null) {
+            calibration.pixelHeight = sizeY.doubleValue();
+            calibration.setUnit("micron");
+        }
+        if (sizeZ != null) {
+            calibration.pixelDepth = sizeZ.doubleValue();
+            calibration.setUnit("micron");
+        }
+        if (timeIncrement != null) {
+            calibration.frameInterval = timeIncrement.doubleValue();
+            calibration.setTimeUnit("sec");
+        }
+    }
 
-                ROI2DListData rois = new ROI2DListData();
-                if (extractRois) {
-                    rois = ROIHandler.openROIs(process.getOMEMetadata(), new ImagePlus[]{image});
+    private ImagePlus applyColorMode(ImagePlus image, IMetadata metadata, int series, int[] channels, int bitsPerPixel) {
+        int nChannels = image.getNChannels();
+        double[][] displayRanges = new double[nChannels][];
+        for (int c = 0; c < nChannels; c++) {
+            if (autoScale || image.getBitDepth() == 32) {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int z = 0; z < image.getNSlices(); z++) {
+                    for (int t = 0; t < image.getNFrames(); t++) {
+                        ImageProcessor processor = image.getStack().getProcessor(image.getStackIndex(c + 1, z + 1, t + 1));
+                        processor.resetMinAndMax();
+                        min = Math.min(min, processor.getMin());
+                        max = Math.max(max, processor.getMax());
+                    }
                 }
+                displayRanges[c] = new double[]{min, max};
+            } else {
+                // Scale to the digitization bit depth
+                displayRanges[c] = new double[]{0, Math.pow(2, bitsPerPixel) - 1};
+            }
+        }
+        if (nChannels == 1) {
+            image.setDisplayRange(displayRanges[0][0], displayRanges[0][1]);
+            return image;
+        }
+        int mode;
+        switch (colorMode) {
+            case Colorized:
+                mode = IJ.COLOR;
+                break;
+            case Grayscale:
+                mode = IJ.GRAYSCALE;
+                break;
+            default:
+                mode = nChannels <= 7 ? IJ.COMPOSITE : IJ.COLOR;
+                break;
+        }
+        CompositeImage compositeImage = new CompositeImage(image, mode);
+        for (int c = 0; c < nChannels; c++) {
+            if (mode != IJ.GRAYSCALE) {
+                // Colors that are stored in the file take precedence over the default colors
+                ome.xml.model.primitives.Color color = metadata.getChannelCount(series) > channels[0] + c * channels[2] ?
+                        metadata.getChannelColor(series, channels[0] + c * channels[2]) : null;
+                if (color != null) {
+                    compositeImage.setChannelLut(LUT.createLutFromColor(new Color(color.getRed(), color.getGreen(), color.getBlue())), c + 1);
+                }
+            }
+            LUT lut = compositeImage.getChannelLut(c + 1);
+            lut.min = displayRanges[c][0];
+            lut.max = displayRanges[c][1];
+        }
+        compositeImage.setProperty("Series", image.getProperty("Series"));
+        return compositeImage;
+    }
 
-                iterationStep.addOutputData(getFirstOutputSlot(), new OMEImageData(image, rois, omexmlMetadata), annotations, JIPipeTextAnnotationMergeMode.Merge, progressInfo);
+    /**
+     * Passes the C/Z/T selection to Bio-Formats, so only the selected planes are read from the file.
+     * Bio-Formats only supports begin/end/step ranges, so the selection must be an arithmetic sequence.
+     *
+     * @param options       the importer options
+     * @param seriesIndices the imported series
+     * @param dimensions    the dimensions of all series
+     * @param progressInfo  the progress info
+     */
+    private void configurePlaneRanges(ImporterOptions options, List<Integer> seriesIndices, BioFormatsReaderPool.SeriesDimensions[] dimensions, JIPipeProgressInfo progressInfo) {
+        options.setSpecifyRanges(true);
+        for (int s : seriesIndices) {
+            BioFormatsReaderPool.SeriesDimensions seriesDimensions = dimensions[s];
+            if (channelsToImport.isEnabled()) {
+                int[] range = toPlaneRange(channelsToImport.getContent(), seriesDimensions.getSizeC(), "channels");
+                options.setCBegin(s, range[0]);
+                options.setCEnd(s, range[1]);
+                options.setCStep(s, range[2]);
             }
-        } catch (FormatException | IOException e) {
-            throw new RuntimeException(e);
+            if (slicesToImport.isEnabled()) {
+                int[] range = toPlaneRange(slicesToImport.getContent(), seriesDimensions.getSizeZ(), "slices");
+                options.setZBegin(s, range[0]);
+                options.setZEnd(s, range[1]);
+                options.setZStep(s, range[2]);
+            }
+            if (framesToImport.isEnabled()) {
+                int[] range = toPlaneRange(framesToImport.getContent(), seriesDimensions.getSizeT(), "frames");
+                options.setTBegin(s, range[0]);
+                options.setTEnd(s, range[1]);
+                options.setTStep(s, range[2]);
+            }
+            progressInfo.log("Series " + s + ": importing C=" + options.getCBegin(s) + "-" + options.getCEnd(s) +
+                    ", Z=" + options.getZBegin(s) + "-" + options.getZEnd(s) +
+                    ", T=" + options.getTBegin(s) + "-" + options.getTEnd(s));
         }
     }
 
+    private int[] toPlaneRange(IntegerRange range, int size, String dimensionName) {
+        JIPipeExpressionVariablesMap variables = new JIPipeExpressionVariablesMap(this);
+        List<Integer> indices = new ArrayList<>();
+        for (int index : range.getIntegers(0, size - 1, variables)) {
+            // Negative indices count from the end (same as the hyperstack slicer)
+            int wrapped = index < 0 ? size + index : index;
+            if (wrapped >= 0 && wrapped < size && !indices.contains(wrapped)) {
+                indices.add(wrapped);
+            }
+        }
+        indices.sort(Integer::compareTo);
+        if (indices.isEmpty()) {
+            throw new JIPipeValidationRuntimeException(new JIPipeValidationReportEntry(JIPipeValidationReportEntryLevel.Error, new GraphNodeValidationReportContext(this),
+                    "No " + dimensionName + " selected",
+                    "The selection '" + range + "' does not contain any of the " + size + " " + dimensionName + " of the image.",
+                    "Please check the selected " + dimensionName + ". The first index is zero."));
+        }
+        int step = indices.size() > 1 ? indices.get(1) - indices.get(0) : 1;
+        for (int i = 1; i < indices.size(); i++) {
+            if (indices.get(i) - indices.get(i - 1) != step) {
+                throw new JIPipeValidationRuntimeException(new JIPipeValidationReportEntry(JIPipeValidationReportEntryLevel.Error, new GraphNodeValidationReportContext(this),
+                        "Unsupported " + dimensionName + " selection",
+                        "Bio-Formats can only import " + dimensionName + " with a constant step size (e.g. 0-10 or 0,2,4,6), but the selection is " + indices + ".",
+                        "Import the enclosing range and remove the additional planes with a slicer node."));
+            }
+        }
+        return new int[]{indices.get(0), indices.get(indices.size() - 1), step};
+    }
+
     @SetJIPipeDocumentation(name = "Auto scale", description = "Stretches the channel histograms to each channel's global minimum and maximum value throughout the stack. " +
             "Does not alter underlying values in the image.  " +
             "If unselected, all channel histograms are scaled to the image's digitization bit depth. " +
@@ -232,7 +664,7 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
         this.colorMode = colorMode;
     }
 
-    @SetJIPipeDocumentation(name = "Crop regions")
+    @SetJIPipeDocumentation(name = "Crop regions", description = "The crop region of each series (the first entry is applied to series 0, the second to series 1, etc.). Only applied if 'Crop images' is enabled.")
     @JIPipeParameter("crop-regions")
     public RectangleList getCropRegions() {
         return cropRegions;
@@ -323,7 +755,7 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
     }
 
     @SetJIPipeDocumentation(name = "Crop images", description = "Image planes may be cropped during import to conserve memory. Use the 'Crop regions' parameter " +
-            "to define which regions should be cropped.")
+            "to define which regions should be cropped. Only the pixels within the region are read from the file.")
     @JIPipeParameter("crop")
     public boolean isCrop() {
         return crop;
@@ -407,6 +839,55 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
         this.seriesAnnotation = seriesAnnotation;
     }
 
+    @SetJIPipeDocumentation(name = "Channels to import", description = "If enabled, only the selected channels are read from the file. The first index is zero. " +
+            "Negative indices count from the end. Bio-Formats requires a constant step size (e.g. 0-3 or 0,2,4).")
+    @JIPipeParameter("channels-to-import")
+    public OptionalIntegerRange getChannelsToImport() {
+        return channelsToImport;
+    }
+
+    @JIPipeParameter("channels-to-import")
+    public void setChannelsToImport(OptionalIntegerRange channelsToImport) {
+        this.channelsToImport = channelsToImport;
+    }
+
+    @SetJIPipeDocumentation(name = "Slices to import", description = "If enabled, only the selected Z slices are read from the file. The first index is zero. " +
+            "Negative indices count from the end. Bio-Formats requires a constant step size (e.g. 0-10 or 0,2,4).")
+    @JIPipeParameter("slices-to-import")
+    public OptionalIntegerRange getSlicesToImport() {
+        return slicesToImport;
+    }
+
+    @JIPipeParameter("slices-to-import")
+    public void setSlicesToImport(OptionalIntegerRange slicesToImport) {
+        this.slicesToImport = slicesToImport;
+    }
+
+    @SetJIPipeDocumentation(name = "Frames to import", description = "If enabled, only the selected frames are read from the file. The first index is zero. " +
+            "Negative indices count from the end. Bio-Formats requires a constant step size (e.g. 0-10 or 0,2,4).")
+    @JIPipeParameter("frames-to-import")
+    public OptionalIntegerRange getFramesToImport() {
+        return framesToImport;
+    }
+
+    @JIPipeParameter("frames-to-import")
+    public void setFramesToImport(OptionalIntegerRange framesToImport) {
+        this.framesToImport = framesToImport;
+    }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "Multiple series of the same file are read in parallel with separate readers. " +
+            "By default, the number of threads of the current run is used. Set to zero or a negative value to use all available processors. " +
+            "Series are not read in parallel if they are concatenated or stitched.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
+
     @SetJIPipeDocumentation(name = "Configure Bio-Formats", description = "Opens the Bio-Formats configuration window that allows to set format-specific settings. Please note that these settings are global and not managed by JIPipe.")
     @JIPipeContextAction(iconURL = ResourceUtils.RESOURCE_BASE_PATH + "/icons/apps/bioformats.png", iconDarkURL = ResourceUtils.RESOURCE_BASE_PATH + "/icons/apps/bioformats.png")
     public void setToExample(JIPipeWorkbench parent) {
@@ -414,4 +895,28 @@ public class BioFormatsImporterAlgorithm extends JIPipeSimpleIteratingAlgorithm
         WindowTools.placeWindow(cw);
         cw.setVisible(true);
     }
+
+    private static class ImportedImage {
+        private final int series;
+        private final OMEImageData data;
+        private final List<JIPipeTextAnnotation> annotations;
+
+        private ImportedImage(int series, OMEImageData data, List<JIPipeTextAnnotation> annotations) {
+            this.series = series;
+            this.data = data;
+            this.annotations = annotations;
+        }
+
+        public int getSeries() {
+            return series;
+        }
+
+        public OMEImageData getData() {
+            return data;
+        }
+
+        public List<JIPipeTextAnnotation> getAnnotations() {
+            return annotations;
+        }
+    }
 }
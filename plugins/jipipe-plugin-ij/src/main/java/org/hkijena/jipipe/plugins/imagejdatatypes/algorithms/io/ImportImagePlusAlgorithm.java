@@ -157,9 +157,11 @@ public class ImportImagePlusAlgorithm extends JIPipeSimpleIteratingAlgorithm {
 
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
         ImagePlusData outputData;
-        ImagePlus image = readImageFrom(fileData.toPath(), forceNativeImport, runContext, progressInfo);
+        ImagePlus image = (ImagePlus) iterationStep.getPrefetchedData();
+        if (image == null) {
+            image = (ImagePlus) prefetchIterationStep(iterationStep, runContext, progressInfo);
+        }
         if (removeLut) {
             ImageJUtils.removeLUT(image, null);
         }
@@ -174,6 +176,23 @@ public class ImportImagePlusAlgorithm extends JIPipeSimpleIteratingAlgorithm {
         iterationStep.addOutputData(getFirstOutputSlot(), outputData, annotations, JIPipeTextAnnotationMergeMode.Merge, progressInfo);
     }
 
+    @Override
+    public boolean supportsPrefetching() {
+        return true;
+    }
+
+    @Override
+    protected Object prefetchIterationStep(JIPipeSingleIterationStep iterationStep, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
+        return readImageFrom(fileData.toPath(), forceNativeImport, runContext, progressInfo);
+    }
+
+    @Override
+    protected long estimatePrefetchSize(JIPipeSingleIterationStep iterationStep) {
+        FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, JIPipeProgressInfo.SILENT);
+        return ImageJUtils.estimateImageMemorySize(fileData.toPath());
+    }
+
     @SetJIPipeDocumentation(name = "Title annotation", description = "Optional annotation type where the image title is written.")
     @JIPipeParameter("title-annotation")
     public OptionalTextAnnotationNameParameter getTitleAnnotation() {
@@ -19,6 +19,7 @@ import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotation;
 import org.hkijena.jipipe.api.annotation.JIPipeTextAnnotationMergeMode;
 import org.hkijena.jipipe.api.nodes.*;
+import org.hkijena.jipipe.api.nodes.algorithm.JIPipeIterationStepPrefetcher;
 import org.hkijena.jipipe.api.nodes.algorithm.JIPipeSimpleIteratingAlgorithm;
 import org.hkijena.jipipe.api.nodes.categories.DataSourceNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.categories.ImageJNodeTypeCategory;
@@ -73,8 +74,32 @@ public class ImportResultsTableAlgorithm extends JIPipeSimpleIteratingAlgorithm
     }
 
     @Override
-    protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+    public boolean supportsPrefetching() {
+        return true;
+    }
+
+    @Override
+    protected Object prefetchIterationStep(JIPipeSingleIterationStep iterationStep, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
+        switch (getFileFormat(fileData)) {
+            case CSV:
+                return ResultsTableData.fromCSV(fileData.toPath());
+            case TSV:
+                return ResultsTableData.fromCSV(fileData.toPath(), "\t");
+            case XLSX:
+                return ResultsTableData.fromXLSX(fileData.toPath());
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    protected long estimatePrefetchSize(JIPipeSingleIterationStep iterationStep) {
+        FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, JIPipeProgressInfo.SILENT);
+        return JIPipeIterationStepPrefetcher.estimateFileSize(fileData.toPath());
+    }
+
+    private FileFormat getFileFormat(FileData fileData) {
         FileFormat format = fileFormat;
         if (format == FileFormat.Auto) {
             if (UIUtils.EXTENSION_FILTER_CSV.accept(fileData.toPath().toFile())) {
@@ -87,19 +112,25 @@ public class ImportResultsTableAlgorithm extends JIPipeSimpleIteratingAlgorithm
                 throw new UnsupportedOperationException("Unknown file format: " + fileData.getPath());
             }
         }
-        switch (format) {
-            case CSV: {
-                ResultsTableData tableData = ResultsTableData.fromCSV(fileData.toPath());
-                iterationStep.addOutputData(getFirstOutputSlot(), tableData, progressInfo);
-            }
-            break;
+        return format;
+    }
+
+    @Override
+    protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
+        Object loaded = iterationStep.getPrefetchedData();
+        if (loaded == null) {
+            loaded = prefetchIterationStep(iterationStep, runContext, progressInfo);
+        }
+        switch (getFileFormat(fileData)) {
+            case CSV:
             case TSV: {
-                ResultsTableData tableData = ResultsTableData.fromCSV(fileData.toPath(), "\t");
-                iterationStep.addOutputData(getFirstOutputSlot(), tableData, progressInfo);
+                iterationStep.addOutputData(getFirstOutputSlot(), (ResultsTableData) loaded, progressInfo);
             }
             break;
             case XLSX: {
-                Map<String, ResultsTableData> map = ResultsTableData.fromXLSX(fileData.toPath());
+                @SuppressWarnings("unchecked")
+                Map<String, ResultsTableData> map = (Map<String, ResultsTableData>) loaded;
                 Set<String> importedSheetNames = new HashSet<>();
                 if (sheets.isEmpty())
                     importedSheetNames.addAll(map.keySet());
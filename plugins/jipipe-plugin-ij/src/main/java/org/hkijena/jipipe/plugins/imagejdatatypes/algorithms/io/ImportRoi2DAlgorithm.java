@@ -18,6 +18,7 @@ import org.hkijena.jipipe.api.ConfigureJIPipeNode;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.nodes.*;
+import org.hkijena.jipipe.api.nodes.algorithm.JIPipeIterationStepPrefetcher;
 import org.hkijena.jipipe.api.nodes.algorithm.JIPipeSimpleIteratingAlgorithm;
 import org.hkijena.jipipe.api.nodes.categories.DataSourceNodeTypeCategory;
 import org.hkijena.jipipe.api.nodes.categories.ImageJNodeTypeCategory;
@@ -56,8 +57,28 @@ public class ImportRoi2DAlgorithm extends JIPipeSimpleIteratingAlgorithm {
 
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        ROI2DListData rois = (ROI2DListData) iterationStep.getPrefetchedData();
+        if (rois == null) {
+            rois = (ROI2DListData) prefetchIterationStep(iterationStep, runContext, progressInfo);
+        }
+        iterationStep.addOutputData(getFirstOutputSlot(), rois, progressInfo);
+    }
+
+    @Override
+    public boolean supportsPrefetching() {
+        return true;
+    }
+
+    @Override
+    protected Object prefetchIterationStep(JIPipeSingleIterationStep iterationStep, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, progressInfo);
         List<Roi> rois = ROI2DListData.loadRoiListFromFile(fileData.toPath());
-        iterationStep.addOutputData(getFirstOutputSlot(), new ROI2DListData(rois), progressInfo);
+        return new ROI2DListData(rois);
+    }
+
+    @Override
+    protected long estimatePrefetchSize(JIPipeSingleIterationStep iterationStep) {
+        FileData fileData = iterationStep.getInputData(getFirstInputSlot(), FileData.class, JIPipeProgressInfo.SILENT);
+        return JIPipeIterationStepPrefetcher.estimateFileSize(fileData.toPath());
     }
 }
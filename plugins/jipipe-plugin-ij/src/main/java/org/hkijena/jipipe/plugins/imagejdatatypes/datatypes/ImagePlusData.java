@@ -20,6 +20,7 @@ import ij.gui.Overlay;
 import ij.gui.Roi;
 import ij.process.*;
 import org.hkijena.jipipe.JIPipe;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.LabelAsJIPipeCommonData;
 import org.hkijena.jipipe.api.LabelAsJIPipeHeavyData;
@@ -28,6 +29,7 @@ import org.hkijena.jipipe.api.data.JIPipeData;
 import org.hkijena.jipipe.api.data.JIPipeDataInfo;
 import org.hkijena.jipipe.api.data.JIPipeDataStorageDocumentation;
 import org.hkijena.jipipe.api.data.JIPipeDataTable;
+import org.hkijena.jipipe.api.data.storage.JIPipeFileSystemReadDataStorage;
 import org.hkijena.jipipe.api.data.storage.JIPipeReadDataStorage;
 import org.hkijena.jipipe.api.data.storage.JIPipeWriteDataStorage;
 import org.hkijena.jipipe.api.data.thumbnails.JIPipeImageThumbnailData;
@@ -36,7 +38,9 @@ import org.hkijena.jipipe.api.validation.JIPipeValidationRuntimeException;
 import org.hkijena.jipipe.plugins.imagejdatatypes.ImageJDataTypesApplicationSettings;
 import org.hkijena.jipipe.plugins.imagejdatatypes.colorspace.ColorSpace;
 import org.hkijena.jipipe.plugins.imagejdatatypes.colorspace.RGBColorSpace;
+import org.hkijena.jipipe.plugins.imagejdatatypes.parameters.ImagePlusStorageFormat;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJUtils;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.OMEZARRImageStorage;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.dimensions.ImageSliceIndex;
 import org.hkijena.jipipe.utils.PathUtils;
 import org.hkijena.jipipe.utils.ReflectionUtils;
@@ -53,7 +57,7 @@ import java.util.List;
 @SetJIPipeDocumentation(name = "ImageJ Image", description = "An ImageJ image")
 @LabelAsJIPipeHeavyData
 @JIPipeDataStorageDocumentation(humanReadableDescription = "Contains one image file with one of following extensions: *.tif, *.tiff, *.png, *.jpeg, *.jpg, *.png. " +
-        "We recommend the usage of TIFF.", jsonSchemaURL = "https://jipipe.org/schemas/datatypes/imageplus-data.schema.json")
+        "We recommend the usage of TIFF. Alternatively, contains one OME-Zarr directory (*.ome.zarr).", jsonSchemaURL = "https://jipipe.org/schemas/datatypes/imageplus-data.schema.json")
 @ImageTypeInfo
 @LabelAsJIPipeCommonData
 public class ImagePlusData implements JIPipeData {
@@ -80,6 +84,44 @@ public class ImagePlusData implements JIPipeData {
     }
 
     public static ImagePlus importImagePlusFrom(JIPipeReadDataStorage storage, JIPipeProgressInfo progressInfo) {
+        ImagePlus outputImage;
+        Path zarrDirectory = OMEZARRImageStorage.findIn(storage.getFileSystemPath());
+        if (zarrDirectory != null) {
+            ImageJDataTypesApplicationSettings settings = ImageJDataTypesApplicationSettings.getInstance();
+            // Lazy loading requires that the directory stays available
+            boolean lazy = settings.isLazyLoadZARR() && storage instanceof JIPipeFileSystemReadDataStorage;
+            JIPipeFixedThreadPool threadPool = JIPipeFixedThreadPool.getCurrentOrShared();
+            boolean isCustomThreadPool = false;
+            if (settings.getZarrNumThreads().isEnabled()) {
+                threadPool = new JIPipeFixedThreadPool(settings.getZarrNumThreads().getContent() > 0 ? settings.getZarrNumThreads().getContent() : Runtime.getRuntime().availableProcessors());
+                isCustomThreadPool = true;
+            }
+            try {
+                outputImage = OMEZARRImageStorage.read(zarrDirectory, lazy, threadPool, progressInfo);
+            } finally {
+                if (isCustomThreadPool) {
+                    threadPool.shutdown();
+                }
+            }
+        } else {
+            outputImage = importImageFileFrom(storage, progressInfo);
+        }
+        if (outputImage.getOverlay() == null || outputImage.getOverlay().size() == 0) {
+            // Import ROI
+            Path roiFile = PathUtils.findFileByExtensionIn(storage.getFileSystemPath(), ".roi", ".zip");
+            if (roiFile != null) {
+                ROI2DListData rois = ROI2DListData.importData(storage, progressInfo.resolve("Import ROI"));
+                Overlay overlay = new Overlay();
+                for (Roi roi : rois) {
+                    overlay.add(roi);
+                }
+                outputImage.setOverlay(overlay);
+            }
+        }
+        return outputImage;
+    }
+
+    private static ImagePlus importImageFileFrom(JIPipeReadDataStorage storage, JIPipeProgressInfo progressInfo) {
         Path targetFile = PathUtils.findFileByExtensionIn(storage.getFileSystemPath(), ".tif", ".tiff", ".png", ".jpg", ".jpeg", ".bmp");
         if (targetFile == null) {
             throw new JIPipeValidationRuntimeException(
@@ -97,18 +139,6 @@ public class ImagePlusData implements JIPipeData {
             progressInfo.log("ImageJ import " + targetFile);
             outputImage = IJ.openImage(targetFile.toString());
         }
-        if (outputImage.getOverlay() == null || outputImage.getOverlay().size() == 0) {
-            // Import ROI
-            Path roiFile = PathUtils.findFileByExtensionIn(storage.getFileSystemPath(), ".roi", ".zip");
-            if (roiFile != null) {
-                ROI2DListData rois = ROI2DListData.importData(storage, progressInfo.resolve("Import ROI"));
-                Overlay overlay = new Overlay();
-                for (Roi roi : rois) {
-                    overlay.add(roi);
-                }
-                outputImage.setOverlay(overlay);
-            }
-        }
         return outputImage;
     }
 
@@ -291,7 +321,23 @@ public class ImagePlusData implements JIPipeData {
 
     @Override
     public void exportData(JIPipeWriteDataStorage storage, String name, boolean forceName, JIPipeProgressInfo progressInfo) {
-        if (ImageJDataTypesApplicationSettings.getInstance().isUseBioFormats() && !(image.getType() == ImagePlus.COLOR_RGB && ImageJDataTypesApplicationSettings.getInstance().isSaveRGBWithImageJ())) {
+        ImageJDataTypesApplicationSettings settings = ImageJDataTypesApplicationSettings.getInstance();
+        if (settings.getStorageFormat() == ImagePlusStorageFormat.OMEZARR) {
+            Path outputPath = storage.getFileSystemPath().resolve(name + OMEZARRImageStorage.EXTENSION);
+            JIPipeFixedThreadPool threadPool = JIPipeFixedThreadPool.getCurrentOrShared();
+            boolean isCustomThreadPool = false;
+            if (settings.getZarrNumThreads().isEnabled()) {
+                threadPool = new JIPipeFixedThreadPool(settings.getZarrNumThreads().getContent() > 0 ? settings.getZarrNumThreads().getContent() : Runtime.getRuntime().availableProcessors());
+                isCustomThreadPool = true;
+            }
+            try {
+                OMEZARRImageStorage.write(image, outputPath, settings.isCompressZARR(), threadPool, progressInfo);
+            } finally {
+                if (isCustomThreadPool) {
+                    threadPool.shutdown();
+                }
+            }
+        } else if (settings.isUseBioFormats() && !(image.getType() == ImagePlus.COLOR_RGB && settings.isSaveRGBWithImageJ())) {
             Path outputPath = PathUtils.ensureExtension(storage.getFileSystemPath().resolve(name), ".ome.tif", ".ome.tiff");
             OMEImageData.simpleOMEExport(image, outputPath);
         } else {
@@ -340,6 +386,17 @@ public class ImagePlusData implements JIPipeData {
         image = getDuplicateImage();
     }
 
+    @Override
+    public void close() {
+        // Release the reader of lazily loaded OME-Zarr images
+        OMEZARRImageStorage.close(image);
+    }
+
+    @Override
+    public long estimateMemorySize() {
+        return (long) image.getWidth() * image.getHeight() * image.getStackSize() * image.getBytesPerPixel();
+    }
+
     @Override
     public JIPipeThumbnailData createThumbnail(int width, int height, JIPipeProgressInfo progressInfo) {
         double factorX = 1.0 * width / image.getWidth();
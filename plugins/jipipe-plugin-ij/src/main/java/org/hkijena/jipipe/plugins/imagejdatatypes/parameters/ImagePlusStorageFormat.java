@@ -0,0 +1,32 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.imagejdatatypes.parameters;
+
+/**
+ * Available formats for storing {@link ij.ImagePlus} data
+ */
+public enum ImagePlusStorageFormat {
+    TIFF,
+    OMEZARR;
+
+    @Override
+    public String toString() {
+        switch (this) {
+            case OMEZARR:
+                return "OME-Zarr";
+            default:
+                return "TIFF";
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+
+package org.hkijena.jipipe.plugins.imagejdatatypes.util;
+
+import loci.common.services.DependencyException;
+import loci.common.services.ServiceException;
+import loci.common.services.ServiceFactory;
+import loci.formats.FormatException;
+import loci.formats.FormatTools;
+import loci.formats.IFormatReader;
+import loci.formats.ImageReader;
+import loci.formats.Memoizer;
+import loci.formats.services.OMEXMLService;
+import ome.xml.meta.OMEXMLMetadata;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A pool of initialized Bio-Formats readers that are keyed by the file path.
+ * Readers are wrapped into a {@link Memoizer} that stores the parsed metadata in the JIPipe temporary directory,
+ * so re-opening a file (in this run or later runs) does not parse the full metadata again.
+ * Each reader is only used by one thread at a time. Readers are returned to the pool via {@link Lease#close()}.
+ * The pool is thread-safe.
+ */
+public class BioFormatsReaderPool implements AutoCloseable {
+
+    private final Path cacheDirectory;
+    private final Map<String, Deque<IFormatReader>> idleReaders = new HashMap<>();
+    private final Map<String, SeriesDimensions[]> dimensionsCache = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * Creates a new pool that memoizes metadata into the default cache directory
+     */
+    public BioFormatsReaderPool() {
+        this(getDefaultCacheDirectory());
+    }
+
+    /**
+     * Creates a new pool
+     *
+     * @param cacheDirectory the directory where the memoized metadata is stored. If null, metadata is not stored on disk.
+     */
+    public BioFormatsReaderPool(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * The default directory for memoized metadata (inside the JIPipe temporary directory)
+     *
+     * @return the directory or null if it could not be created
+     */
+    public static Path getDefaultCacheDirectory() {
+        try {
+            return Files.createDirectories(JIPipeRuntimeApplicationSettings.getTemporaryBaseDirectory().resolve("bioformats-memo"));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Borrows an initialized reader for the file
+     *
+     * @param path the file
+     * @return the lease. Close it to return the reader to the pool.
+     */
+    public Lease acquire(String path) {
+        IFormatReader reader = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The reader pool is already closed!");
+            }
+            Deque<IFormatReader> readers = idleReaders.get(path);
+            if (readers != null && !readers.isEmpty()) {
+                reader = readers.pop();
+            }
+        }
+        if (reader == null) {
+            reader = createReader(path);
+        }
+        return new Lease(path, reader);
+    }
+
+    /**
+     * Returns the dimensions of all series in the file. The result is cached.
+     *
+     * @param path the file
+     * @return the dimensions of each series
+     */
+    public SeriesDimensions[] getSeriesDimensions(String path) {
+        synchronized (this) {
+            SeriesDimensions[] cached = dimensionsCache.get(path);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SeriesDimensions[] result;
+        try (Lease lease = acquire(path)) {
+            IFormatReader reader = lease.getReader();
+            result = new SeriesDimensions[reader.getSeriesCount()];
+            for (int s = 0; s < result.length; s++) {
+                reader.setSeries(s);
+                result[s] = new SeriesDimensions(reader.getSizeX(), reader.getSizeY(), reader.getSizeC(), reader.getSizeZ(), reader.getSizeT(),
+                        FormatTools.getBytesPerPixel(reader.getPixelType()));
+            }
+            reader.setSeries(0);
+        }
+        synchronized (this) {
+            dimensionsCache.put(path, result);
+        }
+        return result;
+    }
+
+    private IFormatReader createReader(String path) {
+        try {
+            ServiceFactory serviceFactory = new ServiceFactory();
+            OMEXMLService omexmlService = serviceFactory.getInstance(OMEXMLService.class);
+            IFormatReader reader = new ImageReader();
+            if (cacheDirectory != null) {
+                reader = new Memoizer(reader, Memoizer.DEFAULT_MINIMUM_ELAPSED, cacheDirectory.toFile());
+            }
+            reader.setMetadataFiltered(true);
+            reader.setMetadataStore(omexmlService.createOMEXMLMetadata());
+            reader.setId(path);
+            return reader;
+        } catch (DependencyException | ServiceException | FormatException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void release(String path, IFormatReader reader) {
+        synchronized (this) {
+            if (!closed) {
+                idleReaders.computeIfAbsent(path, key -> new ArrayDeque<>()).push(reader);
+                return;
+            }
+        }
+        closeReader(reader);
+    }
+
+    private static void closeReader(IFormatReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Closes all idle readers. Readers that are still leased are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        List<IFormatReader> toClose = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Deque<IFormatReader> readers : idleReaders.values()) {
+                toClose.addAll(readers);
+            }
+            idleReaders.clear();
+            dimensionsCache.clear();
+        }
+        for (IFormatReader reader : toClose) {
+            closeReader(reader);
+        }
+    }
+
+    /**
+     * A reader that was borrowed from the pool
+     */
+    public class Lease implements AutoCloseable {
+        private final String path;
+        private final IFormatReader reader;
+
+        private Lease(String path, IFormatReader reader) {
+            this.path = path;
+            this.reader = reader;
+        }
+
+        public IFormatReader getReader() {
+            return reader;
+        }
+
+        /**
+         * Returns the OME metadata of the reader
+         *
+         * @return the metadata
+         */
+        public OMEXMLMetadata getOMEMetadata() {
+            return (OMEXMLMetadata) reader.getMetadataStore();
+        }
+
+        @Override
+        public void close() {
+            release(path, reader);
+        }
+    }
+
+    /**
+     * The dimensions of one series
+     */
+    public static class SeriesDimensions {
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeC;
+        private final int sizeZ;
+        private final int sizeT;
+        private final int bytesPerPixel;
+
+        public SeriesDimensions(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT, int bytesPerPixel) {
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeC = sizeC;
+            this.sizeZ = sizeZ;
+            this.sizeT = sizeT;
+            this.bytesPerPixel = bytesPerPixel;
+        }
+
+        public int getSizeX() {
+            return sizeX;
+        }
+
+        public int getSizeY() {
+            return sizeY;
+        }
+
+        public int getSizeC() {
+            return sizeC;
+        }
+
+        public int getSizeZ() {
+            return sizeZ;
+        }
+
+        public int getSizeT() {
+            return sizeT;
+        }
+
+        /**
+         * The number of bytes per sample
+         *
+         * @return the bytes per sample
+         */
+        public int getBytesPerPixel() {
+            return bytesPerPixel;
+        }
+
+        /**
+         * Estimates the memory occupied by all planes of the series
+         *
+         * @return the size in bytes
+         */
+        public long getSizeInBytes() {
+            return (long) sizeX * sizeY * sizeC * sizeZ * sizeT * bytesPerPixel;
+        }
+    }
+}
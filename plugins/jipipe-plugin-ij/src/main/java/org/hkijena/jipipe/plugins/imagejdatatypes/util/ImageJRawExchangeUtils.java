@@ -0,0 +1,134 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.imagejdatatypes.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+import org.hkijena.jipipe.utils.json.JsonUtils;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads images that were written by external processes as raw pixel buffers.
+ * An image is stored as [name].raw (little-endian pixels, planes in order C, Z, T) and a [name].raw.json header
+ * containing the width, height, number of planes, and data type (uint8, uint16, int16, float32).
+ * The files are accessed via memory mapping, which avoids any encoding/decoding.
+ * In combination with a shared memory directory, no disk I/O happens at all.
+ * Python code can write the data via numpy.ndarray.tofile (see the Cellpose result extractors).
+ */
+public class ImageJRawExchangeUtils {
+
+    public static final String RAW_EXTENSION = ".raw";
+    public static final String HEADER_EXTENSION = ".raw.json";
+
+    private ImageJRawExchangeUtils() {
+
+    }
+
+    /**
+     * Returns true if raw data exists for the base path
+     *
+     * @param basePath the base path (without extension)
+     * @return if the raw file and header exist
+     */
+    public static boolean exists(Path basePath) {
+        return Files.isRegularFile(basePath.resolveSibling(basePath.getFileName() + RAW_EXTENSION)) &&
+                Files.isRegularFile(basePath.resolveSibling(basePath.getFileName() + HEADER_EXTENSION));
+    }
+
+    /**
+     * Reads an image from a raw buffer and header.
+     * If the header contains no channels/slices/frames, all planes are interpreted as Z slices.
+     *
+     * @param basePath the base path (without extension)
+     * @return the image
+     */
+    public static ImagePlus readImage(Path basePath) {
+        JsonNode header = JsonUtils.readFromFile(basePath.resolveSibling(basePath.getFileName() + HEADER_EXTENSION), JsonNode.class);
+        int width = header.get("width").asInt();
+        int height = header.get("height").asInt();
+        int planes = header.path("planes").asInt(1);
+        String dataType = header.get("dtype").asText();
+        ByteOrder byteOrder = "big".equals(header.path("byte_order").asText("little")) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        int bytesPerPixel;
+        switch (dataType) {
+            case "uint8":
+                bytesPerPixel = 1;
+                break;
+            case "uint16":
+            case "int16":
+                bytesPerPixel = 2;
+                break;
+            case "float32":
+                bytesPerPixel = 4;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported data type for raw exchange: " + dataType);
+        }
+        long planeSize = (long) width * height * bytesPerPixel;
+        int planePixels = width * height;
+
+        ImageStack stack = new ImageStack(width, height);
+        Path rawFile = basePath.resolveSibling(basePath.getFileName() + RAW_EXTENSION);
+        try (FileChannel channel = FileChannel.open(rawFile, StandardOpenOption.READ)) {
+            if (channel.size() < planeSize * planes) {
+                throw new IOException("Raw file " + rawFile + " is too small for the dimensions in the header!");
+            }
+            for (int i = 0; i < planes; i++) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, i * planeSize, planeSize);
+                buffer.order(byteOrder);
+                ImageProcessor processor;
+                if (bytesPerPixel == 1) {
+                    byte[] pixels = new byte[planePixels];
+                    buffer.get(pixels);
+                    processor = new ByteProcessor(width, height, pixels);
+                } else if (bytesPerPixel == 2) {
+                    short[] pixels = new short[planePixels];
+                    buffer.asShortBuffer().get(pixels);
+                    processor = new ShortProcessor(width, height, pixels, null);
+                } else {
+                    float[] pixels = new float[planePixels];
+                    buffer.asFloatBuffer().get(pixels);
+                    processor = new FloatProcessor(width, height, pixels);
+                }
+                stack.addSlice(processor);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        ImagePlus image = new ImagePlus(basePath.getFileName().toString(), stack);
+        int channels = header.path("channels").asInt(1);
+        int slices = header.path("slices").asInt(planes);
+        int frames = header.path("frames").asInt(1);
+        if (channels * slices * frames == planes) {
+            image.setDimensions(channels, slices, frames);
+        } else {
+            image.setDimensions(1, planes, 1);
+        }
+        image.resetDisplayRange();
+        return image;
+    }
+}
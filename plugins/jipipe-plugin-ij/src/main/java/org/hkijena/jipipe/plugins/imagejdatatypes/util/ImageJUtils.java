@@ -24,6 +24,8 @@ import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
 import ij.*;
 import ij.gui.*;
+import ij.io.FileInfo;
+import ij.io.TiffDecoder;
 import ij.plugin.PlugIn;
 import ij.plugin.filter.AVI_Writer;
 import ij.plugin.filter.Convolver;
@@ -46,6 +48,9 @@ import org.hkijena.jipipe.plugins.parameters.library.quantities.Quantity;
 import org.hkijena.jipipe.plugins.parameters.library.roi.Anchor;
 import org.hkijena.jipipe.utils.*;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -53,7 +58,9 @@ import java.awt.geom.PathIterator;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
@@ -2472,6 +2479,47 @@ public class ImageJUtils {
         return projected;
     }
 
+    /**
+     * Estimates the memory occupied by an image file after it was opened.
+     * Only the header is read (TIFF via {@link TiffDecoder}, other formats via {@link ImageIO}).
+     * Falls back to the file size if the header cannot be read.
+     *
+     * @param file the image file
+     * @return the estimated size in bytes or zero if it could not be determined
+     */
+    public static long estimateImageMemorySize(Path file) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return 0;
+        }
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        try {
+            if (fileName.endsWith(".tif") || fileName.endsWith(".tiff")) {
+                FileInfo[] infos = new TiffDecoder(file.getParent().toString() + File.separator, file.getFileName().toString()).getTiffInfo();
+                if (infos != null && infos.length > 0) {
+                    long planeSize = (long) infos[0].width * infos[0].height * Math.max(1, infos[0].getBytesPerPixel());
+                    return planeSize * Math.max(infos.length, infos[0].nImages);
+                }
+            } else {
+                try (ImageInputStream stream = ImageIO.createImageInputStream(file.toFile())) {
+                    Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : Collections.emptyIterator();
+                    if (readers.hasNext()) {
+                        ImageReader reader = readers.next();
+                        try {
+                            reader.setInput(stream, true, true);
+                            // ImageJ opens color images as RGB
+                            return (long) reader.getWidth(0) * reader.getHeight(0) * 4;
+                        } finally {
+                            reader.dispose();
+                        }
+                    }
+                }
+            }
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
     public static LUT createGradientLUT(Color firstColor, Color secondColor) {
         byte[] rLut = new byte[256];
         byte[] gLut = new byte[256];
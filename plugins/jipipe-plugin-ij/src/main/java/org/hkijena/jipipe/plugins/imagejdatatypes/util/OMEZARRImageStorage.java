@@ -0,0 +1,565 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.imagejdatatypes.util;
+
+import ij.CompositeImage;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.VirtualStack;
+import ij.measure.Calibration;
+import ij.process.*;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.utils.json.JsonUtils;
+import org.janelia.saalfeldlab.n5.*;
+import org.janelia.saalfeldlab.n5.zarr.N5ZarrReader;
+import org.janelia.saalfeldlab.n5.zarr.N5ZarrWriter;
+
+import java.awt.image.ColorModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Stores {@link ImagePlus} as chunked OME-Zarr (NGFF 0.4, single scale).
+ * The image is stored in the dataset "0" with the axes t, c, z, y, x. Each chunk contains a tile of exactly one plane
+ * (the X/Y chunk sizes are determined via {@link ZARRUtils#computeOptimalChunkSizes(int[])}), so planes can be read independently.
+ * ImageJ-specific properties (calibration, display ranges, LUTs) are stored in an additional JSON file.
+ */
+public class OMEZARRImageStorage {
+
+    /**
+     * The extension of the OME-Zarr directory
+     */
+    public static final String EXTENSION = ".ome.zarr";
+
+    private static final String DATASET = "0";
+    private static final String IMAGEJ_PROPERTIES_FILE = "jipipe-imagej.json";
+
+    private OMEZARRImageStorage() {
+
+    }
+
+    /**
+     * Finds an OME-Zarr directory in the specified directory
+     *
+     * @param directory the directory
+     * @return the OME-Zarr directory or null if none was found
+     */
+    public static Path findIn(Path directory) {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(p -> Files.isDirectory(p) && p.getFileName().toString().endsWith(EXTENSION)).findFirst().orElse(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes an image as OME-Zarr. Planes are written in parallel.
+     *
+     * @param image        the image
+     * @param path         the output directory (should end with {@link #EXTENSION})
+     * @param compress     if the chunks should be compressed (GZIP)
+     * @param threadPool   the thread pool (can be null for sequential processing)
+     * @param progressInfo the progress info
+     */
+    public static void write(ImagePlus image, Path path, boolean compress, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int nChannels = image.getNChannels();
+        int nSlices = image.getNSlices();
+        int nFrames = image.getNFrames();
+        int[] chunkSize = ZARRUtils.computeOptimalChunkSizes(new int[]{width, height});
+
+        // N5 uses the reverse axis order of Zarr (x, y, z, c, t -> t, c, z, y, x)
+        DatasetAttributes attributes = new DatasetAttributes(new long[]{width, height, nSlices, nChannels, nFrames},
+                new int[]{chunkSize[0], chunkSize[1], 1, 1, 1},
+                getDataType(image),
+                compress ? new GzipCompression() : new RawCompression());
+
+        progressInfo.log("Writing OME-Zarr to " + path + " (chunk size " + chunkSize[0] + "x" + chunkSize[1] + ")");
+        N5ZarrWriter writer = new N5ZarrWriter(path.toString());
+        try {
+            writer.createGroup("");
+            writer.createDataset(DATASET, attributes);
+            writer.setAttribute("", "multiscales", createMultiscalesMetadata(image));
+
+            ImageStack stack = image.getStack();
+            List<Runnable> tasks = new ArrayList<>();
+            for (int t = 0; t < nFrames; t++) {
+                for (int z = 0; z < nSlices; z++) {
+                    for (int c = 0; c < nChannels; c++) {
+                        final long[] planePosition = new long[]{z, c, t};
+                        final int stackIndex = image.getStackIndex(c + 1, z + 1, t + 1);
+                        tasks.add(() -> {
+                            if (progressInfo.isCancelled()) {
+                                return;
+                            }
+                            writePlane(writer, attributes, stack.getProcessor(stackIndex), planePosition);
+                        });
+                    }
+                }
+            }
+            runTasks(tasks, threadPool);
+        } finally {
+            writer.close();
+        }
+
+        // ImageJ specific properties
+        try {
+            JsonUtils.getObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.resolve(IMAGEJ_PROPERTIES_FILE).toFile(), createImageJProperties(image));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads an image that was written with {@link #write(ImagePlus, Path, boolean, JIPipeFixedThreadPool, JIPipeProgressInfo)}
+     * Lazy images keep a reader open that should be released via {@link #close(ImagePlus)} once the image is not needed anymore.
+     *
+     * @param path         the OME-Zarr directory
+     * @param lazy         if true, the planes are only read if they are accessed (the directory must stay available)
+     * @param threadPool   the thread pool for non-lazy reading (can be null for sequential processing)
+     * @param progressInfo the progress info
+     * @return the image
+     */
+    public static ImagePlus read(Path path, boolean lazy, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        progressInfo.log("Reading OME-Zarr from " + path + (lazy ? " (lazy)" : ""));
+        N5ZarrReader reader = new N5ZarrReader(path.toString());
+        DatasetAttributes attributes = reader.getDatasetAttributes(DATASET);
+        long[] dimensions = attributes.getDimensions();
+        int width = (int) dimensions[0];
+        int height = (int) dimensions[1];
+        int nSlices = (int) dimensions[2];
+        int nChannels = (int) dimensions[3];
+        int nFrames = (int) dimensions[4];
+
+        ImageStack stack;
+        if (lazy) {
+            stack = new LazyStack(path, reader, attributes, width, height, nChannels, nSlices, nFrames);
+        } else {
+            try {
+                ImageProcessor[] processors = new ImageProcessor[nChannels * nSlices * nFrames];
+                List<Runnable> tasks = new ArrayList<>();
+                for (int i = 0; i < processors.length; i++) {
+                    final int planeIndex = i;
+                    tasks.add(() -> {
+                        if (progressInfo.isCancelled()) {
+                            return;
+                        }
+                        processors[planeIndex] = readPlane(reader, attributes, width, height, planeIndex, nChannels, nSlices);
+                    });
+                }
+                runTasks(tasks, threadPool);
+                if (progressInfo.isCancelled()) {
+                    return null;
+                }
+                stack = new ImageStack(width, height);
+                for (ImageProcessor processor : processors) {
+                    stack.addSlice(processor);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        ImagePlus image = new ImagePlus(path.getFileName().toString(), stack);
+        image.setDimensions(nChannels, nSlices, nFrames);
+        applyImageJProperties(image, path.resolve(IMAGEJ_PROPERTIES_FILE));
+        return image;
+    }
+
+    /**
+     * Releases the reader that is kept open by an image that was lazily read via {@link #read(Path, boolean, JIPipeFixedThreadPool, JIPipeProgressInfo)}.
+     * Does nothing if the image was not lazily read from OME-Zarr.
+     * Accessing planes afterwards re-opens the reader.
+     *
+     * @param image the image
+     */
+    public static void close(ImagePlus image) {
+        if (image != null && image.getStack() instanceof LazyStack) {
+            ((LazyStack) image.getStack()).close();
+        }
+    }
+
+    private static void runTasks(List<Runnable> tasks, JIPipeFixedThreadPool threadPool) {
+        if (threadPool == null || threadPool.getMaxThreads() <= 1 || tasks.size() <= 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        } else {
+            try {
+                for (Future<Exception> future : threadPool.scheduleBatches(tasks, 1)) {
+                    Exception exception = future.get();
+                    if (exception != null) {
+                        throw new RuntimeException(exception);
+                    }
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static DataType getDataType(ImagePlus image) {
+        switch (image.getType()) {
+            case ImagePlus.GRAY8:
+            case ImagePlus.COLOR_256:
+                return DataType.UINT8;
+            case ImagePlus.GRAY16:
+                return DataType.UINT16;
+            case ImagePlus.GRAY32:
+                return DataType.FLOAT32;
+            case ImagePlus.COLOR_RGB:
+                return DataType.UINT32;
+            default:
+                throw new UnsupportedOperationException("Unsupported image type " + image.getType());
+        }
+    }
+
+    private static void writePlane(N5Writer writer, DatasetAttributes attributes, ImageProcessor processor, long[] planePosition) {
+        int width = processor.getWidth();
+        int height = processor.getHeight();
+        int[] blockSize = attributes.getBlockSize();
+        int blockWidth = blockSize[0];
+        int blockHeight = blockSize[1];
+        Object pixels = processor.getPixels();
+        for (int by = 0; by * blockHeight < height; by++) {
+            for (int bx = 0; bx * blockWidth < width; bx++) {
+                // Blocks are always written in full size (Zarr chunks are padded)
+                int[] size = new int[]{blockWidth, blockHeight, 1, 1, 1};
+                long[] gridPosition = new long[]{bx, by, planePosition[0], planePosition[1], planePosition[2]};
+                int x0 = bx * blockWidth;
+                int y0 = by * blockHeight;
+                int copyWidth = Math.min(blockWidth, width - x0);
+                int copyHeight = Math.min(blockHeight, height - y0);
+                DataBlock<?> block;
+                if (pixels instanceof byte[]) {
+                    byte[] data = new byte[blockWidth * blockHeight];
+                    for (int y = 0; y < copyHeight; y++) {
+                        System.arraycopy(pixels, (y0 + y) * width + x0, data, y * blockWidth, copyWidth);
+                    }
+                    block = new ByteArrayDataBlock(size, gridPosition, data);
+                } else if (pixels instanceof short[]) {
+                    short[] data = new short[blockWidth * blockHeight];
+                    for (int y = 0; y < copyHeight; y++) {
+                        System.arraycopy(pixels, (y0 + y) * width + x0, data, y * blockWidth, copyWidth);
+                    }
+                    block = new ShortArrayDataBlock(size, gridPosition, data);
+                } else if (pixels instanceof float[]) {
+                    float[] data = new float[blockWidth * blockHeight];
+                    for (int y = 0; y < copyHeight; y++) {
+                        System.arraycopy(pixels, (y0 + y) * width + x0, data, y * blockWidth, copyWidth);
+                    }
+                    block = new FloatArrayDataBlock(size, gridPosition, data);
+                } else if (pixels instanceof int[]) {
+                    int[] data = new int[blockWidth * blockHeight];
+                    for (int y = 0; y < copyHeight; y++) {
+                        System.arraycopy(pixels, (y0 + y) * width + x0, data, y * blockWidth, copyWidth);
+                    }
+                    block = new IntArrayDataBlock(size, gridPosition, data);
+                } else {
+                    throw new UnsupportedOperationException("Unsupported pixel type " + pixels);
+                }
+                writer.writeBlock(DATASET, attributes, block);
+            }
+        }
+    }
+
+    private static ImageProcessor readPlane(N5Reader reader, DatasetAttributes attributes, int width, int height, int planeIndex, int nChannels, int nSlices) {
+        int c = planeIndex % nChannels;
+        int z = (planeIndex / nChannels) % nSlices;
+        int t = planeIndex / (nChannels * nSlices);
+        int[] blockSize = attributes.getBlockSize();
+        int blockWidth = blockSize[0];
+        int blockHeight = blockSize[1];
+
+        ImageProcessor processor;
+        switch (attributes.getDataType()) {
+            case UINT8:
+                processor = new ByteProcessor(width, height);
+                break;
+            case UINT16:
+                processor = new ShortProcessor(width, height);
+                break;
+            case FLOAT32:
+                processor = new FloatProcessor(width, height);
+                break;
+            case UINT32:
+                processor = new ColorProcessor(width, height);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported data type " + attributes.getDataType());
+        }
+        Object pixels = processor.getPixels();
+
+        for (int by = 0; by * blockHeight < height; by++) {
+            for (int bx = 0; bx * blockWidth < width; bx++) {
+                DataBlock<?> block = reader.readBlock(DATASET, attributes, bx, by, z, c, t);
+                if (block == null) {
+                    // Missing chunks are filled with zero
+                    continue;
+                }
+                int storedWidth = block.getSize()[0];
+                int x0 = bx * blockWidth;
+                int y0 = by * blockHeight;
+                int copyWidth = Math.min(storedWidth, width - x0);
+                int copyHeight = Math.min(block.getSize()[1], height - y0);
+                Object data = block.getData();
+                for (int y = 0; y < copyHeight; y++) {
+                    System.arraycopy(data, y * storedWidth, pixels, (y0 + y) * width + x0, copyWidth);
+                }
+            }
+        }
+        return processor;
+    }
+
+    private static List<Map<String, Object>> createMultiscalesMetadata(ImagePlus image) {
+        Calibration calibration = image.getCalibration();
+        String unit = calibration.getUnit();
+        List<Map<String, Object>> axes = new ArrayList<>();
+        axes.add(createAxis("t", "time", null));
+        axes.add(createAxis("c", "channel", null));
+        axes.add(createAxis("z", "space", unit));
+        axes.add(createAxis("y", "space", unit));
+        axes.add(createAxis("x", "space", unit));
+
+        Map<String, Object> transformation = new LinkedHashMap<>();
+        transformation.put("type", "scale");
+        transformation.put("scale", new double[]{1, 1, calibration.pixelDepth, calibration.pixelHeight, calibration.pixelWidth});
+
+        Map<String, Object> dataset = new LinkedHashMap<>();
+        dataset.put("path", DATASET);
+        dataset.put("coordinateTransformations", Collections.singletonList(transformation));
+
+        Map<String, Object> multiscale = new LinkedHashMap<>();
+        multiscale.put("version", "0.4");
+        multiscale.put("name", image.getTitle());
+        multiscale.put("axes", axes);
+        multiscale.put("datasets", Collections.singletonList(dataset));
+        return Collections.singletonList(multiscale);
+    }
+
+    private static Map<String, Object> createAxis(String name, String type, String unit) {
+        Map<String, Object> axis = new LinkedHashMap<>();
+        axis.put("name", name);
+        axis.put("type", type);
+        if (unit != null && !unit.isEmpty() && !"pixel".equals(unit)) {
+            axis.put("unit", unit);
+        }
+        return axis;
+    }
+
+    private static ImageJProperties createImageJProperties(ImagePlus image) {
+        ImageJProperties properties = new ImageJProperties();
+        Calibration calibration = image.getCalibration();
+        properties.title = image.getTitle();
+        properties.pixelWidth = calibration.pixelWidth;
+        properties.pixelHeight = calibration.pixelHeight;
+        properties.pixelDepth = calibration.pixelDepth;
+        properties.frameInterval = calibration.frameInterval;
+        properties.unit = calibration.getUnit();
+        properties.timeUnit = calibration.getTimeUnit();
+        if (image.isComposite()) {
+            CompositeImage compositeImage = (CompositeImage) image;
+            properties.compositeMode = compositeImage.getMode();
+            for (int c = 0; c < image.getNChannels(); c++) {
+                LUT lut = compositeImage.getChannelLut(c + 1);
+                properties.displayRanges.add(new double[]{lut.min, lut.max});
+                properties.luts.add(encodeLUT(lut));
+            }
+        } else if (image.getType() != ImagePlus.COLOR_RGB) {
+            properties.displayRanges.add(new double[]{image.getDisplayRangeMin(), image.getDisplayRangeMax()});
+            properties.luts.add(encodeLUT(image.getProcessor().getLut()));
+        }
+        return properties;
+    }
+
+    private static void applyImageJProperties(ImagePlus image, Path propertiesFile) {
+        if (!Files.isRegularFile(propertiesFile)) {
+            return;
+        }
+        ImageJProperties properties;
+        try {
+            properties = JsonUtils.getObjectMapper().readValue(propertiesFile.toFile(), ImageJProperties.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (properties.title != null) {
+            image.setTitle(properties.title);
+        }
+        Calibration calibration = image.getCalibration();
+        calibration.pixelWidth = properties.pixelWidth;
+        calibration.pixelHeight = properties.pixelHeight;
+        calibration.pixelDepth = properties.pixelDepth;
+        calibration.frameInterval = properties.frameInterval;
+        if (properties.unit != null) {
+            calibration.setUnit(properties.unit);
+        }
+        if (properties.timeUnit != null) {
+            calibration.setTimeUnit(properties.timeUnit);
+        }
+        if (properties.compositeMode > 0 && image.getNChannels() > 1) {
+            CompositeImage compositeImage = new CompositeImage(image, properties.compositeMode);
+            for (int c = 0; c < Math.min(image.getNChannels(), properties.luts.size()); c++) {
+                LUT lut = decodeLUT(properties.luts.get(c));
+                if (lut != null) {
+                    lut.min = properties.displayRanges.get(c)[0];
+                    lut.max = properties.displayRanges.get(c)[1];
+                    compositeImage.setChannelLut(lut, c + 1);
+                }
+            }
+            image.setImage(compositeImage);
+            image.setDimensions(compositeImage.getNChannels(), compositeImage.getNSlices(), compositeImage.getNFrames());
+        } else if (!properties.luts.isEmpty()) {
+            LUT lut = decodeLUT(properties.luts.get(0));
+            if (lut != null) {
+                image.getProcessor().setLut(lut);
+            }
+            image.setDisplayRange(properties.displayRanges.get(0)[0], properties.displayRanges.get(0)[1]);
+        }
+    }
+
+    private static String encodeLUT(LUT lut) {
+        if (lut == null) {
+            return null;
+        }
+        byte[] data = new byte[768];
+        byte[] reds = new byte[256];
+        byte[] greens = new byte[256];
+        byte[] blues = new byte[256];
+        lut.getReds(reds);
+        lut.getGreens(greens);
+        lut.getBlues(blues);
+        System.arraycopy(reds, 0, data, 0, 256);
+        System.arraycopy(greens, 0, data, 256, 256);
+        System.arraycopy(blues, 0, data, 512, 256);
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    private static LUT decodeLUT(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        byte[] data = Base64.getDecoder().decode(encoded);
+        if (data.length != 768) {
+            return null;
+        }
+        return new LUT(Arrays.copyOfRange(data, 0, 256), Arrays.copyOfRange(data, 256, 512), Arrays.copyOfRange(data, 512, 768));
+    }
+
+    /**
+     * ImageJ properties that are not covered by the OME-Zarr metadata
+     */
+    public static class ImageJProperties {
+        public String title;
+        public double pixelWidth = 1;
+        public double pixelHeight = 1;
+        public double pixelDepth = 1;
+        public double frameInterval;
+        public String unit;
+        public String timeUnit;
+        public int compositeMode;
+        public List<double[]> displayRanges = new ArrayList<>();
+        public List<String> luts = new ArrayList<>();
+    }
+
+    /**
+     * Virtual stack that reads planes from the OME-Zarr on demand.
+     * The most recently accessed planes are cached.
+     * The reader is released via {@link #close()} and re-opened if planes are accessed afterwards.
+     */
+    private static class LazyStack extends VirtualStack implements Closeable {
+        private static final int CACHE_SIZE = 4;
+        private final Path path;
+        private N5Reader reader;
+        private final DatasetAttributes attributes;
+        private final int nChannels;
+        private final int nSlices;
+        private final int size;
+        private final Map<Integer, ImageProcessor> cache = new LinkedHashMap<Integer, ImageProcessor>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ImageProcessor> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        private LazyStack(Path path, N5Reader reader, DatasetAttributes attributes, int width, int height, int nChannels, int nSlices, int nFrames) {
+            super(width, height, (ColorModel) null, null);
+            this.path = path;
+            this.reader = reader;
+            this.attributes = attributes;
+            this.nChannels = nChannels;
+            this.nSlices = nSlices;
+            this.size = nChannels * nSlices * nFrames;
+            switch (attributes.getDataType()) {
+                case UINT8:
+                    setBitDepth(8);
+                    break;
+                case UINT16:
+                    setBitDepth(16);
+                    break;
+                case FLOAT32:
+                    setBitDepth(32);
+                    break;
+                default:
+                    setBitDepth(24);
+                    break;
+            }
+        }
+
+        @Override
+        public synchronized ImageProcessor getProcessor(int n) {
+            ImageProcessor processor = cache.get(n);
+            if (processor == null) {
+                if (reader == null) {
+                    reader = new N5ZarrReader(path.toString());
+                }
+                processor = readPlane(reader, attributes, getWidth(), getHeight(), n - 1, nChannels, nSlices);
+                cache.put(n, processor);
+            }
+            // Return a copy, so modifications do not affect the cached data
+            return processor.duplicate();
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String getSliceLabel(int n) {
+            return null;
+        }
+
+        @Override
+        public void deleteSlice(int n) {
+            throw new UnsupportedOperationException("Lazy OME-Zarr stacks cannot be modified");
+        }
+
+        @Override
+        public synchronized void close() {
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+            cache.clear();
+        }
+    }
+}
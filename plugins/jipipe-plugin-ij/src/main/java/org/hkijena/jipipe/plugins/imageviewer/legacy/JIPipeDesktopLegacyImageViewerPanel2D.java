@@ -47,6 +47,7 @@ import org.hkijena.jipipe.plugins.imageviewer.legacy.runs.Stack2DExporterRun;
 import org.hkijena.jipipe.plugins.imageviewer.legacy.runs.Stack2DRendererRun;
 import org.hkijena.jipipe.plugins.imageviewer.legacy.runs.Video2DExporterRun;
 import org.hkijena.jipipe.plugins.imageviewer.settings.LegacyImageViewer2DUIApplicationSettings;
+import org.hkijena.jipipe.plugins.imageviewer.utils.viewer2d.ImageViewer2DPyramidRenderer;
 import org.hkijena.jipipe.plugins.imageviewer.utils.viewer2d.ImageViewer2DSliceStatistics;
 import org.hkijena.jipipe.plugins.imageviewer.utils.viewer2d.ImageViewerPanelCanvas2D;
 import org.hkijena.jipipe.plugins.parameters.library.markup.HTMLText;
@@ -103,6 +104,7 @@ public class JIPipeDesktopLegacyImageViewerPanel2D extends JPanel implements JIP
     private JScrollPane canvasScrollPane;
     private boolean composite;
     private JIPipeDesktopDockPanel currentDockPanel;
+    private ImageViewer2DPyramidRenderer pyramidRenderer;
 
     /**
      * Initializes a new image viewer
@@ -118,6 +120,11 @@ public class JIPipeDesktopLegacyImageViewerPanel2D extends JPanel implements JIP
             settings = new LegacyImageViewer2DUIApplicationSettings();
         }
         exportDisplayedScaleToggle.setState(settings.isExportAsDisplayed());
+        pyramidRenderer = new ImageViewer2DPyramidRenderer((long) settings.getPyramidCacheSize() * 1024 * 1024, () -> {
+            if (canvas != null) {
+                canvas.refineRenderedRegion();
+            }
+        });
         initialize();
         updateZoomStatus();
     }
@@ -166,6 +173,7 @@ public class JIPipeDesktopLegacyImageViewerPanel2D extends JPanel implements JIP
         } catch (Exception | Error e) {
             e.printStackTrace();
         }
+        pyramidRenderer.dispose();
     }
 
     public JIPipeRunnableQueue getViewerRunnerQueue() {
@@ -933,7 +941,10 @@ public class JIPipeDesktopLegacyImageViewerPanel2D extends JPanel implements JIP
     }
 
     public void uploadSliceToCanvas() {
-        if (image != null) {
+        if (image != null && isPyramidRenderingActive()) {
+            // The canvas requests the visible region while painting
+            canvas.setPyramidImage(image.getWidth(), image.getHeight(), getCurrentSliceIndex());
+        } else if (image != null) {
             ImageProcessor processor = generateSlice(channelSlider.getValue() - 1, stackSlider.getValue() - 1,
                     frameSlider.getValue() - 1,
                     1.0, false);
@@ -948,6 +959,95 @@ public class JIPipeDesktopLegacyImageViewerPanel2D extends JPanel implements JIP
         }
     }
 
+    /**
+     * Returns true if large images are rendered region-wise from {@link ImageViewer2DPyramidRenderer}.
+     * This requires that all plugins support drawing into regions of the image.
+     *
+     * @return if pyramid rendering is used for the current image
+     */
+    public boolean isPyramidRenderingActive() {
+        if (image == null || settings.getPyramidRenderingThreshold() <= 0) {
+            return false;
+        }
+        if ((double) image.getWidth() * image.getHeight() < settings.getPyramidRenderingThreshold() * 1000000) {
+            return false;
+        }
+        for (JIPipeDesktopLegacyImageViewerPlugin2D plugin : imageViewer.getPlugins2D()) {
+            if (!plugin.isRegionDrawSupported()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renders a region of the current slice at the current zoom and uploads it to the canvas.
+     * Only applicable if pyramid rendering is active.
+     *
+     * @param region the region in image coordinates
+     */
+    public void renderRegionToCanvas(Rectangle region) {
+        if (image == null || !isPyramidRenderingActive()) {
+            return;
+        }
+        ImageSliceIndex index = getCurrentSliceIndex();
+        double zoom = canvas.getZoom();
+        if (composite && image.getNChannels() > 1) {
+            List<ImageSliceIndex> visiblePlanes = new ArrayList<>();
+            for (int c = 0; c < image.getNChannels(); c++) {
+                visiblePlanes.add(new ImageSliceIndex(c, index.getZ(), index.getT()));
+            }
+            pyramidRenderer.setVisiblePlanes(visiblePlanes);
+            ColorProcessor bottom = null;
+            ImageViewer2DPyramidRenderer.RenderedRegion bottomRegion = null;
+            boolean refined = true;
+            for (int i = 0; i < image.getNChannels(); i++) {
+                CompositeLayer layer = orderedCompositeBlendLayers.get(i);
+                int cc = layer.getChannel();
+                ImageViewer2DPyramidRenderer.RenderedRegion rendered = pyramidRenderer.render(new ImageSliceIndex(cc, index.getZ(), index.getT()), region, zoom);
+                if (rendered == null) {
+                    return;
+                }
+                ImageProcessor processor = drawRegion(cc, index.getZ(), index.getT(), rendered.getProcessor());
+                if (!(processor instanceof ColorProcessor)) {
+                    processor = new ColorProcessor(BufferedImageUtils.copyBufferedImageToARGB(processor.getBufferedImage()));
+                }
+                if (bottom == null) {
+                    bottom = new ColorProcessor(processor.getWidth(), processor.getHeight());
+                    bottomRegion = rendered;
+                }
+                refined &= rendered.isRefined();
+                layer.getBlendMode().blend(bottom, (ColorProcessor) processor, layer.getOpacity());
+            }
+            if (bottom != null) {
+                canvas.setRenderedRegion(bottom.getBufferedImage(), bottomRegion.getRegion(), bottomRegion.getLevel(), refined);
+            }
+        } else {
+            pyramidRenderer.setVisiblePlanes(Collections.singletonList(index));
+            ImageViewer2DPyramidRenderer.RenderedRegion rendered = pyramidRenderer.render(index, region, zoom);
+            if (rendered == null) {
+                return;
+            }
+            ImageProcessor processor = drawRegion(index.getC(), index.getZ(), index.getT(), rendered.getProcessor());
+            canvas.setRenderedRegion(processor.getBufferedImage(), rendered.getRegion(), rendered.getLevel(), rendered.isRefined());
+        }
+    }
+
+    private ImageProcessor drawRegion(int c, int z, int t, ImageProcessor processor) {
+        image.getImage().setPosition(c + 1, z + 1, t + 1);
+        for (JIPipeDesktopLegacyImageViewerPlugin2D plugin : imageViewer.getPlugins2D()) {
+            plugin.beforeDraw(c, z, t);
+        }
+        for (JIPipeDesktopLegacyImageViewerPlugin2D plugin : imageViewer.getPlugins2D()) {
+            processor = plugin.draw(c, z, t, processor);
+        }
+        return processor;
+    }
+
+    public ImageViewer2DPyramidRenderer getPyramidRenderer() {
+        return pyramidRenderer;
+    }
+
     public ImageViewerPanelCanvas2D getCanvas() {
         return canvas;
     }
@@ -970,6 +1070,7 @@ public class JIPipeDesktopLegacyImageViewerPanel2D extends JPanel implements JIP
         boolean doFit = this.image == null;
 
         this.image = image;
+        pyramidRenderer.setImage(image != null ? image.getImage() : null);
         compositeBlendLayers.clear();
         orderedCompositeBlendLayers.clear();
         if (image != null) {
@@ -57,6 +57,16 @@ public abstract class JIPipeDesktopLegacyImageViewerPlugin2D extends JIPipeDeskt
         return processor;
     }
 
+    /**
+     * Returns true if draw() also works on processors that only contain a (downsampled) region of the slice.
+     * Large images are only rendered region-wise if all plugins support this.
+     *
+     * @return if region-wise drawing is supported
+     */
+    public boolean isRegionDrawSupported() {
+        return true;
+    }
+
     /**
      * Called when the current slice is changed
      *
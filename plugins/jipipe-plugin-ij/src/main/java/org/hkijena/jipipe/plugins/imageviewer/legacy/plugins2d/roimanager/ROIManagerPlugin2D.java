@@ -339,6 +339,12 @@ public class ROIManagerPlugin2D extends JIPipeDesktopLegacyImageViewerPlugin2D {
         return processor;
     }
 
+    @Override
+    public boolean isRegionDrawSupported() {
+        // ROI drawn into the processor use full-resolution coordinates
+        return !(displayROIViewMenuItem.getState() && !renderROIAsOverlayViewMenuItem.getState() && !rois.isEmpty());
+    }
+
     @Override
     public void postprocessDraw(Graphics2D graphics2D, Rectangle renderArea, ImageSliceIndex sliceIndex) {
         if (displayROIViewMenuItem.getState() && renderROIAsOverlayViewMenuItem.getState()) {
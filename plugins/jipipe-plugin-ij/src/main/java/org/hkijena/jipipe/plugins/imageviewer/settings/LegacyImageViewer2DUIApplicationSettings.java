@@ -33,6 +33,8 @@ public class LegacyImageViewer2DUIApplicationSettings extends JIPipeDefaultAppli
     private double zoomBaseSpeed = 0.05;
     private double zoomDynamicSpeed = 0.1;
     private boolean exportAsDisplayed = true;
+    private double pyramidRenderingThreshold = 16;
+    private int pyramidCacheSize = 512;
 
     public static LegacyImageViewer2DUIApplicationSettings getInstance() {
         return JIPipe.getSettings().getById(ID, LegacyImageViewer2DUIApplicationSettings.class);
@@ -83,6 +85,30 @@ public class LegacyImageViewer2DUIApplicationSettings extends JIPipeDefaultAppli
         this.zoomDynamicSpeed = zoomDynamicSpeed;
     }
 
+    @SetJIPipeDocumentation(name = "Multi-resolution rendering threshold (megapixels)", description = "Planes with at least this number of megapixels are rendered " +
+            "from a downsampled multi-resolution pyramid that is built in the background. Only the visible region is rendered. Set to zero to disable.")
+    @JIPipeParameter("pyramid-rendering-threshold")
+    public double getPyramidRenderingThreshold() {
+        return pyramidRenderingThreshold;
+    }
+
+    @JIPipeParameter("pyramid-rendering-threshold")
+    public void setPyramidRenderingThreshold(double pyramidRenderingThreshold) {
+        this.pyramidRenderingThreshold = pyramidRenderingThreshold;
+    }
+
+    @SetJIPipeDocumentation(name = "Multi-resolution cache size (MB)", description = "The maximum memory used by the downsampled levels of the multi-resolution rendering. " +
+            "The least recently used levels are removed first.")
+    @JIPipeParameter("pyramid-cache-size")
+    public int getPyramidCacheSize() {
+        return pyramidCacheSize;
+    }
+
+    @JIPipeParameter("pyramid-cache-size")
+    public void setPyramidCacheSize(int pyramidCacheSize) {
+        this.pyramidCacheSize = pyramidCacheSize;
+    }
+
     @Override
     public JIPipeDefaultApplicationSettingsSheetCategory getDefaultCategory() {
         return JIPipeDefaultApplicationSettingsSheetCategory.ImageViewer;
@@ -0,0 +1,436 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.imageviewer.utils.viewer2d;
+
+import ij.ImagePlus;
+import ij.process.ColorProcessor;
+import ij.process.ImageProcessor;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJUtils;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.dimensions.ImageSliceIndex;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Renders regions of large image planes from a multi-resolution pyramid.
+ * Each requested plane is repeatedly downsampled by a factor of two in the background until it fits into {@link #MIN_LEVEL_SIZE}.
+ * The levels are kept in a least-recently-used cache that is limited by its memory size.
+ * Levels of the visible planes ({@link #setVisiblePlanes(Collection)}) are never evicted. Levels that do not fit into the cache
+ * next to them are not cached at all and are rendered from the full-resolution plane instead.
+ * While a level is not available, regions are sampled from the full-resolution plane and the callback is
+ * executed on the event dispatch thread as soon as a new level was built, so the caller can refine the rendering.
+ */
+public class ImageViewer2DPyramidRenderer {
+
+    /**
+     * Levels are built until the width and height of the level are not larger than this value
+     */
+    public static final int MIN_LEVEL_SIZE = 512;
+
+    private final Runnable levelAvailableCallback;
+    private final LinkedHashMap<LevelKey, ImageProcessor> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "JIPipe image viewer pyramid");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long cacheSizeLimit;
+    private long cacheSize;
+    private ImagePlus image;
+    private int generation;
+    private final Set<LevelKey> uncachableLevels = new HashSet<>();
+    private final LinkedHashSet<ImageSliceIndex> requestedPlanes = new LinkedHashSet<>();
+    private final Set<ImageSliceIndex> visiblePlanes = new HashSet<>();
+    private boolean workerScheduled;
+
+    /**
+     * Creates a new renderer
+     *
+     * @param cacheSizeLimit         the maximum size of the cached levels in bytes
+     * @param levelAvailableCallback executed on the event dispatch thread if a new level is available
+     */
+    public ImageViewer2DPyramidRenderer(long cacheSizeLimit, Runnable levelAvailableCallback) {
+        this.cacheSizeLimit = cacheSizeLimit;
+        this.levelAvailableCallback = levelAvailableCallback;
+    }
+
+    /**
+     * Sets the rendered image. Clears all cached levels.
+     *
+     * @param image the image. can be null.
+     */
+    public synchronized void setImage(ImagePlus image) {
+        this.image = image;
+        ++generation;
+        requestedPlanes.clear();
+        uncachableLevels.clear();
+        cache.clear();
+        cacheSize = 0;
+    }
+
+    /**
+     * Sets the planes that are currently displayed. Their levels are not evicted from the cache.
+     *
+     * @param planes the planes
+     */
+    public synchronized void setVisiblePlanes(Collection<ImageSliceIndex> planes) {
+        visiblePlanes.clear();
+        visiblePlanes.addAll(planes);
+    }
+
+    public synchronized ImagePlus getImage() {
+        return image;
+    }
+
+    public synchronized long getCacheSizeLimit() {
+        return cacheSizeLimit;
+    }
+
+    public synchronized void setCacheSizeLimit(long cacheSizeLimit) {
+        this.cacheSizeLimit = cacheSizeLimit;
+        uncachableLevels.clear();
+        trimCache();
+    }
+
+    /**
+     * Returns the number of levels excluding the full-resolution plane
+     *
+     * @return the number of downsampled levels
+     */
+    public synchronized int getMaxLevel() {
+        if (image == null) {
+            return 0;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int level = 0;
+        while (width > MIN_LEVEL_SIZE || height > MIN_LEVEL_SIZE) {
+            width = Math.max(1, width / 2);
+            height = Math.max(1, height / 2);
+            ++level;
+        }
+        return level;
+    }
+
+    /**
+     * Returns the level that should be used for rendering at the given zoom.
+     * This is the coarsest level that still has at least one pixel per screen pixel.
+     *
+     * @param zoom the zoom
+     * @return the level (0 is the full-resolution plane)
+     */
+    public int getLevelForZoom(double zoom) {
+        if (zoom >= 1) {
+            return 0;
+        }
+        int level = (int) Math.floor(Math.log(1.0 / zoom) / Math.log(2));
+        return Math.max(0, Math.min(getMaxLevel(), level));
+    }
+
+    /**
+     * Renders a region of a plane.
+     * If the required level is not available yet, it is scheduled for creation and a preview is sampled from the full-resolution plane.
+     * The returned processor is a copy and can be modified by the caller.
+     *
+     * @param index  the plane
+     * @param region the region in full-resolution coordinates
+     * @param zoom   the zoom
+     * @return the rendered region or null if there is no image
+     */
+    public RenderedRegion render(ImageSliceIndex index, Rectangle region, double zoom) {
+        ImagePlus image;
+        int level;
+        ImageProcessor levelProcessor;
+        boolean uncachable;
+        synchronized (this) {
+            image = this.image;
+            if (image == null) {
+                return null;
+            }
+            level = getLevelForZoom(zoom);
+            levelProcessor = level > 0 ? cache.get(new LevelKey(index, level)) : null;
+            uncachable = level > 0 && uncachableLevels.contains(new LevelKey(index, level));
+        }
+        Rectangle fullRegion = region.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        if (fullRegion.isEmpty()) {
+            return null;
+        }
+        if (level == 0) {
+            ImageProcessor source = ImageJUtils.getSliceZeroSafe(image, index);
+            return new RenderedRegion(crop(source, fullRegion, fullRegion.width, fullRegion.height), fullRegion, 0, true);
+        }
+
+        // Map the region into the coordinates of the level
+        int levelWidth = image.getWidth();
+        int levelHeight = image.getHeight();
+        for (int i = 0; i < level; i++) {
+            levelWidth = Math.max(1, levelWidth / 2);
+            levelHeight = Math.max(1, levelHeight / 2);
+        }
+        double scaleX = 1.0 * levelWidth / image.getWidth();
+        double scaleY = 1.0 * levelHeight / image.getHeight();
+        int x0 = (int) Math.floor(fullRegion.x * scaleX);
+        int y0 = (int) Math.floor(fullRegion.y * scaleY);
+        int x1 = Math.min(levelWidth, (int) Math.ceil((fullRegion.x + fullRegion.width) * scaleX));
+        int y1 = Math.min(levelHeight, (int) Math.ceil((fullRegion.y + fullRegion.height) * scaleY));
+        Rectangle levelRegion = new Rectangle(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+        Rectangle coveredRegion = new Rectangle((int) Math.floor(levelRegion.x / scaleX),
+                (int) Math.floor(levelRegion.y / scaleY),
+                (int) Math.ceil(levelRegion.width / scaleX),
+                (int) Math.ceil(levelRegion.height / scaleY)).intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+
+        if (levelProcessor != null) {
+            return new RenderedRegion(crop(levelProcessor, levelRegion, levelRegion.width, levelRegion.height), coveredRegion, level, true);
+        } else {
+            // Levels that exceed the cache size will not become available, so the sampled region is final
+            if (!uncachable) {
+                requestPlane(index);
+            }
+            ImageProcessor source = ImageJUtils.getSliceZeroSafe(image, index);
+            return new RenderedRegion(crop(source, coveredRegion, levelRegion.width, levelRegion.height), coveredRegion, level, uncachable);
+        }
+    }
+
+    /**
+     * Stops the background worker. The renderer should not be used afterward.
+     */
+    public void dispose() {
+        setImage(null);
+        executorService.shutdownNow();
+    }
+
+    private synchronized void requestPlane(ImageSliceIndex index) {
+        if (executorService.isShutdown()) {
+            return;
+        }
+        requestedPlanes.add(index);
+        if (!workerScheduled) {
+            workerScheduled = true;
+            executorService.submit(this::buildRequestedPlanes);
+        }
+    }
+
+    private void buildRequestedPlanes() {
+        while (true) {
+            ImagePlus image;
+            ImageSliceIndex index;
+            int generation;
+            synchronized (this) {
+                if (requestedPlanes.isEmpty() || this.image == null) {
+                    requestedPlanes.clear();
+                    workerScheduled = false;
+                    return;
+                }
+                Iterator<ImageSliceIndex> iterator = requestedPlanes.iterator();
+                index = iterator.next();
+                iterator.remove();
+                image = this.image;
+                generation = this.generation;
+            }
+            try {
+                buildPlane(image, index, generation);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void buildPlane(ImagePlus image, ImageSliceIndex index, int generation) {
+        ImageProcessor source = ImageJUtils.getSliceZeroSafe(image, index);
+        int maxLevel = getMaxLevel();
+        for (int level = 1; level <= maxLevel; level++) {
+            LevelKey key = new LevelKey(index, level);
+            ImageProcessor existing;
+            synchronized (this) {
+                if (generation != this.generation) {
+                    return;
+                }
+                existing = cache.get(key);
+            }
+            if (existing != null) {
+                source = existing;
+                continue;
+            }
+            ImageProcessor downsampled = downsample(source);
+            synchronized (this) {
+                if (generation != this.generation) {
+                    return;
+                }
+                // The levels of the built plane and the visible planes are pinned
+                // Levels that do not fit next to them are not cached, as they would evict pinned levels or be evicted immediately
+                long size = getSizeInBytes(downsampled);
+                if (getPinnedSize(index) + size > cacheSizeLimit) {
+                    uncachableLevels.add(key);
+                } else {
+                    cache.put(key, downsampled);
+                    cacheSize += size;
+                    trimCache(index);
+                }
+            }
+            SwingUtilities.invokeLater(levelAvailableCallback);
+            source = downsampled;
+        }
+    }
+
+    private long getPinnedSize(ImageSliceIndex builtPlane) {
+        long size = 0;
+        for (Map.Entry<LevelKey, ImageProcessor> entry : cache.entrySet()) {
+            if (isPinned(entry.getKey(), builtPlane)) {
+                size += getSizeInBytes(entry.getValue());
+            }
+        }
+        return size;
+    }
+
+    private boolean isPinned(LevelKey key, ImageSliceIndex builtPlane) {
+        return key.index.equals(builtPlane) || visiblePlanes.contains(key.index);
+    }
+
+    private void trimCache() {
+        trimCache(null);
+    }
+
+    private void trimCache(ImageSliceIndex builtPlane) {
+        Iterator<Map.Entry<LevelKey, ImageProcessor>> iterator = cache.entrySet().iterator();
+        while (cacheSize > cacheSizeLimit && iterator.hasNext()) {
+            Map.Entry<LevelKey, ImageProcessor> entry = iterator.next();
+            if (isPinned(entry.getKey(), builtPlane)) {
+                continue;
+            }
+            cacheSize -= getSizeInBytes(entry.getValue());
+            iterator.remove();
+        }
+    }
+
+    private static long getSizeInBytes(ImageProcessor processor) {
+        // RGB pixels are stored as 32-bit integers
+        int bytesPerPixel = processor instanceof ColorProcessor ? 4 : Math.max(1, processor.getBitDepth() / 8);
+        return (long) processor.getWidth() * processor.getHeight() * bytesPerPixel;
+    }
+
+    private static ImageProcessor downsample(ImageProcessor source) {
+        int width = Math.max(1, source.getWidth() / 2);
+        int height = Math.max(1, source.getHeight() / 2);
+        // The full-resolution processor might be shared with the image, so its state is restored
+        synchronized (source) {
+            Rectangle roi = source.getRoi();
+            ImageProcessor mask = source.getMask();
+            int interpolationMethod = source.getInterpolationMethod();
+            try {
+                source.resetRoi();
+                source.setInterpolationMethod(ImageProcessor.BILINEAR);
+                return source.resize(width, height, true);
+            } finally {
+                source.setInterpolationMethod(interpolationMethod);
+                source.setRoi(roi);
+                source.setMask(mask);
+            }
+        }
+    }
+
+    private static ImageProcessor crop(ImageProcessor source, Rectangle region, int width, int height) {
+        synchronized (source) {
+            Rectangle roi = source.getRoi();
+            ImageProcessor mask = source.getMask();
+            int interpolationMethod = source.getInterpolationMethod();
+            try {
+                source.setRoi(region);
+                if (region.width == width && region.height == height) {
+                    return source.crop();
+                } else {
+                    source.setInterpolationMethod(ImageProcessor.NONE);
+                    return source.resize(width, height);
+                }
+            } finally {
+                source.setInterpolationMethod(interpolationMethod);
+                source.setRoi(roi);
+                source.setMask(mask);
+            }
+        }
+    }
+
+    /**
+     * A rendered region of a plane
+     */
+    public static class RenderedRegion {
+        private final ImageProcessor processor;
+        private final Rectangle region;
+        private final int level;
+        private final boolean refined;
+
+        public RenderedRegion(ImageProcessor processor, Rectangle region, int level, boolean refined) {
+            this.processor = processor;
+            this.region = region;
+            this.level = level;
+            this.refined = refined;
+        }
+
+        /**
+         * The rendered pixels. Its size is the size of the region within the level.
+         *
+         * @return the processor
+         */
+        public ImageProcessor getProcessor() {
+            return processor;
+        }
+
+        /**
+         * The region covered by the processor in full-resolution coordinates
+         *
+         * @return the region
+         */
+        public Rectangle getRegion() {
+            return region;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * If false, the processor was sampled from the full-resolution plane, as the level is still being built
+         *
+         * @return if the region was rendered from the requested level
+         */
+        public boolean isRefined() {
+            return refined;
+        }
+    }
+
+    private static class LevelKey {
+        private final ImageSliceIndex index;
+        private final int level;
+
+        private LevelKey(ImageSliceIndex index, int level) {
+            this.index = index;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LevelKey levelKey = (LevelKey) o;
+            return level == levelKey.level && Objects.equals(index, levelKey.index);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, level);
+        }
+    }
+}
@@ -53,6 +53,12 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
     private Component error = null;
     private BufferedImage renderedError = null;
     private ImageViewerPanelCanvas2DTool tool;
+    private Dimension pyramidImageSize;
+    private Rectangle imageRegion;
+    private int imageRegionLevel;
+    private boolean imageRegionValid;
+    private boolean imageRegionRefined;
+    private boolean renderedRegionRequested;
 
     public ImageViewerPanelCanvas2D(JIPipeDesktopLegacyImageViewerPanel2D imageViewerPanel) {
         this.imageViewerPanel = imageViewerPanel;
@@ -70,13 +76,143 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
         this.image = image;
         this.imageSliceIndex = imageSliceIndex;
         this.scaledImage = null;
+        this.pyramidImageSize = null;
+        this.imageRegion = null;
         revalidate();
         repaint(50);
     }
 
+    /**
+     * Switches to region-wise rendering of a large image.
+     * The canvas requests the visible region from the image viewer panel while painting.
+     * The previously rendered region is kept until it is replaced.
+     *
+     * @param width           the width of the full image
+     * @param height          the height of the full image
+     * @param imageSliceIndex the slice
+     */
+    public void setPyramidImage(int width, int height, ImageSliceIndex imageSliceIndex) {
+        if (pyramidImageSize == null || pyramidImageSize.width != width || pyramidImageSize.height != height) {
+            this.image = null;
+            this.imageRegion = null;
+        }
+        this.pyramidImageSize = new Dimension(width, height);
+        this.imageSliceIndex = imageSliceIndex;
+        this.scaledImage = null;
+        this.imageRegionValid = false;
+        revalidate();
+        repaint(50);
+    }
+
+    /**
+     * Sets the rendered region of a large image (see setPyramidImage)
+     *
+     * @param image   the rendered region
+     * @param region  the region within the full image
+     * @param level   the pyramid level
+     * @param refined if the rendering was created from the requested level
+     */
+    public void setRenderedRegion(BufferedImage image, Rectangle region, int level, boolean refined) {
+        this.image = image;
+        this.imageRegion = region;
+        this.imageRegionLevel = level;
+        this.imageRegionRefined = refined;
+        this.imageRegionValid = true;
+        this.scaledImage = null;
+        repaint(50);
+    }
+
+    /**
+     * Marks the currently rendered region as outdated, so it is rendered again on the next paint
+     */
+    public void invalidateRenderedRegion() {
+        if (pyramidImageSize != null) {
+            this.imageRegionValid = false;
+            repaint(50);
+        }
+    }
+
+    /**
+     * Renders the current region again if it was only a preview of the requested pyramid level
+     */
+    public void refineRenderedRegion() {
+        if (pyramidImageSize != null && !imageRegionRefined) {
+            invalidateRenderedRegion();
+        }
+    }
+
+    public boolean hasImage() {
+        return image != null || pyramidImageSize != null;
+    }
+
+    /**
+     * The width of the full image (not the rendered region)
+     *
+     * @return the width
+     */
+    public int getImageWidth() {
+        if (pyramidImageSize != null) {
+            return pyramidImageSize.width;
+        }
+        return image != null ? image.getWidth() : 0;
+    }
+
+    /**
+     * The height of the full image (not the rendered region)
+     *
+     * @return the height
+     */
+    public int getImageHeight() {
+        if (pyramidImageSize != null) {
+            return pyramidImageSize.height;
+        }
+        return image != null ? image.getHeight() : 0;
+    }
+
+    /**
+     * Returns the part of the full image that is currently visible
+     *
+     * @return the visible region or null if nothing is visible
+     */
+    public Rectangle getVisibleImageRegion() {
+        Rectangle visibleRect = getVisibleRect();
+        if (visibleRect.isEmpty() || zoom <= 0) {
+            return null;
+        }
+        int x0 = (int) Math.floor((visibleRect.x - contentX) / zoom);
+        int y0 = (int) Math.floor((visibleRect.y - contentY) / zoom);
+        int x1 = (int) Math.ceil((visibleRect.x + visibleRect.width - contentX) / zoom);
+        int y1 = (int) Math.ceil((visibleRect.y + visibleRect.height - contentY) / zoom);
+        Rectangle region = new Rectangle(x0, y0, x1 - x0, y1 - y0).intersection(new Rectangle(0, 0, getImageWidth(), getImageHeight()));
+        return region.isEmpty() ? null : region;
+    }
+
+    private void requestRenderedRegionIfNeeded() {
+        Rectangle visibleRegion = getVisibleImageRegion();
+        if (visibleRegion == null || renderedRegionRequested) {
+            return;
+        }
+        int level = imageViewerPanel.getPyramidRenderer().getLevelForZoom(zoom);
+        if (image == null || imageRegion == null || !imageRegionValid || imageRegionLevel != level || !imageRegion.contains(visibleRegion)) {
+            renderedRegionRequested = true;
+            SwingUtilities.invokeLater(() -> {
+                renderedRegionRequested = false;
+                if (pyramidImageSize == null) {
+                    return;
+                }
+                Rectangle region = getVisibleImageRegion();
+                if (region != null) {
+                    // Render a margin around the visible area, so small movements do not require rendering
+                    region.grow(region.width / 2, region.height / 2);
+                    imageViewerPanel.renderRegionToCanvas(region.intersection(new Rectangle(0, 0, getImageWidth(), getImageHeight())));
+                }
+            });
+        }
+    }
+
     public void centerImage() {
-        int imageWidth = (int) (image.getWidth() * zoom);
-        int imageHeight = (int) (image.getHeight() * zoom);
+        int imageWidth = (int) (getImageWidth() * zoom);
+        int imageHeight = (int) (getImageHeight() * zoom);
         int availableWidth = 2;
         int availableHeight = 2;
         if (scrollPane != null) {
@@ -129,9 +265,9 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
     public Dimension getPreferredSize() {
         int width = 0;
         int height = 0;
-        if (image != null) {
-            width = (int) (image.getWidth() * zoom) + contentX;
-            height = (int) (image.getHeight() * zoom) + contentY;
+        if (hasImage()) {
+            width = (int) (getImageWidth() * zoom) + contentX;
+            height = (int) (getImageHeight() * zoom) + contentY;
         }
         if (scrollPane != null) {
             width = Math.max(scrollPane.getViewport().getWidth(), width);
@@ -149,9 +285,9 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
         int w;
         int h;
 
-        if (image != null) {
-            w = (int) (zoom * image.getWidth());
-            h = (int) (zoom * image.getHeight());
+        if (hasImage()) {
+            w = (int) (zoom * getImageWidth());
+            h = (int) (zoom * getImageHeight());
         } else if (scrollPane != null) {
             w = scrollPane.getViewport().getWidth();
             h = scrollPane.getViewport().getHeight();
@@ -160,12 +296,19 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
             h = getHeight();
         }
 
+        if (pyramidImageSize != null && error == null) {
+            requestRenderedRegionIfNeeded();
+        }
         if (image != null && error == null) {
 //            ensureScaledImage();
+            // The image might only contain a (downsampled) region of the full image
+            Rectangle region = imageRegion != null ? imageRegion : new Rectangle(0, 0, image.getWidth(), image.getHeight());
+            double scaleX = zoom * region.width / image.getWidth();
+            double scaleY = zoom * region.height / image.getHeight();
             AffineTransform transform = new AffineTransform();
-            transform.scale(zoom, zoom);
-            BufferedImageOp op = new AffineTransformOp(transform, zoom < 1 ? AffineTransformOp.TYPE_BILINEAR : AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-            graphics2D.drawImage(image, op, contentX, contentY);
+            transform.scale(scaleX, scaleY);
+            BufferedImageOp op = new AffineTransformOp(transform, scaleX < 1 ? AffineTransformOp.TYPE_BILINEAR : AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
+            graphics2D.drawImage(image, op, contentX + (int) (region.x * zoom), contentY + (int) (region.y * zoom));
 //            graphics2D.drawImage(scaledImage, contentX, contentY, null);
             for (JIPipeDesktopLegacyImageViewerPlugin2D plugin : imageViewerPanel.getImageViewer().getPlugins2D()) {
                 plugin.postprocessDraw(graphics2D, new Rectangle(x, y, w, h), imageSliceIndex);
@@ -207,10 +350,10 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
         zoom = Math.min(32.0, Math.max(zoom, 1 / 72.0));
 
         // Limit zoom based on impact to image
-        if (image != null) {
+        if (hasImage()) {
             final double minSize = 128;
             // Math.min to handle long 1px images
-            double minZoom = Math.min(minSize / image.getWidth(), minSize / image.getHeight());
+            double minZoom = Math.min(minSize / getImageWidth(), minSize / getImageHeight());
             zoom = Math.max(minZoom, zoom);
         }
 
@@ -222,7 +365,7 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
         this.zoom = zoom;
         this.scaledImage = null;
         imageViewerPanel.getZoomedDummyCanvas().setMagnification(zoom);
-        imageViewerPanel.getZoomedDummyCanvas().setSize((int) (image.getWidth() * zoom), (int) (image.getHeight() * zoom));
+        imageViewerPanel.getZoomedDummyCanvas().setSize((int) (getImageWidth() * zoom), (int) (getImageHeight() * zoom));
         if (currentPixel != null) {
             Point2D.Double newPixelLocation = imageSubPixelCoordinateToScreen(currentPixel);
             double dx = newPixelLocation.x - mousePosition.x;
@@ -344,9 +487,9 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
     private void fixNegativeOffsets() {
         int w;
         int h;
-        if (image != null) {
-            w = (int) (zoom * image.getWidth());
-            h = (int) (zoom * image.getHeight());
+        if (hasImage()) {
+            w = (int) (zoom * getImageWidth());
+            h = (int) (zoom * getImageHeight());
         } else if (scrollPane != null) {
             w = scrollPane.getViewport().getWidth();
             h = scrollPane.getViewport().getHeight();
@@ -418,9 +561,9 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
             int w;
             int h;
 
-            if (image != null) {
-                w = (int) (zoom * image.getWidth());
-                h = (int) (zoom * image.getHeight());
+            if (hasImage()) {
+                w = (int) (zoom * getImageWidth());
+                h = (int) (zoom * getImageHeight());
             } else if (scrollPane != null) {
                 w = scrollPane.getViewport().getWidth();
                 h = scrollPane.getViewport().getHeight();
@@ -466,8 +609,8 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
         y -= contentY;
         if (checkBounds && (x < 0 || y < 0))
             return null;
-        int sw = (int) (zoom * image.getWidth());
-        int sh = (int) (zoom * image.getHeight());
+        int sw = (int) (zoom * getImageWidth());
+        int sh = (int) (zoom * getImageHeight());
         if (checkBounds && (x >= sw || y >= sh))
             return null;
         double rx;
@@ -479,8 +622,8 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
             rx = 1.0 * x / sw;
             ry = 1.0 * y / sh;
         }
-        double mx = (rx * image.getWidth());
-        double my = (ry * image.getHeight());
+        double mx = (rx * getImageWidth());
+        double my = (ry * getImageHeight());
         return new Point2D.Double(mx, my);
     }
 
@@ -499,8 +642,8 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
         y -= contentY;
         if (checkBounds && (x < 0 || y < 0))
             return null;
-        int sw = (int) (zoom * image.getWidth());
-        int sh = (int) (zoom * image.getHeight());
+        int sw = (int) (zoom * getImageWidth());
+        int sh = (int) (zoom * getImageHeight());
         if (checkBounds && (x >= sw || y >= sh))
             return null;
         double rx;
@@ -512,8 +655,8 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
             rx = 1.0 * x / sw;
             ry = 1.0 * y / sh;
         }
-        int mx = (int) (rx * image.getWidth());
-        int my = (int) (ry * image.getHeight());
+        int mx = (int) (rx * getImageWidth());
+        int my = (int) (ry * getImageHeight());
         return new Point(mx, my);
     }
 
@@ -525,7 +668,7 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
      * @return the pixel coordinates. Null if the current mouse position is invalid.
      */
     public Point getMouseModelPixelCoordinate(MouseEvent mouseEvent, boolean checkBounds) {
-        if (image == null)
+        if (!hasImage())
             return null;
         Point mousePosition;
         if (mouseEvent == null) {
@@ -570,9 +713,9 @@ public class ImageViewerPanelCanvas2D extends JPanel implements MouseListener, M
      * Moves the image back into the view if its not visible
      */
     public void moveBackIntoViewIfOutside() {
-        if (image != null) {
-            double width = zoom * image.getWidth();
-            double height = zoom * image.getHeight();
+        if (hasImage()) {
+            double width = zoom * getImageWidth();
+            double height = zoom * getImageHeight();
             if (contentX < (-width + 16)) {
                 setContentX(0);
             }
@@ -127,125 +127,126 @@ public class IlastikPixelClassificationAlgorithm extends JIPipeSingleIterationAl
 
     @Override
     protected void runIteration(JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        Path workDirectory = getNewScratch();
-        progressInfo.log("Work directory is " + workDirectory);
-
-        JIPipeInputDataSlot projectInputSlot = getInputSlot("Project");
-        JIPipeInputDataSlot imageInputSlot = getInputSlot("Image");
-
-        // Collect the parameters
-        List<String> exportSources = new ArrayList<>();
-        if (outputParameters.outputFeatures)
-            exportSources.add("Features");
-        if (outputParameters.outputLabels)
-            exportSources.add("Labels");
-        if (outputParameters.outputProbabilities)
-            exportSources.add("Probabilities");
-        if (outputParameters.outputUncertainty)
-            exportSources.add("Uncertainty");
-        if (outputParameters.outputSimpleSegmentation)
-            exportSources.add("Simple Segmentation");
-
-        // Export the projects
-        List<Path> exportedModelPaths = new ArrayList<>();
-        List<JIPipeDataContext> exportedModelContexts = new ArrayList<>();
-        for (int i = 0; i < projectInputSlot.getRowCount(); i++) {
-            JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting project", i, projectInputSlot.getRowCount());
-            IlastikModelData project = projectInputSlot.getData(i, IlastikModelData.class, exportProgress);
-            Path exportedPath = project.exportOrGetLink(workDirectory.resolve("project_" + i + ".ilp"));
-
-            // Check the project
-            if (projectValidationMode != IlastikProjectValidationMode.Ignore) {
-                exportProgress.log("Checking if " + exportedPath + " supports project type '" + PROJECT_TYPE + "'");
-                if (!IlastikUtils.projectSupports(exportedPath, PROJECT_TYPE)) {
-                    if (projectValidationMode == IlastikProjectValidationMode.CrashOnError) {
-                        throw new JIPipeValidationRuntimeException(new GraphNodeValidationReportContext(this),
-                                new IllegalArgumentException("Project does not support '" + PROJECT_TYPE + "'"),
-                                "Provided project is not supported by '" + getInfo().getName() + "'!",
-                                "The node tried to load project (row " + i + ") with annotations " + JsonUtils.toJsonString(projectInputSlot.getTextAnnotations(i)) + ", but the project does not support " + PROJECT_TYPE,
-                                "Check if the inputs are correct or set the validation mode to 'Skip on error'.");
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            progressInfo.log("Work directory is " + workDirectory);
+
+            JIPipeInputDataSlot projectInputSlot = getInputSlot("Project");
+            JIPipeInputDataSlot imageInputSlot = getInputSlot("Image");
+
+            // Collect the parameters
+            List<String> exportSources = new ArrayList<>();
+            if (outputParameters.outputFeatures)
+                exportSources.add("Features");
+            if (outputParameters.outputLabels)
+                exportSources.add("Labels");
+            if (outputParameters.outputProbabilities)
+                exportSources.add("Probabilities");
+            if (outputParameters.outputUncertainty)
+                exportSources.add("Uncertainty");
+            if (outputParameters.outputSimpleSegmentation)
+                exportSources.add("Simple Segmentation");
+
+            // Export the projects
+            List<Path> exportedModelPaths = new ArrayList<>();
+            List<JIPipeDataContext> exportedModelContexts = new ArrayList<>();
+            for (int i = 0; i < projectInputSlot.getRowCount(); i++) {
+                JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting project", i, projectInputSlot.getRowCount());
+                IlastikModelData project = projectInputSlot.getData(i, IlastikModelData.class, exportProgress);
+                Path exportedPath = project.exportOrGetLink(workDirectory.resolve("project_" + i + ".ilp"));
+
+                // Check the project
+                if (projectValidationMode != IlastikProjectValidationMode.Ignore) {
+                    exportProgress.log("Checking if " + exportedPath + " supports project type '" + PROJECT_TYPE + "'");
+                    if (!IlastikUtils.projectSupports(exportedPath, PROJECT_TYPE)) {
+                        if (projectValidationMode == IlastikProjectValidationMode.CrashOnError) {
+                            throw new JIPipeValidationRuntimeException(new GraphNodeValidationReportContext(this),
+                                    new IllegalArgumentException("Project does not support '" + PROJECT_TYPE + "'"),
+                                    "Provided project is not supported by '" + getInfo().getName() + "'!",
+                                    "The node tried to load project (row " + i + ") with annotations " + JsonUtils.toJsonString(projectInputSlot.getTextAnnotations(i)) + ", but the project does not support " + PROJECT_TYPE,
+                                    "Check if the inputs are correct or set the validation mode to 'Skip on error'.");
+                        }
                     }
                 }
+                exportedModelPaths.add(exportedPath);
+                exportedModelContexts.add(projectInputSlot.getDataContext(i));
             }
-            exportedModelPaths.add(exportedPath);
-            exportedModelContexts.add(projectInputSlot.getDataContext(i));
-        }
 
-        // Export images
-        List<Path> exportedImagePaths = new ArrayList<>();
-        List<JIPipeDataContext> exportedImageContexts = new ArrayList<>();
-        for (int i = 0; i < imageInputSlot.getRowCount(); i++) {
-            JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting input image", i, imageInputSlot.getRowCount());
-            ImagePlusData imagePlusData = imageInputSlot.getData(i, ImagePlusData.class, exportProgress);
+            // Export images
+            List<Path> exportedImagePaths = new ArrayList<>();
+            List<JIPipeDataContext> exportedImageContexts = new ArrayList<>();
+            for (int i = 0; i < imageInputSlot.getRowCount(); i++) {
+                JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting input image", i, imageInputSlot.getRowCount());
+                ImagePlusData imagePlusData = imageInputSlot.getData(i, ImagePlusData.class, exportProgress);
 
-            Path exportedPath = workDirectory.resolve("img_" + i + ".h5");
-            IJ1Hdf5.writeImage(imagePlusData.getImage(), exportedPath, "data", DEFAULT_AXES, progressInfo);
+                Path exportedPath = workDirectory.resolve("img_" + i + ".h5");
+                IJ1Hdf5.writeImage(imagePlusData.getImage(), exportedPath, "data", DEFAULT_AXES, progressInfo);
 
-            exportedImagePaths.add(exportedPath);
-            exportedImageContexts.add(imageInputSlot.getDataContext(i));
-        }
+                exportedImagePaths.add(exportedPath);
+                exportedImageContexts.add(imageInputSlot.getDataContext(i));
+            }
 
 
-        // Run analysis
-        for (int modelIndex = 0; modelIndex < exportedModelPaths.size(); modelIndex++) {
-            Path modelPath = exportedModelPaths.get(modelIndex);
-            Path modelResultPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "project_" + modelIndex);
-            JIPipeProgressInfo modelProgress = progressInfo.resolveAndLog("Project", modelIndex, exportedModelPaths.size());
-
-            for (int exportSourceIndex = 0; exportSourceIndex < exportSources.size(); exportSourceIndex++) {
-                String exportSource = exportSources.get(exportSourceIndex);
-                JIPipeProgressInfo exportSourceProgress = modelProgress.resolveAndLog(exportSource, exportSourceIndex, exportSources.size());
-                List<String> args = new ArrayList<>();
-                String axes = reversed(DEFAULT_STRING_AXES);
-                args.add("--headless");
-                args.add("--readonly");
-                args.add("--project=" + modelPath);
-                args.add("--output_format=hdf5");
-                args.add("--export_source=" + exportSource);
-                args.add("--output_filename_format=" + modelResultPath + "/{result_type}__{nickname}.tiff");
-                args.add("--output_axis_order=" + axes);
-                args.add("--input_axes=" + axes);
-                for (Path exportedImagePath : exportedImagePaths) {
-                    args.add(exportedImagePath.toAbsolutePath().toString());
-                }
+            // Run analysis
+            for (int modelIndex = 0; modelIndex < exportedModelPaths.size(); modelIndex++) {
+                Path modelPath = exportedModelPaths.get(modelIndex);
+                Path modelResultPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "project_" + modelIndex);
+                JIPipeProgressInfo modelProgress = progressInfo.resolveAndLog("Project", modelIndex, exportedModelPaths.size());
+
+                for (int exportSourceIndex = 0; exportSourceIndex < exportSources.size(); exportSourceIndex++) {
+                    String exportSource = exportSources.get(exportSourceIndex);
+                    JIPipeProgressInfo exportSourceProgress = modelProgress.resolveAndLog(exportSource, exportSourceIndex, exportSources.size());
+                    List<String> args = new ArrayList<>();
+                    String axes = reversed(DEFAULT_STRING_AXES);
+                    args.add("--headless");
+                    args.add("--readonly");
+                    args.add("--project=" + modelPath);
+                    args.add("--output_format=hdf5");
+                    args.add("--export_source=" + exportSource);
+                    args.add("--output_filename_format=" + modelResultPath + "/{result_type}__{nickname}.tiff");
+                    args.add("--output_axis_order=" + axes);
+                    args.add("--input_axes=" + axes);
+                    for (Path exportedImagePath : exportedImagePaths) {
+                        args.add(exportedImagePath.toAbsolutePath().toString());
+                    }
 
-                // Run ilastik
-                IlastikEnvironment environment = getConfiguredIlastikEnvironment();
-                IlastikPlugin.runIlastik(environment,
-                        args,
-                        false, exportSourceProgress.resolve("Run Ilastik")
-                );
-
-                // Extract results
-                for (int imageIndex = 0; imageIndex < exportedImagePaths.size(); imageIndex++) {
-                    Path inputImagePath = exportedImagePaths.get(imageIndex);
-                    Path outputImagePath = modelResultPath.resolve(exportSource + "__" + FilenameUtils.removeExtension(inputImagePath.getFileName().toString()) + ".h5");
-                    exportSourceProgress.log("Extracting result: " + outputImagePath);
-
-                    ImagePlus imagePlus = IJ1Hdf5.readImage(outputImagePath, "exported_data", null, progressInfo);
-                    ImageJUtils.calibrate(imagePlus, ImageJCalibrationMode.MinMax, 0, 0);
-
-                    List<JIPipeTextAnnotation> textAnnotations = new ArrayList<>(imageInputSlot.getTextAnnotations(imageIndex));
-                    textAnnotations.addAll(projectInputSlot.getTextAnnotations(modelIndex));
-                    List<JIPipeDataAnnotation> dataAnnotations = new ArrayList<>(imageInputSlot.getDataAnnotations(imageIndex));
-                    dataAnnotations.addAll(projectInputSlot.getDataAnnotations(modelIndex));
-                    JIPipeDataContext newContext = JIPipeDataContext.create(this, exportedImageContexts.get(imageIndex), exportedModelContexts.get(modelIndex));
-
-                    getOutputSlot(exportSource).addData(new ImagePlusData(imagePlus),
-                            textAnnotations,
-                            JIPipeTextAnnotationMergeMode.Merge,
-                            dataAnnotations,
-                            JIPipeDataAnnotationMergeMode.Merge,
-                            newContext,
-                            exportSourceProgress);
+                    // Run ilastik
+                    IlastikEnvironment environment = getConfiguredIlastikEnvironment();
+                    IlastikPlugin.runIlastik(environment,
+                            args,
+                            false, exportSourceProgress.resolve("Run Ilastik")
+                    );
+
+                    // Extract results
+                    for (int imageIndex = 0; imageIndex < exportedImagePaths.size(); imageIndex++) {
+                        Path inputImagePath = exportedImagePaths.get(imageIndex);
+                        Path outputImagePath = modelResultPath.resolve(exportSource + "__" + FilenameUtils.removeExtension(inputImagePath.getFileName().toString()) + ".h5");
+                        exportSourceProgress.log("Extracting result: " + outputImagePath);
+
+                        ImagePlus imagePlus = IJ1Hdf5.readImage(outputImagePath, "exported_data", null, false, runContext.getThreadPool(), progressInfo);
+                        ImageJUtils.calibrate(imagePlus, ImageJCalibrationMode.MinMax, 0, 0);
+
+                        List<JIPipeTextAnnotation> textAnnotations = new ArrayList<>(imageInputSlot.getTextAnnotations(imageIndex));
+                        textAnnotations.addAll(projectInputSlot.getTextAnnotations(modelIndex));
+                        List<JIPipeDataAnnotation> dataAnnotations = new ArrayList<>(imageInputSlot.getDataAnnotations(imageIndex));
+                        dataAnnotations.addAll(projectInputSlot.getDataAnnotations(modelIndex));
+                        JIPipeDataContext newContext = JIPipeDataContext.create(this, exportedImageContexts.get(imageIndex), exportedModelContexts.get(modelIndex));
+
+                        getOutputSlot(exportSource).addData(new ImagePlusData(imagePlus),
+                                textAnnotations,
+                                JIPipeTextAnnotationMergeMode.Merge,
+                                dataAnnotations,
+                                JIPipeDataAnnotationMergeMode.Merge,
+                                newContext,
+                                exportSourceProgress);
+                    }
                 }
             }
-        }
-
-
-        // Cleanup
-        if (cleanUpAfterwards) {
-            PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+        } finally {
+            // Cleanup
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            }
         }
     }
 
@@ -137,169 +137,170 @@ public class IlastikPredictionMapsObjectClassificationAlgorithm extends JIPipeSi
 
     @Override
     protected void runIteration(JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        Path workDirectory = getNewScratch();
-        progressInfo.log("Work directory is " + workDirectory);
-
-        JIPipeInputDataSlot projectInputSlot = getInputSlot("Project");
-        JIPipeInputDataSlot imageInputSlot = getInputSlot("Image");
-
-        // Collect the parameters
-        List<String> exportSources = new ArrayList<>();
-        if (outputParameters.outputObjectPredictions)
-            exportSources.add("Object Predictions");
-        if (outputParameters.outputObjectProbabilities)
-            exportSources.add("Object Probabilities");
-        if (outputParameters.outputBlockwiseObjectPredictions)
-            exportSources.add("Blockwise Object Predictions");
-        if (outputParameters.outputBlockwiseObjectProbabilities)
-            exportSources.add("Blockwise Object Probabilities");
-        if (outputParameters.outputPixelProbabilities)
-            exportSources.add("Pixel Probabilities");
-
-        // If the user only requests features
-        if (outputParameters.outputFeatures && exportSources.isEmpty()) {
-            exportSources.add("Object Predictions");
-        }
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            progressInfo.log("Work directory is " + workDirectory);
+
+            JIPipeInputDataSlot projectInputSlot = getInputSlot("Project");
+            JIPipeInputDataSlot imageInputSlot = getInputSlot("Image");
+
+            // Collect the parameters
+            List<String> exportSources = new ArrayList<>();
+            if (outputParameters.outputObjectPredictions)
+                exportSources.add("Object Predictions");
+            if (outputParameters.outputObjectProbabilities)
+                exportSources.add("Object Probabilities");
+            if (outputParameters.outputBlockwiseObjectPredictions)
+                exportSources.add("Blockwise Object Predictions");
+            if (outputParameters.outputBlockwiseObjectProbabilities)
+                exportSources.add("Blockwise Object Probabilities");
+            if (outputParameters.outputPixelProbabilities)
+                exportSources.add("Pixel Probabilities");
+
+            // If the user only requests features
+            if (outputParameters.outputFeatures && exportSources.isEmpty()) {
+                exportSources.add("Object Predictions");
+            }
 
-        // Export the projects
-        List<Path> exportedModelPaths = new ArrayList<>();
-        List<JIPipeDataContext> exportedModelContexts = new ArrayList<>();
-        for (int i = 0; i < projectInputSlot.getRowCount(); i++) {
-            JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting project", i, projectInputSlot.getRowCount());
-            IlastikModelData project = projectInputSlot.getData(i, IlastikModelData.class, exportProgress);
-            Path exportedPath = project.exportOrGetLink(workDirectory.resolve("project_" + i + ".ilp"));
-
-            // Check the project
-            if (projectValidationMode != IlastikProjectValidationMode.Ignore) {
-                for (String projectType : PROJECT_TYPES) {
-                    exportProgress.log("Checking if " + exportedPath + " supports project type '" + projectType + "'");
-                    if (!IlastikUtils.projectSupports(exportedPath, projectType)) {
-                        if (projectValidationMode == IlastikProjectValidationMode.CrashOnError) {
-                            throw new JIPipeValidationRuntimeException(new GraphNodeValidationReportContext(this),
-                                    new IllegalArgumentException("Project does not support '" + projectType + "'"),
-                                    "Provided project is not supported by '" + getInfo().getName() + "'!",
-                                    "The node tried to load project (row " + i + ") with annotations " + JsonUtils.toJsonString(projectInputSlot.getTextAnnotations(i)) + ", but the project does not support " + projectType,
-                                    "Check if the inputs are correct or set the validation mode to 'Skip on error'.");
+            // Export the projects
+            List<Path> exportedModelPaths = new ArrayList<>();
+            List<JIPipeDataContext> exportedModelContexts = new ArrayList<>();
+            for (int i = 0; i < projectInputSlot.getRowCount(); i++) {
+                JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting project", i, projectInputSlot.getRowCount());
+                IlastikModelData project = projectInputSlot.getData(i, IlastikModelData.class, exportProgress);
+                Path exportedPath = project.exportOrGetLink(workDirectory.resolve("project_" + i + ".ilp"));
+
+                // Check the project
+                if (projectValidationMode != IlastikProjectValidationMode.Ignore) {
+                    for (String projectType : PROJECT_TYPES) {
+                        exportProgress.log("Checking if " + exportedPath + " supports project type '" + projectType + "'");
+                        if (!IlastikUtils.projectSupports(exportedPath, projectType)) {
+                            if (projectValidationMode == IlastikProjectValidationMode.CrashOnError) {
+                                throw new JIPipeValidationRuntimeException(new GraphNodeValidationReportContext(this),
+                                        new IllegalArgumentException("Project does not support '" + projectType + "'"),
+                                        "Provided project is not supported by '" + getInfo().getName() + "'!",
+                                        "The node tried to load project (row " + i + ") with annotations " + JsonUtils.toJsonString(projectInputSlot.getTextAnnotations(i)) + ", but the project does not support " + projectType,
+                                        "Check if the inputs are correct or set the validation mode to 'Skip on error'.");
+                            }
                         }
                     }
                 }
-            }
-
-            exportedModelPaths.add(exportedPath);
-            exportedModelContexts.add(projectInputSlot.getDataContext(i));
-        }
 
-        // Export images
-        List<Path> exportedImagePaths = new ArrayList<>();
-        List<Path> exportedSegmentationImagePaths = new ArrayList<>();
-        List<JIPipeDataContext> exportedImageContexts = new ArrayList<>();
-        for (int i = 0; i < imageInputSlot.getRowCount(); i++) {
-            {
-                JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting input image", i, imageInputSlot.getRowCount());
-                ImagePlusData imagePlusData = imageInputSlot.getData(i, ImagePlusData.class, exportProgress);
-                Path exportedPath = workDirectory.resolve("img_" + i + ".h5");
-                IJ1Hdf5.writeImage(imagePlusData.getImage(), exportedPath, "data", DEFAULT_AXES, progressInfo);
-
-                exportedImagePaths.add(exportedPath);
-                exportedImageContexts.add(imageInputSlot.getDataContext(i));
+                exportedModelPaths.add(exportedPath);
+                exportedModelContexts.add(projectInputSlot.getDataContext(i));
             }
-            {
-                JIPipeDataAnnotation dataAnnotation = predictionMapsDataAnnotation.queryFirst(imageInputSlot.getDataAnnotations(i));
-                JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting segmentation image", i, imageInputSlot.getRowCount());
-                ImagePlusData imagePlusData = dataAnnotation.getData(ImagePlusData.class, exportProgress);
-                Path exportedPath = workDirectory.resolve("seg_" + i + ".h5");
-                IJ1Hdf5.writeImage(imagePlusData.getImage(), exportedPath, "data", DEFAULT_AXES, progressInfo);
-                exportedSegmentationImagePaths.add(exportedPath);
+
+            // Export images
+            List<Path> exportedImagePaths = new ArrayList<>();
+            List<Path> exportedSegmentationImagePaths = new ArrayList<>();
+            List<JIPipeDataContext> exportedImageContexts = new ArrayList<>();
+            for (int i = 0; i < imageInputSlot.getRowCount(); i++) {
+                {
+                    JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting input image", i, imageInputSlot.getRowCount());
+                    ImagePlusData imagePlusData = imageInputSlot.getData(i, ImagePlusData.class, exportProgress);
+                    Path exportedPath = workDirectory.resolve("img_" + i + ".h5");
+                    IJ1Hdf5.writeImage(imagePlusData.getImage(), exportedPath, "data", DEFAULT_AXES, progressInfo);
+
+                    exportedImagePaths.add(exportedPath);
+                    exportedImageContexts.add(imageInputSlot.getDataContext(i));
+                }
+                {
+                    JIPipeDataAnnotation dataAnnotation = predictionMapsDataAnnotation.queryFirst(imageInputSlot.getDataAnnotations(i));
+                    JIPipeProgressInfo exportProgress = progressInfo.resolveAndLog("Exporting segmentation image", i, imageInputSlot.getRowCount());
+                    ImagePlusData imagePlusData = dataAnnotation.getData(ImagePlusData.class, exportProgress);
+                    Path exportedPath = workDirectory.resolve("seg_" + i + ".h5");
+                    IJ1Hdf5.writeImage(imagePlusData.getImage(), exportedPath, "data", DEFAULT_AXES, progressInfo);
+                    exportedSegmentationImagePaths.add(exportedPath);
+                }
             }
-        }
 
 
-        // Run analysis
-        for (int modelIndex = 0; modelIndex < exportedModelPaths.size(); modelIndex++) {
-            Path modelPath = exportedModelPaths.get(modelIndex);
-            Path modelResultPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "project_" + modelIndex);
-            JIPipeProgressInfo modelProgress = progressInfo.resolveAndLog("Project", modelIndex, exportedModelPaths.size());
-
-            for (int exportedSourceIndex = 0; exportedSourceIndex < exportSources.size(); exportedSourceIndex++) {
-                String exportSource = exportSources.get(exportedSourceIndex);
-                JIPipeProgressInfo exportSourceProgress = modelProgress.resolveAndLog(exportSource, exportedSourceIndex, exportSources.size());
-
-                // Extract results
-                for (int imageIndex = 0; imageIndex < exportedImagePaths.size(); imageIndex++) {
-
-                    JIPipeProgressInfo imageProgress = exportSourceProgress.resolveAndLog("Image", imageIndex, exportedImagePaths.size());
-
-                    Path inputImagePath = exportedImagePaths.get(imageIndex);
-                    Path segmentedImagePath = exportedSegmentationImagePaths.get(imageIndex);
-
-                    List<String> args = new ArrayList<>();
-                    String axes = reversed(DEFAULT_STRING_AXES);
-                    args.add("--headless");
-                    args.add("--readonly");
-                    args.add("--project=" + modelPath);
-                    args.add("--output_format=hdf5");
-                    args.add("--export_source=" + exportSource);
-                    args.add("--output_filename_format=" + modelResultPath + "/{result_type}__{nickname}.tiff");
-                    args.add("--output_axis_order=" + axes);
-                    args.add("--input_axes=" + axes);
-                    if (modelIndex == 0 && outputParameters.outputFeatures) {
-                        // Special handling for the features table
-                        args.add("--table_filename=" + modelResultPath + "/features__{nickname}.csv");
-                    }
-                    args.add("--raw_data=" + inputImagePath);
-                    args.add("--segmentation_image=" + segmentedImagePath);
-
-                    // Run ilastik
-                    IlastikPlugin.runIlastik(getConfiguredIlastikEnvironment(),
-                            args,
-                            false, imageProgress.resolve("Run Ilastik")
-                    );
-
-
-                    List<JIPipeTextAnnotation> textAnnotations = new ArrayList<>(imageInputSlot.getTextAnnotations(imageIndex));
-                    textAnnotations.addAll(projectInputSlot.getTextAnnotations(modelIndex));
-                    List<JIPipeDataAnnotation> dataAnnotations = new ArrayList<>(imageInputSlot.getDataAnnotations(imageIndex));
-                    dataAnnotations.addAll(projectInputSlot.getDataAnnotations(modelIndex));
-                    JIPipeDataContext newContext = JIPipeDataContext.create(this, exportedModelContexts.get(modelIndex), exportedImageContexts.get(imageIndex));
-
-                    JIPipeDataSlot outputImageSlot = getOutputSlot(exportSource);
-                    if (outputImageSlot != null) {
-                        Path outputImagePath = modelResultPath.resolve(exportSource + "__" + FilenameUtils.removeExtension(inputImagePath.getFileName().toString()) + ".h5");
-                        imageProgress.log("Extracting result: " + outputImagePath);
-
-                        ImagePlus imagePlus = IJ1Hdf5.readImage(outputImagePath, "exported_data", null, progressInfo);
-                        ImageJUtils.calibrate(imagePlus, ImageJCalibrationMode.MinMax, 0, 0);
-
-                        outputImageSlot.addData(new ImagePlusData(imagePlus),
-                                textAnnotations,
-                                JIPipeTextAnnotationMergeMode.Merge,
-                                dataAnnotations,
-                                JIPipeDataAnnotationMergeMode.Merge,
-                                newContext,
-                                imageProgress);
-                    }
+            // Run analysis
+            for (int modelIndex = 0; modelIndex < exportedModelPaths.size(); modelIndex++) {
+                Path modelPath = exportedModelPaths.get(modelIndex);
+                Path modelResultPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "project_" + modelIndex);
+                JIPipeProgressInfo modelProgress = progressInfo.resolveAndLog("Project", modelIndex, exportedModelPaths.size());
+
+                for (int exportedSourceIndex = 0; exportedSourceIndex < exportSources.size(); exportedSourceIndex++) {
+                    String exportSource = exportSources.get(exportedSourceIndex);
+                    JIPipeProgressInfo exportSourceProgress = modelProgress.resolveAndLog(exportSource, exportedSourceIndex, exportSources.size());
+
+                    // Extract results
+                    for (int imageIndex = 0; imageIndex < exportedImagePaths.size(); imageIndex++) {
+
+                        JIPipeProgressInfo imageProgress = exportSourceProgress.resolveAndLog("Image", imageIndex, exportedImagePaths.size());
+
+                        Path inputImagePath = exportedImagePaths.get(imageIndex);
+                        Path segmentedImagePath = exportedSegmentationImagePaths.get(imageIndex);
+
+                        List<String> args = new ArrayList<>();
+                        String axes = reversed(DEFAULT_STRING_AXES);
+                        args.add("--headless");
+                        args.add("--readonly");
+                        args.add("--project=" + modelPath);
+                        args.add("--output_format=hdf5");
+                        args.add("--export_source=" + exportSource);
+                        args.add("--output_filename_format=" + modelResultPath + "/{result_type}__{nickname}.tiff");
+                        args.add("--output_axis_order=" + axes);
+                        args.add("--input_axes=" + axes);
+                        if (modelIndex == 0 && outputParameters.outputFeatures) {
+                            // Special handling for the features table
+                            args.add("--table_filename=" + modelResultPath + "/features__{nickname}.csv");
+                        }
+                        args.add("--raw_data=" + inputImagePath);
+                        args.add("--segmentation_image=" + segmentedImagePath);
+
+                        // Run ilastik
+                        IlastikPlugin.runIlastik(getConfiguredIlastikEnvironment(),
+                                args,
+                                false, imageProgress.resolve("Run Ilastik")
+                        );
+
+
+                        List<JIPipeTextAnnotation> textAnnotations = new ArrayList<>(imageInputSlot.getTextAnnotations(imageIndex));
+                        textAnnotations.addAll(projectInputSlot.getTextAnnotations(modelIndex));
+                        List<JIPipeDataAnnotation> dataAnnotations = new ArrayList<>(imageInputSlot.getDataAnnotations(imageIndex));
+                        dataAnnotations.addAll(projectInputSlot.getDataAnnotations(modelIndex));
+                        JIPipeDataContext newContext = JIPipeDataContext.create(this, exportedModelContexts.get(modelIndex), exportedImageContexts.get(imageIndex));
+
+                        JIPipeDataSlot outputImageSlot = getOutputSlot(exportSource);
+                        if (outputImageSlot != null) {
+                            Path outputImagePath = modelResultPath.resolve(exportSource + "__" + FilenameUtils.removeExtension(inputImagePath.getFileName().toString()) + ".h5");
+                            imageProgress.log("Extracting result: " + outputImagePath);
+
+                            ImagePlus imagePlus = IJ1Hdf5.readImage(outputImagePath, "exported_data", null, false, runContext.getThreadPool(), progressInfo);
+                            ImageJUtils.calibrate(imagePlus, ImageJCalibrationMode.MinMax, 0, 0);
+
+                            outputImageSlot.addData(new ImagePlusData(imagePlus),
+                                    textAnnotations,
+                                    JIPipeTextAnnotationMergeMode.Merge,
+                                    dataAnnotations,
+                                    JIPipeDataAnnotationMergeMode.Merge,
+                                    newContext,
+                                    imageProgress);
+                        }
 
-                    // Extract features
-                    if (modelIndex == 0 && outputParameters.outputFeatures) {
-                        Path tablePath = modelResultPath.resolve("features__" + inputImagePath.getFileName().toString() + ".csv");
-                        imageProgress.log("Extracting result: " + tablePath);
-                        ResultsTableData tableData = ResultsTableData.fromCSV(tablePath);
-                        getOutputSlot(OUTPUT_SLOT_FEATURES.getName()).addData(tableData,
-                                textAnnotations,
-                                JIPipeTextAnnotationMergeMode.Merge,
-                                dataAnnotations,
-                                JIPipeDataAnnotationMergeMode.Merge,
-                                newContext,
-                                imageProgress);
+                        // Extract features
+                        if (modelIndex == 0 && outputParameters.outputFeatures) {
+                            Path tablePath = modelResultPath.resolve("features__" + inputImagePath.getFileName().toString() + ".csv");
+                            imageProgress.log("Extracting result: " + tablePath);
+                            ResultsTableData tableData = ResultsTableData.fromCSV(tablePath);
+                            getOutputSlot(OUTPUT_SLOT_FEATURES.getName()).addData(tableData,
+                                    textAnnotations,
+                                    JIPipeTextAnnotationMergeMode.Merge,
+                                    dataAnnotations,
+                                    JIPipeDataAnnotationMergeMode.Merge,
+                                    newContext,
+                                    imageProgress);
+                        }
                     }
                 }
             }
-        }
-
-
-        // Cleanup
-        if (cleanUpAfterwards) {
-            PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+        } finally {
+            // Cleanup
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            }
         }
     }
 
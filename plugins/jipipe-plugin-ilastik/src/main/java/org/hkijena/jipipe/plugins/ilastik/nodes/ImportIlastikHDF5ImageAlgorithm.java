@@ -51,6 +51,7 @@ public class ImportIlastikHDF5ImageAlgorithm extends JIPipeSimpleIteratingAlgori
     private final CalibrationParameters calibrationParameters;
     private JIPipeExpressionParameter hdf5Path = new JIPipeExpressionParameter("\"exported_data\"");
     private OptionalStringParameter overrideAxes = new OptionalStringParameter(ImgUtils.toStringAxes(DEFAULT_AXES), false);
+    private boolean lazyLoading = false;
 
     public ImportIlastikHDF5ImageAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -63,6 +64,7 @@ public class ImportIlastikHDF5ImageAlgorithm extends JIPipeSimpleIteratingAlgori
         this.hdf5Path = new JIPipeExpressionParameter(other.hdf5Path);
         this.calibrationParameters = new CalibrationParameters(other.calibrationParameters);
         this.overrideAxes = new OptionalStringParameter(other.overrideAxes);
+        this.lazyLoading = other.lazyLoading;
         registerSubParameter(calibrationParameters);
     }
 
@@ -72,7 +74,8 @@ public class ImportIlastikHDF5ImageAlgorithm extends JIPipeSimpleIteratingAlgori
         JIPipeExpressionVariablesMap variables = new JIPipeExpressionVariablesMap(iterationStep);
         String hdf5Path_ = hdf5Path.evaluateToString(variables);
 
-        ImagePlus imagePlus = IJ1Hdf5.readImage(path, hdf5Path_, overrideAxes.isEnabled() ? ImgUtils.toImagejAxes(overrideAxes.getContent()) : null, progressInfo);
+        ImagePlus imagePlus = IJ1Hdf5.readImage(path, hdf5Path_, overrideAxes.isEnabled() ? ImgUtils.toImagejAxes(overrideAxes.getContent()) : null,
+                lazyLoading, runContext.getThreadPool(), progressInfo);
         ImageJUtils.calibrate(imagePlus, calibrationParameters.getCalibrationMode(), calibrationParameters.getCustomMin(), calibrationParameters.getCustomMax());
 
         iterationStep.addOutputData(getFirstOutputSlot(), new ImagePlusGreyscaleData(imagePlus), progressInfo);
@@ -92,6 +95,18 @@ public class ImportIlastikHDF5ImageAlgorithm extends JIPipeSimpleIteratingAlgori
         this.overrideAxes = overrideAxes;
     }
 
+    @SetJIPipeDocumentation(name = "Lazy loading", description = "If enabled, image planes are only read from the HDF5 file if they are accessed. " +
+            "This reduces the memory consumption for large datasets (e.g., probability maps with many channels), but requires that the file is not moved or deleted.")
+    @JIPipeParameter("lazy-loading")
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    @JIPipeParameter("lazy-loading")
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
     @SetJIPipeDocumentation(name = "HDF5 internal path", description = "Path to the HDF5 data set to import")
     @JIPipeParameter(value = "hdf5-path", important = true)
     @AddJIPipeExpressionParameterVariable(fromClass = JIPipeTextAnnotationsExpressionParameterVariablesInfo.class)
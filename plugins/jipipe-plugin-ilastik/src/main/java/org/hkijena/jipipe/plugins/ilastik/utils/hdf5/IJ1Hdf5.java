@@ -15,18 +15,27 @@ package org.hkijena.jipipe.plugins.ilastik.utils.hdf5;
 
 import ch.systemsx.cisd.base.mdarray.MDByteArray;
 import ch.systemsx.cisd.base.mdarray.MDFloatArray;
+import ch.systemsx.cisd.base.mdarray.MDShortArray;
 import ch.systemsx.cisd.hdf5.*;
 import ij.IJ;
 import ij.ImagePlus;
+import ij.VirtualStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
 import net.imagej.axis.Axes;
 import net.imagej.axis.AxisType;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.plugins.ilastik.utils.ImgUtils;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJUtils;
 
+import java.awt.image.ColorModel;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.hkijena.jipipe.plugins.ilastik.utils.ImgUtils.reversed;
@@ -64,17 +73,32 @@ public final class IJ1Hdf5 {
         return result;
     }
 
+    /**
+     * {@link #readImage(Path, String, List, boolean, JIPipeFixedThreadPool, JIPipeProgressInfo)} that reads the whole image with one thread
+     */
+    public static ImagePlus readImage(
+            Path file, String path, List<AxisType> axes, JIPipeProgressInfo progressInfo) {
+        return readImage(file, path, axes, false, null, progressInfo);
+    }
+
     /**
      * Read HDF5 dataset contents.
      * <p>
      * Only 2D-5D datasets with types enumerated in {@link DatasetType} are supported.
      * <p>
-     * If not null, callback will be invoked between block writes (N + 1 invocations for N blocks).
-     * The callback accepts the total number of bytes written so far.
-     * This is useful for progress reporting.
+     * The dataset is read plane-wise. If possible, all channels of a Z/T position are read with one block access,
+     * which avoids decompressing the same chunks for each channel (e.g., for probability maps with interleaved channels).
+     *
+     * @param file         the HDF5 file
+     * @param path         the dataset path
+     * @param axes         the axes (missing axes are added)
+     * @param lazy         if true, planes are only read if they are accessed (the file must stay available)
+     * @param threadPool   the thread pool for converting the blocks into planes (non-lazy only; can be null for sequential processing). HDF5 access itself is serialized.
+     * @param progressInfo the progress info
+     * @return the image
      */
     public static ImagePlus readImage(
-            Path file, String path, List<AxisType> axes, JIPipeProgressInfo progressInfo) {
+            Path file, String path, List<AxisType> axes, boolean lazy, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
 
         Objects.requireNonNull(file);
         Objects.requireNonNull(path);
@@ -92,7 +116,7 @@ public final class IJ1Hdf5 {
                 .toString()
                 .replace('\\', '/');
 
-        progressInfo.log("Reading HDF5 " + name + " with axes " + formatAxes(axes));
+        progressInfo.log("Reading HDF5 " + name + " with axes " + formatAxes(axes) + (lazy ? " (lazy)" : ""));
 
         try (IHDF5Reader reader = HDF5Factory.openForReading(file.toFile())) {
             HDF5DataSetInformation info = reader.getDataSetInformation(path);
@@ -106,59 +130,59 @@ public final class IJ1Hdf5 {
             HDF5DataTypeInformation typeInfo = info.getTypeInformation();
             DatasetType type = DatasetType.ofHdf5(typeInfo).orElseThrow(() ->
                     new IllegalArgumentException("Unsupported dataset type " + typeInfo));
-            ImagePlus result = createImagePlus(name, axes, dims, type);
-
-//            int[] blockDims = inputBlockDims(dims,
-//                    info.tryGetChunkSizes() != null ? reversed(info.tryGetChunkSizes()) : null);
-//
-//            try (HDF5DataSet dataset = reader.object().openDataSet(path)) {
-//                callback.accept(0L);
-//                if (IntStream.range(0, dims.length).allMatch(i -> dims[i] == blockDims[i])) {
-//                    img = readArrayImg(type, reader, dataset, dims);
-//                    callback.accept(Arrays.stream(dims).reduce(type.size, (l, r) -> l * r));
-//                } else {
-//                    img = readCellImg(type, reader, dataset, dims, blockDims, callback);
-//                }
-//            }
-
-            Map<AxisType, Integer> axisIndices = getAxisIndices(axes, dims);
-            int[] blockDimensions = new int[dims.length];
-            Arrays.fill(blockDimensions, 1);
-            blockDimensions[dims.length - 1 - axisIndices.get(Axes.X)] = result.getWidth();
-            blockDimensions[dims.length - 1 - axisIndices.get(Axes.Y)] = result.getHeight();
+            PlaneLayout layout = new PlaneLayout(axes, dims, datasetTypeToBitDepth(type), true);
 
-            long[] offsets = new long[dims.length];
-            boolean invertXY = axisIndices.get(Axes.X) < axisIndices.get(Axes.Y);
+            if (lazy) {
+                ImagePlus result = new ImagePlus(name, new LazyStack(file, path, layout));
+                result.setDimensions(layout.channels, layout.depth, layout.frames);
+                return result;
+            }
 
+            ImagePlus result = createImagePlus(name, axes, dims, type);
             try (HDF5DataSet dataset = reader.object().openDataSet(path)) {
-                for (int t = 0; t < result.getNFrames(); t++) {
-                    if (axisIndices.containsKey(Axes.TIME)) {
-                        offsets[dims.length - 1 - axisIndices.get(Axes.TIME)] = t;
-                    }
-                    for (int z = 0; z < result.getNSlices(); z++) {
-                        if (axisIndices.containsKey(Axes.Z)) {
-                            offsets[dims.length - 1 - axisIndices.get(Axes.Z)] = z;
-                        }
-                        for (int c = 0; c < result.getNChannels(); c++) {
-                            if (axisIndices.containsKey(Axes.CHANNEL)) {
-                                offsets[dims.length - 1 - axisIndices.get(Axes.CHANNEL)] = c;
-                            }
-                            MDFloatArray arrayEntries = reader.float32().readMDArrayBlockWithOffset(dataset, blockDimensions, offsets);
-                            float[] src = arrayEntries.getAsFlatArray();
-                            ImageProcessor target = ImageJUtils.getSliceZero(result, c, z, t);
-
-                            if (!invertXY) {
-                                for (int i = 0; i < src.length; i++) {
-                                    int x = i % target.getHeight(); // Swapped!
-                                    int y = i / target.getHeight(); // Swapped!
-                                    target.setf(x, y, src[i]);
+                // Blocks scheduled from one of the pool's own threads would be converted sequentially anyway
+                if (threadPool == null || threadPool.getMaxThreads() <= 1 || threadPool.isWorkerThread()) {
+                    for (int t = 0; t < layout.frames; t++) {
+                        for (int z = 0; z < layout.depth; z++) {
+                            for (int c = 0; c < layout.channels; c += layout.channelsPerBlock) {
+                                float[] src = layout.readBlock(reader, dataset, c, z, t);
+                                for (int c2 = c; c2 < c + layout.channelsPerBlock; c2++) {
+                                    layout.copyToPlane(src, c2 - c, ImageJUtils.getSliceZero(result, c2, z, t));
                                 }
-                            } else {
-                                for (int i = 0; i < target.getPixelCount(); i++) {
-                                    target.setf(i, src[i]);
+                            }
+                        }
+                    }
+                } else {
+                    // Reading is serialized by the HDF5 library, so the conversion into planes is done in parallel while the next block is read
+                    Deque<Future<Exception>> pending = new ArrayDeque<>();
+                    try {
+                        for (int t = 0; t < layout.frames; t++) {
+                            for (int z = 0; z < layout.depth; z++) {
+                                for (int c = 0; c < layout.channels; c += layout.channelsPerBlock) {
+                                    if (progressInfo.isCancelled()) {
+                                        return null;
+                                    }
+                                    float[] src = layout.readBlock(reader, dataset, c, z, t);
+                                    for (int c2 = c; c2 < c + layout.channelsPerBlock; c2++) {
+                                        int channelInBlock = c2 - c;
+                                        ImageProcessor target = ImageJUtils.getSliceZero(result, c2, z, t);
+                                        pending.add(threadPool.schedule(() -> layout.copyToPlane(src, channelInBlock, target)));
+                                    }
+                                    // Limit the number of blocks in memory
+                                    while (pending.size() > 2 * threadPool.getMaxThreads()) {
+                                        waitFor(pending.removeFirst());
+                                    }
                                 }
                             }
                         }
+                        while (!pending.isEmpty()) {
+                            waitFor(pending.removeFirst());
+                        }
+                    } finally {
+                        // Do not leave conversions running in the background (e.g., if the run was cancelled)
+                        for (Future<Exception> future : pending) {
+                            future.cancel(true);
+                        }
                     }
                 }
             }
@@ -167,6 +191,17 @@ public final class IJ1Hdf5 {
         }
     }
 
+    private static void waitFor(Future<Exception> future) {
+        try {
+            Exception exception = future.get();
+            if (exception != null) {
+                throw new RuntimeException(exception);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private static String formatAxes(List<AxisType> axes) {
         return axes.stream().map(at -> at.getLabel().substring(0, 1)).collect(Collectors.joining(""));
     }
@@ -205,10 +240,6 @@ public final class IJ1Hdf5 {
 
         // Map dimensions dynamically according to the axis order
         long[] dimensions = new long[dims];
-        int[] blockDimensions = new int[dims];
-        long[] offsets = new long[dims];
-        Arrays.fill(blockDimensions, 1);
-
         if (axes.contains(Axes.TIME)) {
             dimensions[dims - 1 - axes.indexOf(Axes.TIME)] = timePoints;
         }
@@ -217,53 +248,70 @@ public final class IJ1Hdf5 {
         }
         if (axes.contains(Axes.X)) {
             dimensions[dims - 1 - axes.indexOf(Axes.X)] = width;
-            blockDimensions[dims - 1 - axes.indexOf(Axes.X)] = width;
         }
         if (axes.contains(Axes.Y)) {
             dimensions[dims - 1 - axes.indexOf(Axes.Y)] = height;
-            blockDimensions[dims - 1 - axes.indexOf(Axes.Y)] = height;
         }
         if (axes.contains(Axes.Z)) {
             dimensions[dims - 1 - axes.indexOf(Axes.Z)] = depth;
         }
-        boolean invertXY = axes.indexOf(Axes.X) < axes.indexOf(Axes.Y);
+
+        // Each plane is one chunk, so planes can be written (and read) independently
+        PlaneLayout layout = new PlaneLayout(axes, reversed(dimensions), image.getBitDepth(), false);
+        int[] blockDimensions = layout.blockDimensions;
 
         try (IHDF5Writer writer = HDF5Factory.open(file.toFile())) {
+            HDF5DataSet dataSet;
             if (image.getBitDepth() == 8) {
                 HDF5IntStorageFeatures features = HDF5IntStorageFeatures.build().compress().unsigned().features();
-                try (HDF5DataSet dataSet = writer.uint8().createMDArrayAndOpen(path, dimensions, blockDimensions, features)) {
-                    for (int t = 0; t < timePoints; t++) {
-                        if (axes.contains(Axes.TIME)) {
-                            offsets[dims - 1 - axes.indexOf(Axes.TIME)] = t;
-                        }
-                        for (int z = 0; z < depth; z++) {
-                            if (axes.contains(Axes.Z)) {
-                                offsets[dims - 1 - axes.indexOf(Axes.Z)] = z;
-                            }
-                            for (int c = 0; c < channels; c++) {
-                                if (axes.contains(Axes.CHANNEL)) {
-                                    offsets[dims - 1 - axes.indexOf(Axes.CHANNEL)] = c;
-                                }
-
-                                byte[] src = (byte[]) ImageJUtils.getSliceZero(image, c, z, t).getPixels();
-                                byte[] target;
-                                if (!invertXY) {
-                                    target = new byte[src.length];
-                                    for (int i = 0; i < src.length; i++) {
-                                        int x = i % height; // Swapped!
-                                        int y = i / height; // Swapped!
-                                        target[x + y * width] = src[i];
+                dataSet = writer.uint8().createMDArrayAndOpen(path, dimensions, blockDimensions, features);
+            } else if (image.getBitDepth() == 16) {
+                HDF5IntStorageFeatures features = HDF5IntStorageFeatures.build().compress().unsigned().features();
+                dataSet = writer.uint16().createMDArrayAndOpen(path, dimensions, blockDimensions, features);
+            } else if (image.getBitDepth() == 32) {
+                dataSet = writer.float32().createMDArrayAndOpen(path, dimensions, blockDimensions, HDF5FloatStorageFeatures.FLOAT_DEFLATE);
+            } else {
+                throw new IllegalArgumentException("Unsupported bitdepth " + image.getBitDepth());
+            }
+            try {
+                for (int t = 0; t < timePoints; t++) {
+                    for (int z = 0; z < depth; z++) {
+                        for (int c = 0; c < channels; c++) {
+                            long[] offsets = layout.getOffsets(c, z, t);
+                            ImageProcessor source = ImageJUtils.getSliceZero(image, c, z, t);
+                            if (image.getBitDepth() == 8) {
+                                byte[] src = (byte[]) source.getPixels();
+                                byte[] target = new byte[src.length];
+                                for (int y = 0; y < height; y++) {
+                                    for (int x = 0; x < width; x++) {
+                                        target[x * layout.strideX + y * layout.strideY] = src[x + y * width];
                                     }
-                                } else {
-                                    target = src;
                                 }
                                 writer.uint8().writeMDArrayBlockWithOffset(dataSet, new MDByteArray(target, blockDimensions), offsets);
+                            } else if (image.getBitDepth() == 16) {
+                                short[] src = (short[]) source.getPixels();
+                                short[] target = new short[src.length];
+                                for (int y = 0; y < height; y++) {
+                                    for (int x = 0; x < width; x++) {
+                                        target[x * layout.strideX + y * layout.strideY] = src[x + y * width];
+                                    }
+                                }
+                                writer.uint16().writeMDArrayBlockWithOffset(dataSet, new MDShortArray(target, blockDimensions), offsets);
+                            } else {
+                                float[] src = (float[]) source.getPixels();
+                                float[] target = new float[src.length];
+                                for (int y = 0; y < height; y++) {
+                                    for (int x = 0; x < width; x++) {
+                                        target[x * layout.strideX + y * layout.strideY] = src[x + y * width];
+                                    }
+                                }
+                                writer.float32().writeMDArrayBlockWithOffset(dataSet, new MDFloatArray(target, blockDimensions), offsets);
                             }
                         }
                     }
                 }
-            } else {
-                throw new IllegalArgumentException("Unsupported bitdepth " + image.getBitDepth());
+            } finally {
+                dataSet.close();
             }
         }
     }
@@ -351,4 +399,181 @@ public final class IJ1Hdf5 {
             progressInfo.log("Original axis configuration was \"" + originalAxes + "\" and was changed to " + formatAxes(axes) + " to fit " + image + " dimensions");
         }
     }
+
+    /**
+     * Maps between ImageJ planes and blocks of an HDF5 dataset.
+     * A block contains one complete XY plane and optionally all channels.
+     */
+    private static class PlaneLayout {
+        /**
+         * Maximum size of a block that contains multiple channels
+         */
+        private static final long MAX_MULTI_CHANNEL_BLOCK_BYTES = 256L * 1024 * 1024;
+
+        private final int numDimensions;
+        private final int width;
+        private final int height;
+        private final int channels;
+        private final int depth;
+        private final int frames;
+        private final int bitDepth;
+        private final int indexC;
+        private final int indexZ;
+        private final int indexT;
+        private final int channelsPerBlock;
+        private final int[] blockDimensions;
+        private final int strideX;
+        private final int strideY;
+        private final int strideC;
+
+        /**
+         * @param axes          the axes
+         * @param dims          the dimensions (in axis order; reversed HDF5 order)
+         * @param bitDepth      the bit depth of the ImageJ image
+         * @param groupChannels if blocks should contain all channels (if the size allows it)
+         */
+        private PlaneLayout(List<AxisType> axes, long[] dims, int bitDepth, boolean groupChannels) {
+            Map<AxisType, Integer> axisSizes = getAxisSizes(axes, dims);
+            Map<AxisType, Integer> axisIndices = getAxisIndices(axes, dims);
+            this.numDimensions = dims.length;
+            this.width = axisSizes.getOrDefault(Axes.X, 1);
+            this.height = axisSizes.getOrDefault(Axes.Y, 1);
+            this.channels = axisSizes.getOrDefault(Axes.CHANNEL, 1);
+            this.depth = axisSizes.getOrDefault(Axes.Z, 1);
+            this.frames = axisSizes.getOrDefault(Axes.TIME, 1);
+            this.bitDepth = bitDepth;
+            this.indexC = axisIndices.getOrDefault(Axes.CHANNEL, -1);
+            this.indexZ = axisIndices.getOrDefault(Axes.Z, -1);
+            this.indexT = axisIndices.getOrDefault(Axes.TIME, -1);
+            if (groupChannels && channels > 1 && 4L * width * height * channels <= MAX_MULTI_CHANNEL_BLOCK_BYTES) {
+                this.channelsPerBlock = channels;
+            } else {
+                this.channelsPerBlock = 1;
+            }
+
+            // Block sizes in axis order (the first axis is the fastest-varying)
+            int[] blockSizes = new int[numDimensions];
+            Arrays.fill(blockSizes, 1);
+            int indexX = axisIndices.get(Axes.X);
+            int indexY = axisIndices.get(Axes.Y);
+            blockSizes[indexX] = width;
+            blockSizes[indexY] = height;
+            if (indexC >= 0) {
+                blockSizes[indexC] = channelsPerBlock;
+            }
+            this.blockDimensions = new int[numDimensions];
+            int[] strides = new int[numDimensions];
+            int stride = 1;
+            for (int i = 0; i < numDimensions; i++) {
+                blockDimensions[numDimensions - 1 - i] = blockSizes[i];
+                strides[i] = stride;
+                stride *= blockSizes[i];
+            }
+            this.strideX = strides[indexX];
+            this.strideY = strides[indexY];
+            this.strideC = indexC >= 0 ? strides[indexC] : 0;
+        }
+
+        private long[] getOffsets(int c, int z, int t) {
+            long[] offsets = new long[numDimensions];
+            if (indexC >= 0) {
+                offsets[numDimensions - 1 - indexC] = c;
+            }
+            if (indexZ >= 0) {
+                offsets[numDimensions - 1 - indexZ] = z;
+            }
+            if (indexT >= 0) {
+                offsets[numDimensions - 1 - indexT] = t;
+            }
+            return offsets;
+        }
+
+        /**
+         * Reads the block that contains the given plane. The channel must be the first channel of the block.
+         */
+        private float[] readBlock(IHDF5Reader reader, HDF5DataSet dataset, int c, int z, int t) {
+            return reader.float32().readMDArrayBlockWithOffset(dataset, blockDimensions, getOffsets(c, z, t)).getAsFlatArray();
+        }
+
+        private void copyToPlane(float[] block, int channelInBlock, ImageProcessor target) {
+            int offset = channelInBlock * strideC;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    target.setf(x + y * width, block[offset + x * strideX + y * strideY]);
+                }
+            }
+        }
+
+        private ImageProcessor createProcessor() {
+            switch (bitDepth) {
+                case 8:
+                    return new ByteProcessor(width, height);
+                case 16:
+                    return new ShortProcessor(width, height);
+                default:
+                    return new FloatProcessor(width, height);
+            }
+        }
+    }
+
+    /**
+     * Virtual stack that reads planes from an HDF5 dataset on demand.
+     * The most recently read blocks (containing one or all channels of a plane) are cached.
+     */
+    private static class LazyStack extends VirtualStack {
+        private static final int CACHE_SIZE = 2;
+        private final Path file;
+        private final String datasetPath;
+        private final PlaneLayout layout;
+        private final Map<Integer, float[]> cache = new LinkedHashMap<Integer, float[]>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        private LazyStack(Path file, String datasetPath, PlaneLayout layout) {
+            super(layout.width, layout.height, (ColorModel) null, null);
+            this.file = file;
+            this.datasetPath = datasetPath;
+            this.layout = layout;
+            setBitDepth(layout.bitDepth);
+        }
+
+        @Override
+        public synchronized ImageProcessor getProcessor(int n) {
+            int index = n - 1;
+            int c = index % layout.channels;
+            int z = (index / layout.channels) % layout.depth;
+            int t = index / (layout.channels * layout.depth);
+            int firstChannel = (c / layout.channelsPerBlock) * layout.channelsPerBlock;
+            int blockKey = (t * layout.depth + z) * layout.channels + firstChannel;
+            float[] block = cache.get(blockKey);
+            if (block == null) {
+                try (IHDF5Reader reader = HDF5Factory.openForReading(file.toFile());
+                     HDF5DataSet dataset = reader.object().openDataSet(datasetPath)) {
+                    block = layout.readBlock(reader, dataset, firstChannel, z, t);
+                }
+                cache.put(blockKey, block);
+            }
+            ImageProcessor processor = layout.createProcessor();
+            layout.copyToPlane(block, c - firstChannel, processor);
+            return processor;
+        }
+
+        @Override
+        public int getSize() {
+            return layout.channels * layout.depth * layout.frames;
+        }
+
+        @Override
+        public String getSliceLabel(int n) {
+            return null;
+        }
+
+        @Override
+        public void deleteSlice(int n) {
+            throw new UnsupportedOperationException("Lazy HDF5 stacks cannot be modified");
+        }
+    }
 }
@@ -19,6 +19,7 @@ import ij.ImagePlus;
 import ij.ImageStack;
 import ij.gui.Roi;
 import ij.process.ImageProcessor;
+import org.apache.commons.lang3.StringUtils;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
@@ -45,9 +46,11 @@ import org.hkijena.jipipe.api.validation.contexts.GraphNodeValidationReportConte
 import org.hkijena.jipipe.plugins.cellpose.CellposePlugin;
 import org.hkijena.jipipe.plugins.cellpose.datatypes.CellposeModelData;
 import org.hkijena.jipipe.plugins.cellpose.datatypes.CellposeSizeModelData;
+import org.hkijena.jipipe.plugins.cellpose.parameters.CellposeBatchingSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp2.Cellpose2ChannelSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp2.Cellpose2GPUSettings;
 import org.hkijena.jipipe.plugins.cellpose.parameters.cp2.Cellpose2SegmentationOutputSettings;
+import org.hkijena.jipipe.plugins.cellpose.utils.CellposeBatchItem;
 import org.hkijena.jipipe.plugins.cellpose.utils.CellposeUtils;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ImagePlusData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.OMEImageData;
@@ -55,6 +58,7 @@ import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.ROI2DListData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.greyscale.ImagePlusGreyscale32FData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.greyscale.ImagePlusGreyscaleData;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJIterationUtils;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJRawExchangeUtils;
 import org.hkijena.jipipe.plugins.imagejdatatypes.util.dimensions.ImageSliceIndex;
 import org.hkijena.jipipe.plugins.omnipose.OmniposeEnvironmentAccessNode;
 import org.hkijena.jipipe.plugins.omnipose.OmniposePlugin;
@@ -64,6 +68,7 @@ import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.Optiona
 import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalTextAnnotationNameParameter;
 import org.hkijena.jipipe.plugins.python.OptionalPythonEnvironment;
 import org.hkijena.jipipe.plugins.python.PythonUtils;
+import org.hkijena.jipipe.plugins.settings.JIPipeRuntimeApplicationSettings;
 import org.hkijena.jipipe.utils.PathUtils;
 import org.hkijena.jipipe.utils.json.JsonUtils;
 
@@ -106,6 +111,7 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
     private final OmniposeSegmentationThresholdSettings segmentationThresholdSettings;
     private final Cellpose2SegmentationOutputSettings segmentationOutputSettings;
     private final Cellpose2ChannelSettings channelSettings;
+    private final CellposeBatchingSettings batchingSettings;
 
     private OptionalDoubleParameter diameter = new OptionalDoubleParameter(30.0, true);
     private boolean enable3DSegmentation = true;
@@ -121,6 +127,7 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         this.segmentationThresholdSettings = new OmniposeSegmentationThresholdSettings();
         this.segmentationOutputSettings = new Cellpose2SegmentationOutputSettings();
         this.channelSettings = new Cellpose2ChannelSettings();
+        this.batchingSettings = new CellposeBatchingSettings();
 
         updateOutputSlots();
 
@@ -129,6 +136,7 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         registerSubParameter(segmentationOutputSettings);
         registerSubParameter(gpuSettings);
         registerSubParameter(channelSettings);
+        registerSubParameter(batchingSettings);
     }
 
     public Omnipose0InferenceAlgorithm(Omnipose0InferenceAlgorithm other) {
@@ -138,6 +146,7 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         this.segmentationThresholdSettings = new OmniposeSegmentationThresholdSettings(other.segmentationThresholdSettings);
         this.segmentationOutputSettings = new Cellpose2SegmentationOutputSettings(other.segmentationOutputSettings);
         this.channelSettings = new Cellpose2ChannelSettings(other.channelSettings);
+        this.batchingSettings = new CellposeBatchingSettings(other.batchingSettings);
 
         this.diameter = new OptionalDoubleParameter(other.diameter);
         this.diameterAnnotation = new OptionalTextAnnotationNameParameter(other.diameterAnnotation);
@@ -153,6 +162,7 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         registerSubParameter(segmentationOutputSettings);
         registerSubParameter(gpuSettings);
         registerSubParameter(channelSettings);
+        registerSubParameter(batchingSettings);
     }
 
     @Override
@@ -214,59 +224,83 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         }
     }
 
+    @Override
+    protected boolean isProcessingIterationStepsTogether() {
+        // Allows the inputs of all iteration steps to share Omnipose invocations
+        return batchingSettings.isEnabled();
+    }
+
+    @Override
+    protected void runIterations(List<JIPipeMultiIterationStep> iterationSteps, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        runInference(iterationSteps, progressInfo);
+    }
+
     @Override
     protected void runIteration(JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
-        Path workDirectory = getNewScratch();
-        progressInfo.log("Work directory is " + workDirectory);
-
-        progressInfo.log("Collecting models ...");
-        List<CellposeModelInfo> modelInfos = new ArrayList<>();
-        JIPipeInputDataSlot modelSlot = getInputSlot("Model");
-        for (int modelRow : iterationStep.getInputRows(modelSlot)) {
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model row " + modelRow);
-            CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, modelProgress);
-            CellposeSizeModelData sizeModelData = null;
+        runInference(Collections.singletonList(iterationStep), progressInfo);
+    }
+
+    private void runInference(List<JIPipeMultiIterationStep> iterationSteps, JIPipeProgressInfo progressInfo) {
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            progressInfo.log("Work directory is " + workDirectory);
+
+            progressInfo.log("Collecting models and batches ...");
+            JIPipeInputDataSlot modelSlot = getInputSlot("Model");
+            Map<Integer, List<List<CellposeBatchItem>>> batches = CellposeUtils.createInferenceBatches(iterationSteps, getInputSlot("Input"), modelSlot, batchingSettings, progressInfo);
+
+            int modelIndex = 0;
+            for (Map.Entry<Integer, List<List<CellposeBatchItem>>> entry : batches.entrySet()) {
+                JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", modelIndex++, batches.size());
+                CellposeModelInfo modelInfo = createModelInfo(modelSlot, entry.getKey(), workDirectory, modelProgress);
+
+                List<List<CellposeBatchItem>> modelBatches = entry.getValue();
+                for (int i = 0; i < modelBatches.size(); i++) {
+                    if (progressInfo.isCancelled())
+                        return;
+                    JIPipeProgressInfo batchProgress = modelBatches.size() > 1 ? modelProgress.resolve("Batch", i, modelBatches.size()) : modelProgress;
+                    processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, modelBatches.get(i), batchProgress);
+                }
+            }
+        } finally {
+            // Cleanup
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            }
+        }
+    }
+
+    private CellposeModelInfo createModelInfo(JIPipeInputDataSlot modelSlot, int modelRow, Path workDirectory, JIPipeProgressInfo progressInfo) {
+        CellposeModelData modelData = modelSlot.getData(modelRow, CellposeModelData.class, progressInfo);
+        CellposeSizeModelData sizeModelData = null;
 //            if(sizeModelAnnotationName.isEnabled() && !StringUtils.isNullOrEmpty(sizeModelAnnotationName.getContent())) {
 //                JIPipeDataAnnotation dataAnnotation = getInputSlot("Model").getDataAnnotation(modelRow, sizeModelAnnotationName.getContent());
 //                if(dataAnnotation != null) {
-//                    sizeModelData = dataAnnotation.getData(CellposeSizeModelData.class, modelProgress);
+//                    sizeModelData = dataAnnotation.getData(CellposeSizeModelData.class, progressInfo);
 //                }
 //            }
 
-            // Save the model out
-            CellposeModelInfo modelInfo = new CellposeModelInfo();
-            modelInfo.annotationList = modelSlot.getTextAnnotations(modelRow);
-            if (modelData.isPretrained()) {
-                modelInfo.modelPretrained = true;
-                modelInfo.modelNameOrPath = modelData.getPretrainedModelName();
-            } else {
-                Path tempDirectory = PathUtils.createTempSubDirectory(workDirectory.resolve("models"), "model");
-                modelData.exportData(new JIPipeFileSystemWriteDataStorage(modelProgress, tempDirectory), null, false, modelProgress);
-                modelInfo.modelPretrained = false;
-                modelInfo.modelNameOrPath = tempDirectory.resolve(modelData.getMetadata().getName()).toString();
-            }
+        // Save the model out
+        CellposeModelInfo modelInfo = new CellposeModelInfo();
+        modelInfo.annotationList = modelSlot.getTextAnnotations(modelRow);
+        if (modelData.isPretrained()) {
+            modelInfo.modelPretrained = true;
+            modelInfo.modelNameOrPath = modelData.getPretrainedModelName();
+        } else {
+            Path tempDirectory = PathUtils.createTempSubDirectory(workDirectory.resolve("models"), "model");
+            modelData.exportData(new JIPipeFileSystemWriteDataStorage(progressInfo, tempDirectory), null, false, progressInfo);
+            modelInfo.modelPretrained = false;
+            modelInfo.modelNameOrPath = tempDirectory.resolve(modelData.getMetadata().getName()).toString();
+        }
 //            if(sizeModelData != null) {
 //                Path tempDirectory = PathUtils.createTempDirectory(workDirectory.resolve("models"), "size-model");
-//                sizeModelData.exportData(new JIPipeFileSystemWriteDataStorage(modelProgress, tempDirectory), null, false, modelProgress);
+//                sizeModelData.exportData(new JIPipeFileSystemWriteDataStorage(progressInfo, tempDirectory), null, false, progressInfo);
 //                modelInfo.sizeModelNameOrPath = tempDirectory.resolve(sizeModelData.getMetadata().getName()).toString();
 //            }
-
-            modelInfos.add(modelInfo);
-        }
-
-        for (int i = 0; i < modelInfos.size(); i++) {
-            CellposeModelInfo modelInfo = modelInfos.get(i);
-            JIPipeProgressInfo modelProgress = progressInfo.resolve("Model", i, modelInfos.size());
-            processModel(PathUtils.createTempSubDirectory(workDirectory, "run"), modelInfo, iterationStep, iterationContext, runContext, modelProgress);
-        }
-
-        // Cleanup
-        if (cleanUpAfterwards) {
-            PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
-        }
+        return modelInfo;
     }
 
-    private void processModel(Path workDirectory, CellposeModelInfo modelInfo, JIPipeMultiIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+    private void processModel(Path workDirectory, CellposeModelInfo modelInfo, List<CellposeBatchItem> items, JIPipeProgressInfo progressInfo) {
         // We need a 2D and a 3D branch due to incompatibilities on the side of Cellpose
         final Path io2DPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "io-2d");
         final Path io3DPath = PathUtils.resolveAndMakeSubDirectory(workDirectory, "io-3d");
@@ -275,7 +309,7 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         List<CellposeImageInfo> runWith3D = new ArrayList<>();
 
         // Save input images
-        saveInputImages(iterationStep, progressInfo.resolve("Export input images"), io2DPath, io3DPath, runWith2D, runWith3D);
+        saveInputImages(items, progressInfo.resolve("Export input images"), io2DPath, io3DPath, runWith2D, runWith3D);
 
         // Run Cellpose
         if (!runWith2D.isEmpty()) {
@@ -289,9 +323,14 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         progressInfo.log("Deploying script to extract Omnipose *.npy results ...");
         Path npyExtractorScript = workDirectory.resolve("extract-cellpose2-npy.py");
         CellposePlugin.RESOURCES.exportResourceToFile("extract-cellpose2-npy.py", npyExtractorScript);
+        // Raw pixel buffers are only used together with shared memory. Otherwise, TIFF files are extracted as before.
+        boolean useRawExchange = JIPipeRuntimeApplicationSettings.isSharedMemoryExchangeEnabled();
         if (!runWith2D.isEmpty()) {
             List<String> arguments = new ArrayList<>();
             arguments.add(npyExtractorScript.toString());
+            if (useRawExchange) {
+                arguments.add("--raw");
+            }
             if (!segmentationOutputSettings.isOutputROI())
                 arguments.add("--skip-roi");
             arguments.add(io2DPath.toString());
@@ -306,6 +345,9 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         if (!runWith3D.isEmpty()) {
             List<String> arguments = new ArrayList<>();
             arguments.add(npyExtractorScript.toString());
+            if (useRawExchange) {
+                arguments.add("--raw");
+            }
             if (!segmentationOutputSettings.isOutputROI())
                 arguments.add("--skip-roi");
             arguments.add(io3DPath.toString());
@@ -320,10 +362,10 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
 
         // Fetch the data from the directory
         for (CellposeImageInfo imageInfo : runWith2D) {
-            extractDataFromInfo(modelInfo, iterationStep, imageInfo, io2DPath, progressInfo.resolve("Importing results row " + imageInfo.sourceRow));
+            extractDataFromInfo(modelInfo, imageInfo.iterationStep, imageInfo, io2DPath, progressInfo.resolve("Importing results row " + imageInfo.sourceRow));
         }
         for (CellposeImageInfo imageInfo : runWith3D) {
-            extractDataFromInfo(modelInfo, iterationStep, imageInfo, io3DPath, progressInfo.resolve("Importing results row " + imageInfo.sourceRow));
+            extractDataFromInfo(modelInfo, imageInfo.iterationStep, imageInfo, io3DPath, progressInfo.resolve("Importing results row " + imageInfo.sourceRow));
         }
     }
 
@@ -384,12 +426,17 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         Map<ImageSliceIndex, ImagePlus> sliceMap = new HashMap<>();
         for (Map.Entry<ImageSliceIndex, String> entry : imageInfo.sliceBaseNames.entrySet()) {
             Path imageFile = ioPath.resolve(entry.getValue() + basePathSuffix);
-            progressInfo.log("Reading: " + imageFile);
+            Path rawBasePath = ioPath.resolve(entry.getValue() + StringUtils.removeEnd(basePathSuffix, ".tif"));
             ImagePlus slice;
-            if (useBioFormats) {
+            if (ImageJRawExchangeUtils.exists(rawBasePath)) {
+                progressInfo.log("Reading (raw): " + rawBasePath);
+                slice = ImageJRawExchangeUtils.readImage(rawBasePath);
+            } else if (useBioFormats) {
+                progressInfo.log("Reading: " + imageFile);
                 OMEImageData omeImageData = OMEImageData.simpleOMEImport(imageFile);
                 slice = omeImageData.getImage();
             } else {
+                progressInfo.log("Reading: " + imageFile);
                 slice = IJ.openImage(imageFile.toString());
             }
             if (slice == null) {
@@ -539,8 +586,11 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
                 progressInfo);
     }
 
-    private void saveInputImages(JIPipeMultiIterationStep iterationStep, JIPipeProgressInfo progressInfo, Path io2DPath, Path io3DPath, List<CellposeImageInfo> runWith2D, List<CellposeImageInfo> runWith3D) {
-        for (int row : iterationStep.getInputRows("Input")) {
+    private void saveInputImages(List<CellposeBatchItem> items, JIPipeProgressInfo progressInfo, Path io2DPath, Path io3DPath, List<CellposeImageInfo> runWith2D, List<CellposeImageInfo> runWith3D) {
+        for (int i = 0; i < items.size(); i++) {
+            CellposeBatchItem item = items.get(i);
+            int row = item.getInputRow();
+            String rowName = "i" + i + "_" + row;
             JIPipeProgressInfo rowProgress = progressInfo.resolve("Data row " + row);
 
             ImagePlus img = getInputSlot("Input").getData(row, ImagePlusData.class, rowProgress).getImage();
@@ -552,12 +602,12 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
             }
             if (img.getNSlices() == 1) {
                 // Output the image as-is
-                String baseName = row + "_";
+                String baseName = rowName + "_";
                 Path outputPath = io2DPath.resolve(baseName + ".tif");
                 IJ.saveAsTiff(img, outputPath.toString());
 
                 // Create info
-                CellposeImageInfo info = new CellposeImageInfo(row);
+                CellposeImageInfo info = new CellposeImageInfo(row, item.getIterationStep());
                 info.sliceBaseNames.put(new ImageSliceIndex(-1, -1, -1), baseName);
                 runWith2D.add(info);
             } else {
@@ -571,23 +621,23 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
                     }
 
                     // Output the image as-is
-                    String baseName = row + "_";
+                    String baseName = rowName + "_";
                     Path outputPath = io3DPath.resolve(baseName + ".tif");
                     IJ.saveAsTiff(img, outputPath.toString());
 
                     // Create info
-                    CellposeImageInfo info = new CellposeImageInfo(row);
+                    CellposeImageInfo info = new CellposeImageInfo(row, item.getIterationStep());
                     info.sliceBaseNames.put(new ImageSliceIndex(-1, -1, -1), baseName);
                     runWith3D.add(info);
                 } else {
                     rowProgress.log("3D mode not active, but 3D image detected -> Image will be split into 2D slices.");
 
-                    CellposeImageInfo info = new CellposeImageInfo(row);
+                    CellposeImageInfo info = new CellposeImageInfo(row, item.getIterationStep());
 
                     // Split the 3D image into slices
                     ImageJIterationUtils.forEachIndexedZCTSlice(img, (ip, index) -> {
                         ImagePlus sliceImage = new ImagePlus(index.toString(), ip);
-                        String baseName = row + "_z" + index.getZ() + "_c" + index.getC() + "_t" + index.getT() + "_";
+                        String baseName = rowName + "_z" + index.getZ() + "_c" + index.getC() + "_t" + index.getT() + "_";
                         Path outputPath = io2DPath.resolve(baseName + ".tif");
                         IJ.saveAsTiff(sliceImage, outputPath.toString());
 
@@ -661,6 +711,12 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
         return segmentationOutputSettings;
     }
 
+    @SetJIPipeDocumentation(name = "Omnipose: Batching", description = "Controls how inputs are grouped into Omnipose invocations.")
+    @JIPipeParameter(value = "batching-parameters", collapsed = true, resourceClass = OmniposePlugin.class, iconURL = "/org/hkijena/jipipe/plugins/omnipose/icons/omnipose.png")
+    public CellposeBatchingSettings getBatchingSettings() {
+        return batchingSettings;
+    }
+
     @SetJIPipeDocumentation(name = "Omnipose: GPU", description = "Controls how the graphics card is utilized.")
     @JIPipeParameter(value = "gpu-parameters", collapsed = true, resourceClass = OmniposePlugin.class, iconURL = "/org/hkijena/jipipe/plugins/omnipose/icons/omnipose.png")
     public Cellpose2GPUSettings getGpuSettings() {
@@ -685,10 +741,12 @@ public class Omnipose0InferenceAlgorithm extends JIPipeSingleIterationAlgorithm
 
     private static class CellposeImageInfo {
         private final int sourceRow;
+        private final JIPipeMultiIterationStep iterationStep;
         private final Map<ImageSliceIndex, String> sliceBaseNames;
 
-        private CellposeImageInfo(int sourceRow) {
+        private CellposeImageInfo(int sourceRow, JIPipeMultiIterationStep iterationStep) {
             this.sourceRow = sourceRow;
+            this.iterationStep = iterationStep;
             this.sliceBaseNames = new HashMap<>();
         }
 
@@ -34,6 +34,7 @@ import org.hkijena.jipipe.api.validation.contexts.ParameterValidationReportConte
 import org.hkijena.jipipe.plugins.parameters.library.scripts.PythonScript;
 import org.hkijena.jipipe.plugins.python.OptionalPythonEnvironment;
 import org.hkijena.jipipe.plugins.python.PythonUtils;
+import org.hkijena.jipipe.utils.PathUtils;
 import org.hkijena.jipipe.utils.scripting.JythonUtils;
 
 import java.nio.file.Path;
@@ -146,31 +147,32 @@ public class PythonScriptAlgorithm extends JIPipeParameterSlotAlgorithm implemen
         // Add user variables
         PythonUtils.parametersToPython(code, scriptParameters);
 
-        Path workDirectory = getNewScratch();
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            // Install input slots
+            Map<String, Path> inputSlotPaths = PythonUtils.installInputSlots(code, getDataInputSlots(), workDirectory, progressInfo);
 
-        // Install input slots
-        Map<String, Path> inputSlotPaths = PythonUtils.installInputSlots(code, getDataInputSlots(), workDirectory, progressInfo);
+            // Install output slots
+            Map<String, Path> outputSlotPaths = PythonUtils.installOutputSlots(code, getOutputSlots(), workDirectory, progressInfo);
 
-        // Install output slots
-        Map<String, Path> outputSlotPaths = PythonUtils.installOutputSlots(code, getOutputSlots(), workDirectory, progressInfo);
+            // Add main code
+            code.append("\n").append(this.code.getCode(getProjectDirectory())).append("\n");
 
-        // Add main code
-        code.append("\n").append(this.code.getCode(getProjectDirectory())).append("\n");
+            // Add postprocessor code
+            PythonUtils.addPostprocessorCode(code, getOutputSlots());
 
-        // Add postprocessor code
-        PythonUtils.addPostprocessorCode(code, getOutputSlots());
+            // Run Python
+            PythonUtils.runPython(code.toString(),
+                    getConfiguredPythonEnvironment(),
+                    Collections.emptyList(), suppressLogs, progressInfo);
 
-        // Run Python
-        PythonUtils.runPython(code.toString(),
-                getConfiguredPythonEnvironment(),
-                Collections.emptyList(), suppressLogs, progressInfo);
-
-        // Extract outputs
-        PythonUtils.extractOutputs(outputSlotPaths, getOutputSlots(), progressInfo);
-
-        // Clean up
-        if (cleanUpAfterwards) {
-            PythonUtils.cleanup(inputSlotPaths, outputSlotPaths, progressInfo);
+            // Extract outputs
+            PythonUtils.extractOutputs(outputSlotPaths, getOutputSlots(), progressInfo);
+        } finally {
+            // Clean up
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
+            }
         }
     }
 
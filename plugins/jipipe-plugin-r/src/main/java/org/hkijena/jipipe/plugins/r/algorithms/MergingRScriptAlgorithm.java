@@ -151,65 +151,66 @@ public class MergingRScriptAlgorithm extends JIPipeMergingAlgorithm implements R
         // Add annotations
         RUtils.textAnnotationsToR(code, iterationStep.getMergedTextAnnotations().values());
 
-        Path workDirectory = getNewScratch();
-
-        Map<String, Path> inputSlotPaths = new HashMap<>();
-        List<JIPipeInputDataSlot> dummySlots = new ArrayList<>();
-        for (JIPipeDataSlot slot : getDataInputSlots()) {
-            Path tempPath = workDirectory.resolve("inputs").resolve(slot.getName());
-            try {
-                Files.createDirectories(tempPath);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        Path workDirectory = getNewExchangeScratch();
+        try {
+            Map<String, Path> inputSlotPaths = new HashMap<>();
+            List<JIPipeInputDataSlot> dummySlots = new ArrayList<>();
+            for (JIPipeDataSlot slot : getDataInputSlots()) {
+                Path tempPath = workDirectory.resolve("inputs").resolve(slot.getName());
+                try {
+                    Files.createDirectories(tempPath);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                progressInfo.log("Input slot '" + slot.getName() + "' is stored in " + tempPath);
+                JIPipeInputDataSlot dummy = (JIPipeInputDataSlot) iterationStep.toDummySlot(slot.getInfo(), this, slot, progressInfo);
+                dummy.exportData(new JIPipeFileSystemWriteDataStorage(progressInfo, tempPath), progressInfo);
+                inputSlotPaths.put(slot.getName(), tempPath);
+                dummySlots.add(dummy);
             }
-            progressInfo.log("Input slot '" + slot.getName() + "' is stored in " + tempPath);
-            JIPipeInputDataSlot dummy = (JIPipeInputDataSlot) iterationStep.toDummySlot(slot.getInfo(), this, slot, progressInfo);
-            dummy.exportData(new JIPipeFileSystemWriteDataStorage(progressInfo, tempPath), progressInfo);
-            inputSlotPaths.put(slot.getName(), tempPath);
-            dummySlots.add(dummy);
-        }
-
-        RUtils.inputSlotsToR(code, inputSlotPaths, dummySlots);
-        RUtils.installInputLoaderCode(code);
 
-        Map<String, Path> outputSlotPaths = new HashMap<>();
-        for (JIPipeDataSlot slot : getOutputSlots()) {
-            Path tempPath = workDirectory.resolve("outputs").resolve(slot.getName());
-            try {
-                Files.createDirectories(tempPath);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            RUtils.inputSlotsToR(code, inputSlotPaths, dummySlots);
+            RUtils.installInputLoaderCode(code);
+
+            Map<String, Path> outputSlotPaths = new HashMap<>();
+            for (JIPipeDataSlot slot : getOutputSlots()) {
+                Path tempPath = workDirectory.resolve("outputs").resolve(slot.getName());
+                try {
+                    Files.createDirectories(tempPath);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                progressInfo.log("Output slot '" + slot.getName() + "' is stored in " + tempPath);
+                outputSlotPaths.put(slot.getName(), tempPath);
             }
-            progressInfo.log("Output slot '" + slot.getName() + "' is stored in " + tempPath);
-            outputSlotPaths.put(slot.getName(), tempPath);
-        }
-        RUtils.outputSlotsToR(code, getOutputSlots(), outputSlotPaths);
-        RUtils.installOutputGeneratorCode(code);
-
-        code.append("\n").append(script.getCode(getProjectDirectory())).append("\n");
-        RUtils.installPostprocessorCode(code);
-
-        progressInfo.log(code.toString());
-
-        // Export as script and run it
-        RUtils.runR(code.toString(),
-                getConfiguredREnvironment(),
-                progressInfo);
-
-        for (JIPipeOutputDataSlot outputSlot : getOutputSlots()) {
-            Path storagePath = outputSlotPaths.get(outputSlot.getName());
-            JIPipeDataTableInfo table = JIPipeDataTableInfo.loadFromJson(outputSlotPaths.get(outputSlot.getName()).resolve("data-table.json"));
-            for (int row = 0; row < table.getRowCount(); row++) {
-                JIPipeDataInfo dataInfo = table.getDataTypeOf(row);
-                Path rowStoragePath = table.getRowStoragePath(storagePath, row);
-                JIPipeData data = JIPipe.importData(new JIPipeFileSystemReadDataStorage(progressInfo, rowStoragePath), dataInfo.getDataClass(), progressInfo);
-                iterationStep.addOutputData(outputSlot, data, table.getRowList().get(row).getTextAnnotations(), annotationMergeStrategy, progressInfo);
+            RUtils.outputSlotsToR(code, getOutputSlots(), outputSlotPaths);
+            RUtils.installOutputGeneratorCode(code);
+
+            code.append("\n").append(script.getCode(getProjectDirectory())).append("\n");
+            RUtils.installPostprocessorCode(code);
+
+            progressInfo.log(code.toString());
+
+            // Export as script and run it
+            RUtils.runR(code.toString(),
+                    getConfiguredREnvironment(),
+                    progressInfo);
+
+            for (JIPipeOutputDataSlot outputSlot : getOutputSlots()) {
+                Path storagePath = outputSlotPaths.get(outputSlot.getName());
+                JIPipeDataTableInfo table = JIPipeDataTableInfo.loadFromJson(outputSlotPaths.get(outputSlot.getName()).resolve("data-table.json"));
+                for (int row = 0; row < table.getRowCount(); row++) {
+                    JIPipeDataInfo dataInfo = table.getDataTypeOf(row);
+                    Path rowStoragePath = table.getRowStoragePath(storagePath, row);
+                    JIPipeData data = JIPipe.importData(new JIPipeFileSystemReadDataStorage(progressInfo, rowStoragePath), dataInfo.getDataClass(), progressInfo);
+                    iterationStep.addOutputData(outputSlot, data, table.getRowList().get(row).getTextAnnotations(), annotationMergeStrategy, progressInfo);
+                }
+            }
+        } finally {
+            // Clean up
+            if (cleanUpAfterwards) {
+                PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
             }
-        }
-
-        // Clean up
-        if (cleanUpAfterwards) {
-            PathUtils.deleteDirectoryRecursively(workDirectory, progressInfo.resolve("Cleanup"));
         }
     }
 
@@ -88,6 +88,7 @@ public class Scene3DPlugin extends JIPipePrepackagedDefaultJavaPlugin {
         registerDatatype("scene-3d", Scene3DData.class, RESOURCES.getIcon16URLFromResources("data-type-scene3d.png"));
 
         registerNodeType("mask-to-3d-mesh", MaskTo3DMeshAlgorithm.class, UIUtils.getIconURLFromResources("actions/shape-cuboid.png"));
+        registerNodeType("labels-to-3d-mesh", LabelsTo3DMeshAlgorithm.class, UIUtils.getIconURLFromResources("actions/shape-cuboid.png"));
         registerNodeType("export-3d-scene-to-collada", ExportScene3DToColladaAlgorithm.class, UIUtils.getIconURLFromResources("actions/document-export.png"));
         registerNodeType("export-3d-scene-to-collada-v2", ExportScene3DToColladaAlgorithm2.class, UIUtils.getIconURLFromResources("actions/document-export.png"));
         registerNodeType("group-scene-3d", GroupSceneAlgorithm.class, UIUtils.getIconURLFromResources("actions/object-group.png"));
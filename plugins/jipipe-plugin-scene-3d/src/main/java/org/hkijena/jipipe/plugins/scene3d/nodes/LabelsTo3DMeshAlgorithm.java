@@ -0,0 +1,208 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.scene3d.nodes;
+
+import ij.ImagePlus;
+import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.api.SetJIPipeDocumentation;
+import org.hkijena.jipipe.api.nodes.AddJIPipeInputSlot;
+import org.hkijena.jipipe.api.nodes.AddJIPipeOutputSlot;
+import org.hkijena.jipipe.api.nodes.JIPipeGraphNodeRunContext;
+import org.hkijena.jipipe.api.nodes.JIPipeNodeInfo;
+import org.hkijena.jipipe.api.nodes.algorithm.JIPipeSimpleIteratingAlgorithm;
+import org.hkijena.jipipe.api.nodes.categories.ImagesNodeTypeCategory;
+import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
+import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
+import org.hkijena.jipipe.api.parameters.JIPipeParameter;
+import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.d3.greyscale.ImagePlus3DGreyscaleData;
+import org.hkijena.jipipe.plugins.parameters.api.enums.EnumParameterSettings;
+import org.hkijena.jipipe.plugins.parameters.library.colors.ColorMapEnumItemInfo;
+import org.hkijena.jipipe.plugins.parameters.library.colors.OptionalColorMapParameter;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
+import org.hkijena.jipipe.plugins.parameters.library.quantities.Quantity;
+import org.hkijena.jipipe.plugins.scene3d.datatypes.Scene3DData;
+import org.hkijena.jipipe.plugins.scene3d.model.geometries.Scene3DIndexedMeshGeometry;
+import org.hkijena.jipipe.plugins.scene3d.utils.IndexedMarchingCubes;
+import org.hkijena.jipipe.utils.StringUtils;
+
+import java.awt.*;
+import java.util.Map;
+
+@SetJIPipeDocumentation(name = "Labels to 3D scene", description = "Applies the 'Marching cubes' algorithm to convert each label of a 3D label image into a 3D mesh. " +
+        "All labels are processed in one pass over the image. The zero label is ignored. " +
+        "Each mesh is identical to the one generated by 'Mask to 3D scene' for the mask of the label.")
+@ConfigureJIPipeNode(nodeTypeCategory = ImagesNodeTypeCategory.class, menuPath = "Labels")
+@AddJIPipeInputSlot(value = ImagePlus3DGreyscaleData.class, name = "Input", create = true)
+@AddJIPipeOutputSlot(value = Scene3DData.class, name = "Output", create = true)
+public class LabelsTo3DMeshAlgorithm extends JIPipeSimpleIteratingAlgorithm {
+
+    private String meshName = "Label ";
+    private Color meshColor = Color.RED;
+    private OptionalColorMapParameter mapMeshColor = new OptionalColorMapParameter();
+    private Quantity.LengthUnit meshLengthUnit = Quantity.LengthUnit.mm;
+    private boolean forceMeshLengthUnit = true;
+
+    private boolean physicalSizes = true;
+    private int slabSize = 16;
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
+
+    public LabelsTo3DMeshAlgorithm(JIPipeNodeInfo info) {
+        super(info);
+        this.mapMeshColor.setEnabled(true);
+    }
+
+    public LabelsTo3DMeshAlgorithm(LabelsTo3DMeshAlgorithm other) {
+        super(other);
+        this.meshName = other.meshName;
+        this.meshColor = other.meshColor;
+        this.mapMeshColor = new OptionalColorMapParameter(other.mapMeshColor);
+        this.meshLengthUnit = other.meshLengthUnit;
+        this.forceMeshLengthUnit = other.forceMeshLengthUnit;
+        this.physicalSizes = other.physicalSizes;
+        this.slabSize = other.slabSize;
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
+    }
+
+    @SetJIPipeDocumentation(name = "Mesh length", description = "If 'Force mesh length' and 'Physical dimensions' are enabled, scale the mesh to that 1 unit in its coordinate system is of the specified unit.")
+    @JIPipeParameter("mesh-length-unit")
+    public Quantity.LengthUnit getMeshLengthUnit() {
+        return meshLengthUnit;
+    }
+
+    @JIPipeParameter("mesh-length-unit")
+    public void setMeshLengthUnit(Quantity.LengthUnit meshLengthUnit) {
+        this.meshLengthUnit = meshLengthUnit;
+    }
+
+    @SetJIPipeDocumentation(name = "Force mesh length", description = "If this option and 'Physical dimensions' are enabled, scale the mesh to that 1 unit in its coordinate system is of the unit specified in 'Mesh length'.")
+    @JIPipeParameter("force-mesh-length-unit")
+    public boolean isForceMeshLengthUnit() {
+        return forceMeshLengthUnit;
+    }
+
+    @JIPipeParameter("force-mesh-length-unit")
+    public void setForceMeshLengthUnit(boolean forceMeshLengthUnit) {
+        this.forceMeshLengthUnit = forceMeshLengthUnit;
+    }
+
+    @SetJIPipeDocumentation(name = "Physical sizes", description = "If enabled, the physical voxel size is considered during the generation of the mesh")
+    @JIPipeParameter("physical-sizes")
+    public boolean isPhysicalSizes() {
+        return physicalSizes;
+    }
+
+    @JIPipeParameter("physical-sizes")
+    public void setPhysicalSizes(boolean physicalSizes) {
+        this.physicalSizes = physicalSizes;
+    }
+
+    @SetJIPipeDocumentation(name = "Mesh name prefix", description = "The name of each generated mesh is this prefix followed by the label")
+    @JIPipeParameter("mesh-name")
+    public String getMeshName() {
+        return meshName;
+    }
+
+    @JIPipeParameter("mesh-name")
+    public void setMeshName(String meshName) {
+        this.meshName = meshName;
+    }
+
+    @SetJIPipeDocumentation(name = "Map mesh color", description = "If enabled, the color (diffuse) of each mesh is assigned via a color map (ordered by label). Otherwise, the mesh color is applied to all meshes.")
+    @JIPipeParameter("map-mesh-color")
+    @EnumParameterSettings(itemInfo = ColorMapEnumItemInfo.class)
+    public OptionalColorMapParameter getMapMeshColor() {
+        return mapMeshColor;
+    }
+
+    @JIPipeParameter("map-mesh-color")
+    public void setMapMeshColor(OptionalColorMapParameter mapMeshColor) {
+        this.mapMeshColor = mapMeshColor;
+    }
+
+    @SetJIPipeDocumentation(name = "Mesh color", description = "The color (diffuse) of the meshes")
+    @JIPipeParameter("mesh-color")
+    public Color getMeshColor() {
+        return meshColor;
+    }
+
+    @JIPipeParameter("mesh-color")
+    public void setMeshColor(Color meshColor) {
+        this.meshColor = meshColor;
+    }
+
+    @SetJIPipeDocumentation(name = "Slab size", description = "The volume is split into slabs of the specified number of Z layers that are processed in parallel. " +
+            "Smaller slabs reduce the memory that is required during the generation of the mesh.")
+    @JIPipeParameter("slab-size")
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    @JIPipeParameter("slab-size")
+    public boolean setSlabSize(int slabSize) {
+        if (slabSize <= 0) {
+            return false;
+        }
+        this.slabSize = slabSize;
+        return true;
+    }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for generating the mesh. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
+        ImagePlus imp = iterationStep.getInputData(getFirstInputSlot(), ImagePlus3DGreyscaleData.class, progressInfo).getImage();
+        progressInfo.log("Marching cubes ...");
+        float[] voxDim = IndexedMarchingCubes.getVoxelDimensions(imp, physicalSizes, forceMeshLengthUnit, meshLengthUnit);
+        Map<Integer, Scene3DIndexedMeshGeometry> meshes;
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled()) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        try {
+            meshes = IndexedMarchingCubes.marchingCubesLabels(imp, 0, 0, voxDim, slabSize, threadPool, progressInfo);
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
+        Scene3DData scene3DData = new Scene3DData();
+        int index = 0;
+        for (Map.Entry<Integer, Scene3DIndexedMeshGeometry> entry : meshes.entrySet()) {
+            Scene3DIndexedMeshGeometry meshObject = entry.getValue();
+            meshObject.setName(StringUtils.nullToEmpty(meshName) + entry.getKey());
+            if (mapMeshColor.isEnabled()) {
+                meshObject.setColor(mapMeshColor.getContent().apply(meshes.size() > 1 ? 1.0 * index / (meshes.size() - 1) : 0));
+            } else {
+                meshObject.setColor(meshColor);
+            }
+            scene3DData.add(meshObject);
+            ++index;
+        }
+        iterationStep.addOutputData(getFirstOutputSlot(), scene3DData, progressInfo);
+    }
+}
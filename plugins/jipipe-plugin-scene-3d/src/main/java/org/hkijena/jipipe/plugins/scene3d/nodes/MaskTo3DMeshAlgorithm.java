@@ -15,6 +15,7 @@ package org.hkijena.jipipe.plugins.scene3d.nodes;
 
 import ij.ImagePlus;
 import org.hkijena.jipipe.api.ConfigureJIPipeNode;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
 import org.hkijena.jipipe.api.JIPipeProgressInfo;
 import org.hkijena.jipipe.api.SetJIPipeDocumentation;
 import org.hkijena.jipipe.api.nodes.AddJIPipeInputSlot;
@@ -27,15 +28,16 @@ import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeIterationContext;
 import org.hkijena.jipipe.api.nodes.iterationstep.JIPipeSingleIterationStep;
 import org.hkijena.jipipe.api.parameters.JIPipeParameter;
 import org.hkijena.jipipe.plugins.imagejdatatypes.datatypes.d3.greyscale.ImagePlus3DGreyscaleMaskData;
+import org.hkijena.jipipe.plugins.parameters.library.primitives.optional.OptionalIntegerParameter;
 import org.hkijena.jipipe.plugins.parameters.library.quantities.Quantity;
 import org.hkijena.jipipe.plugins.scene3d.datatypes.Scene3DData;
-import org.hkijena.jipipe.plugins.scene3d.model.geometries.Scene3DUnindexedMeshGeometry;
-import org.hkijena.jipipe.plugins.scene3d.utils.MarchingCubes;
-import org.hkijena.jipipe.plugins.scene3d.utils.Scene3DUtils;
+import org.hkijena.jipipe.plugins.scene3d.model.geometries.Scene3DIndexedMeshGeometry;
+import org.hkijena.jipipe.plugins.scene3d.utils.IndexedMarchingCubes;
 
 import java.awt.*;
 
-@SetJIPipeDocumentation(name = "Mask to 3D scene", description = "Applies the 'Marching cubes' algorithm to convert a 3D mask into a 3D mesh.")
+@SetJIPipeDocumentation(name = "Mask to 3D scene", description = "Applies the 'Marching cubes' algorithm to convert a 3D mask into a 3D mesh. " +
+        "The generated mesh is indexed (vertices are shared between faces).")
 @ConfigureJIPipeNode(nodeTypeCategory = ImagesNodeTypeCategory.class, menuPath = "Binary")
 @AddJIPipeInputSlot(value = ImagePlus3DGreyscaleMaskData.class, name = "Input", create = true)
 @AddJIPipeOutputSlot(value = Scene3DData.class, name = "Output", create = true)
@@ -47,7 +49,8 @@ public class MaskTo3DMeshAlgorithm extends JIPipeSimpleIteratingAlgorithm {
     private boolean forceMeshLengthUnit = true;
 
     private boolean physicalSizes = true;
-
+    private int slabSize = 16;
+    private OptionalIntegerParameter numThreads = new OptionalIntegerParameter(false, 0);
 
     public MaskTo3DMeshAlgorithm(JIPipeNodeInfo info) {
         super(info);
@@ -60,6 +63,8 @@ public class MaskTo3DMeshAlgorithm extends JIPipeSimpleIteratingAlgorithm {
         this.meshLengthUnit = other.meshLengthUnit;
         this.forceMeshLengthUnit = other.forceMeshLengthUnit;
         this.physicalSizes = other.physicalSizes;
+        this.slabSize = other.slabSize;
+        this.numThreads = new OptionalIntegerParameter(other.numThreads);
     }
 
     @SetJIPipeDocumentation(name = "Mesh length", description = "If 'Force mesh length' and 'Physical dimensions' are enabled, scale the mesh to that 1 unit in its coordinate system is of the specified unit.")
@@ -117,17 +122,54 @@ public class MaskTo3DMeshAlgorithm extends JIPipeSimpleIteratingAlgorithm {
         this.meshColor = meshColor;
     }
 
+    @SetJIPipeDocumentation(name = "Slab size", description = "The volume is split into slabs of the specified number of Z layers that are processed in parallel. " +
+            "Smaller slabs reduce the memory that is required during the generation of the mesh.")
+    @JIPipeParameter("slab-size")
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    @JIPipeParameter("slab-size")
+    public boolean setSlabSize(int slabSize) {
+        if (slabSize <= 0) {
+            return false;
+        }
+        this.slabSize = slabSize;
+        return true;
+    }
+
+    @SetJIPipeDocumentation(name = "Override number of threads", description = "If enabled, set the number of threads that are utilized for generating the mesh. " +
+            "Set to zero for automated assignment of threads. If disabled, the threads of the current run are used.")
+    @JIPipeParameter("num-threads")
+    public OptionalIntegerParameter getNumThreads() {
+        return numThreads;
+    }
+
+    @JIPipeParameter("num-threads")
+    public void setNumThreads(OptionalIntegerParameter numThreads) {
+        this.numThreads = numThreads;
+    }
+
     @Override
     protected void runIteration(JIPipeSingleIterationStep iterationStep, JIPipeIterationContext iterationContext, JIPipeGraphNodeRunContext runContext, JIPipeProgressInfo progressInfo) {
         ImagePlus imp = iterationStep.getInputData(getFirstInputSlot(), ImagePlus3DGreyscaleMaskData.class, progressInfo).getImage();
         progressInfo.log("Marching cubes ...");
-        float[] vertices = MarchingCubes.marchingCubes(imp, 0, 0, 0, 0, physicalSizes, forceMeshLengthUnit, meshLengthUnit);
-        progressInfo.log("Calculating normals ...");
-        float[] normals = Scene3DUtils.generateUnindexedVertexNormalsFlat(vertices);
-        boolean[] mask = Scene3DUtils.findUnindexedNaNNormalVertices(vertices, normals);
-        vertices = Scene3DUtils.filterArray(vertices, mask, false);
-        normals = Scene3DUtils.filterArray(normals, mask, false);
-        Scene3DUnindexedMeshGeometry meshObject = new Scene3DUnindexedMeshGeometry(vertices, normals);
+        float[] voxDim = IndexedMarchingCubes.getVoxelDimensions(imp, physicalSizes, forceMeshLengthUnit, meshLengthUnit);
+        Scene3DIndexedMeshGeometry meshObject;
+        JIPipeFixedThreadPool threadPool = runContext.getThreadPool();
+        boolean isCustomThreadPool = false;
+        if (numThreads.isEnabled()) {
+            threadPool = new JIPipeFixedThreadPool(numThreads.getContent() > 0 ? numThreads.getContent() : Runtime.getRuntime().availableProcessors());
+            isCustomThreadPool = true;
+        }
+        try {
+            meshObject = IndexedMarchingCubes.marchingCubes(imp, 0, 0, 0, voxDim, slabSize, threadPool, progressInfo);
+        } finally {
+            if (isCustomThreadPool) {
+                threadPool.shutdown();
+            }
+        }
+        meshObject.setName(meshName);
         meshObject.setColor(meshColor);
         Scene3DData scene3DData = new Scene3DData();
         scene3DData.add(meshObject);
@@ -0,0 +1,475 @@
+/*
+ * Copyright by Zoltán Cseresnyés, Ruman Gerst
+ *
+ * Research Group Applied Systems Biology - Head: Prof. Dr. Marc Thilo Figge
+ * https://www.leibniz-hki.de/en/applied-systems-biology.html
+ * HKI-Center for Systems Biology of Infection
+ * Leibniz Institute for Natural Product Research and Infection Biology - Hans Knöll Institute (HKI)
+ * Adolf-Reichwein-Straße 23, 07745 Jena, Germany
+ *
+ * The project code is licensed under MIT.
+ * See the LICENSE file provided with the code for the full license.
+ */
+
+package org.hkijena.jipipe.plugins.scene3d.utils;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+import org.hkijena.jipipe.api.JIPipeFixedThreadPool;
+import org.hkijena.jipipe.api.JIPipeProgressInfo;
+import org.hkijena.jipipe.plugins.imagejdatatypes.util.ImageJUtils;
+import org.hkijena.jipipe.plugins.parameters.library.quantities.Quantity;
+import org.hkijena.jipipe.plugins.scene3d.model.geometries.Scene3DIndexedMeshGeometry;
+import org.joml.Vector3f;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Marching cubes implementation that directly generates indexed meshes.
+ * The volume is split into slabs along the Z axis that are processed in parallel. Each slab only holds two planes of the image at once.
+ * Vertices are identified by the grid edge (or grid corner) they are located on, which allows to de-duplicate them without comparing positions.
+ * Slabs are processed in waves of (number of threads) slabs and merged in order, so only the results of one wave are kept in memory before merging.
+ * The generated geometry is the same as the one generated by {@link MarchingCubes} (including the triangle winding and the flat normals),
+ * but without duplicate vertices and without degenerate triangles.
+ */
+public class IndexedMarchingCubes {
+
+    /**
+     * Offsets of the cube corners (standard marching cubes numbering)
+     */
+    private static final int[][] CORNER_OFFSETS = {
+            {0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0},
+            {0, 0, 1}, {1, 0, 1}, {1, 1, 1}, {0, 1, 1}};
+
+    /**
+     * The corners of each edge. The first corner is always the one with the lower coordinate.
+     */
+    private static final int[][] EDGE_CORNERS = {
+            {0, 1}, {1, 2}, {3, 2}, {0, 3},
+            {4, 5}, {5, 6}, {7, 6}, {4, 7},
+            {0, 4}, {1, 5}, {2, 6}, {3, 7}};
+
+    /**
+     * The axis of each edge (0 = X, 1 = Y, 2 = Z)
+     */
+    private static final int[] EDGE_AXES = {0, 1, 0, 1, 0, 1, 0, 1, 2, 2, 2, 2};
+
+    /**
+     * Key type for vertices that are located exactly on a grid corner
+     */
+    private static final int CORNER_KEY = 3;
+
+    /**
+     * Calculates the size of a voxel in the mesh coordinate system
+     *
+     * @param img                 the image
+     * @param physicalSizes       if the physical voxel size should be considered
+     * @param forceMeshLengthUnit if the mesh should be scaled to the mesh length unit
+     * @param meshLengthUnit      the mesh length unit
+     * @return the voxel size (X, Y, Z)
+     */
+    public static float[] getVoxelDimensions(ImagePlus img, boolean physicalSizes, boolean forceMeshLengthUnit, Quantity.LengthUnit meshLengthUnit) {
+        float voxDimX = 1;
+        float voxDimY = 1;
+        float voxDimZ = 1;
+
+        if (physicalSizes) {
+            voxDimX = (float) img.getCalibration().pixelWidth;
+            voxDimY = (float) img.getCalibration().pixelHeight;
+            voxDimZ = (float) img.getCalibration().pixelDepth;
+            if (forceMeshLengthUnit) {
+                Quantity inputQuantity = new Quantity(1, img.getCalibration().getUnits());
+                Quantity outputQuantity = inputQuantity.convertTo(meshLengthUnit.toString());
+                voxDimX *= outputQuantity.getValue();
+                voxDimY *= outputQuantity.getValue();
+                voxDimZ *= outputQuantity.getValue();
+            }
+        }
+        return new float[]{voxDimX, voxDimY, voxDimZ};
+    }
+
+    /**
+     * Applies marching cubes to a greyscale image. Voxels with a value above the iso level are considered to be inside the mesh.
+     *
+     * @param img          the image
+     * @param channel      the channel (zero-based)
+     * @param frame        the frame (zero-based)
+     * @param isoLevel     the iso level
+     * @param voxDim       the voxel dimensions (see getVoxelDimensions)
+     * @param slabSize     the number of cube layers that are processed per task
+     * @param threadPool   the thread pool (can be null for sequential processing)
+     * @param progressInfo the progress info
+     * @return the mesh
+     */
+    public static Scene3DIndexedMeshGeometry marchingCubes(ImagePlus img, int channel, int frame, double isoLevel, float[] voxDim, int slabSize, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        Map<Integer, Scene3DIndexedMeshGeometry> meshes = run(img, channel, frame, (float) isoLevel, false, voxDim, slabSize, threadPool, progressInfo);
+        Scene3DIndexedMeshGeometry mesh = meshes.get(0);
+        if (mesh == null) {
+            mesh = new Scene3DIndexedMeshGeometry(new float[0], new float[0], new int[0], new int[0]);
+        }
+        return mesh;
+    }
+
+    /**
+     * Applies marching cubes to a label image in one pass. One mesh is generated for each label (zero is ignored).
+     * The meshes are the same as if marching cubes would have been applied to the mask of each label.
+     *
+     * @param img          the label image
+     * @param channel      the channel (zero-based)
+     * @param frame        the frame (zero-based)
+     * @param voxDim       the voxel dimensions (see getVoxelDimensions)
+     * @param slabSize     the number of cube layers that are processed per task
+     * @param threadPool   the thread pool (can be null for sequential processing)
+     * @param progressInfo the progress info
+     * @return map from label to the mesh (sorted by label)
+     */
+    public static Map<Integer, Scene3DIndexedMeshGeometry> marchingCubesLabels(ImagePlus img, int channel, int frame, float[] voxDim, int slabSize, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        return run(img, channel, frame, 0, true, voxDim, slabSize, threadPool, progressInfo);
+    }
+
+    private static Map<Integer, Scene3DIndexedMeshGeometry> run(ImagePlus img, int channel, int frame, float isoLevel, boolean labels, float[] voxDim, int slabSize, JIPipeFixedThreadPool threadPool, JIPipeProgressInfo progressInfo) {
+        int numThreads = threadPool != null ? threadPool.getMaxThreads() : 1;
+        slabSize = Math.max(1, slabSize);
+
+        // Make sure the stack is available before accessing it from multiple threads
+        img.getStack();
+
+        int numLayers = img.getNSlices() - 1;
+        List<int[]> slabs = new ArrayList<>();
+        for (int z = 0; z < numLayers; z += slabSize) {
+            slabs.add(new int[]{z, Math.min(numLayers, z + slabSize)});
+        }
+
+        Map<Integer, MeshBuilder> builders = new TreeMap<>();
+        try {
+            for (int waveStart = 0; waveStart < slabs.size(); waveStart += numThreads) {
+                if (progressInfo.isCancelled()) {
+                    return new TreeMap<>();
+                }
+                int waveEnd = Math.min(slabs.size(), waveStart + numThreads);
+                progressInfo.log("Slabs " + (waveStart + 1) + "-" + waveEnd + "/" + slabs.size());
+
+                List<Map<Integer, SlabMesh>> results = new ArrayList<>();
+                List<Runnable> tasks = new ArrayList<>();
+                for (int i = waveStart; i < waveEnd; i++) {
+                    int[] slab = slabs.get(i);
+                    int resultIndex = results.size();
+                    results.add(null);
+                    tasks.add(() -> results.set(resultIndex, processSlab(img, channel, frame, slab[0], slab[1], isoLevel, labels, voxDim, progressInfo)));
+                }
+
+                if (numThreads <= 1 || tasks.size() <= 1) {
+                    for (Runnable task : tasks) {
+                        task.run();
+                    }
+                } else {
+                    for (Future<Exception> future : threadPool.scheduleBatches(tasks, 1)) {
+                        Exception exception = future.get();
+                        if (exception != null) {
+                            throw new RuntimeException(exception);
+                        }
+                    }
+                }
+
+                if (progressInfo.isCancelled()) {
+                    return new TreeMap<>();
+                }
+
+                // Merge in order
+                for (int i = 0; i < results.size(); i++) {
+                    int slabIndex = waveStart + i;
+                    for (Map.Entry<Integer, SlabMesh> entry : results.get(i).entrySet()) {
+                        builders.computeIfAbsent(entry.getKey(), key -> new MeshBuilder()).add(slabIndex, slabs.get(slabIndex)[0], entry.getValue(), img.getWidth(), img.getHeight());
+                    }
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        Map<Integer, Scene3DIndexedMeshGeometry> result = new TreeMap<>();
+        for (Map.Entry<Integer, MeshBuilder> entry : builders.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().build());
+        }
+        return result;
+    }
+
+    private static float[] readPlane(ImagePlus img, int channel, int z, int frame) {
+        ImageProcessor ip = ImageJUtils.getSliceZero(img, channel, z, frame);
+        float[] plane = new float[ip.getPixelCount()];
+        for (int i = 0; i < plane.length; i++) {
+            plane[i] = ip.getf(i);
+        }
+        return plane;
+    }
+
+    private static Map<Integer, SlabMesh> processSlab(ImagePlus img, int channel, int frame, int zStart, int zEnd, float isoLevel, boolean labels, float[] voxDim, JIPipeProgressInfo progressInfo) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        Map<Integer, SlabMesh> meshes = new HashMap<>();
+        float[] cornerValues = new float[8];
+        float[] labelValues = new float[8];
+        int[] cubeLabels = new int[8];
+        int[] edgeVertices = new int[12];
+
+        float[] lower = readPlane(img, channel, zStart, frame);
+        for (int z = zStart; z < zEnd; z++) {
+            if (progressInfo.isCancelled()) {
+                return meshes;
+            }
+            float[] upper = readPlane(img, channel, z + 1, frame);
+            for (int y = 0; y < height - 1; y++) {
+                for (int x = 0; x < width - 1; x++) {
+                    int i = x + y * width;
+                    cornerValues[0] = lower[i];
+                    cornerValues[1] = lower[i + 1];
+                    cornerValues[2] = lower[i + width + 1];
+                    cornerValues[3] = lower[i + width];
+                    cornerValues[4] = upper[i];
+                    cornerValues[5] = upper[i + 1];
+                    cornerValues[6] = upper[i + width + 1];
+                    cornerValues[7] = upper[i + width];
+
+                    if (labels) {
+                        // Find the labels that are present in the cube and handle them as masks (1 inside, 0 outside)
+                        int numLabels = 0;
+                        for (int c = 0; c < 8; c++) {
+                            int label = (int) cornerValues[c];
+                            if (label != 0) {
+                                boolean found = false;
+                                for (int l = 0; l < numLabels; l++) {
+                                    if (cubeLabels[l] == label) {
+                                        found = true;
+                                        break;
+                                    }
+                                }
+                                if (!found) {
+                                    cubeLabels[numLabels++] = label;
+                                }
+                            }
+                        }
+                        for (int l = 0; l < numLabels; l++) {
+                            int label = cubeLabels[l];
+                            for (int c = 0; c < 8; c++) {
+                                labelValues[c] = (int) cornerValues[c] == label ? 1 : 0;
+                            }
+                            int cubeIndex = getCubeIndex(labelValues, 0);
+                            if (MarchingCubes.MC_EDGE_TABLE[cubeIndex] != 0) {
+                                polygonizeCube(x, y, z, width, height, cubeIndex, labelValues, 0, voxDim, edgeVertices,
+                                        meshes.computeIfAbsent(label, key -> new SlabMesh()));
+                            }
+                        }
+                    } else {
+                        int cubeIndex = getCubeIndex(cornerValues, isoLevel);
+                        if (MarchingCubes.MC_EDGE_TABLE[cubeIndex] != 0) {
+                            polygonizeCube(x, y, z, width, height, cubeIndex, cornerValues, isoLevel, voxDim, edgeVertices,
+                                    meshes.computeIfAbsent(0, key -> new SlabMesh()));
+                        }
+                    }
+                }
+            }
+            lower = upper;
+        }
+        return meshes;
+    }
+
+    private static int getCubeIndex(float[] values, float isoLevel) {
+        int cubeIndex = 0;
+        for (int c = 0; c < 8; c++) {
+            if (values[c] > isoLevel) {
+                cubeIndex |= 1 << c;
+            }
+        }
+        return cubeIndex;
+    }
+
+    private static void polygonizeCube(int x, int y, int z, int width, int height, int cubeIndex, float[] values, float isoLevel, float[] voxDim, int[] edgeVertices, SlabMesh mesh) {
+        int bits = MarchingCubes.MC_EDGE_TABLE[cubeIndex];
+        for (int e = 0; e < 12; e++) {
+            if ((bits & (1 << e)) == 0) {
+                continue;
+            }
+            int a = EDGE_CORNERS[e][0];
+            int b = EDGE_CORNERS[e][1];
+            float mu = (isoLevel - values[a]) / (values[b] - values[a]);
+            int ax = x + CORNER_OFFSETS[a][0];
+            int ay = y + CORNER_OFFSETS[a][1];
+            int az = z + CORNER_OFFSETS[a][2];
+            int bx = x + CORNER_OFFSETS[b][0];
+            int by = y + CORNER_OFFSETS[b][1];
+            int bz = z + CORNER_OFFSETS[b][2];
+            if (mu <= 0) {
+                // Located on the lower corner
+                edgeVertices[e] = mesh.getOrAddVertex(getKey(ax, ay, az, width, height, CORNER_KEY),
+                        ax * voxDim[0] - 0.5f, ay * voxDim[1] - 0.5f, az * voxDim[2] - 0.5f);
+            } else if (mu >= 1) {
+                // Located on the upper corner
+                edgeVertices[e] = mesh.getOrAddVertex(getKey(bx, by, bz, width, height, CORNER_KEY),
+                        bx * voxDim[0] - 0.5f, by * voxDim[1] - 0.5f, bz * voxDim[2] - 0.5f);
+            } else {
+                float px = ax * voxDim[0];
+                float py = ay * voxDim[1];
+                float pz = az * voxDim[2];
+                edgeVertices[e] = mesh.getOrAddVertex(getKey(ax, ay, az, width, height, EDGE_AXES[e]),
+                        px + (bx * voxDim[0] - px) * mu - 0.5f,
+                        py + (by * voxDim[1] - py) * mu - 0.5f,
+                        pz + (bz * voxDim[2] - pz) * mu - 0.5f);
+            }
+        }
+
+        // Same winding as MarchingCubes
+        int offset = cubeIndex << 4;
+        for (int i = 0; MarchingCubes.MC_TRI_TABLE[offset + i] != -1; i += 3) {
+            mesh.addTriangle(edgeVertices[MarchingCubes.MC_TRI_TABLE[offset + i + 2]],
+                    edgeVertices[MarchingCubes.MC_TRI_TABLE[offset + i + 1]],
+                    edgeVertices[MarchingCubes.MC_TRI_TABLE[offset + i]]);
+        }
+    }
+
+    private static long getKey(int x, int y, int z, int width, int height, int type) {
+        return ((((long) z * height + y) * width + x) << 2) | type;
+    }
+
+    private static int getKeyZ(long key, int width, int height) {
+        return (int) ((key >>> 2) / ((long) width * height));
+    }
+
+    /**
+     * Mesh generated from one slab
+     */
+    private static class SlabMesh {
+        private final TFloatArrayList vertices = new TFloatArrayList();
+        private final TLongArrayList vertexKeys = new TLongArrayList();
+        private final TLongIntHashMap vertexIndices = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1, -1);
+        private final TFloatArrayList normals = new TFloatArrayList();
+        private final TObjectIntMap<Vector3f> normalIndices = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+        private final TIntArrayList verticesIndex = new TIntArrayList();
+        private final TIntArrayList normalsIndex = new TIntArrayList();
+
+        private int getOrAddVertex(long key, float x, float y, float z) {
+            int index = vertexIndices.get(key);
+            if (index < 0) {
+                index = vertexKeys.size();
+                vertexIndices.put(key, index);
+                vertexKeys.add(key);
+                vertices.add(x);
+                vertices.add(y);
+                vertices.add(z);
+            }
+            return index;
+        }
+
+        private void addTriangle(int a, int b, int c) {
+            if (a == b || b == c || a == c) {
+                return;
+            }
+            float ax = vertices.get(a * 3);
+            float ay = vertices.get(a * 3 + 1);
+            float az = vertices.get(a * 3 + 2);
+            float bax = vertices.get(b * 3) - ax;
+            float bay = vertices.get(b * 3 + 1) - ay;
+            float baz = vertices.get(b * 3 + 2) - az;
+            float cax = vertices.get(c * 3) - ax;
+            float cay = vertices.get(c * 3 + 1) - ay;
+            float caz = vertices.get(c * 3 + 2) - az;
+
+            float crossProductX = bay * caz - baz * cay;
+            float crossProductY = baz * cax - bax * caz;
+            float crossProductZ = bax * cay - bay * cax;
+            float magnitude = (float) Math.sqrt(crossProductX * crossProductX + crossProductY * crossProductY + crossProductZ * crossProductZ);
+
+            // Degenerate triangle (would have a NaN normal)
+            if (!(magnitude > 0)) {
+                return;
+            }
+
+            Vector3f normal = new Vector3f(crossProductX / magnitude, crossProductY / magnitude, crossProductZ / magnitude);
+            int normalIndex = normalIndices.get(normal);
+            if (normalIndex < 0) {
+                normalIndex = normalIndices.size();
+                normalIndices.put(normal, normalIndex);
+                normals.add(normal.x);
+                normals.add(normal.y);
+                normals.add(normal.z);
+            }
+
+            verticesIndex.add(a);
+            verticesIndex.add(b);
+            verticesIndex.add(c);
+            normalsIndex.add(normalIndex);
+            normalsIndex.add(normalIndex);
+            normalsIndex.add(normalIndex);
+        }
+    }
+
+    /**
+     * Merges the slab meshes (in order) into one indexed mesh
+     */
+    private static class MeshBuilder {
+        private final TFloatArrayList vertices = new TFloatArrayList();
+        private final TFloatArrayList normals = new TFloatArrayList();
+        private final TObjectIntMap<Vector3f> normalIndices = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+        private final TIntArrayList verticesIndex = new TIntArrayList();
+        private final TIntArrayList normalsIndex = new TIntArrayList();
+        private int lastSlabIndex = -1;
+        private SlabMesh lastSlab;
+        private int[] lastVertexMapping;
+
+        private void add(int slabIndex, int slabZStart, SlabMesh slab, int width, int height) {
+            // Only vertices on the first plane of the slab can be shared with the previous slab
+            SlabMesh previousSlab = lastSlabIndex == slabIndex - 1 ? lastSlab : null;
+            int[] vertexMapping = new int[slab.vertexKeys.size()];
+            for (int i = 0; i < vertexMapping.length; i++) {
+                long key = slab.vertexKeys.get(i);
+                int previousIndex = -1;
+                if (previousSlab != null && getKeyZ(key, width, height) == slabZStart) {
+                    previousIndex = previousSlab.vertexIndices.get(key);
+                }
+                if (previousIndex >= 0) {
+                    vertexMapping[i] = lastVertexMapping[previousIndex];
+                } else {
+                    vertexMapping[i] = vertices.size() / 3;
+                    vertices.add(slab.vertices.get(i * 3));
+                    vertices.add(slab.vertices.get(i * 3 + 1));
+                    vertices.add(slab.vertices.get(i * 3 + 2));
+                }
+            }
+
+            int[] normalMapping = new int[slab.normals.size() / 3];
+            for (int i = 0; i < normalMapping.length; i++) {
+                Vector3f normal = new Vector3f(slab.normals.get(i * 3), slab.normals.get(i * 3 + 1), slab.normals.get(i * 3 + 2));
+                int index = normalIndices.get(normal);
+                if (index < 0) {
+                    index = normalIndices.size();
+                    normalIndices.put(normal, index);
+                    normals.add(normal.x);
+                    normals.add(normal.y);
+                    normals.add(normal.z);
+                }
+                normalMapping[i] = index;
+            }
+
+            for (int i = 0; i < slab.verticesIndex.size(); i++) {
+                verticesIndex.add(vertexMapping[slab.verticesIndex.get(i)]);
+                normalsIndex.add(normalMapping[slab.normalsIndex.get(i)]);
+            }
+
+            lastSlabIndex = slabIndex;
+            lastSlab = slab;
+            lastVertexMapping = vertexMapping;
+        }
+
+        private Scene3DIndexedMeshGeometry build() {
+            return new Scene3DIndexedMeshGeometry(vertices.toArray(), normals.toArray(), verticesIndex.toArray(), normalsIndex.toArray());
+        }
+    }
+}